@@ -6,24 +6,37 @@
  */
 package com.bitmark.apiservice;
 
+import com.bitmark.apiservice.cache.GenesisCache;
+import com.bitmark.apiservice.cache.ResponseCache;
+import com.bitmark.apiservice.configuration.ClientConfiguration;
 import com.bitmark.apiservice.configuration.GlobalConfiguration;
 import com.bitmark.apiservice.configuration.Network;
+import com.bitmark.apiservice.middleware.Converter;
+import com.bitmark.apiservice.middleware.RateLimiter;
 import com.bitmark.apiservice.params.*;
 import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
 import com.bitmark.apiservice.params.query.QueryParams;
 import com.bitmark.apiservice.response.*;
 import com.bitmark.apiservice.utils.Pair;
+import com.bitmark.apiservice.utils.RequestHandle;
+import com.bitmark.apiservice.utils.SingleFlight;
 import com.bitmark.apiservice.utils.callback.Callback1;
-import com.bitmark.apiservice.utils.record.AssetRecord;
-import com.bitmark.apiservice.utils.record.BitmarkRecord;
-import com.bitmark.apiservice.utils.record.ShareGrantRecord;
-import com.bitmark.apiservice.utils.record.ShareRecord;
+import com.bitmark.apiservice.utils.callback.Cancellable;
+import com.bitmark.apiservice.utils.callback.ExecutorCallback;
+import com.bitmark.apiservice.utils.error.HttpException;
+import com.bitmark.apiservice.utils.record.*;
 import okhttp3.Headers;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static com.bitmark.apiservice.middleware.Converter.*;
-import static com.bitmark.apiservice.utils.Awaitility.await;
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
 
 public class ApiService implements BitmarkApi {
 
@@ -33,97 +46,288 @@ public class ApiService implements BitmarkApi {
 
     private static final String V3 = "v3";
 
+    private final String endpoint;
+
     private HttpClient client;
 
+    private final ResponseCache cache;
+
+    private static final int GENESIS_CACHE_SIZE = 1024;
+
+    private final GenesisCache genesisCache;
+
+    private final SingleFlight singleFlight;
+
+    private final RateLimiter readRateLimiter;
+
+    private final RateLimiter writeRateLimiter;
+
+    private final ClientConfiguration configuration;
+
+    private final Executor callbackExecutor;
+
+    private final long deadline; // disabled
+
     private static volatile ApiService INSTANCE;
 
     public static ApiService getInstance() {
         if (INSTANCE == null) {
             synchronized (ApiService.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = new ApiService();
+                    INSTANCE = new ApiService(GlobalConfiguration.clientConfiguration());
                 }
             }
         }
         return INSTANCE;
     }
 
-    private ApiService() {
-        final String endpoint = GlobalConfiguration.network() ==
-                                        Network.TEST_NET
-                                ? TEST_NET_ENDPOINT
-                                : LIVE_NET_ENDPOINT;
+    /**
+     * Create a client of its own configuration, independent of the
+     * {@link GlobalConfiguration} and of {@link #getInstance()}. Clients configured with the
+     * same {@code OkHttpClient}, see
+     * {@link GlobalConfiguration.Builder#withOkHttpClient}, share its connections and
+     * threads.
+     */
+    public ApiService(ClientConfiguration configuration) {
+        checkNonNull(configuration);
+        this.configuration = configuration;
+        this.callbackExecutor = configuration.getCallbackExecutor();
+        if (configuration.getEndpoint() != null) {
+            this.endpoint = configuration.getEndpoint();
+        } else {
+            this.endpoint = configuration.getNetwork() ==
+                                    Network.TEST_NET
+                            ? TEST_NET_ENDPOINT
+                            : LIVE_NET_ENDPOINT;
+        }
+        this.readRateLimiter = rateLimiter(
+                configuration.getReadRateLimit(),
+                configuration.getReadRateLimitBurst()
+        );
+        this.writeRateLimiter = rateLimiter(
+                configuration.getWriteRateLimit(),
+                configuration.getWriteRateLimitBurst()
+        );
         this.client = new HttpClientImpl(
+                configuration,
                 endpoint,
-                GlobalConfiguration.apiToken()
+                readRateLimiter,
+                writeRateLimiter
+        );
+        this.cache = configuration.getResponseCache();
+        this.genesisCache = new GenesisCache(GENESIS_CACHE_SIZE);
+        this.singleFlight = configuration.isRequestCoalescing()
+                            ? new SingleFlight()
+                            : null;
+        this.deadline = 0;
+    }
+
+    private ApiService(ApiService api, long deadline) {
+        this.configuration = api.configuration;
+        this.callbackExecutor = api.callbackExecutor;
+        this.endpoint = api.endpoint;
+        this.readRateLimiter = api.readRateLimiter;
+        this.writeRateLimiter = api.writeRateLimiter;
+        this.client = api.client;
+        this.cache = api.cache;
+        this.genesisCache = api.genesisCache;
+        this.singleFlight = api.singleFlight;
+        this.deadline = deadline;
+    }
+
+    /**
+     * @return a view of this client whose calls fail with a
+     * {@link java.util.concurrent.TimeoutException} if they are not finished within
+     * {@code timeout}. The deadline covers all the requests of a call, e.g. both of
+     * {@link #issueBitmark}, and their retries. The view shares the connections, cache
+     * and limiters of this client.
+     */
+    public ApiService withDeadline(long timeout, TimeUnit unit) {
+        checkValid(
+                () -> unit != null && timeout > 0,
+                "timeout must be greater than zero"
         );
+        return new ApiService(this, unit.toMillis(timeout));
+    }
+
+    public ClientConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @return the limiter of the read requests, or {@code null} if reads are not limited
+     */
+    public RateLimiter getReadRateLimiter() {
+        return readRateLimiter;
+    }
+
+    /**
+     * @return the limiter of the issue and transfer requests, or {@code null} if writes
+     * are not limited
+     */
+    public RateLimiter getWriteRateLimiter() {
+        return writeRateLimiter;
     }
 
+    /**
+     * @return the assets this client knows to have their genesis bitmark, learnt from the
+     * issuances and the bitmarks it got
+     */
+    public GenesisCache getGenesisCache() {
+        return genesisCache;
+    }
+
+    /**
+     * Issue the bitmarks, as the genesis bitmark of the asset if it has none yet. Whether
+     * it has is looked up before issuing, unless the asset is in the
+     * {@link #getGenesisCache()}. Params given a signing key with
+     * {@link IssuanceParams#setSigningKey} are only signed for the case that applies.
+     * Params pinned with {@link IssuanceParams#setContainsGenesisBitmarkPinned} are
+     * issued as marked, without the lookup, and unpinned if the issuance is rejected with
+     * a 4xx status other than 429.
+     */
     @Override
-    public void issueBitmark(
+    public Cancellable issueBitmark(
             IssuanceParams params,
-            Callback1<List<BitmarkRecord>> callback
+            Callback1<List<BitmarkRecord>> issueCallback
     ) {
+        final RequestHandle handle = newHandle();
+        final Callback1<List<BitmarkRecord>> callback = bind(handle, issueCallback);
         try {
-
-            String assetId = params.getAssetId();
-            GetBitmarksResponse bitmarksRes = await(bitmarkCallback -> listBitmarks(
+            final String assetId = params.getAssetId();
+            if (params.isContainsGenesisBitmarkPinned()) {
+                issue(params, handle, callback);
+                return handle;
+            }
+            if (genesisCache.hasGenesis(assetId)) {
+                params.setContainsGenesisBitmark(false);
+                issue(params, handle, callback);
+                return handle;
+            }
+            get(
+                    String.format("/%s/bitmarks", V3),
                     new BitmarkQueryBuilder().referencedAsset(assetId)
                             .pending(true)
                             .limit(1)
                             .build(),
-                    bitmarkCallback
-            ));
-
-            params.setContainsGenesisBitmark(bitmarksRes.getBitmarks() != null && bitmarksRes
-                    .getBitmarks()
-                    .isEmpty());
-            final String path = String.format("/%s/issue", V3);
-            client.postAsync(path, params, toIssueResponse(callback));
+                    handle,
+                    Converter::toGetBitmarksResponse,
+                    new Callback1<GetBitmarksResponse>() {
+                        @Override
+                        public void onSuccess(GetBitmarksResponse bitmarksRes) {
+                            try {
+                                final List<BitmarkRecord> bitmarks =
+                                        bitmarksRes.getBitmarks();
+                                if (bitmarks != null && !bitmarks.isEmpty()) {
+                                    genesisCache.putGenesis(assetId);
+                                }
+                                params.setContainsGenesisBitmark(
+                                        bitmarks != null && bitmarks.isEmpty());
+                                issue(params, handle, callback);
+                            } catch (Throwable e) {
+                                callback.onError(e);
+                            }
+                        }
+
+                        @Override
+                        public void onError(Throwable throwable) {
+                            callback.onError(throwable);
+                        }
+                    }
+            );
         } catch (Throwable e) {
             callback.onError(e);
         }
+        return handle;
+    }
+
+    private void issue(
+            IssuanceParams params,
+            RequestHandle handle,
+            Callback1<List<BitmarkRecord>> callback
+    ) {
+        final String assetId = params.getAssetId();
+        final String path = String.format("/%s/issue", V3);
+        client.postAsync(
+                path,
+                null,
+                params,
+                handle,
+                toIssueResponse(new Callback1<List<BitmarkRecord>>() {
+                    @Override
+                    public void onSuccess(List<BitmarkRecord> bitmarks) {
+                        genesisCache.putGenesis(assetId);
+                        callback.onSuccess(bitmarks);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        // the issuance may have been rejected because the genesis
+                        // bitmark is missing, look it up again next time
+                        if (throwable instanceof HttpException &&
+                                ((HttpException) throwable).isRejected()) {
+                            genesisCache.remove(assetId);
+                            params.setContainsGenesisBitmarkPinned(false);
+                        }
+                        callback.onError(throwable);
+                    }
+                })
+        );
     }
 
     @Override
-    public void registerAsset(
+    public Cancellable registerAsset(
             RegistrationParams params,
             Callback1<RegistrationResponse> callback
     ) {
+        final RequestHandle handle = newHandle();
         final String path = String.format("/%s/register-asset", V3);
-        client.postAsync(path, params, toRegistrationResponse(callback));
+        client.postAsync(
+                path,
+                null,
+                params,
+                handle,
+                toRegistrationResponse(bind(handle, callback))
+        );
+        return handle;
     }
 
     @Override
-    public void transferBitmark(
+    public Cancellable transferBitmark(
             TransferParams params,
             Callback1<String> callback
     ) {
+        final RequestHandle handle = newHandle();
         final String path = String.format("/%s/transfer", V3);
-        client.postAsync(path, params, toTxId(callback));
+        client.postAsync(path, null, params, handle, toTxId(bind(handle, callback)));
+        return handle;
     }
 
     @Override
-    public void offerBitmark(
+    public Cancellable offerBitmark(
             TransferOfferParams params,
             Callback1<String> callback
     ) {
+        final RequestHandle handle = newHandle();
         final String path = String.format("/%s/transfer", V3);
-        client.postAsync(path, params, toOfferId(callback));
+        client.postAsync(path, null, params, handle, toOfferId(bind(handle, callback)));
+        return handle;
     }
 
     @Override
-    public void respondBitmarkOffer(
+    public Cancellable respondBitmarkOffer(
             TransferResponseParams params,
             Callback1<String> callback
     ) {
+        final RequestHandle handle = newHandle();
         final String path = String.format("/%s/transfer", V3);
         Headers headers = Headers.of(params.buildHeaders());
-        client.patchAsync(path, headers, params, toTxId(callback));
+        client.patchAsync(path, headers, params, handle, toTxId(bind(handle, callback)));
+        return handle;
     }
 
     @Override
-    public void getBitmark(
+    public Cancellable getBitmark(
             String bitmarkId, boolean includeAsset,
             Callback1<GetBitmarkResponse> callback
     ) {
@@ -134,108 +338,166 @@ public class ApiService implements BitmarkApi {
                 bitmarkId,
                 includeAsset
         );
-        client.getAsync(path, toGetBitmarkResponse(callback));
-
+        return get(
+                path,
+                null,
+                cb -> toGetBitmarkResponse(learnGenesis(
+                        res -> Collections.singletonList(res.getBitmark()),
+                        cb
+                )),
+                callback
+        );
     }
 
     @Override
-    public void listBitmarks(
+    public Cancellable listBitmarks(
             QueryParams params,
             Callback1<GetBitmarksResponse> callback
     ) {
         final String path = String.format("/%s/bitmarks", V3);
-        client.getAsync(path, params, toGetBitmarksResponse(callback));
+        return get(
+                path,
+                params,
+                cb -> toGetBitmarksResponse(learnGenesis(
+                        GetBitmarksResponse::getBitmarks,
+                        cb
+                )),
+                callback
+        );
     }
 
     @Override
-    public void getAsset(String assetId, Callback1<AssetRecord> callback) {
+    public Cancellable getAsset(String assetId, Callback1<AssetRecord> assetCallback) {
+        final RequestHandle handle = newHandle();
+        final Callback1<AssetRecord> callback = bind(handle, assetCallback);
         final String path = String.format("/%s/assets/%s", V3, assetId);
-        client.getAsync(path, toAssetRecord(callback));
+        final String key = "asset:" + assetId;
+        if (fromCache(key, AssetRecord.class, callback)) {
+            return handle;
+        }
+        get(path, null, handle, cb -> toAssetRecord(cached(
+                key,
+                ApiService::isImmutable,
+                cb
+        )), callback);
+        return handle;
     }
 
     @Override
-    public void listAssets(
+    public Cancellable listAssets(
             QueryParams params,
             Callback1<List<AssetRecord>> callback
     ) {
         final String path = String.format("/%s/assets", V3);
-        client.getAsync(path, params, toAssetRecords(callback));
+        return get(path, params, Converter::toAssetRecords, callback);
     }
 
     @Override
-    public void getTransaction(
+    public Cancellable getTransaction(
             String txId, boolean includeAsset,
-            Callback1<GetTransactionResponse> callback
+            Callback1<GetTransactionResponse> txCallback
     ) {
+        final RequestHandle handle = newHandle();
+        final Callback1<GetTransactionResponse> callback = bind(handle, txCallback);
         final String path = String.format(
                 "/%s/txs/%s?asset=%b&pending=true",
                 V3,
                 txId,
                 includeAsset
         );
-        client.getAsync(path, toGetTransactionResponse(callback));
+        final String key = "tx:" + txId + (includeAsset ? ":asset" : "");
+        if (fromCache(key, GetTransactionResponse.class, callback)) {
+            return handle;
+        }
+        get(path, null, handle, cb -> toGetTransactionResponse(cached(
+                key,
+                res -> isImmutable(res.getTransaction()) &&
+                        (res.getAsset() == null || isImmutable(res.getAsset())),
+                cb
+        )), callback);
+        return handle;
     }
 
     @Override
-    public void listTransactions(
+    public Cancellable listTransactions(
             QueryParams params,
             Callback1<GetTransactionsResponse> callback
     ) {
         final String path = String.format("/%s/txs", V3);
-        client.getAsync(path, params, toGetTransactionsResponse(callback));
+        return get(path, params, Converter::toGetTransactionsResponse, callback);
     }
 
     @Override
-    public void createShare(
+    public Cancellable createShare(
             ShareParams params,
             Callback1<Pair<String, String>> callback
     ) {
+        final RequestHandle handle = newHandle();
         final String path = String.format("/%s/shares", V3);
-        client.postAsync(path, params, toCreateShareResponse(callback));
+        client.postAsync(
+                path,
+                null,
+                params,
+                handle,
+                toCreateShareResponse(bind(handle, callback))
+        );
+        return handle;
     }
 
     @Override
-    public void grantShare(
+    public Cancellable grantShare(
             ShareGrantingParams params,
             Callback1<String> callback
     ) {
+        final RequestHandle handle = newHandle();
         final String path = String.format("/%s/share-offer", V3);
-        client.postAsync(path, params, toGrantShareResponse(callback));
+        client.postAsync(
+                path,
+                null,
+                params,
+                handle,
+                toGrantShareResponse(bind(handle, callback))
+        );
+        return handle;
     }
 
     @Override
-    public void respondShareOffer(
+    public Cancellable respondShareOffer(
             GrantResponseParams params,
             Callback1<String> callback
     ) {
+        final RequestHandle handle = newHandle();
         final String path = String.format("/%s/share-offer", V3);
         Headers headers = Headers.of(params.buildHeaders());
-        client.patchAsync(path, headers, params,
-                params.isAccept() ? toTxId(callback) : toStatus(callback)
+        client.patchAsync(path, headers, params, handle,
+                params.isAccept()
+                ? toTxId(bind(handle, callback))
+                : toStatus(bind(handle, callback))
         );
+        return handle;
     }
 
     @Override
-    public void getShare(String shareId, Callback1<ShareRecord> callback) {
+    public Cancellable getShare(String shareId, Callback1<ShareRecord> callback) {
         final String path = String.format(
                 "/%s/shares?share_id=%s",
                 V3,
                 shareId
         );
-        client.getAsync(path, toGetShareResponse(callback));
+        return get(path, null, Converter::toGetShareResponse, callback);
     }
 
     @Override
-    public void listShares(
+    public Cancellable listShares(
             String owner,
             Callback1<List<ShareRecord>> callback
     ) {
         final String path = String.format("/%s/shares?owner=%s", V3, owner);
-        client.getAsync(path, toListSharesResponse(callback));
+        return get(path, null, Converter::toListSharesResponse, callback);
     }
 
     @Override
-    public void listShareOffer(
+    public Cancellable listShareOffer(
             String from,
             String to,
             Callback1<List<ShareGrantRecord>> callback
@@ -246,16 +508,156 @@ public class ApiService implements BitmarkApi {
                 from,
                 to
         );
-        client.getAsync(path, toListShareOffersResponse(callback));
+        return get(path, null, Converter::toListShareOffersResponse, callback);
     }
 
     @Override
-    public void registerWsToken(
+    public Cancellable registerWsToken(
             RegisterWsTokenParams params,
             Callback1<String> callback
     ) {
+        final RequestHandle handle = newHandle();
         final String path = String.format("/%s/ws-auth", V3);
         final Headers header = Headers.of(params.buildHeader());
-        client.postAsync(path, header, params, toWsToken(callback));
+        client.postAsync(path, header, params, handle, toWsToken(bind(handle, callback)));
+        return handle;
+    }
+
+    /**
+     * Send a GET request as a call of its own.
+     */
+    private <T> Cancellable get(
+            String path,
+            QueryParams params,
+            Function<Callback1<T>, Callback1<okhttp3.Response>> converter,
+            Callback1<T> callback
+    ) {
+        final RequestHandle handle = newHandle();
+        get(path, params, handle, converter, bind(handle, callback));
+        return handle;
+    }
+
+    /**
+     * Send a GET request as a step of the call of {@code handle}. Concurrent requests for
+     * the same URL share a single call and its decoded result, the shared call is
+     * cancelled once the handles of all its callers are.
+     */
+    private <T> void get(
+            String path,
+            QueryParams params,
+            RequestHandle handle,
+            Function<Callback1<T>, Callback1<okhttp3.Response>> converter,
+            Callback1<T> callback
+    ) {
+        if (singleFlight == null) {
+            client.getAsync(path, params, handle, converter.apply(callback));
+            return;
+        }
+        final String url = params == null
+                           ? endpoint + path
+                           : endpoint + path + "?" + params.toUrlQuery();
+        final Runnable leave = singleFlight.execute(
+                "GET " + url,
+                (flight, cb) -> client.getAsync(path, params, flight, converter.apply(cb)),
+                callback
+        );
+        handle.attach(leave);
+    }
+
+    private RequestHandle newHandle() {
+        return deadline > 0
+               ? new RequestHandle(deadline, TimeUnit.MILLISECONDS)
+               : new RequestHandle();
+    }
+
+    /**
+     * Wrap the callback to receive the cancellation of the handle and to be invoked on the
+     * configured callback executor, if any.
+     */
+    private <T> Callback1<T> bind(RequestHandle handle, Callback1<T> callback) {
+        return handle.bind(ExecutorCallback.wrap(callbackExecutor, callback));
+    }
+
+    private static RateLimiter rateLimiter(double permitsPerSecond, int burst) {
+        return permitsPerSecond > 0 ? new RateLimiter(permitsPerSecond, burst) : null;
+    }
+
+    private <T> boolean fromCache(String key, Class<T> type, Callback1<T> callback) {
+        if (cache == null) {
+            return false;
+        }
+        T value = cache.get(key, type);
+        if (value == null) {
+            return false;
+        }
+        callback.onSuccess(value);
+        return true;
+    }
+
+    /**
+     * Wrap the callback to store the value in the cache if it will never change.
+     */
+    private <T> Callback1<T> cached(
+            String key,
+            Predicate<T> immutable,
+            Callback1<T> callback
+    ) {
+        if (cache == null) {
+            return callback;
+        }
+        return new Callback1<T>() {
+            @Override
+            public void onSuccess(T data) {
+                if (data != null && immutable.test(data)) {
+                    cache.put(key, data);
+                }
+                callback.onSuccess(data);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                callback.onError(throwable);
+            }
+        };
+    }
+
+    /**
+     * Wrap the callback to learn the assets having their genesis bitmark from the
+     * bitmarks of the response.
+     */
+    private <T> Callback1<T> learnGenesis(
+            Function<T, List<BitmarkRecord>> bitmarks,
+            Callback1<T> callback
+    ) {
+        return new Callback1<T>() {
+            @Override
+            public void onSuccess(T data) {
+                final List<BitmarkRecord> records = data == null
+                                                    ? null
+                                                    : bitmarks.apply(data);
+                if (records != null) {
+                    records.forEach(genesisCache::learn);
+                }
+                callback.onSuccess(data);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                callback.onError(throwable);
+            }
+        };
+    }
+
+    private static boolean isImmutable(AssetRecord asset) {
+        return asset.getStatus() == AssetRecord.Status.CONFIRMED;
+    }
+
+    /**
+     * A confirmed transaction can still become or stop being the head of its bitmark. Once
+     * it is not the head it never changes, except the number of confirmations.
+     */
+    private static boolean isImmutable(TransactionRecord tx) {
+        return tx != null && tx.getStatus() == TransactionRecord.Status.CONFIRMED &&
+                tx.getHead() != null && tx.getHead() != Head.HEAD;
     }
 }
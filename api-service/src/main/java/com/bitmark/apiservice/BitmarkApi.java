@@ -11,6 +11,7 @@ import com.bitmark.apiservice.params.query.QueryParams;
 import com.bitmark.apiservice.response.*;
 import com.bitmark.apiservice.utils.Pair;
 import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.callback.Cancellable;
 import com.bitmark.apiservice.utils.record.AssetRecord;
 import com.bitmark.apiservice.utils.record.BitmarkRecord;
 import com.bitmark.apiservice.utils.record.ShareGrantRecord;
@@ -18,72 +19,76 @@ import com.bitmark.apiservice.utils.record.ShareRecord;
 
 import java.util.List;
 
+/**
+ * The callback based Bitmark API. Every call returns a {@link Cancellable} handle, which
+ * cancels the requests of the call that are still in flight.
+ */
 public interface BitmarkApi {
 
-    void issueBitmark(IssuanceParams params, Callback1<List<BitmarkRecord>> callback);
+    Cancellable issueBitmark(IssuanceParams params, Callback1<List<BitmarkRecord>> callback);
 
-    void registerAsset(
+    Cancellable registerAsset(
             RegistrationParams params,
             Callback1<RegistrationResponse> callback
     );
 
-    void transferBitmark(TransferParams params, Callback1<String> callback);
+    Cancellable transferBitmark(TransferParams params, Callback1<String> callback);
 
-    void offerBitmark(TransferOfferParams params, Callback1<String> callback);
+    Cancellable offerBitmark(TransferOfferParams params, Callback1<String> callback);
 
-    void respondBitmarkOffer(
+    Cancellable respondBitmarkOffer(
             TransferResponseParams params,
             Callback1<String> callback
     );
 
-    void getBitmark(
+    Cancellable getBitmark(
             String bitmarkId,
             boolean includeAsset,
             Callback1<GetBitmarkResponse> callback
     );
 
-    void listBitmarks(
+    Cancellable listBitmarks(
             QueryParams params,
             Callback1<GetBitmarksResponse> callback
     );
 
-    void getAsset(String assetId, Callback1<AssetRecord> callback);
+    Cancellable getAsset(String assetId, Callback1<AssetRecord> callback);
 
-    void listAssets(QueryParams params, Callback1<List<AssetRecord>> callback);
+    Cancellable listAssets(QueryParams params, Callback1<List<AssetRecord>> callback);
 
-    void getTransaction(
+    Cancellable getTransaction(
             String txId, boolean includeAsset,
             Callback1<GetTransactionResponse> callback
     );
 
-    void listTransactions(
+    Cancellable listTransactions(
             QueryParams params,
             Callback1<GetTransactionsResponse> callback
     );
 
-    void createShare(
+    Cancellable createShare(
             ShareParams params,
             Callback1<Pair<String, String>> callback
     );
 
-    void grantShare(ShareGrantingParams params, Callback1<String> callback);
+    Cancellable grantShare(ShareGrantingParams params, Callback1<String> callback);
 
-    void respondShareOffer(
+    Cancellable respondShareOffer(
             GrantResponseParams params,
             Callback1<String> callback
     );
 
-    void getShare(String shareId, Callback1<ShareRecord> callback);
+    Cancellable getShare(String shareId, Callback1<ShareRecord> callback);
 
-    void listShares(String owner, Callback1<List<ShareRecord>> callback);
+    Cancellable listShares(String owner, Callback1<List<ShareRecord>> callback);
 
-    void listShareOffer(
+    Cancellable listShareOffer(
             String from,
             String to,
             Callback1<List<ShareGrantRecord>> callback
     );
 
-    void registerWsToken(
+    Cancellable registerWsToken(
             RegisterWsTokenParams params,
             Callback1<String> callback
     );
@@ -0,0 +1,75 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice;
+
+import com.bitmark.apiservice.params.*;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.response.*;
+import com.bitmark.apiservice.utils.Pair;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.apiservice.utils.record.ShareGrantRecord;
+import com.bitmark.apiservice.utils.record.ShareRecord;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The blocking {@link BitmarkApi} surface. Each call parks the calling thread until the
+ * response arrives, the timeout elapses or the thread is interrupted. Errors are rethrown
+ * as they are delivered to {@link com.bitmark.apiservice.utils.callback.Callback1#onError}.
+ */
+public interface BitmarkApiSync {
+
+    /**
+     * @return a client with the same API that waits at most the given timeout per call
+     */
+    BitmarkApiSync withTimeout(long timeout, TimeUnit unit);
+
+    List<BitmarkRecord> issueBitmark(IssuanceParams params) throws Throwable;
+
+    RegistrationResponse registerAsset(RegistrationParams params) throws Throwable;
+
+    String transferBitmark(TransferParams params) throws Throwable;
+
+    String offerBitmark(TransferOfferParams params) throws Throwable;
+
+    String respondBitmarkOffer(TransferResponseParams params) throws Throwable;
+
+    GetBitmarkResponse getBitmark(
+            String bitmarkId,
+            boolean includeAsset
+    ) throws Throwable;
+
+    GetBitmarksResponse listBitmarks(QueryParams params) throws Throwable;
+
+    AssetRecord getAsset(String assetId) throws Throwable;
+
+    List<AssetRecord> listAssets(QueryParams params) throws Throwable;
+
+    GetTransactionResponse getTransaction(
+            String txId,
+            boolean includeAsset
+    ) throws Throwable;
+
+    GetTransactionsResponse listTransactions(QueryParams params) throws Throwable;
+
+    Pair<String, String> createShare(ShareParams params) throws Throwable;
+
+    String grantShare(ShareGrantingParams params) throws Throwable;
+
+    String respondShareOffer(GrantResponseParams params) throws Throwable;
+
+    ShareRecord getShare(String shareId) throws Throwable;
+
+    List<ShareRecord> listShares(String owner) throws Throwable;
+
+    List<ShareGrantRecord> listShareOffer(String from, String to) throws Throwable;
+
+    String registerWsToken(RegisterWsTokenParams params) throws Throwable;
+
+}
@@ -6,6 +6,7 @@
  */
 package com.bitmark.apiservice;
 
+import com.bitmark.apiservice.configuration.ClientConfiguration;
 import com.bitmark.apiservice.configuration.GlobalConfiguration;
 import com.bitmark.apiservice.configuration.Network;
 import com.bitmark.apiservice.params.RegisterWsTokenParams;
@@ -32,7 +33,18 @@ public class BitmarkWebSocketService implements BitmarkWebSocket {
 
     private final ConnectionEvent connEvent;
 
+    private final ApiService api; // ApiService.getInstance()
+
     public BitmarkWebSocketService(ConnectionEvent event) {
+        this(null, event);
+    }
+
+    /**
+     * Register the web socket token with {@code api} and connect to the web socket endpoint
+     * of its configuration, instead of the ones of the {@link GlobalConfiguration}.
+     */
+    public BitmarkWebSocketService(ApiService api, ConnectionEvent event) {
+        this.api = api;
         this.connEvent = event;
     }
 
@@ -44,32 +56,37 @@ public class BitmarkWebSocketService implements BitmarkWebSocket {
         }
 
         // register token
-        Network network = GlobalConfiguration.network();
+        final ApiService api = api();
+        Network network = api.getConfiguration().getNetwork();
         Address requester = Address.getDefault(keyPair.publicKey(), network);
         RegisterWsTokenParams params = new RegisterWsTokenParams(requester);
         params.sign(keyPair);
-        ApiService.getInstance()
-                .registerWsToken(params, new Callback1<String>() {
-                    @Override
-                    public void onSuccess(String token) {
-                        connect(token, connEvent);
-                    }
+        api.registerWsToken(params, new Callback1<String>() {
+            @Override
+            public void onSuccess(String token) {
+                connect(token, connEvent);
+            }
 
-                    @Override
-                    public void onError(Throwable throwable) {
-                        if (connEvent != null) {
-                            connEvent.onConnectionError(throwable);
-                        }
-                    }
-                });
+            @Override
+            public void onError(Throwable throwable) {
+                if (connEvent != null) {
+                    connEvent.onConnectionError(throwable);
+                }
+            }
+        });
 
     }
 
     private void connect(String token, ConnectionEvent connEvent) {
-        final String endpoint = GlobalConfiguration.network() ==
-                                        Network.TEST_NET
-                                ? WS_ENDPOINT_TEST_NET
-                                : WS_ENDPOINT_LIVE_NET;
+        final ClientConfiguration configuration = api().getConfiguration();
+        final String endpoint;
+        if (configuration.getWebSocketEndpoint() != null) {
+            endpoint = configuration.getWebSocketEndpoint();
+        } else {
+            endpoint = configuration.getNetwork() == Network.TEST_NET
+                       ? WS_ENDPOINT_TEST_NET
+                       : WS_ENDPOINT_LIVE_NET;
+        }
         client = new WebSocketClient(endpoint, token);
         client.setEventListener(new EventListener() {
             @Override
@@ -101,6 +118,10 @@ public class BitmarkWebSocketService implements BitmarkWebSocket {
         client.connect();
     }
 
+    private ApiService api() {
+        return api != null ? api : ApiService.getInstance();
+    }
+
     @Override
     public void disconnect() {
         if (null == client) {
@@ -10,6 +10,7 @@ import okhttp3.Headers;
 import okhttp3.Response;
 import com.bitmark.apiservice.params.Params;
 import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.utils.RequestHandle;
 import com.bitmark.apiservice.utils.callback.Callback1;
 
 public interface HttpClient {
@@ -22,6 +23,17 @@ public interface HttpClient {
             Callback1<Response> callback
     );
 
+    /**
+     * Send the request as a step of the call of {@code handle}, or of no handle if it is
+     * {@code null}. Cancelling the handle cancels the request.
+     */
+    void getAsync(
+            String path,
+            QueryParams params,
+            RequestHandle handle,
+            Callback1<Response> callback
+    );
+
     void postAsync(String path, Params params, Callback1<Response> callback);
 
     void postAsync(
@@ -31,6 +43,14 @@ public interface HttpClient {
             Callback1<Response> callback
     );
 
+    void postAsync(
+            String path,
+            Headers headers,
+            Params params,
+            RequestHandle handle,
+            Callback1<Response> callback
+    );
+
     void patchAsync(String path, Params params, Callback1<Response> callback);
 
     void patchAsync(
@@ -40,7 +60,22 @@ public interface HttpClient {
             Callback1<Response> callback
     );
 
+    void patchAsync(
+            String path,
+            Headers headers,
+            Params params,
+            RequestHandle handle,
+            Callback1<Response> callback
+    );
+
     void deleteAsync(String path, Callback1<Response> callback);
 
     void deleteAsync(String path, Params params, Callback1<Response> callback);
+
+    void deleteAsync(
+            String path,
+            Params params,
+            RequestHandle handle,
+            Callback1<Response> callback
+    );
 }
@@ -6,59 +6,147 @@
  */
 package com.bitmark.apiservice;
 
-import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.configuration.ClientConfiguration;
+import com.bitmark.apiservice.configuration.QueuePolicy;
+import com.bitmark.apiservice.configuration.RetryPolicy;
+import com.bitmark.apiservice.metrics.MetricsRegistry;
 import com.bitmark.apiservice.middleware.BitmarkApiInterceptor;
+import com.bitmark.apiservice.middleware.CircuitBreaker;
+import com.bitmark.apiservice.middleware.GzipRequestInterceptor;
+import com.bitmark.apiservice.middleware.MetricsInterceptor;
+import com.bitmark.apiservice.middleware.ParamsRequestBody;
+import com.bitmark.apiservice.middleware.RateLimiter;
 import com.bitmark.apiservice.params.Params;
 import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.utils.HttpUtils;
+import com.bitmark.apiservice.utils.RequestHandle;
 import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.callback.ExecutorCallback;
+import com.bitmark.apiservice.utils.error.CircuitBreakerOpenException;
 import com.bitmark.apiservice.utils.error.HttpException;
 import com.bitmark.apiservice.utils.error.NetworkException;
 import okhttp3.*;
 import okhttp3.internal.Util;
+import okhttp3.internal.http.HttpDate;
 import okhttp3.logging.HttpLoggingInterceptor;
 
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.Date;
+import java.util.concurrent.*;
 
 class HttpClientImpl implements HttpClient {
 
-    private static final MediaType JSON = MediaType.parse(
-            "application/json; charset=utf-8");
+    private static final ScheduledExecutorService RETRY_SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(Util.threadFactory(
+                    "Bitmark Retry Scheduler",
+                    true
+            ));
 
     private OkHttpClient client;
 
     private String endpoint;
 
-    HttpClientImpl(String endpoint, String apiToken) {
+    private QueuePolicy queuePolicy;
+
+    private RetryPolicy retryPolicy;
+
+    private int circuitBreakerFailureThreshold;
+
+    private long circuitBreakerOpenDuration;
+
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers =
+            new ConcurrentHashMap<>();
+
+    private RateLimiter readRateLimiter;
+
+    private RateLimiter writeRateLimiter;
+
+    private MetricsRegistry metrics;
+
+    private Executor decodeExecutor;
+
+    /**
+     * @param readRateLimiter  limiter of the read requests or {@code null}
+     * @param writeRateLimiter limiter of the issue and transfer requests or {@code null}
+     */
+    HttpClientImpl(
+            ClientConfiguration configuration,
+            String endpoint,
+            RateLimiter readRateLimiter,
+            RateLimiter writeRateLimiter
+    ) {
         this.endpoint = endpoint;
-        client = buildClient(apiToken);
+        this.readRateLimiter = readRateLimiter;
+        this.writeRateLimiter = writeRateLimiter;
+        this.queuePolicy = configuration.getQueuePolicy();
+        this.retryPolicy = configuration.getRetryPolicy();
+        this.circuitBreakerFailureThreshold =
+                configuration.getCircuitBreakerFailureThreshold();
+        this.circuitBreakerOpenDuration = configuration.getCircuitBreakerOpenDuration();
+        this.metrics = configuration.getMetrics();
+        this.decodeExecutor = configuration.getDecodeExecutor();
+        client = buildClient(configuration);
     }
 
-    private OkHttpClient buildClient(String apiToken) {
-        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+    private OkHttpClient buildClient(ClientConfiguration configuration) {
+        // A shared client keeps its connection pool, dispatcher and cache, only the
+        // interceptors and timeouts below are added to the derived one
+        final OkHttpClient shared = configuration.getOkHttpClient();
+        OkHttpClient.Builder builder = shared != null
+                                       ? shared.newBuilder()
+                                       : new OkHttpClient.Builder();
 
         // Add Request Interceptor
-        builder.addInterceptor(new BitmarkApiInterceptor(apiToken));
+        builder.addInterceptor(new BitmarkApiInterceptor(
+                configuration.getApiToken(),
+                configuration.getHttpObserver()
+        ));
+
+        // Add Request Compression
+        long compressionThreshold = configuration.getRequestCompressionThreshold();
+        if (compressionThreshold > 0) {
+            builder.addInterceptor(new GzipRequestInterceptor(compressionThreshold));
+        }
+
+        // Add Metrics
+        if (metrics != null) {
+            builder.addInterceptor(new MetricsInterceptor(metrics));
+        }
 
         // Add Logging
-        if (GlobalConfiguration.logLevel() != null) {
+        if (configuration.getLogLevel() != null) {
             builder.addInterceptor(
-                    new HttpLoggingInterceptor().setLevel(GlobalConfiguration.logLevel()));
+                    new HttpLoggingInterceptor().setLevel(configuration.getLogLevel()));
         }
 
         // Configure the timeout
-        int timeout = GlobalConfiguration.connectionTimeout();
+        int timeout = configuration.getConnectionTimeout();
         builder.readTimeout(timeout, TimeUnit.SECONDS);
         builder.connectTimeout(timeout, TimeUnit.SECONDS);
+
+        if (shared != null) {
+            return builder.build();
+        }
+
+        // Configure the dispatcher. The executor itself never queues nor rejects, the
+        // dispatcher keeps the running calls under maxRequests and queues the rest
         final ExecutorService executorService =
-                new ThreadPoolExecutor(0, 10, 60,
+                new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60,
                         TimeUnit.SECONDS, new SynchronousQueue<>(), Util
                         .threadFactory("OkHttp Dispatcher", false)
                 );
-        builder.dispatcher(new Dispatcher(executorService));
+        Dispatcher dispatcher = new Dispatcher(executorService);
+        dispatcher.setMaxRequests(configuration.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(configuration.getMaxRequestsPerHost());
+        builder.dispatcher(dispatcher);
+
+        // Configure the connection pool and protocols
+        builder.connectionPool(new ConnectionPool(
+                configuration.getMaxIdleConnections(),
+                configuration.getKeepAliveDuration(),
+                TimeUnit.MILLISECONDS
+        ));
+        builder.protocols(configuration.getProtocols());
         return builder.build();
     }
 
@@ -70,6 +158,18 @@ class HttpClientImpl implements HttpClient {
         return getRequestUrl(path) + "?" + params.toUrlQuery();
     }
 
+    /**
+     * The request is tagged with the {@link MetricsRegistry} so that the decoding of the
+     * response can be recorded.
+     */
+    private Request.Builder newRequest(String url) {
+        Request.Builder builder = new Request.Builder().url(url);
+        if (metrics != null) {
+            builder.tag(metrics);
+        }
+        return builder;
+    }
+
     @Override
     public void getAsync(String path, Callback1<Response> callback) {
         getAsync(path, null, callback);
@@ -80,12 +180,22 @@ class HttpClientImpl implements HttpClient {
             String path,
             QueryParams params,
             Callback1<Response> callback
+    ) {
+        getAsync(path, params, null, callback);
+    }
+
+    @Override
+    public void getAsync(
+            String path,
+            QueryParams params,
+            RequestHandle handle,
+            Callback1<Response> callback
     ) {
         String requestUrl = params == null
                             ? getRequestUrl(path)
                             : getRequestUrl(path, params);
-        Request request = new Request.Builder().url(requestUrl).get().build();
-        client.newCall(request).enqueue(wrapCallback(callback));
+        Request request = newRequest(requestUrl).get().build();
+        enqueue(request, handle, callback);
     }
 
     @Override
@@ -101,15 +211,22 @@ class HttpClientImpl implements HttpClient {
     public void postAsync(
             String path, Headers headers, Params params,
             Callback1<Response> callback
+    ) {
+        postAsync(path, headers, params, null, callback);
+    }
+
+    @Override
+    public void postAsync(
+            String path, Headers headers, Params params, RequestHandle handle,
+            Callback1<Response> callback
     ) {
         String requestUrl = getRequestUrl(path);
-        Request.Builder builder = new Request.Builder()
-                .url(requestUrl)
-                .post(RequestBody.create(JSON, params.toJson()));
+        Request.Builder builder = newRequest(requestUrl)
+                .post(new ParamsRequestBody(params));
         if (headers != null) {
             builder.headers(headers);
         }
-        client.newCall(builder.build()).enqueue(wrapCallback(callback));
+        enqueue(builder.build(), handle, callback);
     }
 
     @Override
@@ -125,17 +242,22 @@ class HttpClientImpl implements HttpClient {
     public void patchAsync(
             String path, Headers headers, Params params,
             Callback1<Response> callback
+    ) {
+        patchAsync(path, headers, params, null, callback);
+    }
+
+    @Override
+    public void patchAsync(
+            String path, Headers headers, Params params, RequestHandle handle,
+            Callback1<Response> callback
     ) {
         String requestUrl = getRequestUrl(path);
-        Request.Builder builder =
-                new Request.Builder().url(requestUrl).patch(RequestBody.create(
-                        JSON,
-                        params.toJson()
-                ));
+        Request.Builder builder = newRequest(requestUrl).patch(
+                new ParamsRequestBody(params));
         if (headers != null) {
             builder.headers(headers);
         }
-        client.newCall(builder.build()).enqueue(wrapCallback(callback));
+        enqueue(builder.build(), handle, callback);
     }
 
     @Override
@@ -148,22 +270,95 @@ class HttpClientImpl implements HttpClient {
             String path,
             Params params,
             Callback1<Response> callback
+    ) {
+        deleteAsync(path, params, null, callback);
+    }
+
+    @Override
+    public void deleteAsync(
+            String path,
+            Params params,
+            RequestHandle handle,
+            Callback1<Response> callback
     ) {
         String requestUrl = getRequestUrl(path);
-        Request.Builder builder = new Request.Builder()
-                .url(requestUrl);
+        Request.Builder builder = newRequest(requestUrl);
         Request request = params == null ? builder.delete().build() :
-                          builder.delete(RequestBody.create(
-                                  JSON,
-                                  params.toJson()
-                          )).build();
-        client.newCall(request).enqueue(wrapCallback(callback));
+                          builder.delete(new ParamsRequestBody(params)).build();
+        enqueue(request, handle, callback);
+    }
+
+    private void enqueue(
+            Request request,
+            RequestHandle handle,
+            Callback1<Response> callback
+    ) {
+        enqueue(request, 0, handle, callback);
+    }
+
+    private void enqueue(
+            Request request,
+            int retries,
+            RequestHandle handle,
+            Callback1<Response> callback
+    ) {
+        final RateLimiter rateLimiter = rateLimiter(request);
+        if (rateLimiter == null) {
+            send(request, retries, handle, callback);
+        } else {
+            rateLimiter.execute(
+                    () -> send(request, retries, handle, callback),
+                    () -> handle != null && handle.isCancelled()
+            );
+        }
     }
 
-    private Callback wrapCallback(Callback1<Response> callback) {
-        return new Callback() {
+    private void send(
+            Request request,
+            int retries,
+            RequestHandle handle,
+            Callback1<Response> callback
+    ) {
+        if (handle != null && handle.isCancelled()) {
+            callback.onError(handle.getCancellation());
+            return;
+        }
+        if (queuePolicy == QueuePolicy.REJECT && isDispatcherFull(request)) {
+            callback.onError(new NetworkException(
+                    "too many concurrent requests, the request is rejected"));
+            return;
+        }
+        final CircuitBreaker circuitBreaker = circuitBreaker(request);
+        final CircuitBreaker.Permit permit =
+                circuitBreaker != null ? circuitBreaker.acquire() : null;
+        if (circuitBreaker != null && permit == null) {
+            callback.onError(new CircuitBreakerOpenException(HttpUtils.endpoint(request)));
+            return;
+        }
+        final Call newCall = client.newCall(request);
+        if (handle != null) {
+            // a handle cancelled meanwhile cancels the call right away, it then fails
+            handle.attach(newCall::cancel);
+        }
+        newCall.enqueue(new Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
+                if (call.isCanceled() || (handle != null && handle.isCancelled())) {
+                    if (circuitBreaker != null) {
+                        // a cancelled trial must not keep the breaker half open
+                        circuitBreaker.onCancelled(permit);
+                    }
+                    callback.onError(handle != null && handle.isCancelled()
+                                     ? handle.getCancellation()
+                                     : new NetworkException(e.getMessage()));
+                    return;
+                }
+                if (circuitBreaker != null) {
+                    circuitBreaker.onFailure();
+                }
+                if (retry(request, retries, -1, handle, circuitBreaker, callback)) {
+                    return;
+                }
                 callback.onError(new NetworkException(e.getMessage()));
             }
 
@@ -171,15 +366,143 @@ class HttpClientImpl implements HttpClient {
             public void onResponse(Call call, Response response)
                     throws IOException {
                 if (response.isSuccessful()) {
-                    callback.onSuccess(response);
-                } else {
-                    callback.onError(new HttpException(
-                            response.code(),
-                            response.body().string()
-                    ));
+                    if (circuitBreaker != null) {
+                        circuitBreaker.onSuccess();
+                    }
+                    // release the dispatcher thread, the decoder reads the body
+                    ExecutorCallback.wrap(decodeExecutor, callback).onSuccess(response);
+                    return;
+                }
+
+                final int code = response.code();
+                final boolean retryable = retryPolicy.isRetryableStatus(code);
+                if (circuitBreaker != null) {
+                    if (code >= 500 || retryable) {
+                        circuitBreaker.onFailure();
+                    } else if (code >= 400) {
+                        // the endpoint is healthy, the request is not
+                        circuitBreaker.onSuccess();
+                    } else {
+                        circuitBreaker.onCancelled(permit);
+                    }
+                }
+                if (retryable && retry(
+                        request,
+                        retries,
+                        retryAfter(response),
+                        handle,
+                        circuitBreaker,
+                        callback
+                )) {
+                    response.close();
+                    return;
                 }
+                callback.onError(new HttpException(
+                        response.code(),
+                        response.body().string()
+                ));
             }
-        };
+        });
+    }
+
+    /**
+     * Schedule the request to be sent again if the {@link RetryPolicy} allows it. A
+     * request to an endpoint whose circuit breaker just opened is not retried, the caller
+     * gets the actual error instead, as does the caller of a handle whose deadline would
+     * pass before the retry.
+     *
+     * @return {@code true} if the request is scheduled
+     */
+    private boolean retry(
+            Request request,
+            int retries,
+            long retryAfter,
+            RequestHandle handle,
+            CircuitBreaker circuitBreaker,
+            Callback1<Response> callback
+    ) {
+        if (!retryPolicy.canRetry(request.method(), retries) || (circuitBreaker != null &&
+                circuitBreaker.getState() == CircuitBreaker.State.OPEN)) {
+            return false;
+        }
+        final long delay = retryPolicy.backoff(retries, retryAfter);
+        if (delay < 0 || (handle != null &&
+                delay >= handle.getRemaining(TimeUnit.MILLISECONDS))) {
+            return false;
+        }
+        final ScheduledFuture<?> scheduled = RETRY_SCHEDULER.schedule(
+                () -> enqueue(request, retries + 1, handle, callback),
+                delay,
+                TimeUnit.MILLISECONDS
+        );
+        if (handle != null) {
+            handle.attach(() -> {
+                if (scheduled.cancel(false)) {
+                    callback.onError(handle.getCancellation());
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the dispatcher would queue the request instead of running it,
+     * because of the max requests or the max requests per host
+     */
+    private boolean isDispatcherFull(Request request) {
+        final Dispatcher dispatcher = client.dispatcher();
+        if (dispatcher.queuedCallsCount() > 0 ||
+                dispatcher.runningCallsCount() >= dispatcher.getMaxRequests()) {
+            return true;
+        }
+        final String host = request.url().host();
+        return dispatcher.runningCalls().stream()
+                .filter(call -> call.request().url().host().equals(host))
+                .count() >= dispatcher.getMaxRequestsPerHost();
+    }
+
+    private RateLimiter rateLimiter(Request request) {
+        final String path = request.url().encodedPath();
+        return path.equals("/v3/issue") || path.equals("/v3/transfer")
+               ? writeRateLimiter
+               : readRateLimiter;
+    }
+
+    private CircuitBreaker circuitBreaker(Request request) {
+        if (circuitBreakerFailureThreshold <= 0) {
+            return null;
+        }
+        final String key = HttpUtils.endpoint(request);
+        CircuitBreaker circuitBreaker = circuitBreakers.get(key);
+        if (circuitBreaker == null) {
+            circuitBreaker = new CircuitBreaker(
+                    circuitBreakerFailureThreshold,
+                    circuitBreakerOpenDuration
+            );
+            CircuitBreaker existing = circuitBreakers.putIfAbsent(key, circuitBreaker);
+            if (existing != null) {
+                circuitBreaker = existing;
+            }
+        }
+        return circuitBreaker;
+    }
+
+    /**
+     * @return the delay in milliseconds requested by the {@code Retry-After} header, or -1
+     */
+    private static long retryAfter(Response response) {
+        final String value = response.header("Retry-After");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            Date date = HttpDate.parse(value);
+            return date == null
+                   ? -1
+                   : Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
     }
 
 }
@@ -0,0 +1,169 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice;
+
+import com.bitmark.apiservice.params.*;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.response.*;
+import com.bitmark.apiservice.utils.Awaitility;
+import com.bitmark.apiservice.utils.Pair;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.apiservice.utils.record.ShareGrantRecord;
+import com.bitmark.apiservice.utils.record.ShareRecord;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * {@link BitmarkApiSync} on top of {@link BitmarkApiAsync}. The calling thread is parked
+ * while waiting, it does not consume CPU. A call that times out or is interrupted gives
+ * up waiting and throws {@link java.util.concurrent.TimeoutException} or
+ * {@link InterruptedException}.
+ */
+public class SyncApiService implements BitmarkApiSync {
+
+    private static final long DEFAULT_TIMEOUT = TimeUnit.SECONDS.toMillis(20);
+
+    private final BitmarkApiAsync api;
+
+    private final long timeout;
+
+    private static volatile SyncApiService INSTANCE;
+
+    public static SyncApiService getInstance() {
+        if (INSTANCE == null) {
+            synchronized (SyncApiService.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new SyncApiService(AsyncApiService.getInstance());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public SyncApiService(BitmarkApiAsync api) {
+        this(api, DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    public SyncApiService(BitmarkApiAsync api, long timeout, TimeUnit unit) {
+        checkNonNull(api);
+        checkNonNull(unit);
+        checkValid(() -> timeout > 0, "timeout must be greater than 0");
+        this.api = api;
+        this.timeout = unit.toMillis(timeout);
+    }
+
+    @Override
+    public SyncApiService withTimeout(long timeout, TimeUnit unit) {
+        return new SyncApiService(api, timeout, unit);
+    }
+
+    @Override
+    public List<BitmarkRecord> issueBitmark(IssuanceParams params) throws Throwable {
+        return await(api.issueBitmark(params));
+    }
+
+    @Override
+    public RegistrationResponse registerAsset(RegistrationParams params) throws Throwable {
+        return await(api.registerAsset(params));
+    }
+
+    @Override
+    public String transferBitmark(TransferParams params) throws Throwable {
+        return await(api.transferBitmark(params));
+    }
+
+    @Override
+    public String offerBitmark(TransferOfferParams params) throws Throwable {
+        return await(api.offerBitmark(params));
+    }
+
+    @Override
+    public String respondBitmarkOffer(TransferResponseParams params) throws Throwable {
+        return await(api.respondBitmarkOffer(params));
+    }
+
+    @Override
+    public GetBitmarkResponse getBitmark(
+            String bitmarkId,
+            boolean includeAsset
+    ) throws Throwable {
+        return await(api.getBitmark(bitmarkId, includeAsset));
+    }
+
+    @Override
+    public GetBitmarksResponse listBitmarks(QueryParams params) throws Throwable {
+        return await(api.listBitmarks(params));
+    }
+
+    @Override
+    public AssetRecord getAsset(String assetId) throws Throwable {
+        return await(api.getAsset(assetId));
+    }
+
+    @Override
+    public List<AssetRecord> listAssets(QueryParams params) throws Throwable {
+        return await(api.listAssets(params));
+    }
+
+    @Override
+    public GetTransactionResponse getTransaction(
+            String txId,
+            boolean includeAsset
+    ) throws Throwable {
+        return await(api.getTransaction(txId, includeAsset));
+    }
+
+    @Override
+    public GetTransactionsResponse listTransactions(QueryParams params) throws Throwable {
+        return await(api.listTransactions(params));
+    }
+
+    @Override
+    public Pair<String, String> createShare(ShareParams params) throws Throwable {
+        return await(api.createShare(params));
+    }
+
+    @Override
+    public String grantShare(ShareGrantingParams params) throws Throwable {
+        return await(api.grantShare(params));
+    }
+
+    @Override
+    public String respondShareOffer(GrantResponseParams params) throws Throwable {
+        return await(api.respondShareOffer(params));
+    }
+
+    @Override
+    public ShareRecord getShare(String shareId) throws Throwable {
+        return await(api.getShare(shareId));
+    }
+
+    @Override
+    public List<ShareRecord> listShares(String owner) throws Throwable {
+        return await(api.listShares(owner));
+    }
+
+    @Override
+    public List<ShareGrantRecord> listShareOffer(String from, String to) throws Throwable {
+        return await(api.listShareOffer(from, to));
+    }
+
+    @Override
+    public String registerWsToken(RegisterWsTokenParams params) throws Throwable {
+        return await(api.registerWsToken(params));
+    }
+
+    private <T> T await(CompletableFuture<T> future) throws Throwable {
+        return Awaitility.await(future, timeout);
+    }
+}
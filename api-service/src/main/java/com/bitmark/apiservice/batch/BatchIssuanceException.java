@@ -0,0 +1,55 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.batch;
+
+import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Some chunks of a batch issuance failed after their retries. The bitmarks of the other
+ * chunks are issued and kept, the failed chunks can be issued again as they are since
+ * they are still signed. The cause is the error of the first failed chunk.
+ */
+public class BatchIssuanceException extends RuntimeException {
+
+    private final List<BitmarkRecord> issued;
+
+    private final List<IssuanceParams> failed;
+
+    public BatchIssuanceException(
+            List<BitmarkRecord> issued,
+            List<IssuanceParams> failed,
+            Throwable cause
+    ) {
+        super(String.format(
+                Locale.getDefault(),
+                "%d chunks of the batch issuance failed, %d bitmarks are issued",
+                failed.size(),
+                issued.size()
+        ), cause);
+        this.issued = Collections.unmodifiableList(issued);
+        this.failed = Collections.unmodifiableList(failed);
+    }
+
+    /**
+     * @return the bitmarks of the chunks that are issued, in the order of the chunks
+     */
+    public List<BitmarkRecord> getIssued() {
+        return issued;
+    }
+
+    /**
+     * @return the chunks that are not issued, in their order
+     */
+    public List<IssuanceParams> getFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,345 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.batch;
+
+import com.bitmark.apiservice.configuration.RetryPolicy;
+import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.utils.error.HttpException;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import okhttp3.internal.Util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Issue a quantity of bitmarks too large for one request. The params are split with
+ * {@link IssuanceParams#split(int)} into chunks of {@code chunkSize} bitmarks. The first
+ * chunk, the one with the genesis nonce, is issued on its own, then the others with at
+ * most {@code maxConcurrency} chunks in flight.
+ * <p>
+ * A chunk that fails with a network error, a timeout or a retryable status code of the
+ * {@link RetryPolicy} is sent again on its own after the backoff of the policy, up to its
+ * max retries. A retry sends the same issues, pinned with
+ * {@link IssuanceParams#setContainsGenesisBitmarkPinned(boolean)}, so a chunk applied
+ * before its response was lost is rejected instead of issued twice. After a 429 or a 503,
+ * which were not processed, a chunk that is not pinned yet looks the genesis bitmark up
+ * again. The bitmarks of all chunks are returned in the order of the chunks. If a chunk
+ * is given up, the others are still issued and the result fails with a
+ * {@link BatchIssuanceException} holding both. If the first chunk is given up, no other
+ * chunk is sent.
+ * <p>
+ * Cancelling the returned future stops sending chunks, the ones in flight still complete.
+ */
+public class BatchIssuer {
+
+    /**
+     * The number of issues the server accepts in a request.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    private static final ScheduledExecutorService RETRY_SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(Util.threadFactory(
+                    "Bitmark Batch Issuance Scheduler",
+                    true
+            ));
+
+    private final Function<IssuanceParams, CompletableFuture<List<BitmarkRecord>>> issuer;
+
+    private final int chunkSize;
+
+    private final int maxConcurrency;
+
+    private final RetryPolicy retryPolicy;
+
+    private final BatchProgressListener listener;
+
+    /**
+     * @param issuer issue the bitmarks of a chunk, e.g.
+     *               {@code AsyncApiService.getInstance()::issueBitmark}
+     */
+    public static Builder builder(
+            Function<IssuanceParams, CompletableFuture<List<BitmarkRecord>>> issuer
+    ) {
+        return new Builder(issuer);
+    }
+
+    private BatchIssuer(Builder builder) {
+        this.issuer = builder.issuer;
+        this.chunkSize = builder.chunkSize;
+        this.maxConcurrency = builder.maxConcurrency;
+        this.retryPolicy = builder.retryPolicy;
+        this.listener = builder.listener;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @param params signed params, or params with a signing key so that each chunk only
+     *               signs the case that applies to it
+     */
+    public CompletableFuture<List<BitmarkRecord>> issue(IssuanceParams params) {
+        checkValid(
+                () -> params != null && params.isSigned(),
+                "params must be signed"
+        );
+        return new Batch(params.split(chunkSize)).start();
+    }
+
+    private boolean isRetryable(Throwable error) {
+        return error instanceof IOException || error instanceof TimeoutException ||
+                (error instanceof HttpException && retryPolicy.isRetryableStatus(
+                        ((HttpException) error).getStatusCode()));
+    }
+
+    /**
+     * @return {@code true} if the server did not process the request, a 429 or a 503. A 502
+     * or a 504 may come from a proxy after the request was applied.
+     */
+    private static boolean isNotProcessed(Throwable error) {
+        if (!(error instanceof HttpException)) {
+            return false;
+        }
+        final int status = ((HttpException) error).getStatusCode();
+        return status == 429 || status == 503;
+    }
+
+    private final class Batch {
+
+        private final List<IssuanceParams> chunks;
+
+        private final int total;
+
+        private final AtomicReferenceArray<List<BitmarkRecord>> records;
+
+        private final Throwable[] errors;
+
+        private final AtomicInteger next = new AtomicInteger(1);
+
+        private final AtomicInteger remaining;
+
+        private final AtomicInteger issued = new AtomicInteger();
+
+        private final CompletableFuture<List<BitmarkRecord>> result =
+                new CompletableFuture<>();
+
+        private Batch(List<IssuanceParams> chunks) {
+            this.chunks = chunks;
+            this.total = chunks.stream()
+                    .mapToInt(chunk -> chunk.getNoncesPair().first().length)
+                    .sum();
+            this.records = new AtomicReferenceArray<>(chunks.size());
+            this.errors = new Throwable[chunks.size()];
+            this.remaining = new AtomicInteger(chunks.size());
+        }
+
+        private CompletableFuture<List<BitmarkRecord>> start() {
+            send(0, 0);
+            return result;
+        }
+
+        /**
+         * Send the next chunk, then the one after when it completes, so that each call
+         * keeps one chunk in flight.
+         */
+        private void sendNext() {
+            final int index = next.getAndIncrement();
+            if (index < chunks.size()) {
+                send(index, 0);
+            }
+        }
+
+        private void send(int index, int retries) {
+            if (result.isDone()) {
+                return;
+            }
+            final CompletableFuture<List<BitmarkRecord>> future;
+            try {
+                future = issuer.apply(chunks.get(index));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            future.whenComplete((bitmarks, throwable) -> {
+                if (throwable == null) {
+                    onIssued(index, bitmarks);
+                } else {
+                    onFailed(
+                            index,
+                            retries,
+                            throwable instanceof CompletionException &&
+                                    throwable.getCause() != null
+                            ? throwable.getCause()
+                            : throwable
+                    );
+                }
+            });
+        }
+
+        private void onIssued(int index, List<BitmarkRecord> bitmarks) {
+            records.set(index, bitmarks);
+            final int size = chunks.get(index).getNoncesPair().first().length;
+            final int count = issued.addAndGet(size);
+            if (listener != null) {
+                try {
+                    listener.onChunkIssued(index, bitmarks, count, total);
+                } catch (Throwable ignore) {
+                    // the batch goes on whatever the listener does
+                }
+            }
+            onCompleted(index);
+        }
+
+        private void onFailed(int index, int retries, Throwable error) {
+            final boolean retrying = !result.isDone() && isRetryable(error) &&
+                    retries < retryPolicy.getMaxRetries();
+            if (listener != null) {
+                try {
+                    listener.onChunkFailed(index, error, retries + 1, retrying);
+                } catch (Throwable ignore) {
+                    // the batch goes on whatever the listener does
+                }
+            }
+            if (retrying) {
+                final IssuanceParams chunk = chunks.get(index);
+                if (!isNotProcessed(error) && chunk.getContainsGenesisBitmark() != null) {
+                    // the attempt may have been applied, send the same issues again
+                    chunk.setContainsGenesisBitmarkPinned(true);
+                }
+                RETRY_SCHEDULER.schedule(
+                        () -> send(index, retries + 1),
+                        retryPolicy.backoff(retries, -1),
+                        TimeUnit.MILLISECONDS
+                );
+                return;
+            }
+            errors[index] = error;
+            if (index == 0) {
+                // the other chunks may depend on the genesis bitmark
+                result.completeExceptionally(new BatchIssuanceException(
+                        new ArrayList<>(),
+                        chunks,
+                        error
+                ));
+                return;
+            }
+            onCompleted(index);
+        }
+
+        private void onCompleted(int index) {
+            if (remaining.decrementAndGet() == 0) {
+                complete();
+            } else if (index == 0) {
+                final int window = Math.min(maxConcurrency, chunks.size() - 1);
+                for (int i = 0; i < window; i++) {
+                    sendNext();
+                }
+            } else {
+                sendNext();
+            }
+        }
+
+        private void complete() {
+            final List<BitmarkRecord> bitmarks = new ArrayList<>(total);
+            final List<IssuanceParams> failed = new ArrayList<>();
+            Throwable cause = null;
+            for (int i = 0; i < chunks.size(); i++) {
+                if (errors[i] != null) {
+                    failed.add(chunks.get(i));
+                    cause = cause == null ? errors[i] : cause;
+                } else if (records.get(i) != null) {
+                    bitmarks.addAll(records.get(i));
+                }
+            }
+            if (failed.isEmpty()) {
+                result.complete(bitmarks);
+            } else {
+                result.completeExceptionally(
+                        new BatchIssuanceException(bitmarks, failed, cause));
+            }
+        }
+    }
+
+    public static final class Builder {
+
+        private final Function<IssuanceParams, CompletableFuture<List<BitmarkRecord>>>
+                issuer;
+
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+        private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+
+        private RetryPolicy retryPolicy = RetryPolicy.builder().build();
+
+        private BatchProgressListener listener;
+
+        private Builder(
+                Function<IssuanceParams, CompletableFuture<List<BitmarkRecord>>> issuer
+        ) {
+            checkNonNull(issuer);
+            this.issuer = issuer;
+        }
+
+        public Builder withChunkSize(int chunkSize) {
+            checkValid(() -> chunkSize > 0, "chunk size must be greater than 0");
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public Builder withMaxConcurrency(int maxConcurrency) {
+            checkValid(
+                    () -> maxConcurrency > 0,
+                    "max concurrency must be greater than 0"
+            );
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * The max retries and the backoff of each chunk, and the status codes it is
+         * retried on. Whether non idempotent requests are retried does not apply.
+         */
+        public Builder withRetryPolicy(RetryPolicy retryPolicy) {
+            checkNonNull(retryPolicy);
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        public Builder withProgressListener(BatchProgressListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        public BatchIssuer build() {
+            return new BatchIssuer(this);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.batch;
+
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+
+import java.util.List;
+
+/**
+ * Notified by a {@link BatchIssuer} of every chunk issued or failed. It is called on the
+ * network thread, so it must be fast and must not block. What it throws is ignored.
+ */
+public interface BatchProgressListener {
+
+    /**
+     * @param chunk   index of the chunk, in the order of the nonces
+     * @param records the bitmarks of the chunk
+     * @param issued  number of bitmarks of the batch issued so far
+     * @param total   number of bitmarks of the batch
+     */
+    void onChunkIssued(int chunk, List<BitmarkRecord> records, int issued, int total);
+
+    /**
+     * @param chunk    index of the chunk, in the order of the nonces
+     * @param error    the error of the last attempt
+     * @param attempts number of times the chunk has been sent
+     * @param retrying whether the chunk is sent again, otherwise it is given up
+     */
+    void onChunkFailed(int chunk, Throwable error, int attempts, boolean retrying);
+}
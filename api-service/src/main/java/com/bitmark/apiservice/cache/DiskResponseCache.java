@@ -0,0 +1,188 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * {@link ResponseCache} storing each value as a JSON file in {@code directory}. The total
+ * size of the files is kept under {@code maxBytes} by deleting the least recently used
+ * ones. Entries written by a previous process are picked up on construction.
+ * <p>
+ * An I/O error is never surfaced to the caller, a value that cannot be read or written is
+ * treated as a miss.
+ */
+public class DiskResponseCache implements ResponseCache {
+
+    private static final Gson GSON = new GsonBuilder().create();
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String SUFFIX = ".json";
+
+    private final File directory;
+
+    private final long maxBytes;
+
+    // file name -> file size, in access order
+    private final LinkedHashMap<String, Long> files = new LinkedHashMap<>(
+            16,
+            0.75f,
+            true
+    );
+
+    private long totalBytes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public DiskResponseCache(File directory, long maxBytes) {
+        checkNonNull(directory);
+        checkValid(() -> maxBytes > 0, "max bytes must be greater than zero");
+        checkValid(
+                () -> directory.isDirectory() || directory.mkdirs(),
+                "cannot create cache directory " + directory
+        );
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    @Override
+    public <T> T get(String key, Class<T> type) {
+        checkNonNull(key);
+        final String name = fileName(key);
+        synchronized (files) {
+            if (files.get(name) == null) {
+                missCount.incrementAndGet();
+                return null;
+            }
+        }
+        try (Reader reader = new InputStreamReader(
+                new FileInputStream(new File(directory, name)),
+                UTF_8
+        )) {
+            T value = GSON.fromJson(reader, type);
+            if (value != null) {
+                hitCount.incrementAndGet();
+                return value;
+            }
+        } catch (Exception ignore) {
+            remove(name);
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        checkNonNull(key);
+        checkNonNull(value);
+        final String name = fileName(key);
+        final byte[] json = GSON.toJson(value).getBytes(UTF_8);
+        try {
+            File tmp = File.createTempFile(name, ".tmp", directory);
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                out.write(json);
+            }
+            synchronized (files) {
+                File file = new File(directory, name);
+                if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file))) {
+                    tmp.delete();
+                    return;
+                }
+                Long previous = files.put(name, (long) json.length);
+                totalBytes += json.length - (previous != null ? previous : 0);
+                trim();
+            }
+        } catch (IOException ignore) {
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (files) {
+            for (String name : files.keySet()) {
+                new File(directory, name).delete();
+            }
+            files.clear();
+            totalBytes = 0;
+        }
+    }
+
+    public long size() {
+        synchronized (files) {
+            return totalBytes;
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(
+                hitCount.get(),
+                missCount.get(),
+                evictionCount.get()
+        );
+    }
+
+    private void load() {
+        File[] existing = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (existing == null) {
+            return;
+        }
+        Arrays.sort(existing, Comparator.comparingLong(File::lastModified));
+        synchronized (files) {
+            for (File file : existing) {
+                files.put(file.getName(), file.length());
+                totalBytes += file.length();
+            }
+            trim();
+        }
+    }
+
+    private void remove(String name) {
+        synchronized (files) {
+            Long size = files.remove(name);
+            if (size != null) {
+                totalBytes -= size;
+            }
+            new File(directory, name).delete();
+        }
+    }
+
+    // must hold the lock of files
+    private void trim() {
+        Iterator<Map.Entry<String, Long>> iterator = files.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            new File(directory, eldest.getKey()).delete();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    private static String fileName(String key) {
+        return key.replaceAll("[^A-Za-z0-9._-]", "_") + SUFFIX;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.cache;
+
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * The assets known to have their genesis bitmark, holding at most {@code maxSize} asset
+ * ids, the least recently used one is evicted first. Once an asset has a bitmark it keeps
+ * its genesis bitmark, so only that is cached. An asset without bitmarks may get its
+ * genesis bitmark from another issuer at any time and is always looked up.
+ */
+public class GenesisCache {
+
+    private final Map<String, Boolean> assets;
+
+    public GenesisCache(int maxSize) {
+        checkValid(() -> maxSize > 0, "max size must be greater than zero");
+        this.assets = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public boolean hasGenesis(String assetId) {
+        checkNonNull(assetId);
+        synchronized (assets) {
+            return assets.get(assetId) != null;
+        }
+    }
+
+    /**
+     * Record that the asset has its genesis bitmark, e.g. after bitmarks of it have been
+     * issued.
+     */
+    public void putGenesis(String assetId) {
+        checkNonNull(assetId);
+        synchronized (assets) {
+            assets.put(assetId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Learn from a bitmark returned by the API. A bitmark with an edition is an issued
+     * bitmark of its asset, so the asset has its genesis bitmark.
+     */
+    public void learn(BitmarkRecord bitmark) {
+        if (bitmark != null && bitmark.getAssetId() != null &&
+                bitmark.getEdition() != null) {
+            putGenesis(bitmark.getAssetId());
+        }
+    }
+
+    /**
+     * Forget the asset, e.g. when an issuance relying on its genesis bitmark failed.
+     */
+    public void remove(String assetId) {
+        checkNonNull(assetId);
+        synchronized (assets) {
+            assets.remove(assetId);
+        }
+    }
+
+    public int size() {
+        synchronized (assets) {
+            return assets.size();
+        }
+    }
+}
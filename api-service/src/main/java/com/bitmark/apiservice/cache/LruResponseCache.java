@@ -0,0 +1,89 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * In-memory {@link ResponseCache} holding at most {@code maxSize} entries. The least
+ * recently used entry is evicted first.
+ */
+public class LruResponseCache implements ResponseCache {
+
+    private final Map<String, Object> entries;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public LruResponseCache(int maxSize) {
+        checkValid(() -> maxSize > 0, "max size must be greater than zero");
+        this.entries = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                if (size() > maxSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public <T> T get(String key, Class<T> type) {
+        checkNonNull(key);
+        Object value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (type.isInstance(value)) {
+            hitCount.incrementAndGet();
+            return type.cast(value);
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        checkNonNull(key);
+        checkNonNull(value);
+        synchronized (entries) {
+            entries.put(key, value);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(
+                hitCount.get(),
+                missCount.get(),
+                evictionCount.get()
+        );
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.cache;
+
+/**
+ * Cache for API records that never change once they are returned, such as confirmed
+ * assets. Implementations must be thread safe.
+ */
+public interface ResponseCache {
+
+    /**
+     * @return the cached value or {@code null} if there is no value for the key
+     */
+    <T> T get(String key, Class<T> type);
+
+    void put(String key, Object value);
+
+    void clear();
+
+    CacheStats stats();
+}
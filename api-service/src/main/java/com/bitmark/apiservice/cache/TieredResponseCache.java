@@ -0,0 +1,81 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+
+/**
+ * Two level {@link ResponseCache}, usually a small {@link LruResponseCache} in front of a
+ * larger {@link DiskResponseCache}. Values found in the second level are promoted to the
+ * first one.
+ */
+public class TieredResponseCache implements ResponseCache {
+
+    private final ResponseCache first;
+
+    private final ResponseCache second;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    public TieredResponseCache(ResponseCache first, ResponseCache second) {
+        checkNonNull(first);
+        checkNonNull(second);
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public <T> T get(String key, Class<T> type) {
+        T value = first.get(key, type);
+        if (value == null) {
+            value = second.get(key, type);
+            if (value != null) {
+                first.put(key, value);
+            }
+        }
+        (value != null ? hitCount : missCount).incrementAndGet();
+        return value;
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        first.put(key, value);
+        second.put(key, value);
+    }
+
+    @Override
+    public void clear() {
+        first.clear();
+        second.clear();
+    }
+
+    /**
+     * @return stats of the cache as a whole, a lookup is a hit if any level has the value.
+     * Evictions are the ones of the last level, as entries evicted from the first level are
+     * still cached.
+     */
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(
+                hitCount.get(),
+                missCount.get(),
+                second.stats().getEvictionCount()
+        );
+    }
+
+    public ResponseCache getFirst() {
+        return first;
+    }
+
+    public ResponseCache getSecond() {
+        return second;
+    }
+}
@@ -0,0 +1,249 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.configuration;
+
+import com.bitmark.apiservice.cache.ResponseCache;
+import com.bitmark.apiservice.metrics.MetricsRegistry;
+import com.bitmark.apiservice.middleware.HttpObserver;
+import com.bitmark.apiservice.utils.BackgroundJobScheduler;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.logging.HttpLoggingInterceptor;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * The configuration of one API client, a snapshot of a {@link GlobalConfiguration.Builder}.
+ * {@link GlobalConfiguration} holds the one of the shared clients, such as
+ * {@code ApiService.getInstance()}. Any number of independent ones can be built with
+ * {@link GlobalConfiguration.Builder#toClientConfiguration()}, e.g. one per API token or
+ * network, and passed to {@code new ApiService(configuration)}.
+ */
+public final class ClientConfiguration {
+
+    private final Network network;
+
+    private final String apiToken;
+
+    private final int connectionTimeout;
+
+    private final HttpLoggingInterceptor.Level logLevel;
+
+    private final HttpObserver httpObserver;
+
+    private final int maxRequests;
+
+    private final int maxRequestsPerHost;
+
+    private final int maxIdleConnections;
+
+    private final long keepAliveDuration;
+
+    private final List<Protocol> protocols;
+
+    private final OkHttpClient okHttpClient;
+
+    private final QueuePolicy queuePolicy;
+
+    private final ResponseCache responseCache;
+
+    private final boolean requestCoalescing;
+
+    private final RetryPolicy retryPolicy;
+
+    private final int circuitBreakerFailureThreshold;
+
+    private final long circuitBreakerOpenDuration;
+
+    private final double readRateLimit;
+
+    private final int readRateLimitBurst;
+
+    private final double writeRateLimit;
+
+    private final int writeRateLimitBurst;
+
+    private final MetricsRegistry metrics;
+
+    private final long requestCompressionThreshold;
+
+    private final String endpoint;
+
+    private final String webSocketEndpoint;
+
+    private final Executor callbackExecutor;
+
+    private final Executor decodeExecutor;
+
+    private final BackgroundJobScheduler backgroundJobScheduler;
+
+    ClientConfiguration(GlobalConfiguration.Builder builder) {
+        this.network = builder.network;
+        this.apiToken = builder.apiToken;
+        this.connectionTimeout = builder.connectionTimeout;
+        this.logLevel = builder.logLevel;
+        this.httpObserver = builder.httpObserver;
+        this.maxRequests = builder.maxRequests;
+        this.maxRequestsPerHost = builder.maxRequestsPerHost;
+        this.maxIdleConnections = builder.maxIdleConnections;
+        this.keepAliveDuration = builder.keepAliveDuration;
+        this.protocols = builder.protocols;
+        this.okHttpClient = builder.okHttpClient;
+        this.queuePolicy = builder.queuePolicy;
+        this.responseCache = builder.responseCache;
+        this.requestCoalescing = builder.requestCoalescing;
+        this.retryPolicy = builder.retryPolicy;
+        this.circuitBreakerFailureThreshold = builder.circuitBreakerFailureThreshold;
+        this.circuitBreakerOpenDuration = builder.circuitBreakerOpenDuration;
+        this.readRateLimit = builder.readRateLimit;
+        this.readRateLimitBurst = builder.readRateLimitBurst;
+        this.writeRateLimit = builder.writeRateLimit;
+        this.writeRateLimitBurst = builder.writeRateLimitBurst;
+        this.metrics = builder.metrics;
+        this.requestCompressionThreshold = builder.requestCompressionThreshold;
+        this.endpoint = builder.endpoint;
+        this.webSocketEndpoint = builder.webSocketEndpoint;
+        this.callbackExecutor = builder.callbackExecutor;
+        this.decodeExecutor = builder.decodeExecutor;
+        this.backgroundJobScheduler = builder.backgroundJobScheduler;
+    }
+
+    public Network getNetwork() {
+        return network;
+    }
+
+    public String getApiToken() {
+        return apiToken;
+    }
+
+    public int getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public HttpLoggingInterceptor.Level getLogLevel() {
+        return logLevel;
+    }
+
+    public HttpObserver getHttpObserver() {
+        return httpObserver;
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public long getKeepAliveDuration() {
+        return keepAliveDuration;
+    }
+
+    public List<Protocol> getProtocols() {
+        return protocols;
+    }
+
+    /**
+     * @return the client to derive the HTTP client from, or {@code null} to build one
+     * with its own connection pool and dispatcher
+     */
+    public OkHttpClient getOkHttpClient() {
+        return okHttpClient;
+    }
+
+    public QueuePolicy getQueuePolicy() {
+        return queuePolicy;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public boolean isRequestCoalescing() {
+        return requestCoalescing;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public int getCircuitBreakerFailureThreshold() {
+        return circuitBreakerFailureThreshold;
+    }
+
+    public long getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }
+
+    public double getReadRateLimit() {
+        return readRateLimit;
+    }
+
+    public int getReadRateLimitBurst() {
+        return readRateLimitBurst;
+    }
+
+    public double getWriteRateLimit() {
+        return writeRateLimit;
+    }
+
+    public int getWriteRateLimitBurst() {
+        return writeRateLimitBurst;
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    public long getRequestCompressionThreshold() {
+        return requestCompressionThreshold;
+    }
+
+    /**
+     * @return the API endpoint, or {@code null} to use the one of the network
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return the web socket endpoint, or {@code null} to use the one of the network
+     */
+    public String getWebSocketEndpoint() {
+        return webSocketEndpoint;
+    }
+
+    /**
+     * @return the executor of the callbacks, or {@code null} to invoke them on the HTTP
+     * client threads
+     */
+    public Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
+    /**
+     * @return the executor decoding the responses, or {@code null} to decode them on the
+     * HTTP client threads
+     */
+    public Executor getDecodeExecutor() {
+        return decodeExecutor;
+    }
+
+    /**
+     * @return the scheduler of {@code Awaitility.await(Call)}, or {@code null} to use its
+     * default one
+     */
+    public BackgroundJobScheduler getBackgroundJobScheduler() {
+        return backgroundJobScheduler;
+    }
+}
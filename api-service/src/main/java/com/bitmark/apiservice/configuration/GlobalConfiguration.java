@@ -6,14 +6,27 @@
  */
 package com.bitmark.apiservice.configuration;
 
+import com.bitmark.apiservice.cache.ResponseCache;
+import com.bitmark.apiservice.metrics.MetricsRegistry;
 import com.bitmark.apiservice.middleware.HttpObserver;
+import com.bitmark.apiservice.utils.BackgroundJobScheduler;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.logging.HttpLoggingInterceptor;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
 import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
 
 public class GlobalConfiguration {
 
-    private Builder builder;
+    private final ClientConfiguration configuration;
 
     private static volatile GlobalConfiguration INSTANCE;
 
@@ -45,32 +58,169 @@ public class GlobalConfiguration {
     }
 
     private GlobalConfiguration(Builder builder) {
-        this.builder = builder;
+        this.configuration = new ClientConfiguration(builder);
+    }
+
+    /**
+     * @return the configuration of the shared API clients
+     */
+    public static ClientConfiguration clientConfiguration() {
+        validate();
+        return INSTANCE.configuration;
     }
 
     public static Network network() {
         validate();
-        return INSTANCE.builder.network;
+        return INSTANCE.configuration.getNetwork();
     }
 
     public static String apiToken() {
         validate();
-        return INSTANCE.builder.apiToken;
+        return INSTANCE.configuration.getApiToken();
     }
 
     public static int connectionTimeout() {
         validate();
-        return INSTANCE.builder.connectionTimeout;
+        return INSTANCE.configuration.getConnectionTimeout();
     }
 
     public static HttpLoggingInterceptor.Level logLevel() {
         validate();
-        return INSTANCE.builder.logLevel;
+        return INSTANCE.configuration.getLogLevel();
     }
 
     public static HttpObserver httpObserver() {
         validate();
-        return INSTANCE.builder.httpObserver;
+        return INSTANCE.configuration.getHttpObserver();
+    }
+
+    public static int maxRequests() {
+        validate();
+        return INSTANCE.configuration.getMaxRequests();
+    }
+
+    public static int maxRequestsPerHost() {
+        validate();
+        return INSTANCE.configuration.getMaxRequestsPerHost();
+    }
+
+    public static int maxIdleConnections() {
+        validate();
+        return INSTANCE.configuration.getMaxIdleConnections();
+    }
+
+    public static long keepAliveDuration() {
+        validate();
+        return INSTANCE.configuration.getKeepAliveDuration();
+    }
+
+    public static List<Protocol> protocols() {
+        validate();
+        return INSTANCE.configuration.getProtocols();
+    }
+
+    public static QueuePolicy queuePolicy() {
+        validate();
+        return INSTANCE.configuration.getQueuePolicy();
+    }
+
+    public static ResponseCache responseCache() {
+        validate();
+        return INSTANCE.configuration.getResponseCache();
+    }
+
+    public static boolean isRequestCoalescing() {
+        validate();
+        return INSTANCE.configuration.isRequestCoalescing();
+    }
+
+    public static RetryPolicy retryPolicy() {
+        validate();
+        return INSTANCE.configuration.getRetryPolicy();
+    }
+
+    public static int circuitBreakerFailureThreshold() {
+        validate();
+        return INSTANCE.configuration.getCircuitBreakerFailureThreshold();
+    }
+
+    public static long circuitBreakerOpenDuration() {
+        validate();
+        return INSTANCE.configuration.getCircuitBreakerOpenDuration();
+    }
+
+    public static double readRateLimit() {
+        validate();
+        return INSTANCE.configuration.getReadRateLimit();
+    }
+
+    public static int readRateLimitBurst() {
+        validate();
+        return INSTANCE.configuration.getReadRateLimitBurst();
+    }
+
+    public static double writeRateLimit() {
+        validate();
+        return INSTANCE.configuration.getWriteRateLimit();
+    }
+
+    public static int writeRateLimitBurst() {
+        validate();
+        return INSTANCE.configuration.getWriteRateLimitBurst();
+    }
+
+    public static MetricsRegistry metrics() {
+        validate();
+        return INSTANCE.configuration.getMetrics();
+    }
+
+    public static long requestCompressionThreshold() {
+        validate();
+        return INSTANCE.configuration.getRequestCompressionThreshold();
+    }
+
+    /**
+     * @return the API endpoint, or {@code null} to use the one of the {@link #network()}
+     */
+    public static String endpoint() {
+        validate();
+        return INSTANCE.configuration.getEndpoint();
+    }
+
+    /**
+     * @return the web socket endpoint, or {@code null} to use the one of the
+     * {@link #network()}
+     */
+    public static String webSocketEndpoint() {
+        validate();
+        return INSTANCE.configuration.getWebSocketEndpoint();
+    }
+
+    /**
+     * @return the executor of the callbacks, or {@code null} to invoke them on the HTTP
+     * client threads
+     */
+    public static Executor callbackExecutor() {
+        validate();
+        return INSTANCE.configuration.getCallbackExecutor();
+    }
+
+    /**
+     * @return the executor decoding the responses, or {@code null} to decode them on the
+     * HTTP client threads
+     */
+    public static Executor decodeExecutor() {
+        validate();
+        return INSTANCE.configuration.getDecodeExecutor();
+    }
+
+    /**
+     * @return the scheduler of {@code Awaitility.await(Call)}, or {@code null} to use its
+     * default one
+     */
+    public static BackgroundJobScheduler backgroundJobScheduler() {
+        validate();
+        return INSTANCE.configuration.getBackgroundJobScheduler();
     }
 
     private static void validate() {
@@ -83,15 +233,64 @@ public class GlobalConfiguration {
 
     public static final class Builder {
 
-        private Network network = Network.TEST_NET;
+        Network network = Network.TEST_NET;
+
+        String apiToken;
+
+        int connectionTimeout = 30; // 30 seconds
+
+        HttpLoggingInterceptor.Level logLevel;
+
+        HttpObserver httpObserver;
+
+        int maxRequests = 64;
+
+        int maxRequestsPerHost = 5;
+
+        int maxIdleConnections = 5;
 
-        private String apiToken;
+        long keepAliveDuration = TimeUnit.MINUTES.toMillis(5);
 
-        private int connectionTimeout = 30; // 30 seconds
+        List<Protocol> protocols = Collections.unmodifiableList(Arrays.asList(
+                Protocol.HTTP_2,
+                Protocol.HTTP_1_1
+        ));
 
-        private HttpLoggingInterceptor.Level logLevel;
+        OkHttpClient okHttpClient;
 
-        private HttpObserver httpObserver;
+        QueuePolicy queuePolicy = QueuePolicy.QUEUE;
+
+        ResponseCache responseCache;
+
+        boolean requestCoalescing;
+
+        RetryPolicy retryPolicy = RetryPolicy.builder().build();
+
+        int circuitBreakerFailureThreshold; // disabled
+
+        long circuitBreakerOpenDuration;
+
+        double readRateLimit; // disabled
+
+        int readRateLimitBurst;
+
+        double writeRateLimit; // disabled
+
+        int writeRateLimitBurst;
+
+        MetricsRegistry metrics;
+
+        long requestCompressionThreshold; // disabled
+
+        String endpoint; // network default
+
+        String webSocketEndpoint; // network default
+
+        Executor callbackExecutor; // HTTP client thread
+
+        Executor decodeExecutor; // HTTP client thread
+
+        BackgroundJobScheduler backgroundJobScheduler; // Awaitility default
 
         Builder() {
         }
@@ -126,10 +325,272 @@ public class GlobalConfiguration {
             return this;
         }
 
+        /**
+         * Maximum number of API requests executing concurrently. Above this the requests
+         * are handled following the {@link QueuePolicy}.
+         */
+        public Builder withMaxRequests(int maxRequests) {
+            checkValid(
+                    () -> maxRequests > 0,
+                    "max requests must be greater than zero"
+            );
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * Maximum number of API requests executing concurrently against a single host.
+         * Above this the requests are handled following the {@link QueuePolicy} too.
+         */
+        public Builder withMaxRequestsPerHost(int maxRequestsPerHost) {
+            checkValid(
+                    () -> maxRequestsPerHost > 0,
+                    "max requests per host must be greater than zero"
+            );
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * Configure the connection pool.
+         *
+         * @param maxIdleConnections the number of idle connections to keep in the pool
+         * @param keepAliveDuration  how long an idle connection is kept alive
+         * @param timeUnit           the unit of keepAliveDuration
+         */
+        public Builder withConnectionPool(
+                int maxIdleConnections,
+                long keepAliveDuration,
+                TimeUnit timeUnit
+        ) {
+            checkValid(
+                    () -> maxIdleConnections >= 0,
+                    "max idle connections must not be negative"
+            );
+            checkValid(
+                    () -> keepAliveDuration > 0 && timeUnit != null,
+                    "keep alive duration must be greater than zero"
+            );
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAliveDuration = timeUnit.toMillis(keepAliveDuration);
+            return this;
+        }
+
+        /**
+         * The protocols to negotiate with the server, in order of preference. The list
+         * must contain {@link Protocol#HTTP_1_1}. For example, pass only
+         * {@link Protocol#HTTP_1_1} to disable HTTP/2.
+         */
+        public Builder withProtocols(Protocol... protocols) {
+            checkValid(
+                    () -> protocols != null && Arrays.asList(protocols)
+                            .contains(Protocol.HTTP_1_1),
+                    "protocols must contain http/1.1"
+            );
+            this.protocols = Collections.unmodifiableList(Arrays.asList(protocols));
+            return this;
+        }
+
+        /**
+         * Derive the HTTP client from {@code okHttpClient} with
+         * {@link OkHttpClient#newBuilder()}. All API clients configured with the same
+         * {@code okHttpClient} share its connection pool, dispatcher and cache, and so its
+         * sockets and threads. The max requests, connection pool and protocols options are
+         * then the ones of {@code okHttpClient}.
+         */
+        public Builder withOkHttpClient(OkHttpClient okHttpClient) {
+            checkNonNull(okHttpClient);
+            this.okHttpClient = okHttpClient;
+            return this;
+        }
+
+        public Builder withQueuePolicy(QueuePolicy queuePolicy) {
+            checkNonNull(queuePolicy);
+            this.queuePolicy = queuePolicy;
+            return this;
+        }
+
+        /**
+         * Cache immutable records, confirmed assets and transactions that are no longer
+         * the head of their bitmark, so they are fetched only once. Disabled by default.
+         */
+        public Builder withResponseCache(ResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        /**
+         * Let concurrent GET requests for the same URL share one call and its result.
+         * Disabled by default, since a GET sent right after a write may join a call that
+         * was started before the write and so return the state before the write.
+         */
+        public Builder withRequestCoalescing(boolean requestCoalescing) {
+            this.requestCoalescing = requestCoalescing;
+            return this;
+        }
+
+        /**
+         * How failed requests are retried. By default GET requests are retried up to 3
+         * times on network errors and 429, 502, 503 and 504 responses. Use
+         * {@link RetryPolicy#NONE} to disable retries.
+         */
+        public Builder withRetryPolicy(RetryPolicy retryPolicy) {
+            checkNonNull(retryPolicy);
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Enable a circuit breaker per endpoint. After {@code failureThreshold}
+         * consecutive network errors or retryable responses from an endpoint, its requests
+         * fail fast with {@link com.bitmark.apiservice.utils.error.CircuitBreakerOpenException}
+         * for {@code openDuration}, then a single trial request is let through.
+         */
+        public Builder withCircuitBreaker(
+                int failureThreshold,
+                long openDuration,
+                TimeUnit timeUnit
+        ) {
+            checkValid(
+                    () -> failureThreshold > 0,
+                    "failure threshold must be greater than zero"
+            );
+            checkValid(
+                    () -> openDuration > 0 && timeUnit != null,
+                    "open duration must be greater than zero"
+            );
+            this.circuitBreakerFailureThreshold = failureThreshold;
+            this.circuitBreakerOpenDuration = timeUnit.toMillis(openDuration);
+            return this;
+        }
+
+        /**
+         * Limit the rate of read requests, all requests except the issue and transfer
+         * ones. Requests above the rate wait in a queue without blocking the caller.
+         *
+         * @param permitsPerSecond the sustained number of requests per second
+         * @param burst            the number of requests that can be sent at once after
+         *                         a quiet period
+         */
+        public Builder withReadRateLimit(double permitsPerSecond, int burst) {
+            checkValid(
+                    () -> permitsPerSecond > 0 && burst > 0,
+                    "rate limit must be greater than zero"
+            );
+            this.readRateLimit = permitsPerSecond;
+            this.readRateLimitBurst = burst;
+            return this;
+        }
+
+        /**
+         * Limit the rate of write requests to {@code /v3/issue} and {@code /v3/transfer}.
+         *
+         * @see #withReadRateLimit(double, int)
+         */
+        public Builder withWriteRateLimit(double permitsPerSecond, int burst) {
+            checkValid(
+                    () -> permitsPerSecond > 0 && burst > 0,
+                    "rate limit must be greater than zero"
+            );
+            this.writeRateLimit = permitsPerSecond;
+            this.writeRateLimitBurst = burst;
+            return this;
+        }
+
+        /**
+         * Record request metrics to the registry. Disabled by default.
+         */
+        public Builder withMetrics(MetricsRegistry metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Compress request bodies of at least {@code minBytes} bytes with gzip, such as
+         * the body of a large batch issuance. Disabled by default.
+         */
+        public Builder withRequestCompression(long minBytes) {
+            checkValid(() -> minBytes > 0, "min bytes must be greater than zero");
+            this.requestCompressionThreshold = minBytes;
+            return this;
+        }
+
+        /**
+         * Send the API requests to {@code endpoint}, e.g. {@code http://localhost:8080},
+         * instead of the endpoint of the network, such as a local stand-in server. The
+         * network still decides the format of the account numbers.
+         */
+        public Builder withEndpoint(String endpoint) {
+            checkValid(
+                    () -> endpoint != null && HttpUrl.parse(endpoint) != null,
+                    "invalid endpoint"
+            );
+            this.endpoint = endpoint.endsWith("/")
+                            ? endpoint.substring(0, endpoint.length() - 1)
+                            : endpoint;
+            return this;
+        }
+
+        /**
+         * Connect the web socket to {@code endpoint} instead of the endpoint of the
+         * network. The server must speak the protobuf format of the Centrifuge protocol.
+         */
+        public Builder withWebSocketEndpoint(String endpoint) {
+            checkValid(
+                    () -> endpoint != null && (endpoint.startsWith("ws://") ||
+                                                       endpoint.startsWith("wss://")),
+                    "invalid web socket endpoint"
+            );
+            this.webSocketEndpoint = endpoint;
+            return this;
+        }
+
+        /**
+         * Invoke the callbacks of the API calls on {@code executor}, e.g. the main thread
+         * of an UI or a pool of its own. By default they are invoked on the threads of
+         * the HTTP client, where a slow callback holds back the other requests.
+         */
+        public Builder withCallbackExecutor(Executor executor) {
+            checkNonNull(executor);
+            this.callbackExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Decode the JSON responses on {@code executor} instead of on the threads of the
+         * HTTP client, which are then released as soon as the response headers arrive.
+         * The body is streamed while decoding, so the connection stays busy until then.
+         */
+        public Builder withDecodeExecutor(Executor executor) {
+            checkNonNull(executor);
+            this.decodeExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Run the jobs of {@code Awaitility.await(Call)} on {@code scheduler}, e.g. a
+         * larger or a work-stealing one, instead of the default one of 5 threads.
+         */
+        public Builder withBackgroundJobScheduler(BackgroundJobScheduler scheduler) {
+            checkNonNull(scheduler);
+            this.backgroundJobScheduler = scheduler;
+            return this;
+        }
+
         public void build() {
             GlobalConfiguration.createInstance(this);
         }
 
+        /**
+         * Build an independent configuration for an API client, e.g.
+         * {@code new ApiService(configuration)}, leaving the {@link GlobalConfiguration}
+         * as it is. Later changes to this builder do not affect it.
+         */
+        public ClientConfiguration toClientConfiguration() {
+            validate();
+            return new ClientConfiguration(this);
+        }
+
         private void validate() {
             if (apiToken == null || apiToken.isEmpty()) {
                 throw new IllegalArgumentException("Api token is required");
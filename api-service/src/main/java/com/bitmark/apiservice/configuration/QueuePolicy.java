@@ -0,0 +1,25 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.configuration;
+
+/**
+ * What happens to an API request when the maximum number of concurrent requests, in total
+ * or to its host, is already in flight.
+ */
+public enum QueuePolicy {
+
+    /**
+     * The request waits in the dispatcher queue until a running request completes.
+     */
+    QUEUE,
+
+    /**
+     * The request fails immediately with a
+     * {@link com.bitmark.apiservice.utils.error.NetworkException}.
+     */
+    REJECT
+}
@@ -0,0 +1,159 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.configuration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * When and how long to wait before a failed API request is sent again. A request is
+ * retried on a network error or a retryable status code, after an exponential backoff with
+ * full jitter. A {@code Retry-After} header of the response takes precedence over the
+ * backoff as long as it is not longer than the max backoff.
+ * <p>
+ * Only GET requests are retried unless {@link Builder#withNonIdempotentRetry(boolean)}
+ * is enabled, since a POST, PATCH or DELETE that failed in flight may have been applied.
+ */
+public final class RetryPolicy {
+
+    public static final RetryPolicy NONE = builder().withMaxRetries(0).build();
+
+    private final int maxRetries;
+
+    private final long initialBackoff;
+
+    private final long maxBackoff;
+
+    private final Set<Integer> retryableStatusCodes;
+
+    private final boolean nonIdempotentRetry;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private RetryPolicy(Builder builder) {
+        this.maxRetries = builder.maxRetries;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.retryableStatusCodes = builder.retryableStatusCodes;
+        this.nonIdempotentRetry = builder.nonIdempotentRetry;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public Set<Integer> getRetryableStatusCodes() {
+        return retryableStatusCodes;
+    }
+
+    public boolean isNonIdempotentRetry() {
+        return nonIdempotentRetry;
+    }
+
+    /**
+     * @param method  the HTTP method of the request
+     * @param retries number of times the request has already been retried
+     */
+    public boolean canRetry(String method, int retries) {
+        return retries < maxRetries && ("GET".equals(method) || nonIdempotentRetry);
+    }
+
+    public boolean isRetryableStatus(int code) {
+        return retryableStatusCodes.contains(code);
+    }
+
+    /**
+     * @param retries    number of times the request has already been retried
+     * @param retryAfter delay requested by the server in milliseconds, or a negative value
+     * @return delay in milliseconds before the next retry, or a negative value if the
+     * server asks to wait longer than the max backoff
+     */
+    public long backoff(int retries, long retryAfter) {
+        if (retryAfter >= 0) {
+            return retryAfter <= maxBackoff ? retryAfter : -1;
+        }
+        long ceiling = initialBackoff << Math.min(retries, 30);
+        if (ceiling <= 0 || ceiling > maxBackoff) {
+            ceiling = maxBackoff;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public static final class Builder {
+
+        private int maxRetries = 3;
+
+        private long initialBackoff = 200;
+
+        private long maxBackoff = TimeUnit.SECONDS.toMillis(10);
+
+        private Set<Integer> retryableStatusCodes = Collections.unmodifiableSet(
+                new HashSet<>(Arrays.asList(429, 502, 503, 504)));
+
+        private boolean nonIdempotentRetry;
+
+        private Builder() {
+        }
+
+        public Builder withMaxRetries(int maxRetries) {
+            checkValid(() -> maxRetries >= 0, "max retries must not be negative");
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * The backoff before the first retry is up to {@code initialBackoff}, it doubles on
+         * each retry up to {@code maxBackoff}.
+         */
+        public Builder withBackoff(long initialBackoff, long maxBackoff, TimeUnit unit) {
+            checkValid(
+                    () -> unit != null && initialBackoff > 0 &&
+                            maxBackoff >= initialBackoff,
+                    "backoff must be greater than zero and not above max backoff"
+            );
+            this.initialBackoff = unit.toMillis(initialBackoff);
+            this.maxBackoff = unit.toMillis(maxBackoff);
+            return this;
+        }
+
+        public Builder withRetryableStatusCodes(Integer... codes) {
+            checkValid(() -> codes != null, "status codes are required");
+            this.retryableStatusCodes = Collections.unmodifiableSet(
+                    new HashSet<>(Arrays.asList(codes)));
+            return this;
+        }
+
+        /**
+         * Also retry POST, PATCH and DELETE requests. Only enable it if sending a signed
+         * request twice is harmless, e.g. the server rejects the duplicate.
+         */
+        public Builder withNonIdempotentRetry(boolean nonIdempotentRetry) {
+            this.nonIdempotentRetry = nonIdempotentRetry;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of one endpoint.
+ */
+final class EndpointMetrics {
+
+    final LongAdder requestCount = new LongAdder();
+
+    final AtomicLong inFlight = new AtomicLong();
+
+    final LongAdder bytesSent = new LongAdder();
+
+    final LongAdder bytesReceived = new LongAdder();
+
+    final LongAdder networkErrorCount = new LongAdder();
+
+    final ConcurrentMap<Integer, LongAdder> errorCounts = new ConcurrentHashMap<>();
+
+    final Histogram latency = new Histogram();
+
+    final Histogram decodeTime = new Histogram();
+
+    void recordError(int statusCode) {
+        LongAdder counter = errorCounts.get(statusCode);
+        if (counter == null) {
+            LongAdder created = new LongAdder();
+            counter = errorCounts.putIfAbsent(statusCode, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.increment();
+    }
+
+    EndpointSnapshot snapshot(String endpoint) {
+        Map<Integer, Long> errors = new TreeMap<>();
+        for (Map.Entry<Integer, LongAdder> entry : errorCounts.entrySet()) {
+            errors.put(entry.getKey(), entry.getValue().sum());
+        }
+        return new EndpointSnapshot(
+                endpoint,
+                requestCount.sum(),
+                inFlight.get(),
+                bytesSent.sum(),
+                bytesReceived.sum(),
+                networkErrorCount.sum(),
+                errors,
+                latency.snapshot(),
+                decodeTime.snapshot()
+        );
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Metrics of one endpoint at the time {@link MetricsRegistry#snapshot()} is called. Times
+ * are in nanoseconds.
+ */
+public final class EndpointSnapshot {
+
+    private final String endpoint;
+
+    private final long requestCount;
+
+    private final long inFlight;
+
+    private final long bytesSent;
+
+    private final long bytesReceived;
+
+    private final long networkErrorCount;
+
+    private final Map<Integer, Long> errorCounts;
+
+    private final HistogramSnapshot latency;
+
+    private final HistogramSnapshot decodeTime;
+
+    EndpointSnapshot(
+            String endpoint,
+            long requestCount,
+            long inFlight,
+            long bytesSent,
+            long bytesReceived,
+            long networkErrorCount,
+            Map<Integer, Long> errorCounts,
+            HistogramSnapshot latency,
+            HistogramSnapshot decodeTime
+    ) {
+        this.endpoint = endpoint;
+        this.requestCount = requestCount;
+        this.inFlight = inFlight;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.networkErrorCount = networkErrorCount;
+        this.errorCounts = Collections.unmodifiableMap(errorCounts);
+        this.latency = latency;
+        this.decodeTime = decodeTime;
+    }
+
+    /**
+     * @return the method and endpoint, e.g. {@code GET /v3/bitmarks}
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return number of requests sent, each retry counts as a request
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * @return number of requests waiting for their response
+     */
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return number of response body bytes read, after decompression
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * @return number of requests failed without response
+     */
+    public long getNetworkErrorCount() {
+        return networkErrorCount;
+    }
+
+    /**
+     * @return number of non successful responses by status code
+     */
+    public Map<Integer, Long> getErrorCounts() {
+        return errorCounts;
+    }
+
+    public HistogramSnapshot getLatency() {
+        return latency;
+    }
+
+    public HistogramSnapshot getDecodeTime() {
+        return decodeTime;
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointSnapshot{" +
+                "endpoint='" + endpoint + '\'' +
+                ", requestCount=" + requestCount +
+                ", inFlight=" + inFlight +
+                ", bytesSent=" + bytesSent +
+                ", bytesReceived=" + bytesReceived +
+                ", networkErrorCount=" + networkErrorCount +
+                ", errorCounts=" + errorCounts +
+                ", latency=" + latency +
+                ", decodeTime=" + decodeTime +
+                '}';
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.metrics;
+
+/**
+ * Notified by a {@link MetricsRegistry} for every API request. It is called on the network
+ * thread, so it must be fast and must not block.
+ */
+public interface MetricsListener {
+
+    /**
+     * @param endpoint     the method and endpoint, e.g. {@code GET /v3/bitmarks}
+     * @param statusCode   the HTTP status code, or 0 if the request failed without response
+     * @param latencyNanos the time until the response headers are received
+     */
+    void onRequestCompleted(String endpoint, int statusCode, long latencyNanos);
+
+    /**
+     * @param endpoint    the method and endpoint, e.g. {@code GET /v3/bitmarks}
+     * @param decodeNanos the time to decode the response body
+     */
+    void onResponseDecoded(String endpoint, long decodeNanos);
+}
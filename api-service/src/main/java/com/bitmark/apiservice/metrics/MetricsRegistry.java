@@ -0,0 +1,109 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.metrics;
+
+import com.bitmark.apiservice.utils.HttpUtils;
+import okhttp3.Request;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+
+/**
+ * Request metrics of the API service, per method and endpoint. Configure it with
+ * {@link com.bitmark.apiservice.configuration.GlobalConfiguration.Builder#withMetrics}
+ * and read it with {@link #snapshot()} or a {@link MetricsListener}. Nothing is recorded
+ * if no registry is configured.
+ */
+public class MetricsRegistry {
+
+    private final ConcurrentMap<String, EndpointMetrics> endpoints =
+            new ConcurrentHashMap<>();
+
+    private final List<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(MetricsListener listener) {
+        checkNonNull(listener);
+        listeners.add(listener);
+    }
+
+    public void removeListener(MetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return metrics of every endpoint that has been requested, by endpoint name
+     */
+    public Map<String, EndpointSnapshot> snapshot() {
+        Map<String, EndpointSnapshot> snapshot = new TreeMap<>();
+        for (Map.Entry<String, EndpointMetrics> entry : endpoints.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    public void onRequestStarted(Request request, long bytesSent) {
+        EndpointMetrics metrics = metrics(request);
+        metrics.requestCount.increment();
+        metrics.inFlight.incrementAndGet();
+        if (bytesSent > 0) {
+            metrics.bytesSent.add(bytesSent);
+        }
+    }
+
+    /**
+     * @param statusCode the HTTP status code, or 0 if the request failed without response
+     */
+    public void onRequestCompleted(Request request, int statusCode, long latencyNanos) {
+        final String endpoint = HttpUtils.endpoint(request);
+        EndpointMetrics metrics = metrics(endpoint);
+        metrics.inFlight.decrementAndGet();
+        metrics.latency.record(latencyNanos);
+        if (statusCode == 0) {
+            metrics.networkErrorCount.increment();
+        } else if (statusCode < 200 || statusCode >= 300) {
+            metrics.recordError(statusCode);
+        }
+        for (MetricsListener listener : listeners) {
+            listener.onRequestCompleted(endpoint, statusCode, latencyNanos);
+        }
+    }
+
+    public void onBytesReceived(Request request, long bytes) {
+        metrics(request).bytesReceived.add(bytes);
+    }
+
+    public void onResponseDecoded(Request request, long decodeNanos) {
+        final String endpoint = HttpUtils.endpoint(request);
+        metrics(endpoint).decodeTime.record(decodeNanos);
+        for (MetricsListener listener : listeners) {
+            listener.onResponseDecoded(endpoint, decodeNanos);
+        }
+    }
+
+    private EndpointMetrics metrics(Request request) {
+        return metrics(HttpUtils.endpoint(request));
+    }
+
+    private EndpointMetrics metrics(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        if (metrics == null) {
+            EndpointMetrics created = new EndpointMetrics();
+            metrics = endpoints.putIfAbsent(endpoint, created);
+            if (metrics == null) {
+                metrics = created;
+            }
+        }
+        return metrics;
+    }
+}
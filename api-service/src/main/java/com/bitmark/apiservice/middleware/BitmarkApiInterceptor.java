@@ -17,20 +17,39 @@ public class BitmarkApiInterceptor implements Interceptor {
 
     private String apiToken;
 
+    private HttpObserver observer;
+
+    /**
+     * Observe the requests with the {@link HttpObserver} of the {@link GlobalConfiguration}.
+     */
     public BitmarkApiInterceptor(String apiToken) {
+        this(
+                apiToken,
+                GlobalConfiguration.isInitialized()
+                ? GlobalConfiguration.httpObserver()
+                : null
+        );
+    }
+
+    /**
+     * @param observer the observer of the requests and responses, or {@code null}
+     */
+    public BitmarkApiInterceptor(String apiToken, HttpObserver observer) {
         this.apiToken = apiToken;
+        this.observer = observer;
     }
 
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
+        // Accept-Encoding is left to OkHttp, which asks for gzip and decompresses the
+        // response transparently
         request = request.newBuilder()
                 .addHeader("API-TOKEN", apiToken)
                 .addHeader("Content-Type", "application/json")
                 .addHeader("Accept", "application/json")
                 .addHeader("Cache-Control", "no-cache")
                 .addHeader("Cache-Control", "no-store")
-                .addHeader("Accept-Encoding", "*")
                 .addHeader(
                         "User-Agent",
                         String.format(
@@ -42,13 +61,13 @@ public class BitmarkApiInterceptor implements Interceptor {
                 )
                 .build();
 
-        HttpObserver observer = GlobalConfiguration.httpObserver();
+        // requests and responses are immutable, they are handed to the observer as is
         if (observer != null) {
-            observer.onRequest(request.newBuilder().build());
+            observer.onRequest(request);
         }
         Response response = chain.proceed(request);
         if (observer != null) {
-            observer.onRespond(response.newBuilder().build());
+            observer.onRespond(response);
         }
         return response;
     }
@@ -0,0 +1,124 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.middleware;
+
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Consecutive failure circuit breaker. After {@code failureThreshold} consecutive
+ * failures it opens and rejects requests for {@code openDuration} milliseconds, then lets
+ * a single trial request through. The breaker closes if the trial succeeds and opens again
+ * if it fails. A cancelled trial is neither, it only lets a new trial through.
+ */
+public class CircuitBreaker {
+
+    // the permit of the requests admitted while the breaker is closed, none is the trial
+    private static final Permit ADMITTED = new Permit();
+
+    public enum State {
+        CLOSED,
+
+        OPEN,
+
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final long openDuration;
+
+    private State state = State.CLOSED;
+
+    private int failures;
+
+    private long openedAt;
+
+    private Permit trial;
+
+    public CircuitBreaker(int failureThreshold, long openDuration) {
+        checkValid(
+                () -> failureThreshold > 0,
+                "failure threshold must be greater than zero"
+        );
+        checkValid(() -> openDuration > 0, "open duration must be greater than zero");
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    public boolean allowRequest() {
+        return acquire() != null;
+    }
+
+    /**
+     * Like {@link #allowRequest()}, the returned permit tells
+     * {@link #onCancelled(Permit)} whether the request was the trial.
+     *
+     * @return the permit of the request or {@code null} if it is rejected
+     */
+    public synchronized Permit acquire() {
+        switch (state) {
+            case CLOSED:
+                return ADMITTED;
+            case OPEN:
+                if (now() - openedAt >= openDuration) {
+                    state = State.HALF_OPEN;
+                    trial = new Permit();
+                    return trial;
+                }
+                return null;
+            default:
+                // a trial request is already in flight
+                return null;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        failures = 0;
+        state = State.CLOSED;
+        trial = null;
+    }
+
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = now();
+            trial = null;
+        }
+    }
+
+    /**
+     * A request admitted with {@code permit} completed without telling whether the
+     * endpoint is healthy, e.g. it was cancelled. No failure is counted, but if it was
+     * the trial request the breaker opens again with its open duration already elapsed,
+     * so that the next request is the new trial.
+     */
+    public synchronized void onCancelled(Permit permit) {
+        if (state == State.HALF_OPEN && permit != null && permit == trial) {
+            state = State.OPEN;
+            openedAt = now() - openDuration;
+            trial = null;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    protected long now() {
+        return System.nanoTime() / 1000000;
+    }
+
+    /**
+     * The admission of a request by {@link #acquire()}.
+     */
+    public static final class Permit {
+
+        private Permit() {
+        }
+    }
+}
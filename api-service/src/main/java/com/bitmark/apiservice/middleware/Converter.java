@@ -6,6 +6,7 @@
  */
 package com.bitmark.apiservice.middleware;
 
+import com.bitmark.apiservice.metrics.MetricsRegistry;
 import com.bitmark.apiservice.response.*;
 import com.bitmark.apiservice.utils.Pair;
 import com.bitmark.apiservice.utils.callback.Callback1;
@@ -16,70 +17,53 @@ import com.bitmark.apiservice.utils.record.ShareGrantRecord;
 import com.bitmark.apiservice.utils.record.ShareRecord;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.lang.reflect.Type;
 import java.util.List;
-import java.util.Map;
-
-import static com.bitmark.apiservice.utils.HttpUtils.jsonToMap;
 
+/**
+ * Convert the raw {@link Response} to the typed response. The body is decoded in a single
+ * pass from the underlying {@link ResponseBody} stream, without buffering it to a
+ * {@link String} first.
+ */
 public class Converter {
 
     private static final Gson GSON = new GsonBuilder().create();
 
-    public static Callback1<Response> toIssueResponse(Callback1<List<BitmarkRecord>> callback) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response res) {
-                try {
-                    String raw = res.body().string();
-                    Map<String, Object> mapJson = jsonToMap(raw);
-                    JsonArray jsonArray = GSON.toJsonTree(mapJson.get("bitmarks"))
-                            .getAsJsonArray();
-                    List<BitmarkRecord> records = new ArrayList<>(jsonArray.size());
-                    for (JsonElement jsonElement : jsonArray) {
-                        records.add(GSON.fromJson(jsonElement.toString(), BitmarkRecord.class));
-                    }
-                    callback.onSuccess(records);
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-            }
+    private static final Type BITMARK_RECORDS_TYPE =
+            new TypeToken<List<BitmarkRecord>>() {
+            }.getType();
 
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+    private static final Type ASSET_RECORDS_TYPE =
+            new TypeToken<List<AssetRecord>>() {
+            }.getType();
+
+    private static final Type SHARE_RECORDS_TYPE =
+            new TypeToken<List<ShareRecord>>() {
+            }.getType();
+
+    private static final Type SHARE_GRANT_RECORDS_TYPE =
+            new TypeToken<List<ShareGrantRecord>>() {
+            }.getType();
+
+    public static Callback1<Response> toIssueResponse(Callback1<List<BitmarkRecord>> callback) {
+        return convert(callback, res -> readRequiredField(
+                res,
+                "bitmarks",
+                BITMARK_RECORDS_TYPE
+        ));
     }
 
     public static Callback1<Response> toRegistrationResponse(
             Callback1<RegistrationResponse> callback
     ) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response res) {
-                try {
-                    String raw = res.body().string();
-                    RegistrationResponse response = GSON.fromJson(
-                            raw,
-                            RegistrationResponse.class
-                    );
-                    callback.onSuccess(response);
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+        return convert(callback, res -> read(res, RegistrationResponse.class));
     }
 
     public static Callback1<Response> toTxId(Callback1<String> callback) {
@@ -87,20 +71,22 @@ public class Converter {
             @Override
             public void onSuccess(Response response) {
                 try {
-                    String raw = response.body().string();
-                    Map<String, Object> json = jsonToMap(raw);
-                    if (json.containsKey("status")) {
-                        String status = json.get("status").toString();
+                    JsonObject json = decode(
+                            response,
+                            res -> read(res, JsonObject.class)
+                    );
+                    if (json.has("status")) {
+                        String status = json.get("status").getAsString();
                         if (status.equals("ok")) {
                             callback.onSuccess("");
                         } else {
                             callback.onError(new UnexpectedException(
                                     "response status is not ok"));
                         }
-                    } else if (json.containsKey("txid")) {
-                        callback.onSuccess(json.get("txid").toString());
-                    } else if (json.containsKey("txId")) {
-                        callback.onSuccess(json.get("txId").toString());
+                    } else if (json.has("txid")) {
+                        callback.onSuccess(json.get("txid").getAsString());
+                    } else if (json.has("txId")) {
+                        callback.onSuccess(json.get("txId").getAsString());
                     }
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
@@ -116,320 +102,104 @@ public class Converter {
     }
 
     public static Callback1<Response> toStatus(Callback1<String> callback) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response response) {
-                try {
-                    String raw = response.body().string();
-                    Map<String, Object> json = jsonToMap(raw);
-                    callback.onSuccess(json.get("status").toString());
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+        return convert(callback, res -> readRequiredField(res, "status", String.class));
     }
 
     public static Callback1<Response> toOfferId(Callback1<String> callback) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response response) {
-                try {
-                    String raw = response.body().string();
-                    Map<String, Object> json = jsonToMap(raw);
-                    callback.onSuccess(json.get("offer_id").toString());
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+        return convert(callback, res -> readRequiredField(res, "offer_id", String.class));
     }
 
     public static Callback1<Response> toGetBitmarkResponse(Callback1<GetBitmarkResponse> callback) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response res) {
-                try {
-                    String raw = res.body().string();
-                    callback.onSuccess(GSON.fromJson(
-                            raw,
-                            GetBitmarkResponse.class
-                    ));
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+        return convert(callback, res -> read(res, GetBitmarkResponse.class));
     }
 
     public static Callback1<Response> toGetBitmarksResponse(
             Callback1<GetBitmarksResponse> callback
     ) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response res) {
-                try {
-                    String raw = res.body().string();
-                    callback.onSuccess(GSON.fromJson(
-                            raw,
-                            GetBitmarksResponse.class
-                    ));
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+        return convert(callback, res -> read(res, GetBitmarksResponse.class));
     }
 
     public static Callback1<Response> toAssetRecord(Callback1<AssetRecord> callback) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response res) {
-                try {
-                    String raw = res.body().string();
-                    Map<String, Object> jsonMap = jsonToMap(raw);
-                    String json = GSON.toJsonTree(jsonMap.get("asset"))
-                            .getAsJsonObject()
-                            .toString();
-                    AssetRecord asset = GSON.fromJson(
-                            json,
-                            new TypeToken<AssetRecord>() {
-                            }.getType()
-                    );
-                    callback.onSuccess(asset);
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+        return convert(
+                callback,
+                res -> readRequiredField(res, "asset", AssetRecord.class)
+        );
     }
 
     public static Callback1<Response> toAssetRecords(Callback1<List<AssetRecord>> callback) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response res) {
-                try {
-                    String raw = res.body().string();
-                    Map<String, Object> jsonMap = jsonToMap(raw);
-                    String json = GSON.toJsonTree(jsonMap.get("assets"))
-                            .getAsJsonArray()
-                            .toString();
-                    List<AssetRecord> assets = GSON.fromJson(
-                            json,
-                            new TypeToken<List<AssetRecord>>() {
-                            }.getType()
-                    );
-                    callback.onSuccess(assets);
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+        return convert(
+                callback,
+                res -> readRequiredField(res, "assets", ASSET_RECORDS_TYPE)
+        );
     }
 
     public static Callback1<Response> toGetTransactionResponse(
             Callback1<GetTransactionResponse> callback
     ) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response res) {
-                try {
-                    String raw = res.body().string();
-                    GetTransactionResponse response = GSON.fromJson(
-                            raw,
-                            GetTransactionResponse.class
-                    );
-                    callback.onSuccess(response);
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+        return convert(callback, res -> read(res, GetTransactionResponse.class));
     }
 
     public static Callback1<Response> toGetTransactionsResponse(
             Callback1<GetTransactionsResponse> callback
     ) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response res) {
-                try {
-                    String raw = res.body().string();
-                    GetTransactionsResponse response = GSON.fromJson(
-                            raw,
-                            GetTransactionsResponse.class
-                    );
-                    callback.onSuccess(response);
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+        return convert(callback, res -> read(res, GetTransactionsResponse.class));
     }
 
     public static Callback1<Response> toCreateShareResponse(
             Callback1<Pair<String, String>> callback
     ) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response res) {
-                try {
-                    String raw = res.body().string();
-                    Map<String, Object> mapRes = jsonToMap(raw);
-                    callback.onSuccess(new Pair<>(
-                            mapRes.get("tx_id").toString(),
-                            mapRes.get("share_id").toString()
-                    ));
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+        return convert(callback, res -> {
+            JsonObject json = read(res, JsonObject.class);
+            return new Pair<>(
+                    json.get("tx_id").getAsString(),
+                    json.get("share_id").getAsString()
+            );
+        });
     }
 
     public static Callback1<Response> toGrantShareResponse(Callback1<String> callback) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response res) {
-                try {
-                    String raw = res.body().string();
-                    Map<String, Object> mapRes = jsonToMap(raw);
-                    callback.onSuccess(mapRes.get("offer_id").toString());
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+        return convert(callback, res -> readRequiredField(res, "offer_id", String.class));
     }
 
     public static Callback1<Response> toGetShareResponse(Callback1<ShareRecord> callback) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response res) {
-                try {
-                    String raw = res.body().string();
-                    Map<String, Object> jsonMap = jsonToMap(raw);
-                    String json = GSON.toJsonTree(jsonMap.get("shares"))
-                            .getAsJsonArray()
-                            .toString();
-                    List<ShareRecord> shares = GSON.fromJson(
-                            json,
-                            new TypeToken<List<ShareRecord>>() {
-                            }.getType()
-                    );
-                    callback.onSuccess(!shares.isEmpty()
-                                       ? shares.get(0)
-                                       : null);
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+        return convert(callback, res -> {
+            List<ShareRecord> shares =
+                    readRequiredField(res, "shares", SHARE_RECORDS_TYPE);
+            return !shares.isEmpty() ? shares.get(0) : null;
+        });
     }
 
     public static Callback1<Response> toListSharesResponse(Callback1<List<ShareRecord>> callback) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response res) {
-                try {
-                    String raw = res.body().string();
-                    Map<String, Object> jsonMap = jsonToMap(raw);
-                    String json = GSON.toJsonTree(jsonMap.get("shares"))
-                            .getAsJsonArray()
-                            .toString();
-                    List<ShareRecord> shares = GSON.fromJson(
-                            json,
-                            new TypeToken<List<ShareRecord>>() {
-                            }.getType()
-                    );
-                    callback.onSuccess(shares);
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
-                }
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+        return convert(
+                callback,
+                res -> readRequiredField(res, "shares", SHARE_RECORDS_TYPE)
+        );
     }
 
     public static Callback1<Response> toListShareOffersResponse(
             Callback1<List<ShareGrantRecord>> callback
+    ) {
+        return convert(
+                callback,
+                res -> readRequiredField(res, "offers", SHARE_GRANT_RECORDS_TYPE)
+        );
+    }
+
+    public static Callback1<Response> toWsToken(Callback1<String> callback) {
+        return convert(callback, res -> readRequiredField(res, "token", String.class));
+    }
+
+    private static <T> Callback1<Response> convert(
+            Callback1<T> callback,
+            Decoder<T> decoder
     ) {
         return new Callback1<Response>() {
             @Override
             public void onSuccess(Response res) {
                 try {
-                    String raw = res.body().string();
-                    Map<String, Object> jsonMap = jsonToMap(raw);
-                    String json = GSON.toJsonTree(jsonMap.get("offers"))
-                            .getAsJsonArray()
-                            .toString();
-                    List<ShareGrantRecord> shareGrantRecords = GSON.fromJson(
-                            json,
-                            new TypeToken<List<ShareGrantRecord>>() {
-                            }.getType()
-                    );
-                    callback.onSuccess(shareGrantRecords);
+                    callback.onSuccess(decode(res, decoder));
+                } catch (UnexpectedException e) {
+                    callback.onError(e);
                 } catch (Throwable e) {
                     callback.onError(new UnexpectedException(e));
                 }
@@ -442,24 +212,70 @@ public class Converter {
         };
     }
 
-    public static Callback1<Response> toWsToken(Callback1<String> callback) {
-        return new Callback1<Response>() {
-            @Override
-            public void onSuccess(Response res) {
-                try {
-                    String raw = res.body().string();
-                    Map<String, Object> jsonMap = jsonToMap(raw);
-                    callback.onSuccess(jsonMap.get("token").toString());
-                } catch (Throwable e) {
-                    callback.onError(new UnexpectedException(e));
+    /**
+     * Decode the response, recording the decode time if the request is tagged with a
+     * {@link MetricsRegistry}.
+     */
+    private static <T> T decode(Response res, Decoder<T> decoder) throws IOException {
+        final Object tag = res.request().tag();
+        if (!(tag instanceof MetricsRegistry)) {
+            return decoder.decode(res);
+        }
+        final long start = System.nanoTime();
+        final T value = decoder.decode(res);
+        ((MetricsRegistry) tag).onResponseDecoded(res.request(), System.nanoTime() - start);
+        return value;
+    }
+
+    /**
+     * Decode the whole response body as the given type.
+     */
+    private static <T> T read(Response res, Type type) throws IOException {
+        try (ResponseBody body = res.body();
+             JsonReader reader = GSON.newJsonReader(body.charStream())) {
+            return GSON.fromJson(reader, type);
+        }
+    }
+
+    /**
+     * Decode the value of the top-level field {@code name} like
+     * {@link #readField(Response, String, Type)}.
+     *
+     * @throws UnexpectedException if the field is missing or {@code null}
+     */
+    private static <T> T readRequiredField(Response res, String name, Type type)
+            throws IOException {
+        final T value = readField(res, name, type);
+        if (value == null) {
+            throw new UnexpectedException("response has no " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Decode only the value of the top-level field {@code name} as the given type. All
+     * other fields are skipped without being materialized.
+     *
+     * @return the decoded value or {@code null} if the field is missing
+     */
+    private static <T> T readField(Response res, String name, Type type)
+            throws IOException {
+        try (ResponseBody body = res.body();
+             JsonReader reader = GSON.newJsonReader(body.charStream())) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (name.equals(reader.nextName())) {
+                    return GSON.fromJson(reader, type);
                 }
+                reader.skipValue();
             }
+            return null;
+        }
+    }
 
-            @Override
-            public void onError(Throwable throwable) {
-                callback.onError(throwable);
-            }
-        };
+    private interface Decoder<T> {
+
+        T decode(Response res) throws IOException;
     }
 
 }
@@ -0,0 +1,69 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.middleware;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.GzipSink;
+import okio.Okio;
+
+import java.io.IOException;
+
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Compress the request bodies of at least {@code minBytes} bytes with gzip. The body is
+ * compressed up front, so the request keeps its {@code Content-Length} and can be sent
+ * again on retry. It is sent as is if compressing does not make it smaller.
+ */
+public class GzipRequestInterceptor implements Interceptor {
+
+    private final long minBytes;
+
+    public GzipRequestInterceptor(long minBytes) {
+        checkValid(() -> minBytes > 0, "min bytes must be greater than zero");
+        this.minBytes = minBytes;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestBody body = request.body();
+        if (body == null || request.header("Content-Encoding") != null) {
+            return chain.proceed(request);
+        }
+        final long length = body.contentLength();
+        if (length < minBytes) {
+            return chain.proceed(request);
+        }
+
+        ByteString compressed = gzip(body);
+        if (compressed.size() >= length) {
+            return chain.proceed(request);
+        }
+        return chain.proceed(request.newBuilder()
+                .header("Content-Encoding", "gzip")
+                .method(
+                        request.method(),
+                        RequestBody.create(body.contentType(), compressed)
+                )
+                .build());
+    }
+
+    private static ByteString gzip(RequestBody body) throws IOException {
+        Buffer buffer = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            body.writeTo(sink);
+        }
+        return buffer.readByteString();
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.middleware;
+
+import com.bitmark.apiservice.metrics.MetricsRegistry;
+import okhttp3.*;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+
+/**
+ * Record count, latency, size and outcome of each request to a {@link MetricsRegistry}.
+ * The response body is counted while it is read, it is not buffered.
+ */
+public class MetricsInterceptor implements Interceptor {
+
+    private final MetricsRegistry registry;
+
+    public MetricsInterceptor(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        final RequestBody requestBody = request.body();
+        registry.onRequestStarted(
+                request,
+                requestBody != null ? requestBody.contentLength() : 0
+        );
+        final long start = System.nanoTime();
+        final Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException | RuntimeException e) {
+            registry.onRequestCompleted(request, 0, System.nanoTime() - start);
+            throw e;
+        }
+        registry.onRequestCompleted(
+                request,
+                response.code(),
+                System.nanoTime() - start
+        );
+
+        final ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        return response.newBuilder()
+                .body(new CountingResponseBody(request, body))
+                .build();
+    }
+
+    private final class CountingResponseBody extends ResponseBody {
+
+        private final ResponseBody body;
+
+        private final BufferedSource source;
+
+        private CountingResponseBody(Request request, ResponseBody body) {
+            this.body = body;
+            this.source = Okio.buffer(new ForwardingSource(body.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        registry.onBytesReceived(request, read);
+                    }
+                    return read;
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return body.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.middleware;
+
+import com.bitmark.apiservice.params.Params;
+import com.bitmark.apiservice.utils.error.UnexpectedException;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Sink;
+import okio.Timeout;
+
+import java.io.IOException;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+
+/**
+ * A JSON request body the params write straight to the connection with
+ * {@link Params#writeJson(BufferedSink)}, instead of the copies of a String body.
+ * <p>
+ * The body has a {@code Content-Length}, which the compression and the metrics rely on. It
+ * is {@link Params#jsonLength()} if the params know it, so that large params, e.g.
+ * {@code IssuanceParams}, are serialized and lazily signed only when the body is written.
+ * Otherwise the JSON, small then, is written up front to a sink that only counts its
+ * bytes. Either way invalid params, e.g. not signed ones, fail when the body is created
+ * as they did with {@link Params#toJson()}. The body can be written again on retry.
+ */
+public class ParamsRequestBody extends RequestBody {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private final Params params;
+
+    private final long contentLength;
+
+    public ParamsRequestBody(Params params) {
+        checkNonNull(params);
+        this.params = params;
+        final long jsonLength = params.jsonLength();
+        this.contentLength = jsonLength >= 0 ? jsonLength : countJson(params);
+    }
+
+    private static long countJson(Params params) {
+        final CountingSink counter = new CountingSink();
+        try (BufferedSink sink = Okio.buffer(counter)) {
+            params.writeJson(sink);
+        } catch (IOException e) {
+            // the counting sink never fails
+            throw new UnexpectedException(e);
+        }
+        return counter.count;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        params.writeJson(sink);
+    }
+
+    private static final class CountingSink implements Sink {
+
+        private long count;
+
+        @Override
+        public void write(Buffer source, long byteCount) throws IOException {
+            source.skip(byteCount);
+            count += byteCount;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.middleware;
+
+import okhttp3.internal.Util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Token bucket refilled at {@code permitsPerSecond} up to {@code burst} permits. A task
+ * runs right away if a permit is available, otherwise it waits in a FIFO queue and is
+ * run from the scheduler once a permit is refilled. No thread is blocked while waiting.
+ */
+public class RateLimiter {
+
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(Util.threadFactory(
+                    "Bitmark Rate Limiter",
+                    true
+            ));
+
+    private final double permitsPerSecond;
+
+    private final int burst;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Deque<Pending> queue = new ArrayDeque<>();
+
+    private double permits;
+
+    private long refilledAt;
+
+    private boolean drainScheduled;
+
+    private long acquiredCount;
+
+    private long delayedCount;
+
+    private long totalWaitTime;
+
+    private long maxWaitTime;
+
+    public RateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, SCHEDULER);
+    }
+
+    public RateLimiter(
+            double permitsPerSecond,
+            int burst,
+            ScheduledExecutorService scheduler
+    ) {
+        checkValid(
+                () -> permitsPerSecond > 0,
+                "permits per second must be greater than zero"
+        );
+        checkValid(() -> burst > 0, "burst must be greater than zero");
+        checkNonNull(scheduler);
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.scheduler = scheduler;
+        this.permits = burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Run the task once a permit is available. The task is either run on the calling
+     * thread or on the scheduler thread, it must be short and must not throw.
+     */
+    public void execute(Runnable task) {
+        execute(task, () -> false);
+    }
+
+    /**
+     * Run the task once a permit is available, or right away without a permit once
+     * {@code cancelled} is true, so a cancelled task neither takes a permit nor holds its
+     * place in the queue. The task must then handle its cancellation.
+     */
+    public void execute(Runnable task, BooleanSupplier cancelled) {
+        checkNonNull(task);
+        checkNonNull(cancelled);
+        if (cancelled.getAsBoolean()) {
+            task.run();
+            return;
+        }
+        synchronized (this) {
+            refill();
+            if (!queue.isEmpty() || permits < 1) {
+                queue.add(new Pending(task, cancelled, System.nanoTime()));
+                scheduleDrain();
+                return;
+            }
+            permits -= 1;
+            acquiredCount++;
+        }
+        task.run();
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return number of tasks that have been given a permit
+     */
+    public synchronized long getAcquiredCount() {
+        return acquiredCount;
+    }
+
+    /**
+     * @return number of tasks that had to wait in the queue for a permit
+     */
+    public synchronized long getDelayedCount() {
+        return delayedCount;
+    }
+
+    /**
+     * @return sum of the time the delayed tasks waited in the queue, in milliseconds
+     */
+    public synchronized long getTotalWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitTime);
+    }
+
+    /**
+     * @return longest time a task waited in the queue, in milliseconds
+     */
+    public synchronized long getMaxWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitTime);
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    private void drain() {
+        final List<Runnable> ready = new ArrayList<>();
+        synchronized (this) {
+            drainScheduled = false;
+            for (Iterator<Pending> iterator = queue.iterator(); iterator.hasNext(); ) {
+                final Pending pending = iterator.next();
+                if (pending.cancelled.getAsBoolean()) {
+                    iterator.remove();
+                    ready.add(pending.task);
+                }
+            }
+            refill();
+            final long now = System.nanoTime();
+            while (!queue.isEmpty() && permits >= 1) {
+                Pending pending = queue.poll();
+                permits -= 1;
+                long waitTime = now - pending.enqueuedAt;
+                acquiredCount++;
+                delayedCount++;
+                totalWaitTime += waitTime;
+                maxWaitTime = Math.max(maxWaitTime, waitTime);
+                ready.add(pending.task);
+            }
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+        for (Runnable task : ready) {
+            task.run();
+        }
+    }
+
+    // must hold the lock
+    private void scheduleDrain() {
+        if (drainScheduled) {
+            return;
+        }
+        drainScheduled = true;
+        final long delay = (long) Math.ceil((1 - permits) / permitsPerSecond * 1e9);
+        scheduler.schedule(this::drain, Math.max(0, delay), TimeUnit.NANOSECONDS);
+    }
+
+    // must hold the lock
+    private void refill() {
+        final long now = System.nanoTime();
+        permits = Math.min(burst, permits + (now - refilledAt) / 1e9 * permitsPerSecond);
+        refilledAt = now;
+    }
+
+    private static final class Pending {
+
+        private final Runnable task;
+
+        private final BooleanSupplier cancelled;
+
+        private final long enqueuedAt;
+
+        private Pending(Runnable task, BooleanSupplier cancelled, long enqueuedAt) {
+            this.task = task;
+            this.cancelled = cancelled;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
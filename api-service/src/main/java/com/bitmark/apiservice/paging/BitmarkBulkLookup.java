@@ -0,0 +1,253 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.paging;
+
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.response.GetBitmarksResponse;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Look up many bitmarks by id. The ids are split into chunks that keep the query string
+ * under {@code maxQueryLength} and within the page limit of 100 records, so no bitmark is
+ * cut off. At most {@code maxConcurrency} chunks are fetched at a time.
+ * <p>
+ * The bitmarks of all chunks are merged in the order of the requested ids, each one once,
+ * and ids that do not exist are left out. The assets are merged the same way, in the
+ * order of the first bitmark that references them.
+ */
+public class BitmarkBulkLookup {
+
+    /**
+     * Well under the URL length that servers and proxies commonly accept.
+     */
+    public static final int DEFAULT_MAX_QUERY_LENGTH = 2000;
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    private static final int MAX_IDS_PER_QUERY = 100;
+
+    private static final String IDS_PARAM = "bitmark_ids=";
+
+    private final Function<QueryParams, CompletableFuture<GetBitmarksResponse>> fetcher;
+
+    private final int maxQueryLength;
+
+    private final int maxConcurrency;
+
+    /**
+     * @param fetcher list the bitmarks of a query, e.g.
+     *                {@code AsyncApiService.getInstance()::listBitmarks}
+     */
+    public BitmarkBulkLookup(
+            Function<QueryParams, CompletableFuture<GetBitmarksResponse>> fetcher
+    ) {
+        this(fetcher, DEFAULT_MAX_QUERY_LENGTH, DEFAULT_MAX_CONCURRENCY);
+    }
+
+    public BitmarkBulkLookup(
+            Function<QueryParams, CompletableFuture<GetBitmarksResponse>> fetcher,
+            int maxQueryLength,
+            int maxConcurrency
+    ) {
+        checkNonNull(fetcher);
+        checkValid(
+                () -> maxQueryLength > 0,
+                "max query length must be greater than 0"
+        );
+        checkValid(
+                () -> maxConcurrency > 0,
+                "max concurrency must be greater than 0"
+        );
+        this.fetcher = fetcher;
+        this.maxQueryLength = maxQueryLength;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * @param bitmarkIds the ids of the bitmarks, duplicates are looked up once
+     * @param loadAsset  whether to include the assets of the bitmarks
+     */
+    public CompletableFuture<GetBitmarksResponse> lookup(
+            Collection<String> bitmarkIds,
+            boolean loadAsset
+    ) {
+        checkValid(
+                () -> bitmarkIds != null && bitmarkIds.stream()
+                        .allMatch(id -> id != null && !id.isEmpty()),
+                "Invalid bitmark id list"
+        );
+        final List<String> ids = new ArrayList<>(new LinkedHashSet<>(bitmarkIds));
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(new GetBitmarksResponse(
+                    Collections.emptyList(),
+                    loadAsset ? Collections.emptyList() : null
+            ));
+        }
+        return new Lookup(ids, chunk(ids, loadAsset), loadAsset).start();
+    }
+
+    /**
+     * Split the ids so that the query of each chunk, the fixed params included, is at
+     * most {@code maxQueryLength} long. An id longer than that is sent on its own.
+     */
+    private List<String[]> chunk(List<String> ids, boolean loadAsset) {
+        final int baseLength = query(new String[0], loadAsset).toUrlQuery().length();
+        final List<String[]> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        int length = baseLength;
+        for (String id : ids) {
+            final int added = 1 + IDS_PARAM.length() + id.length();
+            if (!chunk.isEmpty() && (chunk.size() == MAX_IDS_PER_QUERY ||
+                                             length + added > maxQueryLength)) {
+                chunks.add(chunk.toArray(new String[0]));
+                chunk = new ArrayList<>();
+                length = baseLength;
+            }
+            chunk.add(id);
+            length += added;
+        }
+        chunks.add(chunk.toArray(new String[0]));
+        return chunks;
+    }
+
+    private static QueryParams query(String[] ids, boolean loadAsset) {
+        final BitmarkQueryBuilder builder = new BitmarkQueryBuilder().loadAsset(loadAsset)
+                .pending(true)
+                .limit(MAX_IDS_PER_QUERY);
+        if (ids.length > 0) {
+            builder.bitmarkIds(ids);
+        }
+        return builder.build();
+    }
+
+    private final class Lookup {
+
+        private final List<String> ids;
+
+        private final List<String[]> chunks;
+
+        private final boolean loadAsset;
+
+        private final GetBitmarksResponse[] responses;
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        private final AtomicInteger remaining;
+
+        private final CompletableFuture<GetBitmarksResponse> result =
+                new CompletableFuture<>();
+
+        private Lookup(List<String> ids, List<String[]> chunks, boolean loadAsset) {
+            this.ids = ids;
+            this.chunks = chunks;
+            this.loadAsset = loadAsset;
+            this.responses = new GetBitmarksResponse[chunks.size()];
+            this.remaining = new AtomicInteger(chunks.size());
+        }
+
+        private CompletableFuture<GetBitmarksResponse> start() {
+            for (int i = 0, n = Math.min(maxConcurrency, chunks.size()); i < n; i++) {
+                fetchNext();
+            }
+            return result;
+        }
+
+        /**
+         * Fetch the next chunk, then the one after when it completes, so that each call
+         * from {@link #start()} keeps one chunk in flight.
+         */
+        private void fetchNext() {
+            final int index = next.getAndIncrement();
+            if (index >= chunks.size() || result.isDone()) {
+                return;
+            }
+            final CompletableFuture<GetBitmarksResponse> future;
+            try {
+                future = fetcher.apply(query(chunks.get(index), loadAsset));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            future.whenComplete((response, throwable) -> {
+                if (throwable != null) {
+                    result.completeExceptionally(
+                            throwable instanceof CompletionException &&
+                                    throwable.getCause() != null
+                            ? throwable.getCause()
+                            : throwable);
+                    return;
+                }
+                responses[index] = response;
+                if (remaining.decrementAndGet() == 0) {
+                    try {
+                        result.complete(merge());
+                    } catch (Throwable e) {
+                        result.completeExceptionally(e);
+                    }
+                } else {
+                    fetchNext();
+                }
+            });
+        }
+
+        private GetBitmarksResponse merge() {
+            final Map<String, BitmarkRecord> bitmarks = new HashMap<>(ids.size());
+            final Map<String, AssetRecord> assets = new HashMap<>();
+            for (GetBitmarksResponse response : responses) {
+                if (response == null) {
+                    continue;
+                }
+                if (response.getBitmarks() != null) {
+                    for (BitmarkRecord bitmark : response.getBitmarks()) {
+                        bitmarks.putIfAbsent(bitmark.getId(), bitmark);
+                    }
+                }
+                if (response.getAssets() != null) {
+                    for (AssetRecord asset : response.getAssets()) {
+                        assets.putIfAbsent(asset.getId(), asset);
+                    }
+                }
+            }
+
+            final List<BitmarkRecord> orderedBitmarks = new ArrayList<>(bitmarks.size());
+            final Map<String, AssetRecord> orderedAssets = new LinkedHashMap<>();
+            for (String id : ids) {
+                final BitmarkRecord bitmark = bitmarks.get(id);
+                if (bitmark == null) {
+                    continue;
+                }
+                orderedBitmarks.add(bitmark);
+                final AssetRecord asset = assets.get(bitmark.getAssetId());
+                if (asset != null) {
+                    orderedAssets.putIfAbsent(asset.getId(), asset);
+                }
+            }
+            return new GetBitmarksResponse(
+                    orderedBitmarks,
+                    loadAsset ? new ArrayList<>(orderedAssets.values()) : null
+            );
+        }
+    }
+}
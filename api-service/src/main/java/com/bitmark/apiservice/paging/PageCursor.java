@@ -0,0 +1,91 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.paging;
+
+import com.bitmark.apiservice.params.query.PagedQueryBuilder;
+import com.bitmark.apiservice.params.query.QueryParams;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+
+/**
+ * The position in a list that is paged by the offset of its records. Pages must be
+ * fetched one after the other, each with the query returned by {@link #nextPage()} after
+ * the previous page has been passed to {@link #onPage(List)}. It is not thread safe.
+ */
+public final class PageCursor<T> {
+
+    private final PagedQueryBuilder query;
+
+    private final ToLongFunction<T> offset;
+
+    private Long at;
+
+    private boolean lastPage;
+
+    /**
+     * @param query  the query of the list, the offset of its first page is kept
+     * @param offset the offset of a record
+     */
+    public PageCursor(PagedQueryBuilder query, ToLongFunction<T> offset) {
+        checkNonNull(query);
+        checkNonNull(offset);
+        this.query = query;
+        this.offset = offset;
+    }
+
+    /**
+     * @return the query of the next page
+     */
+    public QueryParams nextPage() {
+        return query.buildPage(at);
+    }
+
+    /**
+     * @return the maximum number of records of a page
+     */
+    public int getLimit() {
+        return query.getLimit();
+    }
+
+    /**
+     * @return whether the last page has been fetched
+     */
+    public boolean isLastPage() {
+        return lastPage;
+    }
+
+    /**
+     * Move the cursor past the fetched page.
+     *
+     * @param records the records of the page, {@code null} is an empty page
+     * @return the records that were not part of the previous pages
+     */
+    public List<T> onPage(List<T> records) {
+        if (records == null) {
+            records = Collections.emptyList();
+        }
+        lastPage = records.size() < query.getLimit();
+
+        // the record at the offset of the query is skipped in case it is returned again
+        int from = 0;
+        while (at != null && from < records.size() &&
+                offset.applyAsLong(records.get(from)) == at) {
+            from++;
+        }
+        if (from == records.size()) {
+            // nothing new, the end of the list
+            lastPage = true;
+            return Collections.emptyList();
+        }
+        at = offset.applyAsLong(records.get(records.size() - 1));
+        return records.subList(from, records.size());
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.paging;
+
+import com.bitmark.apiservice.params.query.QueryParams;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fetch the records of a page of a list.
+ */
+public interface PageFetcher<T> {
+
+    CompletableFuture<List<T>> fetch(QueryParams params);
+}
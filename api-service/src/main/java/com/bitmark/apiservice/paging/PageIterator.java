@@ -0,0 +1,271 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.paging;
+
+import com.bitmark.apiservice.params.query.PagedQueryBuilder;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.utils.error.UnexpectedException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+
+/**
+ * Iterate over all records of a list, following the offset of the last record of each
+ * page to the next one. By default a page is fetched when the records of the previous page
+ * have been consumed, so only one page is held in memory whatever the size of the list.
+ * A {@link PagingPolicy} with a prefetch depth requests the next page as soon as the
+ * previous one arrives instead, so that a slow consumer does not leave the network idle.
+ * <p>
+ * Waiting for a page blocks the calling thread. A failed fetch is rethrown from
+ * {@link #hasNext()}, as is if unchecked, wrapped in an {@link UncheckedIOException} if it
+ * is a network error or an {@link UnexpectedException} otherwise. {@link #close()} stops
+ * the prefetching of an iterator that is not consumed to the end.
+ */
+public class PageIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final PageCursor<T> cursor;
+
+    private final PageFetcher<T> fetcher;
+
+    private final PagingPolicy policy;
+
+    private Iterator<T> page = Collections.emptyIterator();
+
+    // guarded by this
+
+    private final Deque<List<T>> pages = new ArrayDeque<>();
+
+    private int bufferedRecords;
+
+    private boolean fetching;
+
+    private CompletableFuture<List<T>> inFlight;
+
+    private Throwable error;
+
+    private boolean closed;
+
+    public PageIterator(
+            PagedQueryBuilder query,
+            PageFetcher<T> fetcher,
+            ToLongFunction<T> offset
+    ) {
+        this(query, fetcher, offset, PagingPolicy.DEFAULT);
+    }
+
+    /**
+     * @param query   the query of the list, the offset of its first page is kept
+     * @param fetcher fetch the records of a page
+     * @param offset  the offset of a record
+     * @param policy  how the pages are fetched
+     */
+    public PageIterator(
+            PagedQueryBuilder query,
+            PageFetcher<T> fetcher,
+            ToLongFunction<T> offset,
+            PagingPolicy policy
+    ) {
+        checkNonNull(fetcher);
+        checkNonNull(policy);
+        this.cursor = new PageCursor<>(query, offset);
+        this.fetcher = fetcher;
+        this.policy = policy;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            List<T> records = takePage();
+            if (records == null) {
+                return false;
+            }
+            page = records.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * Stop fetching pages and release the buffered ones.
+     */
+    @Override
+    public void close() {
+        final CompletableFuture<List<T>> future;
+        synchronized (this) {
+            closed = true;
+            pages.clear();
+            bufferedRecords = 0;
+            future = inFlight;
+            notifyAll();
+        }
+        page = Collections.emptyIterator();
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * @return a sequential stream of the remaining records, closing it closes this iterator
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(
+                        this,
+                        Spliterator.ORDERED | Spliterator.NONNULL
+                ),
+                false
+        ).onClose(this::close);
+    }
+
+    /**
+     * @return the next page, or {@code null} at the end of the list
+     */
+    private List<T> takePage() {
+        final long deadline = System.currentTimeMillis() + policy.getTimeout();
+        while (true) {
+            final List<T> records;
+            final QueryParams params;
+            synchronized (this) {
+                records = pages.poll();
+                if (records != null) {
+                    bufferedRecords -= records.size();
+                    params = prepareFetch(false);
+                } else {
+                    if (error != null) {
+                        throw rethrow(error);
+                    }
+                    if (closed || cursor.isLastPage()) {
+                        return null;
+                    }
+                    params = prepareFetch(true);
+                    if (params == null) {
+                        await(deadline);
+                        continue;
+                    }
+                }
+            }
+            // the fetcher is called outside of the lock, the page may arrive at once
+            if (params != null) {
+                fetch(params);
+            }
+            if (records != null) {
+                return records;
+            }
+        }
+    }
+
+    /**
+     * Reserve the next fetch if it is allowed.
+     *
+     * @param needed whether the consumer is waiting for the page
+     * @return the query of the page to fetch, or {@code null}
+     */
+    private QueryParams prepareFetch(boolean needed) {
+        if (closed || cursor.isLastPage() || fetching || error != null) {
+            return null;
+        }
+        final boolean prefetch = pages.size() < policy.getPrefetch() &&
+                bufferedRecords + cursor.getLimit() <= policy.getMaxBufferedRecords();
+        if (!prefetch && !(needed && pages.isEmpty())) {
+            return null;
+        }
+        fetching = true;
+        return cursor.nextPage();
+    }
+
+    private void fetch(QueryParams params) {
+        CompletableFuture<List<T>> future;
+        try {
+            future = fetcher.fetch(params);
+        } catch (Throwable e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        synchronized (this) {
+            if (closed) {
+                future.cancel(false);
+            } else if (fetching) {
+                inFlight = future;
+            }
+        }
+        future.whenComplete(this::onPage);
+    }
+
+    private void onPage(List<T> records, Throwable throwable) {
+        final QueryParams params;
+        synchronized (this) {
+            fetching = false;
+            inFlight = null;
+            if (closed) {
+                return;
+            }
+            if (throwable != null) {
+                error = throwable instanceof CompletionException &&
+                        throwable.getCause() != null
+                        ? throwable.getCause()
+                        : throwable;
+            } else {
+                List<T> page = cursor.onPage(records);
+                if (!page.isEmpty()) {
+                    pages.add(page);
+                    bufferedRecords += page.size();
+                }
+            }
+            notifyAll();
+            params = prepareFetch(false);
+        }
+        if (params != null) {
+            fetch(params);
+        }
+    }
+
+    private void await(long deadline) {
+        final long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            throw new UnexpectedException(
+                    "Timeout after " + policy.getTimeout() + " ms");
+        }
+        try {
+            wait(remaining);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnexpectedException(e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable error) {
+        if (error instanceof RuntimeException) {
+            return (RuntimeException) error;
+        }
+        if (error instanceof IOException) {
+            return new UncheckedIOException((IOException) error);
+        }
+        return new UnexpectedException(error);
+    }
+}
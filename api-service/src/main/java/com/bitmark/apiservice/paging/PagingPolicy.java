@@ -0,0 +1,103 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.paging;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * How the pages of a list are fetched by a {@link PageIterator}. By default a page is
+ * fetched only once the previous one has been consumed. With a prefetch depth, the next
+ * page is requested as soon as the previous one arrives, so the network works while the
+ * records are consumed, up to {@code prefetch} pages ahead of the one being consumed and
+ * {@code maxBufferedRecords} records waiting in memory.
+ */
+public final class PagingPolicy {
+
+    public static final PagingPolicy DEFAULT = builder().build();
+
+    private final int prefetch;
+
+    private final int maxBufferedRecords;
+
+    private final long timeout;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private PagingPolicy(Builder builder) {
+        this.prefetch = builder.prefetch;
+        this.maxBufferedRecords = builder.maxBufferedRecords;
+        this.timeout = builder.timeout;
+    }
+
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    public int getMaxBufferedRecords() {
+        return maxBufferedRecords;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public static final class Builder {
+
+        private int prefetch;
+
+        private int maxBufferedRecords = Integer.MAX_VALUE;
+
+        private long timeout = TimeUnit.SECONDS.toMillis(20);
+
+        private Builder() {
+        }
+
+        /**
+         * @param prefetch the number of pages fetched ahead of the one being consumed, 0 to
+         *                 fetch a page only when it is needed
+         */
+        public Builder withPrefetch(int prefetch) {
+            checkValid(() -> prefetch >= 0, "prefetch must not be negative");
+            this.prefetch = prefetch;
+            return this;
+        }
+
+        /**
+         * Do not prefetch a page if the records fetched but not consumed yet, including the
+         * ones of the page, could exceed {@code maxBufferedRecords}. A page that is needed
+         * right away is always fetched.
+         */
+        public Builder withMaxBufferedRecords(int maxBufferedRecords) {
+            checkValid(
+                    () -> maxBufferedRecords > 0,
+                    "max buffered records must be greater than zero"
+            );
+            this.maxBufferedRecords = maxBufferedRecords;
+            return this;
+        }
+
+        /**
+         * The maximum time to wait for a page.
+         */
+        public Builder withTimeout(long timeout, TimeUnit unit) {
+            checkValid(
+                    () -> timeout > 0 && unit != null,
+                    "timeout must be greater than 0"
+            );
+            this.timeout = unit.toMillis(timeout);
+            return this;
+        }
+
+        public PagingPolicy build() {
+            return new PagingPolicy(this);
+        }
+    }
+}
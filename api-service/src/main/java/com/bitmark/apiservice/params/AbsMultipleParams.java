@@ -6,25 +6,35 @@
  */
 package com.bitmark.apiservice.params;
 
-import com.bitmark.cryptography.crypto.Ed25519;
+import com.bitmark.apiservice.utils.JsonSink;
+import com.bitmark.apiservice.utils.ParallelSigner;
 import com.bitmark.cryptography.crypto.key.KeyPair;
 
-import java.util.ArrayList;
 import java.util.List;
 
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
 import static com.bitmark.cryptography.utils.Validator.checkValid;
 
 public abstract class AbsMultipleParams implements MultipleParams {
 
     protected List<byte[]> signatures;
 
+    /**
+     * Sign the items in parallel on the common fork join pool, see {@link ParallelSigner}.
+     */
     @Override
     public List<byte[]> sign(KeyPair key) {
+        return sign(key, ParallelSigner.getDefault());
+    }
+
+    /**
+     * Sign the items with {@code signer}, e.g. one of its own executor or
+     * {@link ParallelSigner#SERIAL}. The signatures are the same whichever the signer.
+     */
+    public List<byte[]> sign(KeyPair key, ParallelSigner signer) {
         checkValid(() -> key != null && key.isValid(), "Invalid key pair");
-        signatures = new ArrayList<>(size());
-        for (int i = 0; i < size(); i++) {
-            signatures.add(Ed25519.sign(pack(i), key.privateKey().toBytes()));
-        }
+        checkNonNull(signer);
+        signatures = signer.sign(size(), this::pack, key.privateKey().toBytes());
         return signatures;
     }
 
@@ -41,6 +51,11 @@ public abstract class AbsMultipleParams implements MultipleParams {
         return signatures != null && !signatures.isEmpty();
     }
 
+    @Override
+    public String toJson() {
+        return JsonSink.toJson(this);
+    }
+
     protected void checkSigned() {
         if (!isSigned()) {
             throw new UnsupportedOperationException(
@@ -6,6 +6,7 @@
  */
 package com.bitmark.apiservice.params;
 
+import com.bitmark.apiservice.utils.JsonSink;
 import com.bitmark.cryptography.crypto.Ed25519;
 import com.bitmark.cryptography.crypto.key.Ed25519KeyPair;
 import com.bitmark.cryptography.crypto.key.KeyPair;
@@ -37,6 +38,11 @@ public abstract class AbsSingleParams implements SingleParams {
         return signature != null;
     }
 
+    @Override
+    public String toJson() {
+        return JsonSink.toJson(this);
+    }
+
     protected void checkSigned() {
         if (!isSigned()) {
             throw new UnsupportedOperationException(
@@ -7,14 +7,15 @@
 package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.utils.Address;
-import com.bitmark.apiservice.utils.ArrayUtil;
-import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.JsonSink;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.apiservice.utils.annotation.VisibleForTesting;
 import com.bitmark.apiservice.utils.record.ShareGrantRecord;
 import com.bitmark.cryptography.crypto.Ed25519;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.KeyPair;
+import okio.BufferedSink;
 
+import java.io.IOException;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Map;
@@ -56,38 +57,31 @@ public class GrantResponseParams extends AbsSingleParams {
 
     @Override
     byte[] pack() {
-        byte[] data = VarInt.writeUnsignedVarInt(0x09);
-        data = BinaryPacking.concat(
-                HEX.decode(shareGrantRecord.getShareId()),
-                data
-        );
-        data = ArrayUtil.concat(
-                data,
-                VarInt.writeUnsignedVarInt(shareGrantRecord.getQuantity())
-        );
-        data = BinaryPacking.concat(Address.fromAccountNumber(shareGrantRecord.getOwner())
-                .pack(), data);
-        data = BinaryPacking.concat(Address.fromAccountNumber(shareGrantRecord.getReceiver())
-                .pack(), data);
-        data = ArrayUtil.concat(
-                data,
-                VarInt.writeUnsignedVarInt(shareGrantRecord.getBeforeBlock())
-        );
-        data = BinaryPacking.concat(
-                HEX.decode(shareGrantRecord.getSignature()),
-                data
-        );
-        return data;
+        return PackWriter.local()
+                .writeVarInt(0x09)
+                .writePrefixedHex(shareGrantRecord.getShareId())
+                .writeVarInt(shareGrantRecord.getQuantity())
+                .writePrefixedAddress(
+                        Address.fromAccountNumber(shareGrantRecord.getOwner()))
+                .writePrefixedAddress(
+                        Address.fromAccountNumber(shareGrantRecord.getReceiver()))
+                .writeVarInt(shareGrantRecord.getBeforeBlock())
+                .writePrefixedHex(shareGrantRecord.getSignature())
+                .toByteArray();
     }
 
     @Override
-    public String toJson() {
+    public void writeJson(BufferedSink sink) throws IOException {
         if (isAccept()) {
             checkSigned();
         }
-        return "{\"id\":\"" + shareGrantRecord.getId() + "\",\"action\":\"" + response
-                .value() + "\"" + (isAccept() ? ",\"countersignature\":\"" + HEX
-                .encode(signature) + "\"" : "") + "}";
+        final JsonSink json = new JsonSink(sink)
+                .raw("{\"id\":").string(shareGrantRecord.getId())
+                .raw(",\"action\":").string(response.value());
+        if (isAccept()) {
+            json.raw(",\"countersignature\":").hex(signature);
+        }
+        json.raw("}");
     }
 
     @Override
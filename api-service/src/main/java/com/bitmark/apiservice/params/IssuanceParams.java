@@ -8,19 +8,24 @@ package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.utils.Address;
 import com.bitmark.apiservice.utils.ArrayUtil;
-import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.JsonSink;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.apiservice.utils.Pair;
+import com.bitmark.apiservice.utils.ParallelSigner;
 import com.bitmark.apiservice.utils.error.UnexpectedException;
 import com.bitmark.cryptography.crypto.Ed25519;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.KeyPair;
+import okio.BufferedSink;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.bitmark.apiservice.utils.ArrayUtil.concat;
 import static com.bitmark.cryptography.crypto.Random.secureRandomInts;
 import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
 import static com.bitmark.cryptography.utils.Validator.checkValid;
 import static com.bitmark.cryptography.utils.Validator.checkValidHex;
 
@@ -34,11 +39,21 @@ public class IssuanceParams extends AbsMultipleParams {
 
     private Boolean containsGenesisBitmark;
 
+    // Issue as marked next time instead of looking up the genesis bitmark again
+    private boolean containsGenesisBitmarkPinned;
+
     // Hold the nonces for both case of issuance : contains and not contains genesis Bitmark
     private Pair<int[], int[]> noncesPair;
 
-    // Hold the nonces for both case of issuance : contains and not contains genesis Bitmark
-    private Pair<List<byte[]>, List<byte[]>> signaturePair;
+    // Hold the signatures for both case of issuance, null until the case is signed
+    private volatile List<byte[]> genesisSignatures;
+
+    private volatile List<byte[]> nonGenesisSignatures;
+
+    // Sign lazily only the case that applies once it is known
+    private KeyPair signingKey;
+
+    private ParallelSigner signer;
 
     public IssuanceParams(String assetId, Address owner) {
         this(assetId, owner, 1);
@@ -57,19 +72,58 @@ public class IssuanceParams extends AbsMultipleParams {
         generateNonces(quantity);
     }
 
+    private IssuanceParams(IssuanceParams params, int from, int to) {
+        this.assetId = params.assetId;
+        this.issuer = params.issuer;
+        this.noncesPair = new Pair<>(
+                Arrays.copyOfRange(params.noncesPair.first(), from, to),
+                Arrays.copyOfRange(params.noncesPair.second(), from, to)
+        );
+        this.genesisSignatures = slice(params.genesisSignatures, from, to);
+        this.nonGenesisSignatures = slice(params.nonGenesisSignatures, from, to);
+        this.signingKey = params.signingKey;
+        this.signer = params.signer;
+    }
+
     private void generateNonces(int quantity) {
         final int[] genesisNonces = quantity == 1
                                     ? new int[]{0}
                                     : concat(
                                             new int[]{0},
-                                            secureRandomInts(quantity - 1)
+                                            uniqueNonces(quantity - 1)
                                     );
-        final int[] nonGenesisNonces = secureRandomInts(quantity);
+        final int[] nonGenesisNonces = uniqueNonces(quantity);
         checkNonces(genesisNonces);
         checkNonces(nonGenesisNonces);
         noncesPair = new Pair<>(genesisNonces, nonGenesisNonces);
     }
 
+    /**
+     * Random nonces, the duplicated ones and the genesis nonce 0 drawn again. Duplicates
+     * are likely from a few ten thousand nonces on, so they cannot just be rejected.
+     */
+    private static int[] uniqueNonces(int quantity) {
+        final int[] nonces = new int[quantity];
+        int count = 0;
+        while (count < quantity) {
+            System.arraycopy(
+                    secureRandomInts(quantity - count),
+                    0,
+                    nonces,
+                    count,
+                    quantity - count
+            );
+            Arrays.sort(nonces);
+            count = 0;
+            for (int nonce : nonces) {
+                if (nonce != 0 && (count == 0 || nonces[count - 1] != nonce)) {
+                    nonces[count++] = nonce;
+                }
+            }
+        }
+        return nonces;
+    }
+
     private void checkNonces(int[] nonces) {
         if (!ArrayUtil.isDuplicate(nonces) && ArrayUtil.isPositive(nonces)) {
             return;
@@ -94,55 +148,155 @@ public class IssuanceParams extends AbsMultipleParams {
         this.containsGenesisBitmark = containsGenesisBitmark;
     }
 
+    /**
+     * @return whether the params are marked as containing the genesis bitmark, or
+     * {@code null} if they are not marked yet
+     */
+    public Boolean getContainsGenesisBitmark() {
+        return containsGenesisBitmark;
+    }
+
+    /**
+     * Pin the mark of {@link #setContainsGenesisBitmark(boolean)} so that
+     * {@code ApiService#issueBitmark} issues the params as marked, without looking up
+     * whether the asset has its genesis bitmark. This resends the same issues after an
+     * attempt whose outcome is unknown, e.g. a network error, so that an attempt applied
+     * before its response was lost is rejected instead of issued again as the other
+     * variant. The params are unpinned when their issuance is rejected with a 4xx status
+     * other than 429.
+     */
+    public void setContainsGenesisBitmarkPinned(boolean pinned) {
+        checkValid(
+                () -> !pinned || containsGenesisBitmark != null,
+                "params must be marked before being pinned"
+        );
+        this.containsGenesisBitmarkPinned = pinned;
+    }
+
+    public boolean isContainsGenesisBitmarkPinned() {
+        return containsGenesisBitmarkPinned;
+    }
+
+    /**
+     * Sign both the genesis and the non-genesis variants in a single pass of
+     * {@code signer}.
+     *
+     * @return the signatures of the genesis variant followed by the ones of the
+     * non-genesis variant
+     */
     @Override
-    public List<byte[]> sign(KeyPair key) {
-        List<byte[]> containGenesisBitmarkSig = sign(key, true);
-        List<byte[]> notContainsGenesisBitmarkSig = sign(key, false);
-        signaturePair = new Pair<>(
-                containGenesisBitmarkSig,
-                notContainsGenesisBitmarkSig
+    public List<byte[]> sign(KeyPair key, ParallelSigner signer) {
+        checkValid(() -> key != null && key.isValid(), "Invalid key pair");
+        checkNonNull(signer);
+        final int size = size();
+        final List<byte[]> signatures = signer.sign(
+                2 * size,
+                i -> i < size ? pack(i, true) : pack(i - size, false),
+                key.privateKey().toBytes()
         );
-        return concat(containGenesisBitmarkSig, notContainsGenesisBitmarkSig);
+        genesisSignatures = new ArrayList<>(signatures.subList(0, size));
+        nonGenesisSignatures = new ArrayList<>(signatures.subList(size, 2 * size));
+        return signatures;
+    }
+
+    /**
+     * Sign lazily instead of {@link #sign(KeyPair)}: only the case set with
+     * {@link #setContainsGenesisBitmark(boolean)} is signed, when the params are
+     * serialized, e.g. by {@code ApiService#issueBitmark} once it knows whether the asset
+     * has its genesis bitmark. This halves the signing cost, but moves it onto the thread
+     * that writes the request, for an asynchronous call the OkHttp thread the callback
+     * runs after: the request body takes its length from {@link #jsonLength()}, which
+     * does not sign. The case is signed once even if the params are written concurrently.
+     */
+    public void setSigningKey(KeyPair key) {
+        setSigningKey(key, ParallelSigner.getDefault());
+    }
+
+    public void setSigningKey(KeyPair key, ParallelSigner signer) {
+        checkValid(() -> key != null && key.isValid(), "Invalid key pair");
+        checkNonNull(signer);
+        this.signingKey = key;
+        this.signer = signer;
+    }
+
+    /**
+     * Split the params into params of at most {@code chunkSize} bitmarks each, to issue a
+     * large quantity in several requests. The chunks keep the order of the nonces, so
+     * the first one has the genesis nonce and must be issued first if the asset has no
+     * genesis bitmark yet. The signatures and the signing key are carried over, the mark
+     * of {@link #setContainsGenesisBitmark(boolean)} and its pin are not.
+     */
+    public List<IssuanceParams> split(int chunkSize) {
+        checkValid(() -> chunkSize > 0, "chunk size must be greater than zero");
+        final int size = size();
+        final List<IssuanceParams> chunks = new ArrayList<>(size / chunkSize + 1);
+        for (int from = 0; from < size; from += chunkSize) {
+            chunks.add(new IssuanceParams(this, from, Math.min(size, from + chunkSize)));
+            if (size - from <= chunkSize) {
+                // the last chunk, from + chunkSize may overflow
+                break;
+            }
+        }
+        return chunks;
+    }
+
+    private static List<byte[]> slice(List<byte[]> signatures, int from, int to) {
+        return signatures == null ? null : new ArrayList<>(signatures.subList(from, to));
     }
 
     @Override
-    public String toJson() {
+    public void writeJson(BufferedSink sink) throws IOException {
         checkContainsGenesisBitmarkExisted();
         checkSigned();
-        final StringBuilder builder = new StringBuilder();
-        builder.append("{\"issues\":[");
-        for (int i = 0, size = size(); i < size; i++) {
-            builder.append(buildSingleJson(i));
-            if (i < size - 1) {
-                builder.append(",");
+        final List<byte[]> signatures = getSignatures(containsGenesisBitmark);
+        final int[] nonces = getNonces(containsGenesisBitmark);
+        final String owner = issuer.getAddress();
+        final JsonSink json = new JsonSink(sink).raw("{\"issues\":[");
+        for (int i = 0; i < nonces.length; i++) {
+            if (i > 0) {
+                json.raw(",");
             }
+            json.raw("{\"owner\":").string(owner)
+                    .raw(",\"signature\":").hex(signatures.get(i))
+                    .raw(",\"asset_id\":").string(assetId)
+                    .raw(",\"nonce\":").number(nonces[i])
+                    .raw("}");
         }
-        builder.append("]}");
-        return builder.toString();
+        json.raw("]}");
     }
 
-    private List<byte[]> sign(KeyPair key, boolean containsGenesisBitmark) {
-        checkValid(() -> key != null && key.isValid(), "Invalid key pair");
-        List<byte[]> signatures = new ArrayList<>(size());
-        for (int i = 0; i < size(); i++) {
-            signatures.add(Ed25519.sign(
-                    pack(i, containsGenesisBitmark),
-                    key.privateKey().toBytes()
-            ));
+    /**
+     * The length of {@link #writeJson(BufferedSink)} from the sizes of the fields, without
+     * signing lazily. The params are checked as they are when written.
+     */
+    @Override
+    public long jsonLength() {
+        checkContainsGenesisBitmarkExisted();
+        checkSigned();
+        final int[] nonces = getNonces(containsGenesisBitmark);
+        final long issueLength = "{\"owner\":".length()
+                                 + JsonSink.stringLength(issuer.getAddress())
+                                 + ",\"signature\":".length()
+                                 + JsonSink.hexLength(Ed25519.SIG_LENGTH)
+                                 + ",\"asset_id\":".length()
+                                 + JsonSink.stringLength(assetId)
+                                 + ",\"nonce\":".length()
+                                 + "}".length();
+        long length = "{\"issues\":[".length() + "]}".length()
+                      + Math.max(0, nonces.length - 1);
+        for (int nonce : nonces) {
+            length += issueLength + JsonSink.numberLength(nonce);
         }
-        return signatures;
+        return length;
     }
 
     private byte[] pack(int index, boolean containsGenesisBitmark) {
-        final byte[] assetId = HEX.decode(this.assetId);
-        byte[] data = VarInt.writeUnsignedVarInt(0x03);
-        data = BinaryPacking.concat(assetId, data);
-        data = BinaryPacking.concat(issuer.pack(), data);
-        data = concat(
-                data,
-                VarInt.writeUnsignedVarInt(getNonces(containsGenesisBitmark)[index])
-        );
-        return data;
+        return PackWriter.local()
+                .writeVarInt(0x03)
+                .writePrefixedHex(assetId)
+                .writePrefixedAddress(issuer)
+                .writeVarInt(getNonces(containsGenesisBitmark)[index])
+                .toByteArray();
     }
 
     @Override
@@ -162,21 +316,41 @@ public class IssuanceParams extends AbsMultipleParams {
         return getSignatures(containsGenesisBitmark);
     }
 
+    /**
+     * @return {@code true} if the params are signed or have a signing key to sign lazily
+     */
     @Override
     public boolean isSigned() {
-        return signaturePair != null;
+        return genesisSignatures != null || signingKey != null;
     }
 
-    private String buildSingleJson(int index) {
-        return "{\"owner\":\"" + issuer.getAddress() + "\",\"signature\":\"" + HEX
-                .encode(getSignatures(containsGenesisBitmark).get(index)) + "\"," + "\"asset_id\":\"" + assetId + "\",\"nonce\":" + getNonces(
-                containsGenesisBitmark)[index] + "}";
+    private List<byte[]> getSignatures(boolean containsGenesisBitmark) {
+        final List<byte[]> signatures = containsGenesisBitmark
+                                        ? genesisSignatures
+                                        : nonGenesisSignatures;
+        if (signatures != null || signingKey == null) {
+            return signatures;
+        }
+        return signLazily(containsGenesisBitmark);
     }
 
-    private List<byte[]> getSignatures(boolean containsGenesisBitmark) {
-        return containsGenesisBitmark
-               ? signaturePair.first()
-               : signaturePair.second();
+    private synchronized List<byte[]> signLazily(boolean containsGenesisBitmark) {
+        List<byte[]> signatures = containsGenesisBitmark
+                                  ? genesisSignatures
+                                  : nonGenesisSignatures;
+        if (signatures == null) {
+            signatures = signer.sign(
+                    size(),
+                    i -> pack(i, containsGenesisBitmark),
+                    signingKey.privateKey().toBytes()
+            );
+            if (containsGenesisBitmark) {
+                genesisSignatures = signatures;
+            } else {
+                nonGenesisSignatures = signatures;
+            }
+        }
+        return signatures;
     }
 
     private int[] getNonces(boolean containsGenesisBitmark) {
@@ -6,9 +6,27 @@
  */
 package com.bitmark.apiservice.params;
 
+import okio.BufferedSink;
+
+import java.io.IOException;
+
 public interface Params {
 
     String toJson();
 
+    /**
+     * Write the JSON of {@link #toJson()} straight to the sink, e.g. the one of the request
+     * body, without building it as a String.
+     */
+    void writeJson(BufferedSink sink) throws IOException;
+
+    /**
+     * @return the length in bytes of the JSON {@link #writeJson(BufferedSink)} writes if
+     * it is known without writing it, otherwise -1
+     */
+    default long jsonLength() {
+        return -1;
+    }
+
     boolean isSigned();
 }
@@ -8,7 +8,9 @@ package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.utils.Address;
 import com.bitmark.cryptography.crypto.key.KeyPair;
+import okio.BufferedSink;
 
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.*;
 
@@ -68,7 +70,7 @@ public class RegisterWsTokenParams extends AbsSingleParams {
     }
 
     @Override
-    public String toJson() {
-        return "";
+    public void writeJson(BufferedSink sink) throws IOException {
+        // the request has no body, the params are sent in the headers
     }
 }
@@ -7,12 +7,14 @@
 package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.configuration.Network;
 import com.bitmark.apiservice.utils.Address;
-import com.bitmark.apiservice.utils.BinaryPacking;
 import com.bitmark.apiservice.utils.FileUtils;
+import com.bitmark.apiservice.utils.JsonSink;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.cryptography.crypto.Sha3512;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.KeyPair;
+import okio.BufferedSink;
 
 import java.io.File;
 import java.io.IOException;
@@ -124,33 +126,45 @@ public class RegistrationParams extends AbsSingleParams {
         return metadata;
     }
 
+    /**
+     * Sign as the registrant of the network of the {@link GlobalConfiguration}, see
+     * {@link #sign(KeyPair, Network)} for a client with a configuration of its own.
+     */
     @Override
     public byte[] sign(KeyPair key) {
-        registrant = Address.getDefault(
-                key.publicKey(),
-                GlobalConfiguration.network()
-        );
+        return sign(key, GlobalConfiguration.network());
+    }
+
+    /**
+     * Sign as the registrant of {@code network}, for clients that do not use the
+     * {@link GlobalConfiguration}.
+     */
+    public byte[] sign(KeyPair key, Network network) {
+        registrant = Address.getDefault(key.publicKey(), network);
         checkValid(() -> null != fingerprint, "missing fingerprint");
         return super.sign(key);
     }
 
     @Override
-    public String toJson() {
+    public void writeJson(BufferedSink sink) throws IOException {
         checkSigned();
-        return "{\"assets\":[{\"fingerprint\":\"" + fingerprint + "\",\"name\":\"" + name + "\"," +
-                "\"metadata\":\"" + getJsonMetadata(metadata) +
-                "\",\"registrant\":\"" +
-                registrant.getAddress() +
-                "\",\"signature\":\"" + HEX.encode(signature) + "\"}]}";
+        new JsonSink(sink)
+                .raw("{\"assets\":[{\"fingerprint\":").string(fingerprint)
+                .raw(",\"name\":").string(name)
+                .raw(",\"metadata\":").string(getPackedMetadata(metadata))
+                .raw(",\"registrant\":").string(registrant.getAddress())
+                .raw(",\"signature\":").hex(signature)
+                .raw("}]}");
     }
 
     @Override
     byte[] pack() {
-        byte[] data = VarInt.writeUnsignedVarInt(0x02);
-        data = BinaryPacking.concat(name, data);
-        data = BinaryPacking.concat(fingerprint, data);
-        data = BinaryPacking.concat(getPackedMetadata(metadata), data);
-        data = BinaryPacking.concat(registrant.pack(), data);
-        return data;
+        return PackWriter.local()
+                .writeVarInt(0x02)
+                .writePrefixedString(name)
+                .writePrefixedString(fingerprint)
+                .writePrefixedString(getPackedMetadata(metadata))
+                .writePrefixedAddress(registrant)
+                .toByteArray();
     }
 }
@@ -7,11 +7,12 @@
 package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.utils.Address;
-import com.bitmark.apiservice.utils.ArrayUtil;
-import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.JsonSink;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.cryptography.crypto.Sha3256;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
+import okio.BufferedSink;
 
+import java.io.IOException;
 import java.util.Map;
 
 import static com.bitmark.apiservice.utils.HttpUtils.mapToJson;
@@ -107,24 +108,27 @@ public class ShareGrantingParams extends AbsSingleParams {
 
     @Override
     byte[] pack() {
-        byte[] data = VarInt.writeUnsignedVarInt(0x09);
-        data = BinaryPacking.concat(HEX.decode(shareId), data);
-        data = ArrayUtil.concat(data, VarInt.writeUnsignedVarInt(quantity));
-        data = BinaryPacking.concat(owner.pack(), data);
-        data = BinaryPacking.concat(receiver.pack(), data);
-        data = ArrayUtil.concat(data, VarInt.writeUnsignedVarInt(beforeBlock));
-        return data;
+        return PackWriter.local()
+                .writeVarInt(0x09)
+                .writePrefixedHex(shareId)
+                .writeVarInt(quantity)
+                .writePrefixedAddress(owner)
+                .writePrefixedAddress(receiver)
+                .writeVarInt(beforeBlock)
+                .toByteArray();
     }
 
     @Override
-    public String toJson() {
+    public void writeJson(BufferedSink sink) throws IOException {
         checkSigned();
-        return "{\"record\":{\"shareId\":\"" + shareId +
-                "\",\"quantity\":" + quantity +
-                ",\"owner\":\"" + owner.getAddress() +
-                "\",\"recipient\":\"" + receiver.getAddress() +
-                "\",\"beforeBlock\":" + beforeBlock + ",\"signature\":\"" +
-                HEX.encode(signature) +
-                "\"},\"extra_info\":" + mapToJson(extraInfo) + "}";
+        new JsonSink(sink)
+                .raw("{\"record\":{\"shareId\":").string(shareId)
+                .raw(",\"quantity\":").number(quantity)
+                .raw(",\"owner\":").string(owner.getAddress())
+                .raw(",\"recipient\":").string(receiver.getAddress())
+                .raw(",\"beforeBlock\":").number(beforeBlock)
+                .raw(",\"signature\":").hex(signature)
+                .raw("},\"extra_info\":").raw(mapToJson(extraInfo))
+                .raw("}");
     }
 }
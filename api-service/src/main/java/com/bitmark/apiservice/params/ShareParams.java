@@ -6,11 +6,13 @@
  */
 package com.bitmark.apiservice.params;
 
-import com.bitmark.apiservice.utils.ArrayUtil;
-import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.JsonSink;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.cryptography.crypto.Sha3256;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.KeyPair;
+import okio.BufferedSink;
+
+import java.io.IOException;
 
 import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
 import static com.bitmark.cryptography.utils.Validator.checkValid;
@@ -61,16 +63,20 @@ public class ShareParams extends AbsSingleParams {
 
     @Override
     byte[] pack() {
-        byte[] data = VarInt.writeUnsignedVarInt(0x08);
-        data = BinaryPacking.concat(HEX.decode(link), data);
-        data = ArrayUtil.concat(data, VarInt.writeUnsignedVarInt(quantity));
-        return data;
+        return PackWriter.local()
+                .writeVarInt(0x08)
+                .writePrefixedHex(link)
+                .writeVarInt(quantity)
+                .toByteArray();
     }
 
     @Override
-    public String toJson() {
+    public void writeJson(BufferedSink sink) throws IOException {
         checkSigned();
-        return "{\"share\":{\"link\":\"" + link + "\",\"quantity\":" + quantity +
-                ",\"signature\":\"" + HEX.encode(signature) + "\"}}";
+        new JsonSink(sink)
+                .raw("{\"share\":{\"link\":").string(link)
+                .raw(",\"quantity\":").number(quantity)
+                .raw(",\"signature\":").hex(signature)
+                .raw("}}");
     }
 }
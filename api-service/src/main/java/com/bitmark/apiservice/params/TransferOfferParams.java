@@ -7,12 +7,13 @@
 package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.utils.Address;
-import com.bitmark.apiservice.utils.ArrayUtil;
-import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.JsonSink;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.cryptography.crypto.Sha3256;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.KeyPair;
+import okio.BufferedSink;
 
+import java.io.IOException;
 import java.util.Map;
 
 import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
@@ -58,12 +59,14 @@ public class TransferOfferParams extends AbsSingleParams {
     }
 
     @Override
-    public String toJson() {
+    public void writeJson(BufferedSink sink) throws IOException {
         checkSigned();
-        return "{\"offer\":{\"extra_info\":{" + getExtraInfoJson() + "},\"record\":{\"link\":\"" +
-                link
-                + "\",\"owner\":\"" + receiver.getAddress() + "\",\"signature\":\"" +
-                HEX.encode(signature) + "\"}}}";
+        new JsonSink(sink)
+                .raw("{\"offer\":{\"extra_info\":{").raw(getExtraInfoJson())
+                .raw("},\"record\":{\"link\":").string(link)
+                .raw(",\"owner\":").string(receiver.getAddress())
+                .raw(",\"signature\":").hex(signature)
+                .raw("}}}");
     }
 
     @Override
@@ -74,11 +77,12 @@ public class TransferOfferParams extends AbsSingleParams {
 
     @Override
     byte[] pack() {
-        byte[] data = VarInt.writeUnsignedVarInt(0x05);
-        data = BinaryPacking.concat(HEX.decode(link), data);
-        data = ArrayUtil.concat(data, new byte[]{0x00});
-        data = BinaryPacking.concat(receiver.pack(), data);
-        return data;
+        return PackWriter.local()
+                .writeVarInt(0x05)
+                .writePrefixedHex(link)
+                .writeByte(0x00)
+                .writePrefixedAddress(receiver)
+                .toByteArray();
     }
 
     private void checkValidLink(String link) {
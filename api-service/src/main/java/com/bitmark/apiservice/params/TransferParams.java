@@ -7,11 +7,13 @@
 package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.utils.Address;
-import com.bitmark.apiservice.utils.ArrayUtil;
-import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.JsonSink;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.cryptography.crypto.Sha3256;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.KeyPair;
+import okio.BufferedSink;
+
+import java.io.IOException;
 
 import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
 import static com.bitmark.cryptography.utils.Validator.checkValid;
@@ -46,11 +48,13 @@ public class TransferParams extends AbsSingleParams {
     }
 
     @Override
-    public String toJson() {
+    public void writeJson(BufferedSink sink) throws IOException {
         checkSigned();
-        return "{\"transfer\":{\"link\":\"" + link + "\",\"owner\":\"" + receiver
-                .getAddress() +
-                "\",\"signature\":\"" + HEX.encode(signature) + "\"}}";
+        new JsonSink(sink)
+                .raw("{\"transfer\":{\"link\":").string(link)
+                .raw(",\"owner\":").string(receiver.getAddress())
+                .raw(",\"signature\":").hex(signature)
+                .raw("}}");
     }
 
     @Override
@@ -61,11 +65,12 @@ public class TransferParams extends AbsSingleParams {
 
     @Override
     byte[] pack() {
-        byte[] data = VarInt.writeUnsignedVarInt(0x04);
-        data = BinaryPacking.concat(HEX.decode(link), data);
-        data = ArrayUtil.concat(data, new byte[]{0x00});
-        data = BinaryPacking.concat(receiver.pack(), data);
-        return data;
+        return PackWriter.local()
+                .writeVarInt(0x04)
+                .writePrefixedHex(link)
+                .writeByte(0x00)
+                .writePrefixedAddress(receiver)
+                .toByteArray();
     }
 
     private void checkValidLink(String link) {
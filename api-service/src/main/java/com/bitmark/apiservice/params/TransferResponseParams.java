@@ -7,14 +7,15 @@
 package com.bitmark.apiservice.params;
 
 import com.bitmark.apiservice.utils.Address;
-import com.bitmark.apiservice.utils.ArrayUtil;
-import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.JsonSink;
+import com.bitmark.apiservice.utils.PackWriter;
 import com.bitmark.apiservice.utils.annotation.VisibleForTesting;
 import com.bitmark.apiservice.utils.record.OfferRecord;
 import com.bitmark.cryptography.crypto.Ed25519;
-import com.bitmark.cryptography.crypto.encoder.VarInt;
 import com.bitmark.cryptography.crypto.key.KeyPair;
+import okio.BufferedSink;
 
+import java.io.IOException;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Map;
@@ -63,13 +64,13 @@ public class TransferResponseParams extends AbsSingleParams {
 
     @Override
     byte[] pack() {
-        byte[] data = VarInt.writeUnsignedVarInt(0x05);
-        data = BinaryPacking.concat(HEX.decode(offer.getLink()), data);
-        data = ArrayUtil.concat(data, new byte[]{0x00});
-        data = BinaryPacking.concat(Address.fromAccountNumber(offer.getOwner())
-                .pack(), data);
-        data = BinaryPacking.concat(HEX.decode(offer.getSignature()), data);
-        return data;
+        return PackWriter.local()
+                .writeVarInt(0x05)
+                .writePrefixedHex(offer.getLink())
+                .writeByte(0x00)
+                .writePrefixedAddress(Address.fromAccountNumber(offer.getOwner()))
+                .writePrefixedHex(offer.getSignature())
+                .toByteArray();
     }
 
     @Override
@@ -87,15 +88,16 @@ public class TransferResponseParams extends AbsSingleParams {
     }
 
     @Override
-    public String toJson() {
+    public void writeJson(BufferedSink sink) throws IOException {
         if (isAccept()) {
             checkSigned();
         }
-        return "{\"action\":\"" + response.value + (isAccept()
-                                                    ? "\",\"countersignature\":\"" + HEX
-                .encode(signature)
-                                                    : "") + "\",\"id\":\"" + offer
-                .getId() + "\"}";
+        final JsonSink json = new JsonSink(sink)
+                .raw("{\"action\":").string(response.value);
+        if (isAccept()) {
+            json.raw(",\"countersignature\":").hex(signature);
+        }
+        json.raw(",\"id\":").string(offer.getId()).raw("}");
     }
 
     public Map<String, String> buildHeaders() {
@@ -22,9 +22,30 @@ public abstract class AbsQueryBuilder implements QueryBuilder {
 
     @Override
     public String toUrlQuery() {
+        return toUrlQuery(null, null);
+    }
+
+    /**
+     * Build the query params with {@code value} in place of the value of the field
+     * {@code name}. The query is captured at once, later changes of this builder do not
+     * affect it.
+     */
+    protected QueryParams build(String name, Object value) {
+        final String query = toUrlQuery(name, value);
+        return () -> query;
+    }
+
+    private String toUrlQuery(String overriddenName, Object overriddenValue) {
         try {
             StringBuilder builder = new StringBuilder();
             Map<String, Object> valueMap = getValues(this);
+            if (overriddenName != null) {
+                if (overriddenValue == null) {
+                    valueMap.remove(overriddenName);
+                } else {
+                    valueMap.put(overriddenName, overriddenValue);
+                }
+            }
             int iteration = 0;
             for (Map.Entry<String, Object> entry : valueMap.entrySet()) {
                 iteration++;
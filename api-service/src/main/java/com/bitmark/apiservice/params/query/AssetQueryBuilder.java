@@ -10,7 +10,8 @@ import com.google.gson.annotations.SerializedName;
 
 import static com.bitmark.cryptography.utils.Validator.*;
 
-public class AssetQueryBuilder extends AbsQueryBuilder {
+public class AssetQueryBuilder extends AbsQueryBuilder
+        implements PagedQueryBuilder {
 
     private String registrant;
 
@@ -73,4 +74,14 @@ public class AssetQueryBuilder extends AbsQueryBuilder {
         this.to = to;
         return this;
     }
+
+    @Override
+    public QueryParams buildPage(Long at) {
+        return at == null ? build("at", this.at) : build("at", at);
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
 }
@@ -10,7 +10,8 @@ import com.google.gson.annotations.SerializedName;
 
 import static com.bitmark.cryptography.utils.Validator.*;
 
-public class BitmarkQueryBuilder extends AbsQueryBuilder {
+public class BitmarkQueryBuilder extends AbsQueryBuilder
+        implements PagedQueryBuilder {
 
     private String owner;
 
@@ -128,4 +129,14 @@ public class BitmarkQueryBuilder extends AbsQueryBuilder {
         this.to = to;
         return this;
     }
+
+    @Override
+    public QueryParams buildPage(Long at) {
+        return at == null ? build("at", this.at) : build("at", at);
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
 }
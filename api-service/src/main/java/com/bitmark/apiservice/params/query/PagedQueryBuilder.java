@@ -0,0 +1,27 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.params.query;
+
+/**
+ * A query of a list that is paged by the offset of its records.
+ */
+public interface PagedQueryBuilder extends QueryBuilder {
+
+    /**
+     * Build the query of the page that follows the record at {@code at}, without changing
+     * this builder.
+     *
+     * @param at the offset of the last record of the previous page, or {@code null} for
+     *           the first page
+     */
+    QueryParams buildPage(Long at);
+
+    /**
+     * @return the maximum number of records of a page
+     */
+    int getLimit();
+}
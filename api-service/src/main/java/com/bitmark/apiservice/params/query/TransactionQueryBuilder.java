@@ -10,7 +10,8 @@ import com.google.gson.annotations.SerializedName;
 
 import static com.bitmark.cryptography.utils.Validator.*;
 
-public class TransactionQueryBuilder extends AbsQueryBuilder {
+public class TransactionQueryBuilder extends AbsQueryBuilder
+        implements PagedQueryBuilder {
 
     private String owner;
 
@@ -118,4 +119,14 @@ public class TransactionQueryBuilder extends AbsQueryBuilder {
         this.loadBlock = loadBlock;
         return this;
     }
+
+    @Override
+    public QueryParams buildPage(Long at) {
+        return at == null ? build("at", this.at) : build("at", at);
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
 }
@@ -0,0 +1,48 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.reactive;
+
+/**
+ * A bitmark of an owner has changed.
+ *
+ * @see com.bitmark.apiservice.BitmarkWebSocket.BitmarkChangedEvent
+ */
+public final class BitmarkChange {
+
+    private final String bitmarkId;
+
+    private final String txId;
+
+    private final boolean presence;
+
+    public BitmarkChange(String bitmarkId, String txId, boolean presence) {
+        this.bitmarkId = bitmarkId;
+        this.txId = txId;
+        this.presence = presence;
+    }
+
+    public String getBitmarkId() {
+        return bitmarkId;
+    }
+
+    public String getTxId() {
+        return txId;
+    }
+
+    public boolean isPresence() {
+        return presence;
+    }
+
+    @Override
+    public String toString() {
+        return "BitmarkChange{" +
+                "bitmarkId='" + bitmarkId + '\'' +
+                ", txId='" + txId + '\'' +
+                ", presence=" + presence +
+                '}';
+    }
+}
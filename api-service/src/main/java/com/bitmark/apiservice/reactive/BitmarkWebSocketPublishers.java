@@ -0,0 +1,221 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.reactive;
+
+import com.bitmark.apiservice.BitmarkWebSocket;
+import com.bitmark.apiservice.utils.Address;
+import com.bitmark.apiservice.utils.error.UnexpectedException;
+import io.github.centrifugal.centrifuge.SubscribeErrorEvent;
+import io.github.centrifugal.centrifuge.UnsubscribeEvent;
+import org.reactivestreams.Publisher;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * {@link Publisher}s of the subscription channels of a connected {@link BitmarkWebSocket}.
+ * Each channel is subscribed when its publisher is subscribed to, and unsubscribed when
+ * the subscription is cancelled. A channel allows a single subscriber at a time. Events
+ * that are not requested yet are buffered up to the buffer size, then handled by the
+ * {@link OverflowStrategy}.
+ */
+public class BitmarkWebSocketPublishers {
+
+    private static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private final BitmarkWebSocket socket;
+
+    private final int bufferSize;
+
+    private final OverflowStrategy strategy;
+
+    public BitmarkWebSocketPublishers(BitmarkWebSocket socket) {
+        this(socket, DEFAULT_BUFFER_SIZE, OverflowStrategy.DROP_OLDEST);
+    }
+
+    public BitmarkWebSocketPublishers(
+            BitmarkWebSocket socket,
+            int bufferSize,
+            OverflowStrategy strategy
+    ) {
+        checkNonNull(socket);
+        checkNonNull(strategy);
+        checkValid(() -> bufferSize > 0, "buffer size must be greater than 0");
+        this.socket = socket;
+        this.bufferSize = bufferSize;
+        this.strategy = strategy;
+    }
+
+    /**
+     * @return the block numbers of the new blocks
+     */
+    public Publisher<Long> newBlocks() {
+        return new EventPublisher<>(
+                bufferSize,
+                strategy,
+                emitter -> socket.subscribeNewBlock(
+                        new BitmarkWebSocket.NewBlockEvent() {
+                            @Override
+                            public void onNewBlock(long blockNumber) {
+                                emitter.onNext(blockNumber);
+                            }
+
+                            @Override
+                            public void onSubscribeError(SubscribeErrorEvent event) {
+                                emitter.onError(new UnexpectedException(
+                                        "cannot subscribe to the channel"));
+                            }
+
+                            @Override
+                            public void onUnsubscribe(UnsubscribeEvent event) {
+                                emitter.onComplete();
+                            }
+                        }),
+                socket::unsubscribeNewBlock
+        );
+    }
+
+    public Publisher<BitmarkChange> bitmarkChanged(Address owner) {
+        checkNonNull(owner);
+        return new EventPublisher<>(
+                bufferSize,
+                strategy,
+                emitter -> socket.subscribeBitmarkChanged(
+                        owner,
+                        new BitmarkWebSocket.BitmarkChangedEvent() {
+                            @Override
+                            public void onChanged(
+                                    String bitmarkId,
+                                    String txId,
+                                    boolean presence
+                            ) {
+                                emitter.onNext(new BitmarkChange(
+                                        bitmarkId,
+                                        txId,
+                                        presence
+                                ));
+                            }
+
+                            @Override
+                            public void onSubscribeError(SubscribeErrorEvent event) {
+                                emitter.onError(new UnexpectedException(
+                                        "cannot subscribe to the channel"));
+                            }
+
+                            @Override
+                            public void onUnsubscribe(UnsubscribeEvent event) {
+                                emitter.onComplete();
+                            }
+                        }
+                ),
+                () -> socket.unsubscribeBitmarkChanged(owner)
+        );
+    }
+
+    /**
+     * @return the ids of the bitmarks offered to the requester
+     */
+    public Publisher<String> transferOffers(Address requester) {
+        checkNonNull(requester);
+        return new EventPublisher<>(
+                bufferSize,
+                strategy,
+                emitter -> socket.subscribeTransferOffer(
+                        requester,
+                        new BitmarkWebSocket.TransferOfferEvent() {
+                            @Override
+                            public void onReceived(String bitmarkId) {
+                                emitter.onNext(bitmarkId);
+                            }
+
+                            @Override
+                            public void onSubscribeError(SubscribeErrorEvent event) {
+                                emitter.onError(new UnexpectedException(
+                                        "cannot subscribe to the channel"));
+                            }
+
+                            @Override
+                            public void onUnsubscribe(UnsubscribeEvent event) {
+                                emitter.onComplete();
+                            }
+                        }
+                ),
+                () -> socket.unsubscribeTransferOffer(requester)
+        );
+    }
+
+    /**
+     * @return the ids of the bitmarks pending issuance to the owner
+     */
+    public Publisher<String> newPendingIssuances(Address owner) {
+        checkNonNull(owner);
+        return new EventPublisher<>(
+                bufferSize,
+                strategy,
+                emitter -> socket.subscribeNewPendingIssuance(
+                        owner,
+                        new BitmarkWebSocket.NewPendingIssuanceEvent() {
+                            @Override
+                            public void onNewPendingIssuance(String bitmarkId) {
+                                emitter.onNext(bitmarkId);
+                            }
+
+                            @Override
+                            public void onSubscribeError(SubscribeErrorEvent event) {
+                                emitter.onError(new UnexpectedException(
+                                        "cannot subscribe to the channel"));
+                            }
+
+                            @Override
+                            public void onUnsubscribe(UnsubscribeEvent event) {
+                                emitter.onComplete();
+                            }
+                        }
+                ),
+                () -> socket.unsubscribeNewPendingIssuance(owner)
+        );
+    }
+
+    public Publisher<PendingTx> newPendingTxs(Address stakeHolder) {
+        checkNonNull(stakeHolder);
+        return new EventPublisher<>(
+                bufferSize,
+                strategy,
+                emitter -> socket.subscribeNewPendingTx(
+                        stakeHolder,
+                        new BitmarkWebSocket.NewPendingTxEvent() {
+                            @Override
+                            public void onNewPendingIx(
+                                    String txId,
+                                    String owner,
+                                    String prevTxId,
+                                    String prevOwner
+                            ) {
+                                emitter.onNext(new PendingTx(
+                                        txId,
+                                        owner,
+                                        prevTxId,
+                                        prevOwner
+                                ));
+                            }
+
+                            @Override
+                            public void onSubscribeError(SubscribeErrorEvent event) {
+                                emitter.onError(new UnexpectedException(
+                                        "cannot subscribe to the channel"));
+                            }
+
+                            @Override
+                            public void onUnsubscribe(UnsubscribeEvent event) {
+                                emitter.onComplete();
+                            }
+                        }
+                ),
+                () -> socket.unsubscribeNewPendingTx(stakeHolder)
+        );
+    }
+}
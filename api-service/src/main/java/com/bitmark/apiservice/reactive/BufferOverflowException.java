@@ -0,0 +1,24 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.reactive;
+
+/**
+ * A subscriber did not request the events as fast as they arrived and its buffer is full.
+ */
+public class BufferOverflowException extends RuntimeException {
+
+    private final int capacity;
+
+    public BufferOverflowException(int capacity) {
+        super("the buffer of " + capacity + " events is full");
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.reactive;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A subscription that delivers the items of a queue as the subscriber requests them. The
+ * signals to the subscriber are serialized by a drain loop, whichever thread adds the
+ * items or the demand.
+ */
+abstract class BufferedSubscription<T> implements Subscription {
+
+    private final Subscriber<? super T> subscriber;
+
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicLong requested = new AtomicLong();
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private final AtomicBoolean terminated = new AtomicBoolean();
+
+    private volatile boolean done;
+
+    private volatile Throwable error;
+
+    private volatile boolean cancelled;
+
+    BufferedSubscription(Subscriber<? super T> subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            fail(new IllegalArgumentException(
+                    "request must be greater than 0 but was " + n));
+            return;
+        }
+        long current;
+        long next;
+        do {
+            current = requested.get();
+            next = current + n < 0 ? Long.MAX_VALUE : current + n;
+        } while (!requested.compareAndSet(current, next));
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        terminate();
+        if (wip.getAndIncrement() == 0) {
+            queue.clear();
+        }
+    }
+
+    /**
+     * Called once when the subscription is cancelled or terminated, to release the source.
+     */
+    protected void onTerminate() {
+    }
+
+    /**
+     * Called by the drain loop when the items of the queue have been delivered as far as
+     * the demand allows.
+     *
+     * @param requested the outstanding demand
+     * @param size      the number of items left in the queue
+     */
+    protected void onDrained(long requested, int size) {
+    }
+
+    /**
+     * @return whether the subscription is cancelled or no more item will be added
+     */
+    protected boolean isDone() {
+        return cancelled || done;
+    }
+
+    protected int size() {
+        return size.get();
+    }
+
+    protected void add(T item) {
+        queue.offer(item);
+        size.incrementAndGet();
+    }
+
+    /**
+     * Remove the oldest item of the queue.
+     */
+    protected void dropOldest() {
+        if (queue.poll() != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    protected void complete() {
+        done = true;
+        drain();
+    }
+
+    protected void fail(Throwable throwable) {
+        error = throwable;
+        done = true;
+        queue.clear();
+        size.set(0);
+        drain();
+    }
+
+    protected void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            final long r = requested.get();
+            long e = 0;
+            while (e != r) {
+                if (cancelled) {
+                    queue.clear();
+                    return;
+                }
+                final boolean d = done;
+                final T item = queue.poll();
+                if (item == null) {
+                    if (d) {
+                        signalTerminal();
+                        return;
+                    }
+                    break;
+                }
+                size.decrementAndGet();
+                subscriber.onNext(item);
+                e++;
+            }
+            if (cancelled) {
+                queue.clear();
+                return;
+            }
+            if (done && queue.isEmpty()) {
+                signalTerminal();
+                return;
+            }
+            final long remaining = e == 0 || r == Long.MAX_VALUE
+                                   ? r
+                                   : requested.addAndGet(-e);
+            onDrained(remaining, size.get());
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void signalTerminal() {
+        cancelled = true;
+        terminate();
+        final Throwable throwable = error;
+        if (throwable != null) {
+            subscriber.onError(throwable);
+        } else {
+            subscriber.onComplete();
+        }
+    }
+
+    private void terminate() {
+        if (terminated.compareAndSet(false, true)) {
+            onTerminate();
+        }
+    }
+}
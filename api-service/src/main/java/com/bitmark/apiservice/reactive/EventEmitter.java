@@ -0,0 +1,19 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.reactive;
+
+/**
+ * Push the events of a source to the subscriber of an {@link EventPublisher}.
+ */
+public interface EventEmitter<T> {
+
+    void onNext(T event);
+
+    void onError(Throwable throwable);
+
+    void onComplete();
+}
@@ -0,0 +1,128 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.reactive;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Publish the events of a push source, such as a web socket channel, to a single
+ * subscriber. The source is subscribed when the subscriber subscribes and unsubscribed
+ * when it cancels. Events that arrive faster than they are requested are buffered up to
+ * {@code capacity}, then handled by the {@link OverflowStrategy}. The source must push its
+ * events from one thread at a time.
+ */
+public class EventPublisher<T> implements Publisher<T> {
+
+    private final int capacity;
+
+    private final OverflowStrategy strategy;
+
+    private final Consumer<EventEmitter<T>> subscribe;
+
+    private final Runnable unsubscribe;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * @param subscribe   subscribe to the source, which pushes its events to the emitter
+     * @param unsubscribe unsubscribe from the source
+     */
+    public EventPublisher(
+            int capacity,
+            OverflowStrategy strategy,
+            Consumer<EventEmitter<T>> subscribe,
+            Runnable unsubscribe
+    ) {
+        checkValid(() -> capacity > 0, "capacity must be greater than 0");
+        checkNonNull(strategy);
+        checkNonNull(subscribe);
+        checkNonNull(unsubscribe);
+        this.capacity = capacity;
+        this.strategy = strategy;
+        this.subscribe = subscribe;
+        this.unsubscribe = unsubscribe;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        checkNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException(
+                    "the publisher allows a single subscriber"));
+            return;
+        }
+        EventSubscription subscription = new EventSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscribe.accept(subscription);
+    }
+
+    private final class EventSubscription extends BufferedSubscription<T>
+            implements EventEmitter<T> {
+
+        private EventSubscription(Subscriber<? super T> subscriber) {
+            super(subscriber);
+        }
+
+        @Override
+        public void onNext(T event) {
+            if (isDone()) {
+                return;
+            }
+            if (size() >= capacity) {
+                switch (strategy) {
+                    case DROP_LATEST:
+                        return;
+                    case DROP_OLDEST:
+                        dropOldest();
+                        break;
+                    default:
+                        fail(new BufferOverflowException(capacity));
+                        return;
+                }
+            }
+            add(event);
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!isDone()) {
+                fail(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!isDone()) {
+                complete();
+            }
+        }
+
+        @Override
+        protected void onTerminate() {
+            unsubscribe.run();
+            subscribed.set(false);
+        }
+    }
+}
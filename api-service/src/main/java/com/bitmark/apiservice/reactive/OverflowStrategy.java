@@ -0,0 +1,29 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.reactive;
+
+/**
+ * What to do with an event that arrives while the buffer of a subscriber that does not
+ * keep up is full.
+ */
+public enum OverflowStrategy {
+
+    /**
+     * Drop the oldest buffered event to make room for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Drop the new event.
+     */
+    DROP_LATEST,
+
+    /**
+     * Cancel the subscription and signal a {@link BufferOverflowException}.
+     */
+    ERROR
+}
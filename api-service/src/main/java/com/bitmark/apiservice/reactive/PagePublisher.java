@@ -0,0 +1,128 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.reactive;
+
+import com.bitmark.apiservice.paging.PageCursor;
+import com.bitmark.apiservice.paging.PageFetcher;
+import com.bitmark.apiservice.params.query.PagedQueryBuilder;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.ToLongFunction;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+
+/**
+ * Publish all records of a list, following the offset of the last record of each page
+ * to the next one. A page is fetched only when the subscriber has requested more records
+ * than are left of the previous page, so at most one page is held per subscription.
+ * Each subscription lists the records from the first page again.
+ */
+public class PagePublisher<T> implements Publisher<T> {
+
+    private final PagedQueryBuilder query;
+
+    private final PageFetcher<T> fetcher;
+
+    private final ToLongFunction<T> offset;
+
+    /**
+     * @param query   the query of the list, the offset of its first page is kept
+     * @param fetcher fetch the records of a page
+     * @param offset  the offset of a record
+     */
+    public PagePublisher(
+            PagedQueryBuilder query,
+            PageFetcher<T> fetcher,
+            ToLongFunction<T> offset
+    ) {
+        checkNonNull(query);
+        checkNonNull(fetcher);
+        checkNonNull(offset);
+        this.query = query;
+        this.fetcher = fetcher;
+        this.offset = offset;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        checkNonNull(subscriber);
+        subscriber.onSubscribe(new PageSubscription<>(
+                subscriber,
+                new PageCursor<>(query, offset),
+                fetcher
+        ));
+    }
+
+    private static final class PageSubscription<T> extends BufferedSubscription<T> {
+
+        private final PageCursor<T> cursor;
+
+        private final PageFetcher<T> fetcher;
+
+        private volatile CompletableFuture<List<T>> inFlight;
+
+        private PageSubscription(
+                Subscriber<? super T> subscriber,
+                PageCursor<T> cursor,
+                PageFetcher<T> fetcher
+        ) {
+            super(subscriber);
+            this.cursor = cursor;
+            this.fetcher = fetcher;
+        }
+
+        @Override
+        protected void onDrained(long requested, int size) {
+            // the drain loop is single threaded and a single page is fetched at a time,
+            // so the cursor is never accessed concurrently
+            if (requested <= size || inFlight != null || isDone()) {
+                return;
+            }
+            CompletableFuture<List<T>> future;
+            try {
+                future = fetcher.fetch(cursor.nextPage());
+            } catch (Throwable e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            inFlight = future;
+            future.whenComplete(this::onPage);
+        }
+
+        @Override
+        protected void onTerminate() {
+            final CompletableFuture<List<T>> future = inFlight;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        private void onPage(List<T> records, Throwable throwable) {
+            if (throwable != null) {
+                fail(throwable instanceof CompletionException &&
+                             throwable.getCause() != null
+                     ? throwable.getCause()
+                     : throwable);
+                return;
+            }
+            for (T record : cursor.onPage(records)) {
+                add(record);
+            }
+            if (cursor.isLastPage()) {
+                complete();
+                return;
+            }
+            // the next page may be fetched from now on, by any thread
+            inFlight = null;
+            drain();
+        }
+    }
+}
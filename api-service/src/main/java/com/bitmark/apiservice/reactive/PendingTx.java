@@ -0,0 +1,61 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.reactive;
+
+/**
+ * A new pending transaction of a stakeholder.
+ *
+ * @see com.bitmark.apiservice.BitmarkWebSocket.NewPendingTxEvent
+ */
+public final class PendingTx {
+
+    private final String txId;
+
+    private final String owner;
+
+    private final String previousTxId;
+
+    private final String previousOwner;
+
+    public PendingTx(
+            String txId,
+            String owner,
+            String previousTxId,
+            String previousOwner
+    ) {
+        this.txId = txId;
+        this.owner = owner;
+        this.previousTxId = previousTxId;
+        this.previousOwner = previousOwner;
+    }
+
+    public String getTxId() {
+        return txId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getPreviousTxId() {
+        return previousTxId;
+    }
+
+    public String getPreviousOwner() {
+        return previousOwner;
+    }
+
+    @Override
+    public String toString() {
+        return "PendingTx{" +
+                "txId='" + txId + '\'' +
+                ", owner='" + owner + '\'' +
+                ", previousTxId='" + previousTxId + '\'' +
+                ", previousOwner='" + previousOwner + '\'' +
+                '}';
+    }
+}
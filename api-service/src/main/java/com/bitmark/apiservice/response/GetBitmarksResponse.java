@@ -6,7 +6,6 @@
  */
 package com.bitmark.apiservice.response;
 
-import com.bitmark.apiservice.utils.annotation.VisibleForTesting;
 import com.bitmark.apiservice.utils.record.AssetRecord;
 import com.bitmark.apiservice.utils.record.BitmarkRecord;
 
@@ -19,7 +18,6 @@ public class GetBitmarksResponse implements Response {
 
     private List<AssetRecord> assets;
 
-    @VisibleForTesting
     public GetBitmarksResponse(
             List<BitmarkRecord> bitmarks,
             List<AssetRecord> assets
@@ -29,7 +29,33 @@ public class Address {
 
     private Network network;
 
+    /**
+     * Parse an account number of the network of the {@link GlobalConfiguration}, or of
+     * either network if there is none. Use {@link #fromAccountNumber(String, Network)}
+     * for a client with a configuration of its own.
+     */
     public static Address fromAccountNumber(String accountNumber) {
+        final Address address = parse(accountNumber);
+        if (!isConfiguredNetwork(address.network)) {
+            throw new InvalidNetworkException(address.network.value());
+        }
+        return address;
+    }
+
+    /**
+     * Parse an account number of {@code network}, e.g. the network of the
+     * {@code ClientConfiguration} of the client it is sent with.
+     */
+    public static Address fromAccountNumber(String accountNumber, Network network) {
+        checkValid(() -> null != network, "invalid network");
+        final Address address = parse(accountNumber);
+        if (address.network != network) {
+            throw new InvalidNetworkException(address.network.value());
+        }
+        return address;
+    }
+
+    private static Address parse(String accountNumber) {
         final byte[] addressBytes = BASE_58.decode(accountNumber);
         int keyVariant = VarInt.readUnsignedVarInt(addressBytes);
         final int keyVariantLength = ArrayUtil.toByteArray(keyVariant).length;
@@ -72,7 +98,7 @@ public class Address {
         // Verify network value
         int networkValue = (keyVariant >> 1) & 0x01;
         final Network network = Network.valueOf(networkValue);
-        if (!Network.isValid(networkValue) || GlobalConfiguration.network() != network) {
+        if (!Network.isValid(networkValue)) {
             throw new InvalidNetworkException(networkValue);
         }
 
@@ -94,18 +120,36 @@ public class Address {
         }
     }
 
+    public static boolean isValidAccountNumber(String accountNumber, Network network) {
+        try {
+            fromAccountNumber(accountNumber, network);
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * The address of {@code key} on {@code network}, which need not be the network of
+     * the {@link GlobalConfiguration}.
+     */
     public static Address getDefault(PublicKey key, Network network) {
         checkValid(
                 () -> null != key && Ed25519.PUBLIC_KEY_LENGTH == key.size(),
                 "invalid public key"
         );
-        checkValid(
-                () -> null != network && network == GlobalConfiguration.network(),
-                "invalid network"
-        );
+        checkValid(() -> null != network, "invalid network");
         return new Address(key, network);
     }
 
+    /**
+     * Without a {@link GlobalConfiguration}, e.g. when every client has its own
+     * configuration, addresses of both networks are accepted.
+     */
+    private static boolean isConfiguredNetwork(Network network) {
+        return !GlobalConfiguration.isInitialized() || GlobalConfiguration.network() == network;
+    }
+
     private Address() {
     }
 
@@ -148,9 +192,13 @@ public class Address {
     }
 
     public byte[] getPrefix() {
+        return VarInt.writeUnsignedVarInt(getKeyVariant());
+    }
+
+    int getKeyVariant() {
         int keyVariantValue = 0x01 << 4;
         keyVariantValue |= PUBLIC_KEY.value();
         keyVariantValue |= (network.value() << 1);
-        return VarInt.writeUnsignedVarInt(keyVariantValue);
+        return keyVariantValue;
     }
 }
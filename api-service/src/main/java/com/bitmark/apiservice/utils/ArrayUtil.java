@@ -239,12 +239,11 @@ public class ArrayUtil {
     }
 
     public static boolean isDuplicate(int[] input) {
-        final List<Integer> nonDupArray = new ArrayList<>();
-        for (int item : input) {
-            if (nonDupArray.contains(item)) {
+        final int[] sorted = Arrays.copyOf(input, input.length);
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] == sorted[i - 1]) {
                 return true;
-            } else {
-                nonDupArray.add(item);
             }
         }
         return false;
@@ -6,10 +6,14 @@
  */
 package com.bitmark.apiservice.utils;
 
+import com.bitmark.apiservice.configuration.GlobalConfiguration;
 import com.bitmark.apiservice.utils.callback.Call;
 import com.bitmark.apiservice.utils.callback.Callable1;
-import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.callback.CompletableCallback;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 public class Awaitility {
@@ -23,38 +27,26 @@ public class Awaitility {
 
     /**
      * Utility for apply async/await in Java. The task is invoked via {@link Call} will be
-     * executed in background thread
+     * executed in background thread, on the scheduler of the {@link GlobalConfiguration} if
+     * one is configured. The calling thread is parked until the task finishes.
      *
      * @param call The interface for invoke the task
      * @param <T>  Type of data is return from task
      * @return Value return from the task
-     * @throws Throwable Error is thrown from task
+     * @throws Throwable Error is thrown from task, {@link TimeoutException} if the task is
+     *                   not finished in time or {@link InterruptedException} if the calling
+     *                   thread is interrupted while waiting
      */
     public static <T> T await(Call<T> call) throws Throwable {
-        final Data<T> data = new Data<>();
-        final Data<Throwable> error = new Data<>();
-        EXECUTOR.execute(() -> {
+        final CompletableCallback<T> callback = new CompletableCallback<>();
+        executor().execute(() -> {
             try {
-                data.setValue(call.call());
+                callback.onSuccess(call.call());
             } catch (Throwable throwable) {
-                error.setValue(throwable);
+                callback.onError(throwable);
             }
         });
-
-        final long timeStart = System.currentTimeMillis();
-        while (data.getValue() == null && error.getValue() == null) {
-            long timeSpent = System.currentTimeMillis() - timeStart;
-            if (timeSpent >= TIMEOUT) {
-                throw new TimeoutException("Timeout after " + timeSpent + " ms");
-            }
-        }
-
-        T value = data.getValue();
-        if (value != null) {
-            return value;
-        } else {
-            throw error.getValue();
-        }
+        return await(callback, TIMEOUT);
     }
 
     public static <T> T await(Callable1<T> callable) throws Throwable {
@@ -63,36 +55,44 @@ public class Awaitility {
 
     public static <T> T await(Callable1<T> callable, Long timeout)
             throws Throwable {
-        Data<T> data = new Data<>();
-        Data<Throwable> error = new Data<>();
-
-        callable.call(new Callback1<T>() {
-            @Override
-            public void onSuccess(T value) {
-                data.setValue(value);
-            }
-
-            @Override
-            public void onError(Throwable throwable) {
-                error.setValue(throwable);
-            }
-        });
+        return await(
+                CompletableCallback.call(callable),
+                timeout == null ? TIMEOUT : timeout
+        );
+    }
 
-        long timeStart = System.currentTimeMillis();
-        timeout = timeout == null ? TIMEOUT : timeout;
-        while (data.getValue() == null && error.getValue() == null) {
-            long timeSpent = System.currentTimeMillis() - timeStart;
-            if (timeSpent >= timeout) {
-                throw new TimeoutException("Timeout after " + timeSpent + " ms");
+    private static BackgroundJobScheduler executor() {
+        if (GlobalConfiguration.isInitialized()) {
+            BackgroundJobScheduler scheduler = GlobalConfiguration.backgroundJobScheduler();
+            if (scheduler != null) {
+                return scheduler;
             }
         }
+        return EXECUTOR;
+    }
 
-        T value = data.getValue();
-        if (value != null) {
-            return value;
-        } else {
-            throw error.getValue();
+    /**
+     * Park the calling thread until the future is completed.
+     *
+     * @param future  The future to wait for
+     * @param timeout Maximum time to wait in milliseconds
+     * @param <T>     Type of data is return from the future
+     * @return Value of the future
+     * @throws Throwable Error the future is completed with, {@link TimeoutException} or
+     *                   {@link InterruptedException}
+     */
+    public static <T> T await(CompletableFuture<T> future, long timeout)
+            throws Throwable {
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new TimeoutException("Timeout after " + timeout + " ms");
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            throw e;
         }
-
     }
 }
@@ -6,30 +6,81 @@
  */
 package com.bitmark.apiservice.utils;
 
+import java.util.ArrayDeque;
 import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Runs jobs on a pool of daemon threads, named after {@link Builder#withThreadNamePrefix}.
+ * The jobs wait in a bounded queue, the {@link RejectionPolicy} decides what happens to a
+ * job submitted while the queue is full. Either a {@link ThreadPoolExecutor}, or a
+ * {@link ForkJoinPool} in work-stealing mode.
+ */
 public class BackgroundJobScheduler {
 
-    private final ThreadPoolExecutor executorService;
+    private final ExecutorService executorService;
+
+    private final int queueCapacity;
+
+    private final RejectionPolicy rejectionPolicy;
+
+    private final LongAdder rejectedTaskCount = new LongAdder();
+
+    public static Builder builder() {
+        return new Builder();
+    }
 
     public BackgroundJobScheduler() {
-        this(5);
+        this(builder());
     }
 
     public BackgroundJobScheduler(int threadCount) {
-        BlockingQueue<Runnable> taskQueue = new LinkedBlockingQueue<>();
-        executorService = new ThreadPoolExecutor(
-                1,
-                threadCount,
-                30,
-                TimeUnit.SECONDS,
-                taskQueue,
-                new BackgroundThreadFactory()
-        );
+        this(builder().withPoolSize(threadCount, threadCount));
     }
 
+    private BackgroundJobScheduler(Builder builder) {
+        this.queueCapacity = builder.queueCapacity;
+        this.rejectionPolicy = builder.rejectionPolicy;
+        if (builder.parallelism > 0) {
+            executorService = new ForkJoinPool(
+                    builder.parallelism,
+                    new BackgroundThreadFactory(builder.threadNamePrefix),
+                    null,
+                    true
+            );
+        } else {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    builder.corePoolSize,
+                    builder.maxPoolSize,
+                    builder.keepAlive,
+                    TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(builder.queueCapacity),
+                    new BackgroundThreadFactory(builder.threadNamePrefix),
+                    (runnable, e) -> reject(runnable)
+            );
+            // an idle scheduler holds no threads
+            executor.allowCoreThreadTimeOut(true);
+            executorService = executor;
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException if the scheduler is shut down, or its queue is
+     *                                    full and the rejection policy is
+     *                                    {@link RejectionPolicy#ABORT}
+     */
     public void execute(Runnable runnable) {
+        if (executorService instanceof ForkJoinPool &&
+                ((ForkJoinPool) executorService).getQueuedSubmissionCount() >=
+                        queueCapacity) {
+            reject(runnable);
+            return;
+        }
         executorService.execute(runnable);
     }
 
@@ -40,20 +91,190 @@ public class BackgroundJobScheduler {
         executorService.shutdown();
     }
 
+    public boolean isWorkStealing() {
+        return executorService instanceof ForkJoinPool;
+    }
+
+    /**
+     * @return the approximate number of jobs being run
+     */
     public int getActiveTaskCount() {
-        return executorService.getActiveCount();
+        if (executorService instanceof ForkJoinPool) {
+            return ((ForkJoinPool) executorService).getActiveThreadCount();
+        }
+        return ((ThreadPoolExecutor) executorService).getActiveCount();
     }
 
+    /**
+     * @return the approximate number of jobs waiting for a thread
+     */
+    public int getQueueSize() {
+        if (executorService instanceof ForkJoinPool) {
+            ForkJoinPool pool = (ForkJoinPool) executorService;
+            return (int) Math.min(
+                    Integer.MAX_VALUE,
+                    pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount()
+            );
+        }
+        return ((ThreadPoolExecutor) executorService).getQueue().size();
+    }
+
+    /**
+     * @return the number of threads currently in the pool
+     */
+    public int getPoolSize() {
+        if (executorService instanceof ForkJoinPool) {
+            return ((ForkJoinPool) executorService).getPoolSize();
+        }
+        return ((ThreadPoolExecutor) executorService).getPoolSize();
+    }
+
+    /**
+     * @return the number of jobs submitted while the queue was full, whichever the
+     * rejection policy
+     */
+    public long getRejectedTaskCount() {
+        return rejectedTaskCount.sum();
+    }
+
+    /**
+     * @deprecated use {@link #getQueueSize()}, the queue of a work-stealing scheduler is
+     * not exposed and is returned empty
+     */
+    @Deprecated
     public Queue<Runnable> getTaskQueue() {
-        return executorService.getQueue();
+        if (executorService instanceof ForkJoinPool) {
+            return new ArrayDeque<>(0);
+        }
+        return ((ThreadPoolExecutor) executorService).getQueue();
+    }
+
+    private void reject(Runnable runnable) {
+        if (executorService.isShutdown()) {
+            throw new RejectedExecutionException("scheduler is shut down");
+        }
+        rejectedTaskCount.increment();
+        switch (rejectionPolicy) {
+            case CALLER_RUNS:
+                runnable.run();
+                break;
+            default:
+                throw new RejectedExecutionException(
+                        "queue is full, capacity " + queueCapacity);
+        }
+    }
+
+    public static final class Builder {
+
+        private int corePoolSize = 5;
+
+        private int maxPoolSize = 5;
+
+        private long keepAlive = TimeUnit.SECONDS.toMillis(30);
+
+        private int queueCapacity = 1024;
+
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+
+        private int parallelism; // disabled
+
+        private String threadNamePrefix = "Bitmark Background Job";
+
+        private Builder() {
+        }
+
+        /**
+         * The pool runs up to {@code corePoolSize} threads while the queue has room, and
+         * grows up to {@code maxPoolSize} threads once it is full.
+         */
+        public Builder withPoolSize(int corePoolSize, int maxPoolSize) {
+            checkValid(
+                    () -> corePoolSize > 0 && maxPoolSize >= corePoolSize,
+                    "core pool size must be greater than zero and not above max pool size"
+            );
+            this.corePoolSize = corePoolSize;
+            this.maxPoolSize = maxPoolSize;
+            return this;
+        }
+
+        /**
+         * How long an idle thread is kept before it is stopped.
+         */
+        public Builder withKeepAlive(long keepAlive, TimeUnit unit) {
+            checkValid(
+                    () -> unit != null && keepAlive > 0,
+                    "keep alive must be greater than zero"
+            );
+            this.keepAlive = unit.toMillis(keepAlive);
+            return this;
+        }
+
+        public Builder withQueueCapacity(int queueCapacity) {
+            checkValid(() -> queueCapacity > 0, "queue capacity must be greater than zero");
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder withRejectionPolicy(RejectionPolicy rejectionPolicy) {
+            checkNonNull(rejectionPolicy);
+            this.rejectionPolicy = rejectionPolicy;
+            return this;
+        }
+
+        /**
+         * Run the jobs on a {@link ForkJoinPool} of {@code parallelism} threads instead,
+         * which suits many short jobs that fork more jobs. The pool size options are
+         * ignored, the queue capacity bounds the jobs submitted from outside the pool.
+         */
+        public Builder withWorkStealing(int parallelism) {
+            checkValid(() -> parallelism > 0, "parallelism must be greater than zero");
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder withThreadNamePrefix(String threadNamePrefix) {
+            checkValid(
+                    () -> threadNamePrefix != null && !threadNamePrefix.isEmpty(),
+                    "thread name prefix is required"
+            );
+            this.threadNamePrefix = threadNamePrefix;
+            return this;
+        }
+
+        public BackgroundJobScheduler build() {
+            return new BackgroundJobScheduler(this);
+        }
     }
 
     private static final class BackgroundThreadFactory
-            implements ThreadFactory {
+            implements ThreadFactory, ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+        private final String namePrefix;
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private BackgroundThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
 
         @Override
         public Thread newThread(Runnable r) {
-            return new Thread(r);
+            Thread thread = new Thread(r, nextName());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread =
+                    ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(nextName());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+        private String nextName() {
+            return namePrefix + " #" + count.incrementAndGet();
         }
     }
 }
@@ -6,17 +6,54 @@
  */
 package com.bitmark.apiservice.utils;
 
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
+import okhttp3.Request;
 
 import java.lang.reflect.Type;
 import java.util.Map;
 
 public class HttpUtils {
 
+    private static final Gson GSON = new GsonBuilder().create();
+
+    private static final Gson COMPLEX_MAP_KEY_GSON =
+            new GsonBuilder().enableComplexMapKeySerialization().create();
+
+    private static final Type MAP_TYPE = new TypeToken<Map<String, Object>>() {
+    }.getType();
+
     private HttpUtils() {
     }
 
+    /**
+     * The endpoint of an API path without its ids and query, e.g. {@code /v3/bitmarks} for
+     * {@code /v3/bitmarks/{id}?pending=true}.
+     */
+    public static String endpoint(String path) {
+        int end = path.indexOf('?');
+        if (end < 0) {
+            end = path.length();
+        }
+        // keep the version and the resource
+        int slash = path.indexOf('/', 1);
+        if (slash >= 0 && slash < end) {
+            slash = path.indexOf('/', slash + 1);
+            if (slash >= 0 && slash < end) {
+                end = slash;
+            }
+        }
+        return path.substring(0, end);
+    }
+
+    /**
+     * @return the method and endpoint of the request, e.g. {@code GET /v3/bitmarks}
+     */
+    public static String endpoint(Request request) {
+        return request.method() + " " + endpoint(request.url().encodedPath());
+    }
+
     public static String buildArrayQueryString(String name, Object value) {
         if (!value.getClass().isArray()) {
             return name + "=" + value;
@@ -73,14 +110,10 @@ public class HttpUtils {
         if (map == null) {
             return "{}";
         }
-        return new GsonBuilder().enableComplexMapKeySerialization()
-                .create()
-                .toJson(map, Map.class);
+        return COMPLEX_MAP_KEY_GSON.toJson(map, Map.class);
     }
 
     public static Map<String, Object> jsonToMap(String json) {
-        Type type = new TypeToken<Map<String, Object>>() {
-        }.getType();
-        return new GsonBuilder().create().fromJson(json, type);
+        return GSON.fromJson(json, MAP_TYPE);
     }
 }
@@ -0,0 +1,201 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils;
+
+import com.bitmark.apiservice.params.Params;
+import com.bitmark.apiservice.utils.error.UnexpectedException;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Utf8;
+
+import java.io.IOException;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+
+/**
+ * Writes the JSON of a request straight to a {@link BufferedSink}. Strings are escaped and
+ * bytes hex encoded in the sink, without building the JSON as a String first.
+ */
+public final class JsonSink {
+
+    private static final byte[] DIGITS = {
+            '0', '1', '2', '3', '4', '5', '6', '7',
+            '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+    };
+
+    private static final int NULL_LENGTH = 4;
+
+    // Bytes hex encoded at a time
+    private static final int HEX_CHUNK = 512;
+
+    private final BufferedSink sink;
+
+    private byte[] hexBuffer;
+
+    public JsonSink(BufferedSink sink) {
+        checkNonNull(sink);
+        this.sink = sink;
+    }
+
+    /**
+     * @return the JSON {@link Params#writeJson(BufferedSink)} writes
+     */
+    public static String toJson(Params params) {
+        final Buffer buffer = new Buffer();
+        try {
+            params.writeJson(buffer);
+        } catch (IOException e) {
+            // a buffer is never closed
+            throw new UnexpectedException(e);
+        }
+        return buffer.readUtf8();
+    }
+
+    /**
+     * @return the length in bytes of what {@link #string(String)} writes
+     */
+    public static long stringLength(String value) {
+        if (value == null) {
+            return NULL_LENGTH;
+        }
+        long length = 2 + Utf8.size(value);
+        for (int i = 0, size = value.length(); i < size; i++) {
+            final String escaped = escape(value.charAt(i));
+            if (escaped != null) {
+                length += escaped.length() - Utf8.size(value, i, i + 1);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return the length in bytes of what {@link #hex(byte[])} writes for that many bytes
+     */
+    public static long hexLength(int byteCount) {
+        return 2 + 2L * byteCount;
+    }
+
+    /**
+     * @return the length in bytes of what {@link #number(long)} writes
+     */
+    public static long numberLength(long value) {
+        if (value == Long.MIN_VALUE) {
+            return 20;
+        }
+        long length = value < 0 ? 2 : 1;
+        for (long rest = Math.abs(value); rest >= 10; rest /= 10) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Write JSON as is, such as the punctuation and the names of the fields.
+     */
+    public JsonSink raw(String json) throws IOException {
+        sink.writeUtf8(json);
+        return this;
+    }
+
+    /**
+     * Write the string quoted and escaped, or {@code null}.
+     */
+    public JsonSink string(String value) throws IOException {
+        if (value == null) {
+            sink.writeUtf8("null");
+            return this;
+        }
+        sink.writeByte('"');
+        int start = 0;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            final String escaped = escape(value.charAt(i));
+            if (escaped == null) {
+                continue;
+            }
+            if (start < i) {
+                sink.writeUtf8(value, start, i);
+            }
+            sink.writeUtf8(escaped);
+            start = i + 1;
+        }
+        if (start < value.length()) {
+            sink.writeUtf8(value, start, value.length());
+        }
+        sink.writeByte('"');
+        return this;
+    }
+
+    /**
+     * Write the bytes as a quoted lower case hex string, or {@code null}.
+     */
+    public JsonSink hex(byte[] bytes) throws IOException {
+        if (bytes == null) {
+            sink.writeUtf8("null");
+            return this;
+        }
+        final int chunk = 2 * Math.min(bytes.length, HEX_CHUNK);
+        if (hexBuffer == null || hexBuffer.length < chunk) {
+            hexBuffer = new byte[chunk];
+        }
+        sink.writeByte('"');
+        for (int from = 0; from < bytes.length; from += HEX_CHUNK) {
+            final int to = Math.min(bytes.length, from + HEX_CHUNK);
+            int j = 0;
+            for (int i = from; i < to; i++) {
+                hexBuffer[j++] = DIGITS[(bytes[i] & 0xF0) >>> 4];
+                hexBuffer[j++] = DIGITS[bytes[i] & 0x0F];
+            }
+            sink.write(hexBuffer, 0, j);
+        }
+        sink.writeByte('"');
+        return this;
+    }
+
+    public JsonSink number(long value) throws IOException {
+        sink.writeDecimalLong(value);
+        return this;
+    }
+
+    /**
+     * Write the number, or {@code null}.
+     */
+    public JsonSink number(Number value) throws IOException {
+        if (value == null) {
+            sink.writeUtf8("null");
+        } else if (value instanceof Integer || value instanceof Long) {
+            sink.writeDecimalLong(value.longValue());
+        } else {
+            sink.writeUtf8(value.toString());
+        }
+        return this;
+    }
+
+    private static String escape(char c) {
+        switch (c) {
+            case '"':
+                return "\\\"";
+            case '\\':
+                return "\\\\";
+            case '\n':
+                return "\\n";
+            case '\r':
+                return "\\r";
+            case '\t':
+                return "\\t";
+            case '\b':
+                return "\\b";
+            case '\f':
+                return "\\f";
+            case '\u2028':
+                return "\\u2028";
+            case '\u2029':
+                return "\\u2029";
+            default:
+                return c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils;
+
+import com.bitmark.cryptography.error.ValidateException;
+
+import java.util.Arrays;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Writes the binary packing of a record, the message its signature is made of, into one
+ * growable buffer. Varints are encoded and strings, hex strings and addresses are decoded
+ * in place, the length prefixed fields of {@link BinaryPacking#concat(byte[], byte[])}
+ * included, so a record is copied once, by {@link #toByteArray()}, instead of once per
+ * field.
+ * <p>
+ * A writer is not thread safe. {@link #local()} returns the one of the calling thread to
+ * pack records without growing a new buffer each time.
+ */
+public final class PackWriter {
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    // Larger buffers are not kept by the thread local writers
+    private static final int MAX_RETAINED_CAPACITY = 8 * 1024;
+
+    private static final ThreadLocal<PackWriter> LOCAL = new ThreadLocal<>();
+
+    private byte[] buffer;
+
+    private int size;
+
+    public PackWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PackWriter(int capacity) {
+        checkValid(() -> capacity > 0, "capacity must be greater than zero");
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * @return the empty writer of the calling thread, only to be used until the record is
+     * packed since the next call returns the same writer
+     */
+    public static PackWriter local() {
+        PackWriter writer = LOCAL.get();
+        if (writer == null || writer.buffer.length > MAX_RETAINED_CAPACITY) {
+            writer = new PackWriter();
+            LOCAL.set(writer);
+        }
+        return writer.reset();
+    }
+
+    public PackWriter reset() {
+        size = 0;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    public PackWriter writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+        return this;
+    }
+
+    public PackWriter writeBytes(byte[] bytes) {
+        checkNonNull(bytes);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+        return this;
+    }
+
+    /**
+     * Write {@code value} as an unsigned varint, the same bytes as
+     * {@code VarInt.writeUnsignedVarInt(value)}.
+     */
+    public PackWriter writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & 0xFFFFFF80) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) (value & 0x7F);
+        return this;
+    }
+
+    /**
+     * Write the bytes prefixed with their length, the same bytes as
+     * {@link BinaryPacking#concat(byte[], byte[])} appends.
+     */
+    public PackWriter writePrefixedBytes(byte[] bytes) {
+        checkNonNull(bytes);
+        return writeVarInt(bytes.length).writeBytes(bytes);
+    }
+
+    /**
+     * Write the UTF-8 bytes of the string prefixed with their length, the same bytes as
+     * {@link BinaryPacking#concat(String, byte[])} appends.
+     */
+    public PackWriter writePrefixedString(String value) {
+        checkNonNull(value);
+        final int start = size;
+        final int count = value.length();
+        // most strings are ASCII, one byte per char, written in a single pass
+        writeVarInt(count);
+        ensureCapacity(count);
+        final byte[] bytes = buffer;
+        int position = size;
+        for (int i = 0; i < count; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x80) {
+                size = start;
+                return writePrefixedUtf8(value);
+            }
+            bytes[position++] = (byte) c;
+        }
+        size = position;
+        return this;
+    }
+
+    private PackWriter writePrefixedUtf8(String value) {
+        final int length = utf8Length(value);
+        writeVarInt(length);
+        ensureCapacity(length);
+        for (int i = 0, count = value.length(); i < count; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[size++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[size++] = (byte) (0xC0 | (c >> 6));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (isSurrogatePair(value, i)) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[size++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // replaced as String#getBytes does
+                buffer[size++] = '?';
+            } else {
+                buffer[size++] = (byte) (0xE0 | (c >> 12));
+                buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Write the bytes of the hex string prefixed with their length, the same bytes as
+     * {@code BinaryPacking.concat(HEX.decode(value), data)} appends.
+     *
+     * @throws ValidateException.InvalidHex if {@code value} is not a hex string
+     */
+    public PackWriter writePrefixedHex(String value) {
+        checkNonNull(value);
+        final int count = value.length();
+        if (count == 0) {
+            throw new ValidateException.InvalidHex();
+        }
+        final int length = (count + 1) >> 1;
+        writeVarInt(length);
+        ensureCapacity(length);
+        int i = 0;
+        if (count % 2 == 1) {
+            // an odd digit count is read with a leading zero
+            buffer[size++] = (byte) digit(value.charAt(i++));
+        }
+        for (; i < count; i += 2) {
+            buffer[size++] = (byte) (digit(value.charAt(i)) << 4 |
+                    digit(value.charAt(i + 1)));
+        }
+        return this;
+    }
+
+    /**
+     * Write the packed address prefixed with its length, the same bytes as
+     * {@code BinaryPacking.concat(address.pack(), data)} appends.
+     */
+    public PackWriter writePrefixedAddress(Address address) {
+        checkNonNull(address);
+        final byte[] publicKey = address.getPublicKey().toBytes();
+        final int keyVariant = address.getKeyVariant();
+        return writeVarInt(varIntLength(keyVariant) + publicKey.length)
+                .writeVarInt(keyVariant)
+                .writeBytes(publicKey);
+    }
+
+    private void ensureCapacity(int length) {
+        final int required = size + length;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length << 1));
+        }
+    }
+
+    private static int varIntLength(int value) {
+        int length = 1;
+        while ((value & 0xFFFFFF80) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0, count = value.length(); i < count; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (isSurrogatePair(value, i)) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static boolean isSurrogatePair(String value, int index) {
+        return Character.isHighSurrogate(value.charAt(index)) &&
+                index + 1 < value.length() &&
+                Character.isLowSurrogate(value.charAt(index + 1));
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        throw new ValidateException.InvalidHex();
+    }
+}
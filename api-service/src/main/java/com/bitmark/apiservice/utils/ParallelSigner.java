@@ -0,0 +1,203 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils;
+
+import com.bitmark.cryptography.crypto.Ed25519;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * Sign a range of messages with Ed25519, splitting the range into batches that are signed
+ * in parallel. The signatures are returned in the order of the messages, the same as
+ * signing them one after the other. A range of up to one batch is signed on the calling
+ * thread.
+ * <p>
+ * With a {@link ForkJoinPool}, the default being the common pool, the range is split in
+ * halves until the batch size is reached. With any other {@link Executor} it is split
+ * into batches up front, the calling thread signs the last one and waits for the others,
+ * so it must not be a thread of that executor.
+ */
+public final class ParallelSigner {
+
+    /**
+     * Sign on the calling thread only.
+     */
+    public static final ParallelSigner SERIAL = builder()
+            .withBatchSize(Integer.MAX_VALUE)
+            .build();
+
+    private static final ParallelSigner DEFAULT = builder().build();
+
+    private final Executor executor;
+
+    private final int batchSize;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the signer of the common {@link ForkJoinPool}
+     */
+    public static ParallelSigner getDefault() {
+        return DEFAULT;
+    }
+
+    private ParallelSigner(Builder builder) {
+        this.executor = builder.executor;
+        this.batchSize = builder.batchSize;
+    }
+
+    /**
+     * @param size       number of messages
+     * @param message    the message of an index, invoked from any thread
+     * @param privateKey the private key to sign with
+     * @return the signatures of the messages from index 0 to {@code size - 1}
+     */
+    public List<byte[]> sign(int size, IntFunction<byte[]> message, byte[] privateKey) {
+        checkValid(() -> size >= 0, "size must not be negative");
+        checkNonNull(message);
+        checkNonNull(privateKey);
+        final byte[][] signatures = new byte[size][];
+        if (size <= batchSize) {
+            signRange(signatures, 0, size, message, privateKey);
+        } else if (executor == null || executor instanceof ForkJoinPool) {
+            final ForkJoinPool pool = executor == null
+                                      ? ForkJoinPool.commonPool()
+                                      : (ForkJoinPool) executor;
+            pool.invoke(new SignTask(signatures, 0, size, message, privateKey));
+        } else {
+            signBatches(signatures, message, privateKey);
+        }
+        return new ArrayList<>(Arrays.asList(signatures));
+    }
+
+    private void signBatches(
+            byte[][] signatures,
+            IntFunction<byte[]> message,
+            byte[] privateKey
+    ) {
+        final int size = signatures.length;
+        final List<CompletableFuture<Void>> batches = new ArrayList<>();
+        int from = 0;
+        for (; from + batchSize < size; from += batchSize) {
+            final int start = from;
+            final int end = from + batchSize;
+            batches.add(CompletableFuture.runAsync(
+                    () -> signRange(signatures, start, end, message, privateKey),
+                    executor
+            ));
+        }
+        signRange(signatures, from, size, message, privateKey);
+        final CompletableFuture<?>[] array = batches.toArray(new CompletableFuture<?>[0]);
+        try {
+            CompletableFuture.allOf(array).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static void signRange(
+            byte[][] signatures,
+            int from,
+            int to,
+            IntFunction<byte[]> message,
+            byte[] privateKey
+    ) {
+        for (int i = from; i < to; i++) {
+            signatures[i] = Ed25519.sign(message.apply(i), privateKey);
+        }
+    }
+
+    private final class SignTask extends RecursiveAction {
+
+        private final byte[][] signatures;
+
+        private final int from;
+
+        private final int to;
+
+        private final IntFunction<byte[]> message;
+
+        private final byte[] privateKey;
+
+        private SignTask(
+                byte[][] signatures,
+                int from,
+                int to,
+                IntFunction<byte[]> message,
+                byte[] privateKey
+        ) {
+            this.signatures = signatures;
+            this.from = from;
+            this.to = to;
+            this.message = message;
+            this.privateKey = privateKey;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batchSize) {
+                signRange(signatures, from, to, message, privateKey);
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(
+                    new SignTask(signatures, from, middle, message, privateKey),
+                    new SignTask(signatures, middle, to, message, privateKey)
+            );
+        }
+    }
+
+    public static final class Builder {
+
+        private Executor executor; // common pool
+
+        private int batchSize = 64;
+
+        private Builder() {
+        }
+
+        /**
+         * Sign the batches on {@code executor} instead of the common {@link ForkJoinPool},
+         * e.g. a {@link ForkJoinPool} of its own to bound the number of cores used.
+         */
+        public Builder withExecutor(Executor executor) {
+            checkNonNull(executor);
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * The number of messages signed in one go by a thread. Smaller batches balance
+         * the load better, larger ones cost less scheduling.
+         */
+        public Builder withBatchSize(int batchSize) {
+            checkValid(() -> batchSize > 0, "batch size must be greater than zero");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public ParallelSigner build() {
+            return new ParallelSigner(this);
+        }
+    }
+}
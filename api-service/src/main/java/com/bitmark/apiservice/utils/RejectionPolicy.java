@@ -0,0 +1,25 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils;
+
+/**
+ * What happens to a job submitted to a {@link BackgroundJobScheduler} whose queue is
+ * full.
+ */
+public enum RejectionPolicy {
+
+    /**
+     * The job runs on the submitting thread, slowing the submitter down to the pace of
+     * the scheduler.
+     */
+    CALLER_RUNS,
+
+    /**
+     * The submission fails with a {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    ABORT
+}
@@ -0,0 +1,187 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils;
+
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.callback.Cancellable;
+import okhttp3.internal.Util;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.bitmark.cryptography.utils.Validator.checkNonNull;
+import static com.bitmark.cryptography.utils.Validator.checkValid;
+
+/**
+ * The handle of an API call, which may take several requests, e.g. the lookup of the
+ * genesis bitmark and the issue request, or retries. Each step attaches the action that
+ * cancels it, such as cancelling its {@code okhttp3.Call}, so {@link #cancel()} stops
+ * whichever step is running. A handle with a deadline cancels itself when the deadline
+ * passes and its callback receives a {@link TimeoutException}.
+ */
+public final class RequestHandle implements Cancellable {
+
+    private static final ScheduledThreadPoolExecutor DEADLINE_SCHEDULER;
+
+    static {
+        DEADLINE_SCHEDULER = new ScheduledThreadPoolExecutor(
+                1,
+                Util.threadFactory("Bitmark Deadline Scheduler", true)
+        );
+        DEADLINE_SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
+    private final long deadline; // System.nanoTime(), 0 if none
+
+    private final ScheduledFuture<?> expiry;
+
+    private Runnable cancelAction;
+
+    private Callback1<?> callback;
+
+    private Throwable cancellation;
+
+    private boolean done;
+
+    public RequestHandle() {
+        this.deadline = 0;
+        this.expiry = null;
+    }
+
+    /**
+     * A handle that is cancelled with a {@link TimeoutException} if the call is not
+     * finished within {@code timeout} from now.
+     */
+    public RequestHandle(long timeout, TimeUnit unit) {
+        checkValid(
+                () -> unit != null && timeout > 0,
+                "timeout must be greater than zero"
+        );
+        this.deadline = System.nanoTime() + unit.toNanos(timeout);
+        this.expiry = DEADLINE_SCHEDULER.schedule(
+                () -> cancel(new TimeoutException(
+                        "deadline of " + unit.toMillis(timeout) + " ms exceeded")),
+                timeout,
+                unit
+        );
+    }
+
+    /**
+     * Wrap the callback of the call. The wrapped callback delivers only the first result,
+     * later ones are dropped, and the cancellation of the handle is delivered to it.
+     */
+    public synchronized <T> Callback1<T> bind(Callback1<T> callback) {
+        checkNonNull(callback);
+        checkValid(() -> this.callback == null, "handle is already bound");
+        this.callback = callback;
+        return new Callback1<T>() {
+            @Override
+            public void onSuccess(T data) {
+                if (finish()) {
+                    callback.onSuccess(data);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                if (finish()) {
+                    callback.onError(throwable);
+                }
+            }
+        };
+    }
+
+    /**
+     * Set the action cancelling the current step of the call, replacing the one of the
+     * previous step. If the handle is already cancelled, the action is run right away.
+     *
+     * @return {@code false} if the handle is already cancelled
+     */
+    public boolean attach(Runnable cancelAction) {
+        synchronized (this) {
+            if (cancellation == null) {
+                this.cancelAction = cancelAction;
+                return true;
+            }
+        }
+        cancelAction.run();
+        return false;
+    }
+
+    @Override
+    public void cancel() {
+        cancel(new CancellationException("request is cancelled"));
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return cancellation != null;
+    }
+
+    /**
+     * @return the error the call is cancelled with, a {@link CancellationException} or a
+     * {@link TimeoutException} if its deadline passed, or {@code null}
+     */
+    public synchronized Throwable getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * @return the time left until the deadline, never negative, or {@link Long#MAX_VALUE}
+     * if the handle has no deadline
+     */
+    public long getRemaining(TimeUnit unit) {
+        if (deadline == 0) {
+            return Long.MAX_VALUE;
+        }
+        return unit.convert(
+                Math.max(0, deadline - System.nanoTime()),
+                TimeUnit.NANOSECONDS
+        );
+    }
+
+    private void cancel(Throwable error) {
+        final Runnable action;
+        final Callback1<?> callback;
+        synchronized (this) {
+            if (done || cancellation != null) {
+                return;
+            }
+            cancellation = error;
+            done = true;
+            action = cancelAction;
+            callback = this.callback;
+            cancelAction = null;
+        }
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+        if (action != null) {
+            action.run();
+        }
+        if (callback != null) {
+            callback.onError(error);
+        }
+    }
+
+    private boolean finish() {
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            done = true;
+            cancelAction = null;
+        }
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils;
+
+import com.bitmark.apiservice.utils.callback.Callable1;
+import com.bitmark.apiservice.utils.callback.Callback1;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Coalesce concurrent calls with the same key. While a call for a key is in flight,
+ * later callers for that key do not start a new call, they are notified with the result
+ * of the one in flight. All callers receive the same result instance.
+ */
+public class SingleFlight {
+
+    private final Map<String, Flight> inFlight = new HashMap<>();
+
+    public <T> void execute(String key, Callable1<T> callable, Callback1<T> callback) {
+        execute(key, (handle, cb) -> callable.call(cb), callback);
+    }
+
+    /**
+     * Like {@link #execute(String, Callable1, Callback1)}, the call is given the
+     * {@link RequestHandle} of the flight. Once every caller has left the flight with the
+     * returned action, the handle is cancelled.
+     *
+     * @return the action that leaves the flight, the callback is then never notified
+     */
+    public <T> Runnable execute(
+            String key,
+            BiConsumer<RequestHandle, Callback1<T>> call,
+            Callback1<T> callback
+    ) {
+        final Flight flight;
+        synchronized (inFlight) {
+            Flight existing = inFlight.get(key);
+            if (existing != null) {
+                existing.callbacks.add(callback);
+                return () -> leave(key, existing, callback);
+            }
+            flight = new Flight();
+            flight.callbacks.add(callback);
+            inFlight.put(key, flight);
+        }
+
+        try {
+            call.accept(flight.handle, new Callback1<T>() {
+                @Override
+                public void onSuccess(T data) {
+                    for (Callback1<T> callback : SingleFlight.this.<T>remove(key, flight)) {
+                        notifySuccess(callback, data);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    for (Callback1<T> callback : SingleFlight.this.<T>remove(key, flight)) {
+                        notifyError(callback, throwable);
+                    }
+                }
+            });
+        } catch (Throwable e) {
+            for (Callback1<T> waiting : SingleFlight.this.<T>remove(key, flight)) {
+                notifyError(waiting, e);
+            }
+        }
+        return () -> leave(key, flight, callback);
+    }
+
+    /**
+     * Notify a caller without letting it keep the others from being notified. A caller
+     * that throws on success gets the error, as it would without coalescing.
+     */
+    private static <T> void notifySuccess(Callback1<T> callback, T data) {
+        try {
+            callback.onSuccess(data);
+        } catch (Throwable e) {
+            notifyError(callback, e);
+        }
+    }
+
+    private static <T> void notifyError(Callback1<T> callback, Throwable throwable) {
+        try {
+            callback.onError(throwable);
+        } catch (Throwable ignore) {
+        }
+    }
+
+    /**
+     * @return number of distinct keys with a call in flight
+     */
+    public int inFlightCount() {
+        synchronized (inFlight) {
+            return inFlight.size();
+        }
+    }
+
+    private void leave(String key, Flight flight, Callback1<?> callback) {
+        synchronized (inFlight) {
+            if (inFlight.get(key) != flight) {
+                return;
+            }
+            // the same callback may be waiting more than once, only one of them leaves
+            for (int i = 0; i < flight.callbacks.size(); i++) {
+                if (flight.callbacks.get(i) == callback) {
+                    flight.callbacks.remove(i);
+                    break;
+                }
+            }
+            if (!flight.callbacks.isEmpty()) {
+                return;
+            }
+            inFlight.remove(key);
+        }
+        flight.handle.cancel();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<Callback1<T>> remove(String key, Flight flight) {
+        synchronized (inFlight) {
+            List<Callback1<T>> result = new ArrayList<>();
+            if (inFlight.get(key) != flight) {
+                // every caller left, a later call for the key may be in flight
+                return result;
+            }
+            inFlight.remove(key);
+            for (Callback1<?> callback : flight.callbacks) {
+                result.add((Callback1<T>) callback);
+            }
+            return result;
+        }
+    }
+
+    private static final class Flight {
+
+        private final List<Callback1<?>> callbacks = new ArrayList<>();
+
+        private final RequestHandle handle = new RequestHandle();
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils.callback;
+
+/**
+ * The handle of an asynchronous operation, such as an API call, that can be cancelled.
+ */
+public interface Cancellable {
+
+    /**
+     * Cancel the operation if it is not finished yet. Its callback receives a
+     * {@link java.util.concurrent.CancellationException} instead of the result.
+     */
+    void cancel();
+
+    boolean isCancelled();
+}
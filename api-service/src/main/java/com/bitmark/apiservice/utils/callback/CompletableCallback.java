@@ -0,0 +1,88 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils.callback;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * A {@link CompletableFuture} that is also a {@link Callback1}. It is completed directly on
+ * the thread that invokes the callback, so it can be handed to any callback based API to
+ * bridge it to a future without an extra thread.
+ *
+ * @param <T> Type of data is delivered to the callback
+ */
+public class CompletableCallback<T> extends CompletableFuture<T> implements Callback1<T> {
+
+    /**
+     * Invoke the callable with a new {@link CompletableCallback}. An error that is thrown
+     * synchronously by the callable completes the returned future exceptionally.
+     *
+     * @param callable The callback based task
+     * @param <T>      Type of data is return from task
+     * @return The future that is completed by the task
+     */
+    public static <T> CompletableFuture<T> call(Callable1<T> callable) {
+        final CompletableCallback<T> callback = new CompletableCallback<>();
+        try {
+            callable.call(callback);
+        } catch (Throwable e) {
+            callback.onError(e);
+        }
+        return callback;
+    }
+
+    /**
+     * Invoke the cancellable task with a new {@link CompletableCallback}. Cancelling the
+     * returned future cancels the task through its {@link Cancellable}, the futures
+     * derived from it do not propagate their cancellation though.
+     *
+     * @param task The callback based task, returning its handle
+     * @param <T>  Type of data is return from task
+     * @return The future that is completed by the task
+     */
+    public static <T> CompletableFuture<T> callCancellable(
+            Function<Callback1<T>, Cancellable> task
+    ) {
+        final CompletableCallback<T> callback = new CompletableCallback<>();
+        try {
+            callback.setCancellable(task.apply(callback));
+        } catch (Throwable e) {
+            callback.onError(e);
+        }
+        return callback;
+    }
+
+    private volatile Cancellable cancellable;
+
+    private void setCancellable(Cancellable cancellable) {
+        this.cancellable = cancellable;
+        if (cancellable != null && isCancelled()) {
+            cancellable.cancel();
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        final boolean cancelled = super.cancel(mayInterruptIfRunning);
+        final Cancellable cancellable = this.cancellable;
+        if (cancelled && cancellable != null) {
+            cancellable.cancel();
+        }
+        return cancelled;
+    }
+
+    @Override
+    public void onSuccess(T data) {
+        complete(data);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        completeExceptionally(throwable);
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils.callback;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A {@link Callback1} that delivers the result to another callback on an {@link Executor},
+ * so the thread that completes it is not held by the code of the delegate. If the
+ * executor rejects the delivery, the delegate is invoked directly rather than never.
+ *
+ * @param <T> Type of data is delivered to the callback
+ */
+public final class ExecutorCallback<T> implements Callback1<T> {
+
+    private final Executor executor;
+
+    private final Callback1<T> callback;
+
+    /**
+     * @return the callback invoked on {@code executor}, or {@code callback} itself if the
+     * executor is {@code null}
+     */
+    public static <T> Callback1<T> wrap(Executor executor, Callback1<T> callback) {
+        return executor == null ? callback : new ExecutorCallback<>(executor, callback);
+    }
+
+    private ExecutorCallback(Executor executor, Callback1<T> callback) {
+        this.executor = executor;
+        this.callback = callback;
+    }
+
+    @Override
+    public void onSuccess(T data) {
+        execute(() -> callback.onSuccess(data));
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        execute(() -> callback.onError(throwable));
+    }
+
+    private void execute(Runnable runnable) {
+        try {
+            executor.execute(runnable);
+        } catch (RejectedExecutionException e) {
+            runnable.run();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.utils.error;
+
+/**
+ * Thrown without sending the request while the circuit breaker of the endpoint is open.
+ */
+public class CircuitBreakerOpenException extends NetworkException {
+
+    private final String endpoint;
+
+    public CircuitBreakerOpenException(String endpoint) {
+        super("circuit breaker is open for " + endpoint);
+        this.endpoint = endpoint;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
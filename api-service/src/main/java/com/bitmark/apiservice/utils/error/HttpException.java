@@ -58,6 +58,14 @@ public class HttpException extends RuntimeException {
         return reason;
     }
 
+    /**
+     * @return {@code true} if the server rejected the request with a 4xx status. A 429 is
+     * not a rejection, the request was only not processed yet.
+     */
+    public boolean isRejected() {
+        return statusCode >= 400 && statusCode < 500 && statusCode != 429;
+    }
+
     private Map<String, String> deserialize(String response) {
         try {
             return new GsonBuilder().create()
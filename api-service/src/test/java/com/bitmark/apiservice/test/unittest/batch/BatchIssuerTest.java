@@ -0,0 +1,414 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.batch;
+
+import com.bitmark.apiservice.ApiService;
+import com.bitmark.apiservice.AsyncApiService;
+import com.bitmark.apiservice.batch.BatchIssuanceException;
+import com.bitmark.apiservice.batch.BatchIssuer;
+import com.bitmark.apiservice.batch.BatchProgressListener;
+import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.configuration.RetryPolicy;
+import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.utils.error.HttpException;
+import com.bitmark.apiservice.utils.error.NetworkException;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.cryptography.error.ValidateException;
+import com.google.gson.Gson;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.bitmark.apiservice.test.unittest.DataProvider.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchIssuerTest {
+
+    private static final Gson GSON = new Gson();
+
+    private static final RetryPolicy FAST_RETRY = RetryPolicy.builder()
+            .withMaxRetries(2)
+            .withBackoff(1, 1, TimeUnit.MILLISECONDS)
+            .build();
+
+    @Test
+    public void testIssue_LargeQuantity_ChunkedAndMergedInOrder() throws Exception {
+        FakeIssuer issuer = new FakeIssuer();
+        List<Integer> progress = new ArrayList<>();
+        IssuanceParams params = params(250);
+        List<BitmarkRecord> bitmarks = BatchIssuer.builder(issuer)
+                .withChunkSize(100)
+                .withProgressListener(new ProgressRecorder() {
+                    @Override
+                    public void onChunkIssued(
+                            int chunk,
+                            List<BitmarkRecord> records,
+                            int issued,
+                            int total
+                    ) {
+                        assertEquals(250, total);
+                        progress.add(issued);
+                    }
+                })
+                .build()
+                .issue(params)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(100, 100, 50), issuer.sizes);
+        assertEquals(Arrays.asList(100, 200, 250), progress);
+        assertEquals(ids(params.getNoncesPair().first()), ids(bitmarks));
+    }
+
+    @Test
+    public void testIssue_PendingChunks_GenesisChunkFirstAndConcurrencyBounded() {
+        List<CompletableFuture<List<BitmarkRecord>>> pending = new ArrayList<>();
+        List<IssuanceParams> chunks = new ArrayList<>();
+        CompletableFuture<List<BitmarkRecord>> result = BatchIssuer.builder(chunk -> {
+            chunks.add(chunk);
+            CompletableFuture<List<BitmarkRecord>> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        }).withChunkSize(10).withMaxConcurrency(2).build().issue(params(60));
+
+        assertEquals(1, pending.size());
+        assertEquals(0, chunks.get(0).getNoncesPair().first()[0]);
+        pending.get(0).complete(records(chunks.get(0)));
+        assertEquals(3, pending.size());
+        pending.get(2).complete(records(chunks.get(2)));
+        assertEquals(4, pending.size());
+        for (int i = 1; i < 6; i++) {
+            if (!pending.get(i).isDone()) {
+                pending.get(i).complete(records(chunks.get(i)));
+            }
+        }
+
+        assertEquals(6, pending.size());
+        assertEquals(60, result.join().size());
+    }
+
+    @Test
+    public void testIssue_RetryableError_ChunkRetriedAlone() throws Exception {
+        FakeIssuer issuer = new FakeIssuer();
+        issuer.failures.put(1, new NetworkException("connection reset"));
+        issuer.failures.put(2, new HttpException(503, "unavailable"));
+        List<String> failures = new ArrayList<>();
+        IssuanceParams params = params(30);
+        List<BitmarkRecord> bitmarks = BatchIssuer.builder(issuer)
+                .withChunkSize(10)
+                .withRetryPolicy(FAST_RETRY)
+                .withProgressListener(new ProgressRecorder() {
+                    @Override
+                    public void onChunkFailed(
+                            int chunk,
+                            Throwable error,
+                            int attempts,
+                            boolean retrying
+                    ) {
+                        failures.add(chunk + ":" + attempts + ":" + retrying);
+                    }
+                })
+                .build()
+                .issue(params)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(10, 10, 10, 10, 10), issuer.sizes);
+        assertEquals(2, failures.size());
+        assertTrue(failures.containsAll(Arrays.asList("1:1:true", "2:1:true")));
+        assertEquals(ids(params.getNoncesPair().first()), ids(bitmarks));
+    }
+
+    @Test
+    public void testIssue_RetryableError_ChunkPinnedUnlessNotProcessed()
+            throws Exception {
+        FakeIssuer issuer = new FakeIssuer();
+        issuer.failures.put(1, new NetworkException("connection reset"));
+        issuer.failures.put(2, new HttpException(503, "unavailable"));
+        BatchIssuer.builder(issuer)
+                .withChunkSize(10)
+                .withMaxConcurrency(1)
+                .withRetryPolicy(FAST_RETRY)
+                .build()
+                .issue(params(30))
+                .get(5, TimeUnit.SECONDS);
+
+        // the chunk, then whether it was pinned when it was sent
+        assertEquals(5, issuer.pins.size());
+        assertTrue(issuer.pins.containsAll(Arrays.asList(
+                "0:false",
+                "1:false",
+                "1:true",
+                "2:false"
+        )));
+        assertFalse(issuer.pins.contains("2:true"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"502, true", "504, true", "429, false", "503, false"})
+    public void testIssue_GenesisChunkStatusError_PinnedIfMaybeApplied(
+            int status,
+            boolean pinned
+    ) throws Exception {
+        FakeIssuer issuer = new FakeIssuer();
+        issuer.failures.put(0, new HttpException(status, "{}"));
+        BatchIssuer.builder(issuer)
+                .withRetryPolicy(FAST_RETRY)
+                .build()
+                .issue(params(10))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("0:false", "0:" + pinned), issuer.pins);
+    }
+
+    @Test
+    public void testIssue_NetworkErrorThenTooManyRequests_GenesisChunkSentAgainAsIs()
+            throws Exception {
+        final MockWebServer server = new MockWebServer();
+        server.start();
+        try {
+            server.enqueue(new MockResponse().setBody("{\"bitmarks\":[]}"));
+            server.enqueue(new MockResponse()
+                    .setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+            server.enqueue(new MockResponse().setResponseCode(429).setBody("{}"));
+            server.enqueue(new MockResponse().setBody("{\"bitmarks\":[{\"id\":\"1\"}]}"));
+            final AsyncApiService api = new AsyncApiService(new ApiService(
+                    GlobalConfiguration.builder()
+                            .withApiToken("token")
+                            .withEndpoint(server.url("/").toString())
+                            .withOkHttpClient(new OkHttpClient.Builder()
+                                    .retryOnConnectionFailure(false)
+                                    .build())
+                            .withRetryPolicy(RetryPolicy.NONE)
+                            .toClientConfiguration()
+            ));
+
+            final List<BitmarkRecord> bitmarks = BatchIssuer
+                    .builder(api::issueBitmark)
+                    .withRetryPolicy(FAST_RETRY)
+                    .build()
+                    .issue(params(1))
+                    .get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, bitmarks.size());
+            assertEquals(4, server.getRequestCount());
+            assertTrue(server.takeRequest().getPath().startsWith("/v3/bitmarks"));
+            final String body = server.takeRequest().getBody().readUtf8();
+            assertTrue(body.contains("\"nonce\":0}"));
+            assertEquals(body, server.takeRequest().getBody().readUtf8());
+            assertEquals(body, server.takeRequest().getBody().readUtf8());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testIssue_ThrowingListener_BatchCompleted() throws Exception {
+        FakeIssuer issuer = new FakeIssuer();
+        issuer.failures.put(1, new NetworkException("connection reset"));
+        IssuanceParams params = params(30);
+        List<BitmarkRecord> bitmarks = BatchIssuer.builder(issuer)
+                .withChunkSize(10)
+                .withRetryPolicy(FAST_RETRY)
+                .withProgressListener(new BatchProgressListener() {
+                    @Override
+                    public void onChunkIssued(
+                            int chunk,
+                            List<BitmarkRecord> records,
+                            int issued,
+                            int total
+                    ) {
+                        throw new IllegalStateException("issued");
+                    }
+
+                    @Override
+                    public void onChunkFailed(
+                            int chunk,
+                            Throwable error,
+                            int attempts,
+                            boolean retrying
+                    ) {
+                        throw new IllegalStateException("failed");
+                    }
+                })
+                .build()
+                .issue(params)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(10, 10, 10, 10), issuer.sizes);
+        assertEquals(ids(params.getNoncesPair().first()), ids(bitmarks));
+    }
+
+    @Test
+    public void testIssue_ChunkGivenUp_OtherChunksIssued() throws Exception {
+        FakeIssuer issuer = new FakeIssuer();
+        HttpException error = new HttpException(400, "invalid");
+        issuer.failures.put(1, error);
+        IssuanceParams params = params(30);
+        ExecutionException e = assertThrows(
+                ExecutionException.class,
+                () -> BatchIssuer.builder(issuer)
+                        .withChunkSize(10)
+                        .withRetryPolicy(FAST_RETRY)
+                        .build()
+                        .issue(params)
+                        .get(5, TimeUnit.SECONDS)
+        );
+
+        BatchIssuanceException batchError = (BatchIssuanceException) e.getCause();
+        assertSame(error, batchError.getCause());
+        assertEquals(3, issuer.sizes.size());
+        assertEquals(1, batchError.getFailed().size());
+        int[] nonces = params.getNoncesPair().first();
+        assertArrayEquals(
+                Arrays.copyOfRange(nonces, 10, 20),
+                batchError.getFailed().get(0).getNoncesPair().first()
+        );
+        List<String> issued = ids(nonces);
+        issued.subList(10, 20).clear();
+        assertEquals(issued, ids(batchError.getIssued()));
+    }
+
+    @Test
+    public void testIssue_GenesisChunkGivenUp_NoOtherChunkSent() {
+        FakeIssuer issuer = new FakeIssuer();
+        issuer.failures.put(0, new HttpException(400, "invalid"));
+        ExecutionException e = assertThrows(
+                ExecutionException.class,
+                () -> BatchIssuer.builder(issuer)
+                        .withChunkSize(10)
+                        .build()
+                        .issue(params(30))
+                        .get(5, TimeUnit.SECONDS)
+        );
+
+        BatchIssuanceException batchError = (BatchIssuanceException) e.getCause();
+        assertEquals(1, issuer.sizes.size());
+        assertEquals(3, batchError.getFailed().size());
+        assertTrue(batchError.getIssued().isEmpty());
+    }
+
+    @Test
+    public void testIssue_UnsignedParams_ErrorIsThrow() {
+        BatchIssuer batchIssuer = BatchIssuer.builder(new FakeIssuer()).build();
+        assertThrows(
+                ValidateException.class,
+                () -> batchIssuer.issue(new IssuanceParams(ASSET_ID, ADDRESS1, 10))
+        );
+    }
+
+    @Test
+    public void testBuilder_InvalidArguments_ErrorIsThrow() {
+        assertThrows(ValidateException.class, () -> BatchIssuer.builder(null));
+        assertThrows(
+                ValidateException.class,
+                () -> BatchIssuer.builder(new FakeIssuer()).withChunkSize(0)
+        );
+        assertThrows(
+                ValidateException.class,
+                () -> BatchIssuer.builder(new FakeIssuer()).withMaxConcurrency(0)
+        );
+    }
+
+    private static IssuanceParams params(int quantity) {
+        IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1, quantity);
+        params.setSigningKey(KEY_PAIR_1);
+        return params;
+    }
+
+    private static List<BitmarkRecord> records(IssuanceParams chunk) {
+        return Arrays.stream(chunk.getNoncesPair().first())
+                .mapToObj(nonce -> GSON.fromJson(String.format(
+                        "{\"id\":\"%d\",\"asset_id\":\"%s\"}",
+                        nonce,
+                        ASSET_ID
+                ), BitmarkRecord.class))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> ids(int[] nonces) {
+        return Arrays.stream(nonces)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> ids(List<BitmarkRecord> bitmarks) {
+        return bitmarks.stream().map(BitmarkRecord::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Issue each chunk at once. The first attempt of the chunks in {@link #failures}, by
+     * the order they are first sent in, fails.
+     */
+    private static class FakeIssuer
+            implements Function<IssuanceParams, CompletableFuture<List<BitmarkRecord>>> {
+
+        private final Map<Integer, Throwable> failures = new HashMap<>();
+
+        private final List<Integer> sizes =
+                Collections.synchronizedList(new ArrayList<>());
+
+        private final List<String> pins = Collections.synchronizedList(new ArrayList<>());
+
+        private final Map<IssuanceParams, Integer> indexes = new HashMap<>();
+
+        @Override
+        public synchronized CompletableFuture<List<BitmarkRecord>> apply(
+                IssuanceParams chunk
+        ) {
+            sizes.add(chunk.getNoncesPair().first().length);
+            final int index = indexes.computeIfAbsent(chunk, c -> indexes.size());
+            pins.add(index + ":" + chunk.isContainsGenesisBitmarkPinned());
+            // marked as the api service does before sending it
+            chunk.setContainsGenesisBitmark(index == 0);
+            final Throwable failure = failures.remove(index);
+            final CompletableFuture<List<BitmarkRecord>> future =
+                    new CompletableFuture<>();
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(records(chunk));
+            }
+            return future;
+        }
+    }
+
+    private static class ProgressRecorder implements BatchProgressListener {
+
+        @Override
+        public void onChunkIssued(
+                int chunk,
+                List<BitmarkRecord> records,
+                int issued,
+                int total
+        ) {
+        }
+
+        @Override
+        public void onChunkFailed(
+                int chunk,
+                Throwable error,
+                int attempts,
+                boolean retrying
+        ) {
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.cache;
+
+import com.bitmark.apiservice.ApiService;
+import com.bitmark.apiservice.cache.GenesisCache;
+import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.configuration.RetryPolicy;
+import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.response.GetBitmarksResponse;
+import com.bitmark.apiservice.utils.Address;
+import com.bitmark.apiservice.utils.callback.CompletableCallback;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.cryptography.crypto.key.Ed25519KeyPair;
+import com.bitmark.cryptography.crypto.key.KeyPair;
+import com.bitmark.cryptography.error.ValidateException;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GenesisCacheTest {
+
+    private static final String ASSET_ID =
+            "0e0b4e3bd771811d35a23707ba6197aa1dd5937439a221eaf8e7909309e7b31b6c0e06a1001c261a099abf04c560199db898bc154cf128aa9efa5efd36030c64";
+
+    private static final KeyPair KEY = Ed25519KeyPair.from(
+            HEX.decode(
+                    "d1c177ef358e9d1f0d4b09328cc1213e8d3580703aee51ccf97e482be977f7bc"),
+            HEX.decode(
+                    "b0e77f0a27390a00e82c07d6d228999019dce17aa3fbc1958629a7a47bc1cf6dd1c177ef358e9d1f0d4b09328cc1213e8d3580703aee51ccf97e482be977f7bc")
+    );
+
+    private MockWebServer server;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testPutGenesis_ExceedMaxSize_EvictLeastRecentlyUsed() {
+        GenesisCache cache = new GenesisCache(2);
+        cache.putGenesis("1");
+        cache.putGenesis("2");
+        cache.hasGenesis("1");
+        cache.putGenesis("3");
+
+        assertTrue(cache.hasGenesis("1"));
+        assertFalse(cache.hasGenesis("2"));
+        assertTrue(cache.hasGenesis("3"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testNewCache_InvalidMaxSize_ErrorIsThrow() {
+        assertThrows(ValidateException.class, () -> new GenesisCache(0));
+    }
+
+    @Test
+    public void testIssueBitmark_SameAssetTwice_GenesisLookedUpOnce() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"bitmarks\":[]}"));
+        server.enqueue(new MockResponse().setBody("{\"bitmarks\":[{\"id\":\"1\"}]}"));
+        server.enqueue(new MockResponse().setBody("{\"bitmarks\":[{\"id\":\"2\"}]}"));
+        final ApiService api = api();
+
+        assertEquals(1, issue(api).size());
+        assertTrue(server.takeRequest().getPath().startsWith("/v3/bitmarks"));
+        assertTrue(server.takeRequest().getBody().readUtf8().contains("\"nonce\":0}"));
+        assertTrue(api.getGenesisCache().hasGenesis(ASSET_ID));
+
+        assertEquals(1, issue(api).size());
+        final String body = server.takeRequest().getBody().readUtf8();
+        assertFalse(body.contains("\"nonce\":0}"));
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void testIssueBitmark_IssuanceRejected_GenesisForgotten() {
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("{}"));
+        final ApiService api = api();
+        api.getGenesisCache().putGenesis(ASSET_ID);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> issue(api));
+        assertNotNull(e.getCause());
+        assertFalse(api.getGenesisCache().hasGenesis(ASSET_ID));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {429, 500, 503})
+    public void testIssueBitmark_IssuanceNotProcessed_GenesisKept(int status) {
+        server.enqueue(new MockResponse().setResponseCode(status).setBody("{}"));
+        final ApiService api = api();
+        api.getGenesisCache().putGenesis(ASSET_ID);
+
+        assertThrows(ExecutionException.class, () -> issue(api));
+        assertTrue(api.getGenesisCache().hasGenesis(ASSET_ID));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testIssueBitmark_RetryAfterRejectedCachedGenesis_GenesisLookedUpAgain()
+            throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("{}"));
+        server.enqueue(new MockResponse().setBody("{\"bitmarks\":[]}"));
+        server.enqueue(new MockResponse().setBody("{\"bitmarks\":[{\"id\":\"1\"}]}"));
+        final ApiService api = api();
+        api.getGenesisCache().putGenesis(ASSET_ID);
+        final IssuanceParams params = params();
+
+        assertThrows(ExecutionException.class, () -> issue(api, params));
+        assertFalse(server.takeRequest().getBody().readUtf8().contains("\"nonce\":0}"));
+
+        assertEquals(1, issue(api, params).size());
+        assertTrue(server.takeRequest().getPath().startsWith("/v3/bitmarks"));
+        assertTrue(server.takeRequest().getBody().readUtf8().contains("\"nonce\":0}"));
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void testIssueBitmark_PinnedParams_SentAsMarkedUntilRejected()
+            throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"bitmarks\":[]}"));
+        server.enqueue(new MockResponse().setBody("{\"bitmarks\":[{\"id\":\"1\"}]}"));
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("{}"));
+        final ApiService api = api();
+        final IssuanceParams params = params();
+
+        assertEquals(1, issue(api, params).size());
+        assertTrue(server.takeRequest().getPath().startsWith("/v3/bitmarks"));
+        final String body = server.takeRequest().getBody().readUtf8();
+        assertTrue(body.contains("\"nonce\":0}"));
+        assertTrue(api.getGenesisCache().hasGenesis(ASSET_ID));
+
+        // sent again as the genesis bitmark, although the cache knows better
+        params.setContainsGenesisBitmarkPinned(true);
+        assertThrows(ExecutionException.class, () -> issue(api, params));
+        assertEquals(body, server.takeRequest().getBody().readUtf8());
+        assertEquals(3, server.getRequestCount());
+        assertFalse(params.isContainsGenesisBitmarkPinned());
+    }
+
+    @Test
+    public void testSetContainsGenesisBitmarkPinned_NotMarked_ErrorIsThrow() {
+        assertThrows(
+                ValidateException.class,
+                () -> params().setContainsGenesisBitmarkPinned(true)
+        );
+    }
+
+    @Test
+    public void testListBitmarks_IssuedBitmark_GenesisLearnt() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"bitmarks\":[{\"id\":\"1\"," +
+                "\"asset_id\":\"" + ASSET_ID + "\",\"edition\":3}]}"));
+        final ApiService api = api();
+        final CompletableCallback<GetBitmarksResponse> callback =
+                new CompletableCallback<>();
+
+        api.listBitmarks(new BitmarkQueryBuilder().limit(1).build(), callback);
+
+        assertEquals(1, callback.get(5, TimeUnit.SECONDS).getBitmarks().size());
+        assertTrue(api.getGenesisCache().hasGenesis(ASSET_ID));
+    }
+
+    private List<BitmarkRecord> issue(ApiService api) throws Exception {
+        return issue(api, params());
+    }
+
+    private List<BitmarkRecord> issue(ApiService api, IssuanceParams params)
+            throws Exception {
+        final CompletableCallback<List<BitmarkRecord>> callback =
+                new CompletableCallback<>();
+        api.issueBitmark(params, callback);
+        return callback.get(5, TimeUnit.SECONDS);
+    }
+
+    private static IssuanceParams params() {
+        final IssuanceParams params = new IssuanceParams(
+                ASSET_ID,
+                Address.fromAccountNumber(
+                        "fXXHGtCdFPuQvNhJ4nDPKCdwPxH7aSZ4842n2katZi319NsaCs"),
+                1
+        );
+        params.setSigningKey(KEY);
+        return params;
+    }
+
+    private ApiService api() {
+        return new ApiService(GlobalConfiguration.builder()
+                .withApiToken("token")
+                .withEndpoint(server.url("/").toString())
+                .withRetryPolicy(RetryPolicy.NONE)
+                .toClientConfiguration());
+    }
+}
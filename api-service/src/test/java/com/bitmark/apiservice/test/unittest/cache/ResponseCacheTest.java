@@ -0,0 +1,138 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.cache;
+
+import com.bitmark.apiservice.cache.*;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.cryptography.error.ValidateException;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheTest {
+
+    private File directory;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        directory = Files.createTempDirectory("bitmark-response-cache").toFile();
+    }
+
+    @AfterEach
+    public void afterEach() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testLru_PutThenGet_HitAndMissCounted() {
+        LruResponseCache cache = new LruResponseCache(10);
+        AssetRecord asset = asset("1");
+        cache.put("asset:1", asset);
+
+        assertSame(asset, cache.get("asset:1", AssetRecord.class));
+        assertNull(cache.get("asset:2", AssetRecord.class));
+        assertNull(cache.get("asset:1", String.class));
+        assertEquals(new CacheStats(1, 2, 0), cache.stats());
+    }
+
+    @Test
+    public void testLru_ExceedMaxSize_EvictLeastRecentlyUsed() {
+        LruResponseCache cache = new LruResponseCache(2);
+        cache.put("asset:1", asset("1"));
+        cache.put("asset:2", asset("2"));
+        cache.get("asset:1", AssetRecord.class);
+        cache.put("asset:3", asset("3"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("asset:1", AssetRecord.class));
+        assertNull(cache.get("asset:2", AssetRecord.class));
+        assertNotNull(cache.get("asset:3", AssetRecord.class));
+        assertEquals(1, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void testLru_InvalidMaxSize_ErrorIsThrown() {
+        assertThrows(ValidateException.class, () -> new LruResponseCache(0));
+    }
+
+    @Test
+    public void testDisk_PutThenGet_ValueIsDecoded() {
+        DiskResponseCache cache = new DiskResponseCache(directory, 1024 * 1024);
+        AssetRecord asset = asset("1");
+        cache.put("asset:1", asset);
+
+        assertEquals(asset, cache.get("asset:1", AssetRecord.class));
+        assertNull(cache.get("asset:2", AssetRecord.class));
+        assertEquals(new CacheStats(1, 1, 0), cache.stats());
+    }
+
+    @Test
+    public void testDisk_NewInstance_EntriesAreReloaded() {
+        AssetRecord asset = asset("1");
+        new DiskResponseCache(directory, 1024 * 1024).put("asset:1", asset);
+
+        DiskResponseCache cache = new DiskResponseCache(directory, 1024 * 1024);
+        assertEquals(asset, cache.get("asset:1", AssetRecord.class));
+    }
+
+    @Test
+    public void testDisk_ExceedMaxBytes_EvictLeastRecentlyUsed() {
+        DiskResponseCache probe = new DiskResponseCache(directory, 1024 * 1024);
+        probe.put("asset:0", asset("0"));
+        long entrySize = probe.size();
+        probe.clear();
+
+        DiskResponseCache cache = new DiskResponseCache(directory, entrySize * 2);
+        cache.put("asset:1", asset("1"));
+        cache.put("asset:2", asset("2"));
+        cache.get("asset:1", AssetRecord.class);
+        cache.put("asset:3", asset("3"));
+
+        assertTrue(cache.size() <= entrySize * 2);
+        assertNotNull(cache.get("asset:1", AssetRecord.class));
+        assertNull(cache.get("asset:2", AssetRecord.class));
+        assertEquals(1, cache.stats().getEvictionCount());
+        assertEquals(2, directory.listFiles().length);
+    }
+
+    @Test
+    public void testTiered_SecondLevelHit_ValueIsPromoted() {
+        LruResponseCache memory = new LruResponseCache(10);
+        DiskResponseCache disk = new DiskResponseCache(directory, 1024 * 1024);
+        disk.put("asset:1", asset("1"));
+        TieredResponseCache cache = new TieredResponseCache(memory, disk);
+
+        assertNotNull(cache.get("asset:1", AssetRecord.class));
+        assertNotNull(memory.get("asset:1", AssetRecord.class));
+        assertNull(cache.get("asset:2", AssetRecord.class));
+        assertEquals(1, cache.stats().getHitCount());
+        assertEquals(1, cache.stats().getMissCount());
+        assertEquals(0.5, cache.stats().getHitRate());
+    }
+
+    private static AssetRecord asset(String id) {
+        return new Gson().fromJson(
+                "{\"id\":\"" + id + "\",\"name\":\"asset " + id +
+                        "\",\"metadata\":{\"source\":\"test\"},\"status\":\"confirmed\"" +
+                        ",\"block_number\":1,\"offset\":2}",
+                AssetRecord.class
+        );
+    }
+}
@@ -0,0 +1,283 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.configuration;
+
+import com.bitmark.apiservice.ApiService;
+import com.bitmark.apiservice.AsyncApiService;
+import com.bitmark.apiservice.configuration.ClientConfiguration;
+import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.configuration.Network;
+import com.bitmark.apiservice.configuration.QueuePolicy;
+import com.bitmark.apiservice.configuration.RetryPolicy;
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.response.GetBitmarkResponse;
+import com.bitmark.apiservice.response.GetBitmarksResponse;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.error.CircuitBreakerOpenException;
+import com.bitmark.apiservice.utils.error.HttpException;
+import com.bitmark.apiservice.utils.error.NetworkException;
+import com.bitmark.cryptography.error.ValidateException;
+import okhttp3.OkHttpClient;
+import okhttp3.internal.Util;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientConfigurationTest {
+
+    private MockWebServer server;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testToClientConfiguration_BuilderChangedLater_ConfigurationUnchanged() {
+        GlobalConfiguration.Builder builder = GlobalConfiguration.builder()
+                .withApiToken("token-a")
+                .withNetwork(Network.LIVE_NET);
+        ClientConfiguration configuration = builder.toClientConfiguration();
+        builder.withApiToken("token-b").withNetwork(Network.TEST_NET);
+
+        assertEquals("token-a", configuration.getApiToken());
+        assertEquals(Network.LIVE_NET, configuration.getNetwork());
+    }
+
+    @Test
+    public void testToClientConfiguration_DefaultBuilder_RequestCoalescingDisabled() {
+        assertFalse(GlobalConfiguration.builder()
+                .withApiToken("token")
+                .toClientConfiguration()
+                .isRequestCoalescing());
+        assertTrue(GlobalConfiguration.builder()
+                .withApiToken("token")
+                .withRequestCoalescing(true)
+                .toClientConfiguration()
+                .isRequestCoalescing());
+    }
+
+    @Test
+    public void testToClientConfiguration_MissingApiToken_ErrorIsThrow() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> GlobalConfiguration.builder().toClientConfiguration()
+        );
+    }
+
+    @Test
+    public void testWithOkHttpClient_NullClient_ErrorIsThrow() {
+        assertThrows(
+                ValidateException.class,
+                () -> GlobalConfiguration.builder().withOkHttpClient(null)
+        );
+    }
+
+    @Test
+    public void testNewApiService_SharedOkHttpClient_ConnectionReusedAcrossTokens()
+            throws Exception {
+        final OkHttpClient shared = new OkHttpClient();
+        final AsyncApiService tenantA = new AsyncApiService(new ApiService(
+                configuration("token-a", shared)));
+        final AsyncApiService tenantB = new AsyncApiService(new ApiService(
+                configuration("token-b", shared)));
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setBody("{\"bitmarks\":[]}"));
+        }
+
+        for (int i = 0; i < 2; i++) {
+            tenantA.listBitmarks(new BitmarkQueryBuilder().limit(1).build())
+                    .get(5, TimeUnit.SECONDS);
+            tenantB.listBitmarks(new BitmarkQueryBuilder().limit(1).build())
+                    .get(5, TimeUnit.SECONDS);
+        }
+
+        final Set<String> tokens = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            tokens.add(server.takeRequest().getHeader("API-TOKEN"));
+        }
+        assertEquals(2, tokens.size());
+        assertTrue(tokens.contains("token-a"));
+        assertTrue(tokens.contains("token-b"));
+        // both clients sent their requests over the one connection of the shared pool
+        assertEquals(1, shared.connectionPool().connectionCount());
+    }
+
+    private ClientConfiguration configuration(String apiToken, OkHttpClient shared) {
+        return builder(apiToken).withOkHttpClient(shared).toClientConfiguration();
+    }
+
+    @Test
+    public void testCallbackExecutor_ListBitmarks_CallbackInvokedOnExecutor()
+            throws Exception {
+        final ExecutorService callbackExecutor = Executors.newSingleThreadExecutor(
+                Util.threadFactory("test-callback", true));
+        server.enqueue(new MockResponse().setBody("{\"bitmarks\":[]}"));
+        server.enqueue(new MockResponse().setResponseCode(404).setBody("{}"));
+        try {
+            final ApiService api = new ApiService(builder("token")
+                    .withCallbackExecutor(callbackExecutor)
+                    .toClientConfiguration());
+
+            assertEquals("test-callback", listBitmarks(api).get(5, TimeUnit.SECONDS));
+            // errors are delivered on the executor too
+            assertEquals("test-callback", listBitmarks(api).get(5, TimeUnit.SECONDS));
+        } finally {
+            callbackExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDecodeExecutor_ListBitmarks_DecodedOnExecutor() throws Exception {
+        final ExecutorService decodeExecutor = Executors.newSingleThreadExecutor(
+                Util.threadFactory("test-decode", true));
+        server.enqueue(new MockResponse().setBody("{\"bitmarks\":[]}"));
+        try {
+            final ApiService api = new ApiService(builder("token")
+                    .withDecodeExecutor(decodeExecutor)
+                    .toClientConfiguration());
+
+            // without a callback executor the callback follows the decoding
+            assertEquals("test-decode", listBitmarks(api).get(5, TimeUnit.SECONDS));
+        } finally {
+            decodeExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testWithCallbackExecutor_NullExecutor_ErrorIsThrow() {
+        assertThrows(
+                ValidateException.class,
+                () -> GlobalConfiguration.builder().withCallbackExecutor(null)
+        );
+        assertThrows(
+                ValidateException.class,
+                () -> GlobalConfiguration.builder().withDecodeExecutor(null)
+        );
+    }
+
+    @Test
+    public void testQueuePolicyReject_DefaultLimits_RequestAboveHostLimitRejected()
+            throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request)
+                    throws InterruptedException {
+                release.await(5, TimeUnit.SECONDS);
+                return new MockResponse().setBody("{\"bitmark\":{\"id\":\"1\"}}");
+            }
+        });
+        final AsyncApiService api = new AsyncApiService(new ApiService(builder("token")
+                .withQueuePolicy(QueuePolicy.REJECT)
+                .toClientConfiguration()));
+        try {
+            // the default max requests per host, far below the max requests
+            final List<CompletableFuture<GetBitmarkResponse>> running = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                running.add(api.getBitmark("bitmark-" + i, false));
+            }
+            for (int i = 0; i < 5; i++) {
+                assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+            }
+
+            final ExecutionException e = assertThrows(
+                    ExecutionException.class,
+                    () -> api.getBitmark("bitmark-5", false).get(5, TimeUnit.SECONDS)
+            );
+            assertTrue(e.getCause() instanceof NetworkException);
+
+            release.countDown();
+            for (CompletableFuture<GetBitmarkResponse> future : running) {
+                assertEquals("1", future.get(5, TimeUnit.SECONDS).getBitmark().getId());
+            }
+            assertEquals(5, server.getRequestCount());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testCircuitBreaker_ServerErrorNotRetried_BreakerOpened() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("{}"));
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("{}"));
+        final AsyncApiService api = new AsyncApiService(new ApiService(builder("token")
+                .withCircuitBreaker(2, 1, TimeUnit.MINUTES)
+                .toClientConfiguration()));
+
+        for (int i = 0; i < 2; i++) {
+            final ExecutionException e = assertThrows(
+                    ExecutionException.class,
+                    () -> api.getBitmark("bitmark", false).get(5, TimeUnit.SECONDS)
+            );
+            assertTrue(e.getCause() instanceof HttpException);
+        }
+        final ExecutionException e = assertThrows(
+                ExecutionException.class,
+                () -> api.getBitmark("bitmark", false).get(5, TimeUnit.SECONDS)
+        );
+        assertTrue(e.getCause() instanceof CircuitBreakerOpenException);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    /**
+     * @return the future of the name of the thread the callback is invoked on
+     */
+    private static CompletableFuture<String> listBitmarks(ApiService api) {
+        final CompletableFuture<String> thread = new CompletableFuture<>();
+        api.listBitmarks(
+                new BitmarkQueryBuilder().limit(1).build(),
+                new Callback1<GetBitmarksResponse>() {
+                    @Override
+                    public void onSuccess(GetBitmarksResponse data) {
+                        thread.complete(Thread.currentThread().getName());
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        if (throwable instanceof HttpException) {
+                            thread.complete(Thread.currentThread().getName());
+                        } else {
+                            thread.completeExceptionally(throwable);
+                        }
+                    }
+                }
+        );
+        return thread;
+    }
+
+    private GlobalConfiguration.Builder builder(String apiToken) {
+        return GlobalConfiguration.builder()
+                .withApiToken(apiToken)
+                .withEndpoint(server.url("/").toString())
+                .withRetryPolicy(RetryPolicy.NONE);
+    }
+}
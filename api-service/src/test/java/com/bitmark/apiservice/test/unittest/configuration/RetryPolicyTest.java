@@ -0,0 +1,88 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.configuration;
+
+import com.bitmark.apiservice.configuration.RetryPolicy;
+import com.bitmark.cryptography.error.ValidateException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testCanRetry_DefaultPolicy_OnlyGetIsRetried() {
+        RetryPolicy policy = RetryPolicy.builder().build();
+        assertTrue(policy.canRetry("GET", 0));
+        assertTrue(policy.canRetry("GET", 2));
+        assertFalse(policy.canRetry("GET", 3));
+        assertFalse(policy.canRetry("POST", 0));
+        assertFalse(policy.canRetry("PATCH", 0));
+    }
+
+    @Test
+    public void testCanRetry_NonIdempotentRetryEnabled_PostIsRetried() {
+        RetryPolicy policy = RetryPolicy.builder().withNonIdempotentRetry(true).build();
+        assertTrue(policy.canRetry("POST", 0));
+        assertTrue(policy.canRetry("PATCH", 0));
+    }
+
+    @Test
+    public void testCanRetry_None_NothingIsRetried() {
+        assertFalse(RetryPolicy.NONE.canRetry("GET", 0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {429, 502, 503, 504})
+    public void testIsRetryableStatus_DefaultCodes_Retryable(int code) {
+        assertTrue(RetryPolicy.builder().build().isRetryableStatus(code));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {400, 401, 404, 500})
+    public void testIsRetryableStatus_OtherCodes_NotRetryable(int code) {
+        assertFalse(RetryPolicy.builder().build().isRetryableStatus(code));
+    }
+
+    @Test
+    public void testBackoff_NoRetryAfter_JitteredUnderExponentialCeiling() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .withBackoff(100, 1000, TimeUnit.MILLISECONDS)
+                .build();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.backoff(0, -1) <= 100);
+            assertTrue(policy.backoff(2, -1) <= 400);
+            long backoff = policy.backoff(10, -1);
+            assertTrue(backoff >= 0 && backoff <= 1000);
+        }
+    }
+
+    @Test
+    public void testBackoff_RetryAfter_RetryAfterIsUsed() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .withBackoff(100, 5000, TimeUnit.MILLISECONDS)
+                .build();
+        assertEquals(3000, policy.backoff(0, 3000));
+        assertEquals(-1, policy.backoff(0, 6000));
+    }
+
+    @Test
+    public void testBuild_InvalidBackoff_ErrorIsThrown() {
+        assertThrows(
+                ValidateException.class,
+                () -> RetryPolicy.builder().withBackoff(100, 10, TimeUnit.MILLISECONDS)
+        );
+        assertThrows(
+                ValidateException.class,
+                () -> RetryPolicy.builder().withMaxRetries(-1)
+        );
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.metrics;
+
+import com.bitmark.apiservice.metrics.Histogram;
+import com.bitmark.apiservice.metrics.HistogramSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTest {
+
+    @Test
+    public void testSnapshot_Empty_Zero() {
+        HistogramSnapshot snapshot = new Histogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getPercentile(99));
+        assertEquals(0, snapshot.getMean());
+    }
+
+    @Test
+    public void testPercentile_UniformValues_WithinRelativeError() {
+        Histogram histogram = new Histogram();
+        for (long i = 1; i <= 100000; i++) {
+            histogram.record(i * 1000);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(100000, snapshot.getCount());
+        assertEquals(100000000, snapshot.getMax());
+        assertEquals(50000500, snapshot.getMean(), 1);
+        assertWithin(50000000, snapshot.getPercentile(50));
+        assertWithin(99000000, snapshot.getPercentile(99));
+        assertWithin(99900000, snapshot.getPercentile(99.9));
+        assertEquals(100000000, snapshot.getPercentile(100));
+    }
+
+    @Test
+    public void testPercentile_SmallValues_Exact() {
+        Histogram histogram = new Histogram();
+        for (long i = 0; i < 16; i++) {
+            histogram.record(i);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getPercentile(0));
+        assertEquals(7, snapshot.getPercentile(50));
+        assertEquals(15, snapshot.getPercentile(100));
+    }
+
+    @Test
+    public void testRecord_LargeAndNegativeValues_Recorded() {
+        Histogram histogram = new Histogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-1);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(Long.MAX_VALUE, snapshot.getMax());
+        assertEquals(0, snapshot.getPercentile(50));
+        assertEquals(Long.MAX_VALUE, snapshot.getPercentile(100));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(
+                Math.abs(actual - expected) <= expected * 0.0625,
+                "expected " + expected + " but was " + actual
+        );
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.metrics;
+
+import com.bitmark.apiservice.metrics.EndpointSnapshot;
+import com.bitmark.apiservice.metrics.MetricsListener;
+import com.bitmark.apiservice.metrics.MetricsRegistry;
+import com.bitmark.apiservice.middleware.Converter;
+import com.bitmark.apiservice.middleware.MetricsInterceptor;
+import com.bitmark.apiservice.utils.callback.CompletableCallback;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRegistryTest {
+
+    private static final String ASSET =
+            "{\"asset\":{\"id\":\"1\",\"name\":\"asset\",\"status\":\"confirmed\"}}";
+
+    private MockWebServer server;
+
+    private MetricsRegistry registry;
+
+    private OkHttpClient client;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        registry = new MetricsRegistry();
+        client = new OkHttpClient.Builder()
+                .addInterceptor(new MetricsInterceptor(registry))
+                .build();
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testSnapshot_RequestsSent_CountsLatencyBytesAndErrors() throws Exception {
+        server.enqueue(new MockResponse().setBody(ASSET));
+        server.enqueue(new MockResponse().setResponseCode(404).setBody("{}"));
+        server.enqueue(new MockResponse().setBody("{\"status\":\"ok\"}"));
+
+        execute(get("/v3/assets/1")).body().string();
+        execute(get("/v3/assets/2")).close();
+        execute(new Request.Builder().url(server.url("/v3/transfer"))
+                .post(RequestBody.create(MediaType.parse("application/json"), "{}"))
+                .build()).body().string();
+
+        Map<String, EndpointSnapshot> snapshot = registry.snapshot();
+        assertEquals(2, snapshot.size());
+
+        EndpointSnapshot assets = snapshot.get("GET /v3/assets");
+        assertEquals(2, assets.getRequestCount());
+        assertEquals(0, assets.getInFlight());
+        assertEquals(ASSET.length(), assets.getBytesReceived());
+        assertEquals(1L, assets.getErrorCounts().get(404).longValue());
+        assertEquals(2, assets.getLatency().getCount());
+        assertTrue(assets.getLatency().getMax() > 0);
+
+        EndpointSnapshot transfer = snapshot.get("POST /v3/transfer");
+        assertEquals(1, transfer.getRequestCount());
+        assertEquals(2, transfer.getBytesSent());
+        assertTrue(transfer.getErrorCounts().isEmpty());
+    }
+
+    @Test
+    public void testSnapshot_NetworkError_Counted() throws Exception {
+        server.shutdown();
+        assertThrows(IOException.class, () -> execute(get("/v3/bitmarks")));
+
+        EndpointSnapshot bitmarks = registry.snapshot().get("GET /v3/bitmarks");
+        assertEquals(1, bitmarks.getNetworkErrorCount());
+        assertEquals(0, bitmarks.getInFlight());
+    }
+
+    @Test
+    public void testConverter_TaggedRequest_DecodeTimeRecorded() throws Exception {
+        server.enqueue(new MockResponse().setBody(ASSET));
+        List<String> decoded = new CopyOnWriteArrayList<>();
+        registry.addListener(new MetricsListener() {
+            @Override
+            public void onRequestCompleted(
+                    String endpoint,
+                    int statusCode,
+                    long latencyNanos
+            ) {
+            }
+
+            @Override
+            public void onResponseDecoded(String endpoint, long decodeNanos) {
+                decoded.add(endpoint);
+            }
+        });
+
+        CompletableCallback<AssetRecord> callback = new CompletableCallback<>();
+        Converter.toAssetRecord(callback).onSuccess(execute(
+                get("/v3/assets/1").newBuilder().tag(registry).build()));
+
+        assertEquals("1", callback.get().getId());
+        assertEquals(1, registry.snapshot().get("GET /v3/assets").getDecodeTime()
+                .getCount());
+        assertEquals(1, decoded.size());
+        assertEquals("GET /v3/assets", decoded.get(0));
+    }
+
+    private Request get(String path) {
+        return new Request.Builder().url(server.url(path)).build();
+    }
+
+    private Response execute(Request request) throws IOException {
+        return client.newCall(request).execute();
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.middleware;
+
+import com.bitmark.apiservice.middleware.CircuitBreaker;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOnFailure_ReachThreshold_Open() {
+        FakeClockCircuitBreaker breaker = new FakeClockCircuitBreaker(3, 1000);
+        breaker.onFailure();
+        breaker.onFailure();
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void testOnSuccess_BeforeThreshold_FailuresAreReset() {
+        FakeClockCircuitBreaker breaker = new FakeClockCircuitBreaker(2, 1000);
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testAllowRequest_OpenDurationElapsed_SingleTrialRequest() {
+        FakeClockCircuitBreaker breaker = new FakeClockCircuitBreaker(1, 1000);
+        breaker.onFailure();
+        breaker.time = 999;
+        assertFalse(breaker.allowRequest());
+        breaker.time = 1000;
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void testTrialRequest_Success_Close() {
+        FakeClockCircuitBreaker breaker = new FakeClockCircuitBreaker(1, 1000);
+        breaker.onFailure();
+        breaker.time = 1000;
+        assertTrue(breaker.allowRequest());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void testTrialRequest_Failure_OpenAgain() {
+        FakeClockCircuitBreaker breaker = new FakeClockCircuitBreaker(5, 1000);
+        for (int i = 0; i < 5; i++) {
+            breaker.onFailure();
+        }
+        breaker.time = 1000;
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        breaker.time = 1999;
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void testTrialRequest_Cancelled_NewTrialAllowed() {
+        FakeClockCircuitBreaker breaker = new FakeClockCircuitBreaker(1, 1000);
+        breaker.onFailure();
+        breaker.time = 1000;
+        CircuitBreaker.Permit trial = breaker.acquire();
+        assertNotNull(trial);
+        breaker.onCancelled(trial);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void testOnCancelled_RequestAdmittedBeforeTrial_TrialKept() {
+        FakeClockCircuitBreaker breaker = new FakeClockCircuitBreaker(1, 1000);
+        CircuitBreaker.Permit earlier = breaker.acquire();
+        breaker.onFailure();
+        breaker.time = 1000;
+        CircuitBreaker.Permit trial = breaker.acquire();
+
+        breaker.onCancelled(earlier);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNull(breaker.acquire());
+
+        breaker.onCancelled(trial);
+        assertNotNull(breaker.acquire());
+    }
+
+    @Test
+    public void testOnCancelled_Closed_NoFailureCounted() {
+        FakeClockCircuitBreaker breaker = new FakeClockCircuitBreaker(1, 1000);
+        breaker.onCancelled(breaker.acquire());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    private static final class FakeClockCircuitBreaker extends CircuitBreaker {
+
+        private long time;
+
+        FakeClockCircuitBreaker(int failureThreshold, long openDuration) {
+            super(failureThreshold, openDuration);
+        }
+
+        @Override
+        protected long now() {
+            return time;
+        }
+    }
+}
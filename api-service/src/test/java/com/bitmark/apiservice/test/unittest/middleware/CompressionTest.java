@@ -0,0 +1,128 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.middleware;
+
+import com.bitmark.apiservice.middleware.BitmarkApiInterceptor;
+import com.bitmark.apiservice.middleware.Converter;
+import com.bitmark.apiservice.middleware.GzipRequestInterceptor;
+import com.bitmark.apiservice.response.GetBitmarksResponse;
+import com.bitmark.apiservice.test.BaseTest;
+import com.bitmark.apiservice.utils.callback.CompletableCallback;
+import com.bitmark.cryptography.error.ValidateException;
+import okhttp3.*;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.GzipSource;
+import okio.Okio;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressionTest extends BaseTest {
+
+    private static final MediaType JSON = MediaType.parse(
+            "application/json; charset=utf-8");
+
+    private MockWebServer server;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testBitmarkApiInterceptor_GzipResponse_DecompressedTransparently()
+            throws Exception {
+        final String json = bitmarks(200);
+        server.enqueue(new MockResponse().setHeader("Content-Encoding", "gzip")
+                .setBody(gzip(json)));
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(new BitmarkApiInterceptor("token"))
+                .build();
+
+        Response response = client.newCall(new Request.Builder()
+                .url(server.url("/v3/bitmarks")).build()).execute();
+        CompletableCallback<GetBitmarksResponse> callback = new CompletableCallback<>();
+        Converter.toGetBitmarksResponse(callback).onSuccess(response);
+
+        assertEquals(200, callback.get().getBitmarks().size());
+        assertEquals("gzip", server.takeRequest().getHeader("Accept-Encoding"));
+    }
+
+    @Test
+    public void testGzipRequestInterceptor_LargeBody_Compressed() throws Exception {
+        final String json = bitmarks(200);
+        server.enqueue(new MockResponse());
+
+        execute(json);
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+        assertTrue(request.getBodySize() < json.length());
+        assertEquals(json, Okio.buffer(new GzipSource(request.getBody())).readUtf8());
+    }
+
+    @Test
+    public void testGzipRequestInterceptor_SmallBody_SentAsIs() throws Exception {
+        final String json = "{\"owner\":\"ec6yMcJATX6gjNwvqp8rbc4jNEasoUgbfBBGGyV5NvoJ54NXva\"}";
+        server.enqueue(new MockResponse());
+
+        execute(json);
+
+        RecordedRequest request = server.takeRequest();
+        assertNull(request.getHeader("Content-Encoding"));
+        assertEquals(json, request.getBody().readUtf8());
+    }
+
+    @Test
+    public void testNewGzipRequestInterceptor_InvalidThreshold_ErrorIsThrow() {
+        assertThrows(ValidateException.class, () -> new GzipRequestInterceptor(0));
+    }
+
+    private void execute(String json) throws IOException {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(new GzipRequestInterceptor(1024))
+                .build();
+        client.newCall(new Request.Builder().url(server.url("/v3/issue"))
+                .post(RequestBody.create(JSON, json)).build()).execute().close();
+    }
+
+    private static Buffer gzip(String value) throws IOException {
+        Buffer buffer = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            sink.writeUtf8(value);
+        }
+        return buffer;
+    }
+
+    private static String bitmarks(int size) {
+        StringBuilder builder = new StringBuilder("{\"bitmarks\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"id\":\"").append(String.format("%064x", i))
+                    .append("\",\"owner\":\"ec6yMcJATX6gjNwvqp8rbc4jNEasoUgbfBBGGyV5NvoJ54NXva\"")
+                    .append(",\"status\":\"settled\",\"head\":\"moved\"}");
+        }
+        return builder.append("]}").toString();
+    }
+}
@@ -11,6 +11,7 @@ import com.bitmark.apiservice.response.*;
 import com.bitmark.apiservice.test.BaseTest;
 import com.bitmark.apiservice.utils.Pair;
 import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.error.UnexpectedException;
 import com.bitmark.apiservice.utils.record.*;
 import com.google.gson.internal.LinkedTreeMap;
 import okhttp3.*;
@@ -24,6 +25,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static com.bitmark.apiservice.test.utils.FileUtils.loadResponse;
@@ -32,6 +35,8 @@ import static com.bitmark.apiservice.utils.record.Head.HEAD;
 import static com.bitmark.apiservice.utils.record.TransactionRecord.Status.CONFIRMED;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
 public class ConverterTest extends BaseTest {
 
@@ -399,6 +404,89 @@ public class ConverterTest extends BaseTest {
         callback.onSuccess(response);
     }
 
+    @ParameterizedTest
+    @MethodSource("createStringFieldConverters")
+    public void testConvertStringField_FieldMissing_ErrorIsReturn(
+            Function<Callback1<String>, Callback1<Response>> converter
+    ) {
+        Response response = new Response.Builder()
+                .request(new Request.Builder().url("http://dummy.com").build())
+                .protocol(Protocol.HTTP_1_1).code(200)
+                .body(ResponseBody.create(JSON, "{\"other\":\"value\"}"))
+                .message("dummy")
+                .build();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        converter.apply(new Callback1<String>() {
+            @Override
+            public void onSuccess(String value) {
+                fail("missing field is returned as " + value);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.set(throwable);
+            }
+        }).onSuccess(response);
+        assertTrue(error.get() instanceof UnexpectedException);
+    }
+
+    @ParameterizedTest
+    @MethodSource("createRequiredFieldConverters")
+    public void testConvertRequiredField_FieldMissing_ErrorIsReturn(
+            Function<Callback1<Object>, Callback1<Response>> converter
+    ) {
+        Response response = new Response.Builder()
+                .request(new Request.Builder().url("http://dummy.com").build())
+                .protocol(Protocol.HTTP_1_1).code(200)
+                .body(ResponseBody.create(JSON, "{\"other\":[]}"))
+                .message("dummy")
+                .build();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        converter.apply(new Callback1<Object>() {
+            @Override
+            public void onSuccess(Object value) {
+                fail("missing field is returned as " + value);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.set(throwable);
+            }
+        }).onSuccess(response);
+        assertTrue(error.get() instanceof UnexpectedException);
+    }
+
+    private static Stream<Function<Callback1<Object>, Callback1<Response>>>
+    createRequiredFieldConverters() {
+        return Stream.of(
+                callback -> Converter.toIssueResponse(delegate(callback)),
+                callback -> Converter.toAssetRecord(delegate(callback)),
+                callback -> Converter.toAssetRecords(delegate(callback)),
+                callback -> Converter.toGetShareResponse(delegate(callback)),
+                callback -> Converter.toListSharesResponse(delegate(callback)),
+                callback -> Converter.toListShareOffersResponse(delegate(callback))
+        );
+    }
+
+    private static <T> Callback1<T> delegate(Callback1<Object> callback) {
+        return new Callback1<T>() {
+            @Override
+            public void onSuccess(T value) {
+                callback.onSuccess(value);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                callback.onError(throwable);
+            }
+        };
+    }
+
+    private static Stream<Function<Callback1<String>, Callback1<Response>>>
+    createStringFieldConverters() {
+        return Stream.of(Converter::toStatus, Converter::toOfferId, Converter::toWsToken);
+    }
+
     private static Stream<Arguments> createSuccessResponseListBmRecord()
             throws IOException, NoSuchFieldException, IllegalAccessException {
 
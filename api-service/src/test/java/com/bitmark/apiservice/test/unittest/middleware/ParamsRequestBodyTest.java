@@ -0,0 +1,146 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.middleware;
+
+import com.bitmark.apiservice.middleware.ParamsRequestBody;
+import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.params.RegistrationParams;
+import com.bitmark.apiservice.test.BaseTest;
+import com.bitmark.apiservice.utils.ParallelSigner;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.bitmark.apiservice.test.unittest.DataProvider.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParamsRequestBodyTest extends BaseTest {
+
+    private MockWebServer server;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testWriteTo_IssuanceParams_SameAsToJsonAndContentLength()
+            throws IOException {
+        final IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1, 100);
+        params.sign(KEY_PAIR_1);
+        params.setContainsGenesisBitmark(true);
+        final ParamsRequestBody body = new ParamsRequestBody(params);
+
+        final Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        assertEquals(body.contentLength(), buffer.size());
+        assertEquals(params.toJson(), buffer.readUtf8());
+
+        // written again on retry
+        body.writeTo(buffer);
+        assertEquals(body.contentLength(), buffer.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"true", "false"})
+    public void testNewBody_LazilySignedIssuanceParams_SignedOnlyWhenWritten(
+            boolean containsGenesisBitmark
+    ) throws IOException {
+        final AtomicInteger batches = new AtomicInteger();
+        final IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1, 100);
+        params.setSigningKey(KEY_PAIR_1, ParallelSigner.builder()
+                .withExecutor(task -> {
+                    batches.incrementAndGet();
+                    task.run();
+                })
+                .withBatchSize(1)
+                .build());
+        params.setContainsGenesisBitmark(containsGenesisBitmark);
+
+        final ParamsRequestBody body = new ParamsRequestBody(params);
+        assertEquals(0, batches.get());
+
+        final Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        assertTrue(batches.get() > 0);
+        assertEquals(body.contentLength(), buffer.size());
+        assertEquals(params.toJson(), buffer.readUtf8());
+    }
+
+    @Test
+    public void testNewBody_NotMarkedIssuanceParams_ErrorIsThrow() {
+        final IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1, 2);
+        params.setSigningKey(KEY_PAIR_1);
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new ParamsRequestBody(params)
+        );
+    }
+
+    @Test
+    public void testNewBody_NotSignedParams_ErrorIsThrow() {
+        final RegistrationParams params = new RegistrationParams("name", null);
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> new ParamsRequestBody(params)
+        );
+    }
+
+    @Test
+    public void testPost_NameToEscape_ValidJsonSentWithContentLength() throws Exception {
+        final String name = "the \"quoted\" caf\u00e9\nasset";
+        final RegistrationParams params = new RegistrationParams(
+                name,
+                Collections.singletonMap("author", "a \\ b")
+        );
+        params.setFingerprintFromData(name.getBytes(Charset.forName("UTF-8")));
+        params.sign(KEY_PAIR_1);
+        server.enqueue(new MockResponse());
+
+        try (Response response = new OkHttpClient().newCall(new Request.Builder()
+                .url(server.url("/v3/register-asset"))
+                .post(new ParamsRequestBody(params))
+                .build()).execute()) {
+            assertEquals(200, response.code());
+        }
+
+        final RecordedRequest request = server.takeRequest();
+        final String json = request.getBody().readUtf8();
+        assertEquals(
+                String.valueOf(json.getBytes(Charset.forName("UTF-8")).length),
+                request.getHeader("Content-Length")
+        );
+        final JsonObject asset = new Gson().fromJson(json, JsonObject.class)
+                .getAsJsonArray("assets")
+                .get(0)
+                .getAsJsonObject();
+        assertEquals(name, asset.get("name").getAsString());
+        assertEquals("author\u0000a \\ b", asset.get("metadata").getAsString());
+    }
+}
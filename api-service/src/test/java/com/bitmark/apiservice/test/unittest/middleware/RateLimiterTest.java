@@ -0,0 +1,116 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.middleware;
+
+import com.bitmark.apiservice.middleware.RateLimiter;
+import com.bitmark.cryptography.error.ValidateException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    @Test
+    public void testExecute_WithinBurst_RunImmediately() {
+        RateLimiter rateLimiter = new RateLimiter(1, 3);
+        AtomicInteger count = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.execute(count::incrementAndGet);
+        }
+        assertEquals(3, count.get());
+        assertEquals(0, rateLimiter.getQueueDepth());
+        assertEquals(3, rateLimiter.getAcquiredCount());
+        assertEquals(0, rateLimiter.getDelayedCount());
+    }
+
+    @Test
+    public void testExecute_AboveBurst_QueuedWithoutBlocking() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(50, 1);
+        CountDownLatch latch = new CountDownLatch(5);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.execute(latch::countDown);
+        }
+        // the caller is not blocked
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(4, rateLimiter.getQueueDepth());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        // 4 permits refilled at 50 per second
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(70));
+        assertEquals(0, rateLimiter.getQueueDepth());
+        assertEquals(5, rateLimiter.getAcquiredCount());
+        assertEquals(4, rateLimiter.getDelayedCount());
+        assertTrue(rateLimiter.getMaxWaitTime() >= 70);
+        assertTrue(rateLimiter.getTotalWaitTime() >= rateLimiter.getMaxWaitTime());
+    }
+
+    @Test
+    public void testExecute_Queued_RunInOrder() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(100, 1);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            final int index = i;
+            rateLimiter.execute(() -> {
+                order.add(index);
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, order.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testExecute_CancelledWhileQueued_RunWithoutPermit() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(5, 1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        rateLimiter.execute(() -> order.add(0));
+        rateLimiter.execute(() -> order.add(1), cancelled::get);
+        rateLimiter.execute(() -> {
+            order.add(2);
+            latch.countDown();
+        });
+        assertEquals(2, rateLimiter.getQueueDepth());
+
+        cancelled.set(true);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(0, 1, 2), order);
+        // the cancelled task did not take the permit of the next one
+        assertEquals(2, rateLimiter.getAcquiredCount());
+        assertEquals(1, rateLimiter.getDelayedCount());
+    }
+
+    @Test
+    public void testExecute_AlreadyCancelled_RunWithoutPermit() {
+        RateLimiter rateLimiter = new RateLimiter(1, 1);
+        AtomicInteger count = new AtomicInteger();
+        rateLimiter.execute(count::incrementAndGet, () -> true);
+        rateLimiter.execute(count::incrementAndGet);
+        assertEquals(2, count.get());
+        assertEquals(1, rateLimiter.getAcquiredCount());
+        assertEquals(0, rateLimiter.getQueueDepth());
+    }
+
+    @Test
+    public void testNewInstance_InvalidRate_ErrorIsThrown() {
+        assertThrows(ValidateException.class, () -> new RateLimiter(0, 1));
+        assertThrows(ValidateException.class, () -> new RateLimiter(1, 0));
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.paging;
+
+import com.bitmark.apiservice.paging.BitmarkBulkLookup;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.response.GetBitmarksResponse;
+import com.bitmark.apiservice.utils.error.NetworkException;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.cryptography.error.ValidateException;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitmarkBulkLookupTest {
+
+    private static final Gson GSON = new Gson();
+
+    @Test
+    public void testLookup_ManyIds_QueriesKeptUnderMaxLength() throws Exception {
+        FakeServer server = new FakeServer();
+        List<String> ids = ids(250);
+        GetBitmarksResponse res = new BitmarkBulkLookup(server, 2000, 4)
+                .lookup(ids, false)
+                .get();
+
+        assertEquals(10, server.queries.size());
+        for (String query : server.queries) {
+            assertTrue(query.length() <= 2000);
+        }
+        assertEquals(ids, ids(res.getBitmarks()));
+        assertNull(res.getAssets());
+    }
+
+    @Test
+    public void testLookup_ShortIds_AtMostLimitIdsPerQuery() throws Exception {
+        FakeServer server = new FakeServer();
+        List<String> ids = IntStream.range(0, 250)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.toList());
+        GetBitmarksResponse res = new BitmarkBulkLookup(server, 100000, 4)
+                .lookup(ids, false)
+                .get();
+
+        assertEquals(3, server.queries.size());
+        assertEquals(100, server.queries.get(0).split("bitmark_ids=").length - 1);
+        assertEquals(ids, ids(res.getBitmarks()));
+    }
+
+    @Test
+    public void testLookup_PendingChunks_ConcurrencyBounded() throws Exception {
+        List<CompletableFuture<GetBitmarksResponse>> pending = new ArrayList<>();
+        List<String> queries = new ArrayList<>();
+        CompletableFuture<GetBitmarksResponse> result = new BitmarkBulkLookup(params -> {
+            queries.add(params.toUrlQuery());
+            CompletableFuture<GetBitmarksResponse> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        }, 500, 2).lookup(ids(30), false);
+
+        assertEquals(2, pending.size());
+        pending.get(1).complete(new FakeServer().response(queries.get(1)));
+        assertEquals(3, pending.size());
+        assertFalse(result.isDone());
+
+        for (int i = 0; i < pending.size(); i++) {
+            if (!pending.get(i).isDone()) {
+                pending.get(i).complete(new FakeServer().response(queries.get(i)));
+            }
+        }
+        assertEquals(ids(30), ids(result.get().getBitmarks()));
+    }
+
+    @Test
+    public void testLookup_DuplicatesAndMissing_CallerOrderKept() throws Exception {
+        FakeServer server = new FakeServer();
+        server.missing = "missing";
+        List<String> ids = Arrays.asList("c", "a", "missing", "b", "a", "c");
+        GetBitmarksResponse res = new BitmarkBulkLookup(server, 50, 4)
+                .lookup(ids, true)
+                .get();
+
+        assertEquals(Arrays.asList("c", "a", "b"), ids(res.getBitmarks()));
+        assertEquals(
+                Arrays.asList("asset-c", "asset-a", "asset-b"),
+                res.getAssets().stream().map(AssetRecord::getId).collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    public void testLookup_SharedAssetAcrossChunks_AssetMergedOnce() throws Exception {
+        FakeServer server = new FakeServer();
+        server.sharedAsset = true;
+        GetBitmarksResponse res = new BitmarkBulkLookup(server, 500, 4)
+                .lookup(ids(30), true)
+                .get();
+
+        assertTrue(server.queries.size() > 1);
+        assertEquals(30, res.getBitmarks().size());
+        assertEquals(1, res.getAssets().size());
+    }
+
+    @Test
+    public void testLookup_ChunkFailed_ErrorIsReturned() {
+        FakeServer server = new FakeServer();
+        CompletableFuture<GetBitmarksResponse> result = new BitmarkBulkLookup(params -> {
+            if (server.queries.size() == 1) {
+                CompletableFuture<GetBitmarksResponse> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new NetworkException("unreachable"));
+                server.queries.add(params.toUrlQuery());
+                return failed;
+            }
+            return server.apply(params);
+        }, 500, 1).lookup(ids(30), false);
+
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertTrue(e.getCause() instanceof NetworkException);
+        assertEquals(2, server.queries.size());
+    }
+
+    @Test
+    public void testLookup_NoIds_NoRequest() throws Exception {
+        FakeServer server = new FakeServer();
+        GetBitmarksResponse res = new BitmarkBulkLookup(server)
+                .lookup(Collections.emptyList(), false)
+                .get();
+        assertTrue(res.getBitmarks().isEmpty());
+        assertTrue(server.queries.isEmpty());
+    }
+
+    @Test
+    public void testLookup_InvalidIds_ErrorIsThrow() {
+        assertThrows(
+                ValidateException.class,
+                () -> new BitmarkBulkLookup(new FakeServer())
+                        .lookup(Arrays.asList("a", null), false)
+        );
+        assertThrows(
+                ValidateException.class,
+                () -> new BitmarkBulkLookup(new FakeServer(), 2000, 0)
+        );
+    }
+
+    private static List<String> ids(int size) {
+        return IntStream.range(0, size)
+                .mapToObj(i -> String.format(Locale.US, "%064x", i))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> ids(List<BitmarkRecord> bitmarks) {
+        return bitmarks.stream().map(BitmarkRecord::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Answer the bitmark queries with a bitmark per id, in the reverse order.
+     */
+    private static final class FakeServer
+            implements Function<QueryParams, CompletableFuture<GetBitmarksResponse>> {
+
+        private final List<String> queries = new ArrayList<>();
+
+        private String missing;
+
+        private boolean sharedAsset;
+
+        @Override
+        public CompletableFuture<GetBitmarksResponse> apply(QueryParams params) {
+            final String query = params.toUrlQuery();
+            queries.add(query);
+            return CompletableFuture.completedFuture(response(query));
+        }
+
+        private GetBitmarksResponse response(String query) {
+            List<BitmarkRecord> bitmarks = new ArrayList<>();
+            List<AssetRecord> assets = new ArrayList<>();
+            for (String pair : query.split("&")) {
+                String[] entry = pair.split("=");
+                if (!entry[0].equals("bitmark_ids") || entry[1].equals(missing)) {
+                    continue;
+                }
+                String assetId = sharedAsset ? "asset" : "asset-" + entry[1];
+                bitmarks.add(0, GSON.fromJson(String.format(
+                        "{\"id\":\"%s\",\"asset_id\":\"%s\"}",
+                        entry[1],
+                        assetId
+                ), BitmarkRecord.class));
+                assets.add(0, GSON.fromJson(
+                        String.format("{\"id\":\"%s\"}", assetId),
+                        AssetRecord.class
+                ));
+            }
+            return new GetBitmarksResponse(
+                    bitmarks,
+                    query.contains("asset=true") ? assets : null
+            );
+        }
+    }
+}
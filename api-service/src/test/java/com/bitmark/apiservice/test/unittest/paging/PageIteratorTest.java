@@ -0,0 +1,285 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.paging;
+
+import com.bitmark.apiservice.paging.PageFetcher;
+import com.bitmark.apiservice.paging.PageIterator;
+import com.bitmark.apiservice.paging.PagingPolicy;
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.utils.error.NetworkException;
+import com.bitmark.cryptography.error.ValidateException;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageIteratorTest {
+
+    @Test
+    public void testStream_ManyPages_AllRecordsInOrderFetchedOnDemand() {
+        FakeList list = new FakeList(250, false);
+        PageIterator<Long> iterator = new PageIterator<>(
+                new BitmarkQueryBuilder().limit(100).to("earlier"),
+                list,
+                Long::longValue
+        );
+        assertTrue(list.queries.isEmpty());
+
+        assertTrue(iterator.hasNext());
+        assertEquals(250L, iterator.next().longValue());
+        assertEquals(1, list.queries.size());
+
+        List<Long> rest = iterator.stream().collect(Collectors.toList());
+        assertEquals(249, rest.size());
+        assertEquals(249L, rest.get(0).longValue());
+        assertEquals(1L, rest.get(248).longValue());
+        assertFalse(iterator.hasNext());
+        assertEquals(3, list.queries.size());
+        assertEquals("at=151&limit=100&pending=true&to=earlier", list.queries.get(1));
+        assertEquals("at=51&limit=100&pending=true&to=earlier", list.queries.get(2));
+    }
+
+    @Test
+    public void testStream_LimitedStream_LaterPagesNotFetched() {
+        FakeList list = new FakeList(1000, false);
+        List<Long> first = new PageIterator<>(
+                new BitmarkQueryBuilder().limit(10),
+                list,
+                Long::longValue
+        ).stream().limit(15).collect(Collectors.toList());
+        assertEquals(15, first.size());
+        assertEquals(2, list.queries.size());
+    }
+
+    @Test
+    public void testStream_InclusiveOffset_RecordNotRepeated() {
+        FakeList list = new FakeList(30, true);
+        List<Long> records = new PageIterator<>(
+                new BitmarkQueryBuilder().limit(10),
+                list,
+                Long::longValue
+        ).stream().collect(Collectors.toList());
+        assertEquals(
+                LongStream.rangeClosed(1, 30)
+                        .map(i -> 31 - i)
+                        .boxed()
+                        .collect(Collectors.toList()),
+                records
+        );
+    }
+
+    @Test
+    public void testHasNext_ExactMultipleOfLimit_EmptyLastPage() {
+        FakeList list = new FakeList(20, false);
+        Iterator<Long> iterator = new PageIterator<>(
+                new BitmarkQueryBuilder().limit(10),
+                list,
+                Long::longValue
+        );
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        assertEquals(20, count);
+        assertEquals(3, list.queries.size());
+    }
+
+    @Test
+    public void testHasNext_FetchFailed_ErrorIsThrow() {
+        CompletableFuture<List<Long>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new NetworkException("unreachable"));
+        PageIterator<Long> iterator = new PageIterator<>(
+                new BitmarkQueryBuilder(),
+                params -> failed,
+                Long::longValue
+        );
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, iterator::hasNext);
+        assertTrue(e.getCause() instanceof NetworkException);
+    }
+
+    @Test
+    public void testHasNext_Timeout_ErrorIsThrow() {
+        PageIterator<Long> iterator = new PageIterator<>(
+                new BitmarkQueryBuilder(),
+                params -> new CompletableFuture<>(),
+                Long::longValue,
+                PagingPolicy.builder().withTimeout(50, TimeUnit.MILLISECONDS).build()
+        );
+        assertThrows(RuntimeException.class, iterator::hasNext);
+    }
+
+    @Test
+    public void testNext_Prefetch_NextPagesRequestedWhilePageIsConsumed() {
+        PendingList list = new PendingList();
+        PageIterator<Long> iterator = new PageIterator<>(
+                new BitmarkQueryBuilder().limit(2),
+                list,
+                Long::longValue,
+                PagingPolicy.builder().withPrefetch(2).build()
+        );
+        list.complete(0, 100L, 99L);
+        assertEquals(100L, iterator.next().longValue());
+        // page 2 is requested as soon as page 1 arrives
+        assertEquals(2, list.pages.size());
+        assertEquals("at=99&limit=2&pending=true", list.queries.get(1));
+
+        list.complete(1, 98L, 97L);
+        assertEquals(3, list.pages.size());
+        list.complete(2, 96L, 95L);
+        // 2 pages ahead of the one being consumed
+        assertEquals(3, list.pages.size());
+
+        assertEquals(99L, iterator.next().longValue());
+        assertEquals(98L, iterator.next().longValue());
+        assertEquals(4, list.pages.size());
+        list.complete(3, 94L);
+        assertEquals(
+                Arrays.asList(97L, 96L, 95L, 94L),
+                iterator.stream().collect(Collectors.toList())
+        );
+        assertEquals(4, list.pages.size());
+    }
+
+    @Test
+    public void testNext_MaxBufferedRecords_PrefetchBounded() {
+        PendingList list = new PendingList();
+        PageIterator<Long> iterator = new PageIterator<>(
+                new BitmarkQueryBuilder().limit(2),
+                list,
+                Long::longValue,
+                PagingPolicy.builder().withPrefetch(10).withMaxBufferedRecords(4).build()
+        );
+        list.complete(0, 100L, 99L);
+        list.complete(1, 98L, 97L);
+        list.complete(2, 96L, 95L);
+        list.complete(3, 94L, 93L);
+
+        assertEquals(100L, iterator.next().longValue());
+        // page 1 is being consumed, pages 2 and 3 are buffered, no room for page 4
+        assertEquals(3, list.pages.size());
+        iterator.next();
+        assertEquals(98L, iterator.next().longValue());
+        assertEquals(4, list.pages.size());
+    }
+
+    @Test
+    public void testClose_Prefetch_InFlightPageCancelled() {
+        PendingList list = new PendingList();
+        PageIterator<Long> iterator = new PageIterator<>(
+                new BitmarkQueryBuilder().limit(2),
+                list,
+                Long::longValue,
+                PagingPolicy.builder().withPrefetch(1).build()
+        );
+        list.complete(0, 100L, 99L);
+        iterator.next();
+        iterator.close();
+        assertTrue(list.pages.get(1).isCancelled());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testNewPagingPolicy_InvalidValues_ErrorIsThrow() {
+        assertThrows(
+                ValidateException.class,
+                () -> PagingPolicy.builder().withPrefetch(-1)
+        );
+        assertThrows(
+                ValidateException.class,
+                () -> PagingPolicy.builder().withMaxBufferedRecords(0)
+        );
+        assertThrows(
+                ValidateException.class,
+                () -> PagingPolicy.builder().withTimeout(0, TimeUnit.SECONDS)
+        );
+    }
+
+    /**
+     * A list whose pages are completed by the test, before or after they are requested.
+     */
+    private static final class PendingList implements PageFetcher<Long> {
+
+        private final List<CompletableFuture<List<Long>>> pages =
+                new CopyOnWriteArrayList<>();
+
+        private final List<String> queries = new CopyOnWriteArrayList<>();
+
+        private final Map<Integer, List<Long>> completed = new ConcurrentHashMap<>();
+
+        @Override
+        public CompletableFuture<List<Long>> fetch(QueryParams params) {
+            queries.add(params.toUrlQuery());
+            CompletableFuture<List<Long>> page = new CompletableFuture<>();
+            pages.add(page);
+            List<Long> records = completed.remove(pages.size() - 1);
+            if (records != null) {
+                page.complete(records);
+            }
+            return page;
+        }
+
+        private void complete(int index, Long... records) {
+            if (index < pages.size()) {
+                pages.get(index).complete(Arrays.asList(records));
+            } else {
+                completed.put(index, Arrays.asList(records));
+            }
+        }
+    }
+
+    /**
+     * A list of the offsets {@code size} down to 1, listed from the latest one.
+     */
+    private static final class FakeList implements PageFetcher<Long> {
+
+        private final long size;
+
+        private final boolean inclusive;
+
+        private final List<String> queries = new ArrayList<>();
+
+        private FakeList(long size, boolean inclusive) {
+            this.size = size;
+            this.inclusive = inclusive;
+        }
+
+        @Override
+        public CompletableFuture<List<Long>> fetch(QueryParams params) {
+            final String query = params.toUrlQuery();
+            queries.add(query);
+            long at = size + 1;
+            int limit = 100;
+            for (String pair : query.split("&")) {
+                String[] entry = pair.split("=");
+                if (entry[0].equals("at")) {
+                    at = Long.parseLong(entry[1]) + (inclusive ? 1 : 0);
+                } else if (entry[0].equals("limit")) {
+                    limit = Integer.parseInt(entry[1]);
+                }
+            }
+            List<Long> page = new ArrayList<>();
+            for (long offset = at - 1; offset > 0 && page.size() < limit; offset--) {
+                page.add(offset);
+            }
+            return CompletableFuture.completedFuture(page);
+        }
+    }
+}
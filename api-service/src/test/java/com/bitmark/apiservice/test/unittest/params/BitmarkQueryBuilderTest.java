@@ -50,6 +50,30 @@ public class BitmarkQueryBuilderTest extends BaseTest {
         assertEquals(expectedParams, builder.toUrlQuery());
     }
 
+    @Test
+    public void testBuildPage_Offset_OffsetIsReplacedAndBuilderIsUnchanged() {
+        BitmarkQueryBuilder builder = new BitmarkQueryBuilder().ownedBy("owner")
+                .at(1234L)
+                .to("earlier");
+        assertEquals(
+                "at=1234&limit=100&owner=owner&pending=true&to=earlier",
+                builder.buildPage(null).toUrlQuery()
+        );
+        assertEquals(
+                "at=99&limit=100&owner=owner&pending=true&to=earlier",
+                builder.buildPage(99L).toUrlQuery()
+        );
+        assertEquals(
+                "at=1234&limit=100&owner=owner&pending=true&to=earlier",
+                builder.toUrlQuery()
+        );
+        assertEquals(
+                "block=false&limit=10&pending=true",
+                new TransactionQueryBuilder().limit(10).buildPage(null).toUrlQuery()
+        );
+        assertEquals(10, new AssetQueryBuilder().limit(10).getLimit());
+    }
+
     @Test
     public void testBuildAssetQueryBuilder_InvalidQueryValues_CorrectParamsIsReturn() {
         assertThrows(
@@ -9,7 +9,9 @@ package com.bitmark.apiservice.test.unittest.params;
 import com.bitmark.apiservice.params.IssuanceParams;
 import com.bitmark.apiservice.test.BaseTest;
 import com.bitmark.apiservice.utils.Pair;
+import com.bitmark.apiservice.utils.ParallelSigner;
 import com.bitmark.cryptography.error.ValidateException;
+import okhttp3.internal.Util;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -20,6 +22,13 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static com.bitmark.apiservice.test.unittest.DataProvider.*;
@@ -88,6 +97,73 @@ public class IssuanceParamsTest extends BaseTest {
         );
     }
 
+    @Test
+    public void testConstructIssuanceParamsWithQuantity_LargeQuantity_NoncesUnique() {
+        final int quantity = 200000;
+        final IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1, quantity);
+        final int[] genesisNonces = params.getNoncesPair().first();
+        final int[] nonGenesisNonces = params.getNoncesPair().second();
+        assertEquals(quantity, genesisNonces.length);
+        assertEquals(quantity, nonGenesisNonces.length);
+        assertEquals(0, genesisNonces[0]);
+        assertFalse(isDuplicate(genesisNonces));
+        assertFalse(isDuplicate(nonGenesisNonces));
+        assertTrue(Arrays.stream(nonGenesisNonces).allMatch(nonce -> nonce > 0));
+    }
+
+    @Test
+    public void testSplit_SigningKey_ChunksKeepNoncesAndSignLazily() {
+        final IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1, 25);
+        params.setSigningKey(KEY_PAIR_1);
+        final List<IssuanceParams> chunks = params.split(10);
+
+        assertEquals(3, chunks.size());
+        assertArrayEquals(
+                params.getNoncesPair().first(),
+                chunks.stream()
+                        .map(chunk -> chunk.getNoncesPair().first())
+                        .flatMapToInt(Arrays::stream)
+                        .toArray()
+        );
+        assertEquals(5, chunks.get(2).getNoncesPair().second().length);
+        assertEquals(0, chunks.get(0).getNoncesPair().first()[0]);
+        for (IssuanceParams chunk : chunks) {
+            assertTrue(chunk.isSigned());
+            assertNull(chunk.getContainsGenesisBitmark());
+        }
+
+        final IssuanceParams chunk = chunks.get(1);
+        chunk.setContainsGenesisBitmark(false);
+        params.setContainsGenesisBitmark(false);
+        assertArrayEquals(
+                params.getSignatures().subList(10, 20).toArray(),
+                chunk.getSignatures().toArray()
+        );
+    }
+
+    @Test
+    public void testSplit_Signed_SignaturesSliced() {
+        final IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1, 5);
+        params.sign(KEY_PAIR_1);
+        params.setContainsGenesisBitmark(true);
+        final List<IssuanceParams> chunks = params.split(2);
+
+        assertEquals(3, chunks.size());
+        final List<byte[]> signatures = new ArrayList<>();
+        for (IssuanceParams chunk : chunks) {
+            chunk.setContainsGenesisBitmark(true);
+            signatures.addAll(chunk.getSignatures());
+        }
+        assertArrayEquals(params.getSignatures().toArray(), signatures.toArray());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-1, 0})
+    public void testSplit_InvalidChunkSize_ErrorIsThrow(int chunkSize) {
+        final IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1, 5);
+        assertThrows(ValidateException.class, () -> params.split(chunkSize));
+    }
+
     @ParameterizedTest
     @MethodSource("createValidAssetIdNonceSignature")
     public void testSignOneNonce_NoCondition_ValidSignatureIsReturn(
@@ -162,6 +238,101 @@ public class IssuanceParamsTest extends BaseTest {
         assertEquals(quantity * 2, concatenatedSignature.size());
     }
 
+    @ParameterizedTest
+    @MethodSource("createParallelSigners")
+    public void testSignParallel_ManyNonces_SameSignaturesAsSerial(ParallelSigner signer) {
+        final IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1, 500);
+        final List<byte[]> expected = params.sign(KEY_PAIR_1, ParallelSigner.SERIAL);
+
+        final List<byte[]> signatures = params.sign(KEY_PAIR_1, signer);
+        assertEquals(1000, signatures.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), signatures.get(i));
+        }
+        params.setContainsGenesisBitmark(false);
+        assertArrayEquals(expected.get(500), params.getSignatures().get(0));
+    }
+
+    @Test
+    public void testSetSigningKey_GenesisKnown_OnlyThatVariantSigned() {
+        final IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1, 10);
+        final AtomicInteger batches = new AtomicInteger();
+        params.setSigningKey(KEY_PAIR_1, ParallelSigner.builder().withExecutor(command -> {
+            batches.incrementAndGet();
+            command.run();
+        }).withBatchSize(1).build());
+        assertTrue(params.isSigned());
+        assertEquals(0, batches.get());
+
+        params.setContainsGenesisBitmark(false);
+        params.toJson();
+        final List<byte[]> signatures = params.getSignatures();
+        // one variant of 10 messages, the last batch is signed on the calling thread
+        assertEquals(9, batches.get());
+
+        final List<byte[]> expected = params.sign(KEY_PAIR_1, ParallelSigner.SERIAL);
+        assertEquals(10, signatures.size());
+        for (int i = 0; i < signatures.size(); i++) {
+            assertArrayEquals(expected.get(10 + i), signatures.get(i));
+        }
+    }
+
+    @Test
+    public void testSetSigningKey_ConcurrentSerialization_SignedOnce() throws Exception {
+        final IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1, 10);
+        final AtomicInteger batches = new AtomicInteger();
+        params.setSigningKey(KEY_PAIR_1, ParallelSigner.builder().withExecutor(command -> {
+            batches.incrementAndGet();
+            command.run();
+        }).withBatchSize(1).build());
+        params.setContainsGenesisBitmark(true);
+
+        final int threads = 4;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<List<byte[]>>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return params.getSignatures();
+            }));
+        }
+        start.countDown();
+        final List<byte[]> signatures = futures.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<List<byte[]>> future : futures) {
+            assertSame(signatures, future.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // one variant of 10 messages signed once, the last batch on the calling thread
+        assertEquals(9, batches.get());
+        assertEquals(10, signatures.size());
+    }
+
+    @Test
+    public void testSetSigningKey_InvalidKey_ErrorIsThrow() {
+        final IssuanceParams params = new IssuanceParams(ASSET_ID, ADDRESS1, 1);
+        assertThrows(ValidateException.class, () -> params.setSigningKey(null));
+        assertFalse(params.isSigned());
+    }
+
+    private static Stream<ParallelSigner> createParallelSigners() {
+        return Stream.of(
+                ParallelSigner.getDefault(),
+                ParallelSigner.builder()
+                        .withExecutor(new ForkJoinPool(3))
+                        .withBatchSize(7)
+                        .build(),
+                ParallelSigner.builder()
+                        .withExecutor(Executors.newFixedThreadPool(
+                                3,
+                                Util.threadFactory("test-signer", true)
+                        ))
+                        .withBatchSize(64)
+                        .build()
+        );
+    }
+
     private static Stream<String> createInvalidAssetId() {
         return Stream.of(
                 null,
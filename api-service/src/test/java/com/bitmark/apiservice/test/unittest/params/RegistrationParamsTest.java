@@ -6,6 +6,7 @@
  */
 package com.bitmark.apiservice.test.unittest.params;
 
+import com.bitmark.apiservice.configuration.Network;
 import com.bitmark.apiservice.params.RegistrationParams;
 import com.bitmark.apiservice.test.BaseTest;
 import com.bitmark.cryptography.error.ValidateException;
@@ -252,6 +253,15 @@ public class RegistrationParamsTest extends BaseTest {
         );
     }
 
+    @Test
+    public void testSignWithNetwork_OtherNetworkThanGlobal_RegistrantOfThatNetwork() {
+        final RegistrationParams params = new RegistrationParams(ASSET_NAME, METADATA);
+        params.setFingerprintFromData(new byte[]{1, 2, 3});
+        params.sign(KEY_PAIR_1, Network.LIVE_NET);
+        assertEquals(Network.LIVE_NET, params.getRegistrant().getNetwork());
+        assertTrue(params.isSigned());
+    }
+
     @ParameterizedTest
     @MethodSource("createParamsSignature")
     public void testSign_NoCondition_CorrectSignatureIsReturn(
@@ -0,0 +1,138 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.reactive;
+
+import com.bitmark.apiservice.reactive.BufferOverflowException;
+import com.bitmark.apiservice.reactive.EventEmitter;
+import com.bitmark.apiservice.reactive.EventPublisher;
+import com.bitmark.apiservice.reactive.OverflowStrategy;
+import com.bitmark.cryptography.error.ValidateException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventPublisherTest {
+
+    @Test
+    public void testSubscribe_EventsRequested_EventsDelivered() {
+        FakeChannel channel = new FakeChannel();
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>();
+        channel.publisher(4, OverflowStrategy.ERROR).subscribe(subscriber);
+        assertEquals(1, channel.subscribes.get());
+
+        subscriber.request(2);
+        channel.emitter.onNext(1);
+        channel.emitter.onNext(2);
+        channel.emitter.onNext(3);
+        assertEquals(Arrays.asList(1, 2), subscriber.items);
+
+        subscriber.request(5);
+        assertEquals(Arrays.asList(1, 2, 3), subscriber.items);
+        channel.emitter.onComplete();
+        assertEquals(1, subscriber.completions);
+        assertEquals(1, channel.unsubscribes.get());
+    }
+
+    @Test
+    public void testOnNext_BufferFullDropOldest_LatestEventsKept() {
+        FakeChannel channel = new FakeChannel();
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>();
+        channel.publisher(2, OverflowStrategy.DROP_OLDEST).subscribe(subscriber);
+
+        for (int i = 1; i <= 5; i++) {
+            channel.emitter.onNext(i);
+        }
+        subscriber.request(10);
+        assertEquals(Arrays.asList(4, 5), subscriber.items);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void testOnNext_BufferFullDropLatest_EarliestEventsKept() {
+        FakeChannel channel = new FakeChannel();
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>();
+        channel.publisher(2, OverflowStrategy.DROP_LATEST).subscribe(subscriber);
+
+        for (int i = 1; i <= 5; i++) {
+            channel.emitter.onNext(i);
+        }
+        subscriber.request(10);
+        assertEquals(Arrays.asList(1, 2), subscriber.items);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void testOnNext_BufferFullError_ErrorSignaledAndUnsubscribed() {
+        FakeChannel channel = new FakeChannel();
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>();
+        channel.publisher(2, OverflowStrategy.ERROR).subscribe(subscriber);
+
+        for (int i = 1; i <= 3; i++) {
+            channel.emitter.onNext(i);
+        }
+        assertTrue(subscriber.error instanceof BufferOverflowException);
+        assertEquals(2, ((BufferOverflowException) subscriber.error).getCapacity());
+        assertEquals(1, channel.unsubscribes.get());
+    }
+
+    @Test
+    public void testCancel_Subscribed_UnsubscribedAndCanSubscribeAgain() {
+        FakeChannel channel = new FakeChannel();
+        EventPublisher<Integer> publisher = channel.publisher(2, OverflowStrategy.ERROR);
+        TestSubscriber<Integer> first = new TestSubscriber<>();
+        publisher.subscribe(first);
+        first.cancel();
+        assertEquals(1, channel.unsubscribes.get());
+
+        channel.emitter.onNext(1);
+        first.request(1);
+        assertTrue(first.items.isEmpty());
+
+        TestSubscriber<Integer> second = new TestSubscriber<>();
+        publisher.subscribe(second);
+        assertNull(second.error);
+        assertEquals(2, channel.subscribes.get());
+    }
+
+    @Test
+    public void testSubscribe_SecondSubscriber_ErrorIsSignaled() {
+        FakeChannel channel = new FakeChannel();
+        EventPublisher<Integer> publisher = channel.publisher(2, OverflowStrategy.ERROR);
+        publisher.subscribe(new TestSubscriber<>());
+        TestSubscriber<Integer> second = new TestSubscriber<>();
+        publisher.subscribe(second);
+        assertTrue(second.error instanceof IllegalStateException);
+        assertEquals(1, channel.subscribes.get());
+    }
+
+    @Test
+    public void testNewInstance_InvalidCapacity_ErrorIsThrow() {
+        assertThrows(
+                ValidateException.class,
+                () -> new FakeChannel().publisher(0, OverflowStrategy.ERROR)
+        );
+    }
+
+    private static final class FakeChannel {
+
+        private final AtomicInteger subscribes = new AtomicInteger();
+
+        private final AtomicInteger unsubscribes = new AtomicInteger();
+
+        private volatile EventEmitter<Integer> emitter;
+
+        private EventPublisher<Integer> publisher(int capacity, OverflowStrategy strategy) {
+            return new EventPublisher<>(capacity, strategy, emitter -> {
+                subscribes.incrementAndGet();
+                this.emitter = emitter;
+            }, unsubscribes::incrementAndGet);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.reactive;
+
+import com.bitmark.apiservice.paging.PageFetcher;
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.reactive.PagePublisher;
+import com.bitmark.apiservice.utils.error.NetworkException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagePublisherTest {
+
+    @Test
+    public void testSubscribe_NoDemand_NoPageFetched() {
+        FakeList list = new FakeList(25);
+        TestSubscriber<Long> subscriber = new TestSubscriber<>();
+        new PagePublisher<>(new BitmarkQueryBuilder().limit(10), list, Long::longValue)
+                .subscribe(subscriber);
+        assertNotNull(subscriber.subscription);
+        assertTrue(list.queries.isEmpty());
+    }
+
+    @Test
+    public void testRequest_PartialDemand_PagesFetchedOnDemand() {
+        FakeList list = new FakeList(25);
+        TestSubscriber<Long> subscriber = new TestSubscriber<>();
+        new PagePublisher<>(new BitmarkQueryBuilder().limit(10), list, Long::longValue)
+                .subscribe(subscriber);
+
+        subscriber.request(3);
+        assertEquals(1, list.queries.size());
+        assertEquals(3, subscriber.items.size());
+
+        subscriber.request(7);
+        assertEquals(1, list.queries.size());
+        assertEquals(10, subscriber.items.size());
+
+        subscriber.request(1);
+        assertEquals(2, list.queries.size());
+        assertEquals("at=16&limit=10&pending=true", list.queries.get(1));
+        assertEquals(11, subscriber.items.size());
+        assertEquals(0, subscriber.completions);
+    }
+
+    @Test
+    public void testRequest_UnboundedDemand_AllRecordsInOrderThenComplete() {
+        FakeList list = new FakeList(25);
+        TestSubscriber<Long> subscriber = new TestSubscriber<>();
+        new PagePublisher<>(new BitmarkQueryBuilder().limit(10), list, Long::longValue)
+                .subscribe(subscriber);
+
+        subscriber.request(Long.MAX_VALUE);
+        assertEquals(
+                LongStream.rangeClosed(1, 25)
+                        .map(i -> 26 - i)
+                        .boxed()
+                        .collect(Collectors.toList()),
+                subscriber.items
+        );
+        assertEquals(1, subscriber.completions);
+        assertNull(subscriber.error);
+        assertEquals(3, list.queries.size());
+    }
+
+    @Test
+    public void testRequest_AsyncPages_AllRecordsDelivered() throws Exception {
+        FakeList list = new FakeList(95);
+        PageFetcher<Long> async = params -> CompletableFuture.supplyAsync(() -> list
+                .fetch(params).join());
+        TestSubscriber<Long> subscriber = new TestSubscriber<>();
+        new PagePublisher<>(new BitmarkQueryBuilder().limit(10), async, Long::longValue)
+                .subscribe(subscriber);
+
+        for (int i = 0; i < 95; i++) {
+            subscriber.request(1);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (subscriber.completions == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(95, subscriber.items.size());
+        assertEquals(1, subscriber.completions);
+        assertEquals(95L, subscriber.items.get(0).longValue());
+        assertEquals(1L, subscriber.items.get(94).longValue());
+    }
+
+    @Test
+    public void testRequest_FetchFailed_ErrorIsSignaled() {
+        CompletableFuture<List<Long>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new NetworkException("unreachable"));
+        TestSubscriber<Long> subscriber = new TestSubscriber<>();
+        new PagePublisher<>(new BitmarkQueryBuilder(), params -> failed, Long::longValue)
+                .subscribe(subscriber);
+
+        subscriber.request(1);
+        assertTrue(subscriber.error instanceof NetworkException);
+        assertEquals(0, subscriber.completions);
+    }
+
+    @Test
+    public void testRequest_NonPositive_ErrorIsSignaled() {
+        FakeList list = new FakeList(25);
+        TestSubscriber<Long> subscriber = new TestSubscriber<>();
+        new PagePublisher<>(new BitmarkQueryBuilder(), list, Long::longValue)
+                .subscribe(subscriber);
+
+        subscriber.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(list.queries.isEmpty());
+    }
+
+    @Test
+    public void testCancel_PageInFlight_PageCancelledAndNoMoreSignal() {
+        CompletableFuture<List<Long>> pending = new CompletableFuture<>();
+        TestSubscriber<Long> subscriber = new TestSubscriber<>();
+        new PagePublisher<>(new BitmarkQueryBuilder(), params -> pending, Long::longValue)
+                .subscribe(subscriber);
+
+        subscriber.request(10);
+        subscriber.cancel();
+        assertTrue(pending.isCancelled());
+        assertTrue(subscriber.items.isEmpty());
+        assertNull(subscriber.error);
+        assertEquals(0, subscriber.completions);
+    }
+
+    @Test
+    public void testSubscribe_TwoSubscribers_EachListsFromTheStart() {
+        FakeList list = new FakeList(5);
+        PagePublisher<Long> publisher = new PagePublisher<>(
+                new BitmarkQueryBuilder().limit(10),
+                list,
+                Long::longValue
+        );
+        TestSubscriber<Long> first = new TestSubscriber<>();
+        TestSubscriber<Long> second = new TestSubscriber<>();
+        publisher.subscribe(first);
+        publisher.subscribe(second);
+        first.request(Long.MAX_VALUE);
+        second.request(Long.MAX_VALUE);
+        assertEquals(first.items, second.items);
+        assertEquals(5, second.items.size());
+    }
+
+    private static final class FakeList implements PageFetcher<Long> {
+
+        private final long size;
+
+        private final List<String> queries = new ArrayList<>();
+
+        private FakeList(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public synchronized CompletableFuture<List<Long>> fetch(QueryParams params) {
+            final String query = params.toUrlQuery();
+            queries.add(query);
+            long at = size + 1;
+            int limit = 100;
+            for (String pair : query.split("&")) {
+                String[] entry = pair.split("=");
+                if (entry[0].equals("at")) {
+                    at = Long.parseLong(entry[1]);
+                } else if (entry[0].equals("limit")) {
+                    limit = Integer.parseInt(entry[1]);
+                }
+            }
+            List<Long> page = new ArrayList<>();
+            for (long offset = at - 1; offset > 0 && page.size() < limit; offset--) {
+                page.add(offset);
+            }
+            return CompletableFuture.completedFuture(page);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.reactive;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Record the signals of a publisher, requesting only what the test asks for.
+ */
+class TestSubscriber<T> implements Subscriber<T> {
+
+    final List<T> items = new CopyOnWriteArrayList<>();
+
+    volatile Subscription subscription;
+
+    volatile Throwable error;
+
+    volatile int completions;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(T item) {
+        items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+        completions++;
+    }
+
+    void request(long n) {
+        subscription.request(n);
+    }
+
+    void cancel() {
+        subscription.cancel();
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.configuration.Network;
+import com.bitmark.apiservice.test.BaseTest;
+import com.bitmark.apiservice.utils.Address;
+import com.bitmark.apiservice.utils.error.InvalidNetworkException;
+import org.junit.jupiter.api.Test;
+
+import static com.bitmark.apiservice.test.unittest.DataProvider.KEY_PAIR_1;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AddressTest extends BaseTest {
+
+    @Test
+    public void testGetDefault_OtherNetworkThanGlobal_AddressOfThatNetwork() {
+        final Network other = otherNetwork();
+        final Address address = Address.getDefault(KEY_PAIR_1.publicKey(), other);
+        assertEquals(other, address.getNetwork());
+    }
+
+    @Test
+    public void testFromAccountNumber_OtherNetworkThanGlobal_AcceptedWithThatNetwork() {
+        final Network other = otherNetwork();
+        final String accountNumber =
+                Address.getDefault(KEY_PAIR_1.publicKey(), other).getAddress();
+
+        assertThrows(
+                InvalidNetworkException.class,
+                () -> Address.fromAccountNumber(accountNumber)
+        );
+        assertFalse(Address.isValidAccountNumber(accountNumber));
+
+        assertEquals(other, Address.fromAccountNumber(accountNumber, other).getNetwork());
+        assertTrue(Address.isValidAccountNumber(accountNumber, other));
+        assertThrows(
+                InvalidNetworkException.class,
+                () -> Address.fromAccountNumber(
+                        accountNumber,
+                        GlobalConfiguration.network()
+                )
+        );
+    }
+
+    private static Network otherNetwork() {
+        return GlobalConfiguration.network() == Network.LIVE_NET
+               ? Network.TEST_NET
+               : Network.LIVE_NET;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.utils.Awaitility;
+import com.bitmark.apiservice.utils.callback.Callable1;
+import com.bitmark.apiservice.utils.error.UnexpectedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.bitmark.apiservice.utils.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AwaitilityTest {
+
+    @Test
+    public void testAwaitCallable_CompletedLater_ReturnValue() throws Throwable {
+        String value = await(callback -> new Thread(() -> {
+            sleep(50);
+            callback.onSuccess("txid");
+        }).start());
+        assertEquals("txid", value);
+    }
+
+    @Test
+    public void testAwaitCallable_NullValue_ReturnNull() throws Throwable {
+        assertNull(Awaitility.<String>await(callback -> callback.onSuccess(null), 1000L));
+    }
+
+    @Test
+    public void testAwaitCallable_Error_ThrowError() {
+        UnexpectedException error = new UnexpectedException("error");
+        Throwable e = assertThrows(
+                UnexpectedException.class,
+                () -> await((Callable1<String>) callback -> callback.onError(error))
+        );
+        assertSame(error, e);
+    }
+
+    @Test
+    public void testAwaitCallable_NeverCompleted_ThrowTimeout() {
+        long start = System.currentTimeMillis();
+        assertThrows(
+                TimeoutException.class,
+                () -> await((Callable1<String>) callback -> {
+                }, 100L)
+        );
+        assertTrue(System.currentTimeMillis() - start >= 100);
+    }
+
+    @Test
+    public void testAwaitCall_Completed_ReturnValue() throws Throwable {
+        assertEquals("txid", await(() -> "txid"));
+    }
+
+    @Test
+    public void testAwaitFuture_ThreadInterrupted_ThrowInterruptedException()
+            throws Exception {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                await(future, 10000);
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        waiter.start();
+        sleep(50);
+        waiter.interrupt();
+        waiter.join(1000);
+        assertFalse(waiter.isAlive());
+        assertTrue(error.get() instanceof InterruptedException);
+        assertTrue(future.isCancelled());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ignore) {
+        }
+    }
+}
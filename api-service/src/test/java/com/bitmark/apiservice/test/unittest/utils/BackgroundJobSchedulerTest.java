@@ -0,0 +1,158 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.utils.BackgroundJobScheduler;
+import com.bitmark.apiservice.utils.RejectionPolicy;
+import com.bitmark.cryptography.error.ValidateException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BackgroundJobSchedulerTest {
+
+    @Test
+    public void testExecute_ConcurrentJobs_RunInParallelOnDaemonNamedThreads()
+            throws Exception {
+        final BackgroundJobScheduler scheduler = BackgroundJobScheduler.builder()
+                .withPoolSize(4, 4)
+                .withThreadNamePrefix("test-job")
+                .build();
+        final CountDownLatch started = new CountDownLatch(4);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        try {
+            for (int i = 0; i < 4; i++) {
+                scheduler.execute(() -> {
+                    threads.add(Thread.currentThread());
+                    started.countDown();
+                    await(release);
+                });
+            }
+
+            // all jobs run at once instead of one after the other
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals(4, scheduler.getActiveTaskCount());
+            assertEquals(4, threads.size());
+            for (Thread thread : threads) {
+                assertTrue(thread.isDaemon());
+                assertTrue(thread.getName().startsWith("test-job #"));
+            }
+        } finally {
+            release.countDown();
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecute_QueueFullAbortPolicy_ErrorIsThrow() throws Exception {
+        final BackgroundJobScheduler scheduler = BackgroundJobScheduler.builder()
+                .withPoolSize(1, 1)
+                .withQueueCapacity(1)
+                .withRejectionPolicy(RejectionPolicy.ABORT)
+                .build();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            scheduler.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            scheduler.execute(() -> {
+            });
+            assertEquals(1, scheduler.getQueueSize());
+
+            assertThrows(RejectedExecutionException.class, () -> scheduler.execute(() -> {
+            }));
+            assertEquals(1, scheduler.getRejectedTaskCount());
+        } finally {
+            release.countDown();
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecute_QueueFullCallerRunsPolicy_RunOnCallingThread()
+            throws Exception {
+        final BackgroundJobScheduler scheduler = BackgroundJobScheduler.builder()
+                .withPoolSize(1, 1)
+                .withQueueCapacity(1)
+                .build();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicReference<Thread> runner = new AtomicReference<>();
+        try {
+            scheduler.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            scheduler.execute(() -> {
+            });
+
+            scheduler.execute(() -> runner.set(Thread.currentThread()));
+            assertSame(Thread.currentThread(), runner.get());
+            assertEquals(1, scheduler.getRejectedTaskCount());
+        } finally {
+            release.countDown();
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecute_WorkStealing_JobsCompleted() throws Exception {
+        final BackgroundJobScheduler scheduler = BackgroundJobScheduler.builder()
+                .withWorkStealing(2)
+                .withThreadNamePrefix("test-steal")
+                .build();
+        final CountDownLatch done = new CountDownLatch(100);
+        final Set<String> names = ConcurrentHashMap.newKeySet();
+        try {
+            assertTrue(scheduler.isWorkStealing());
+            for (int i = 0; i < 100; i++) {
+                scheduler.execute(() -> {
+                    names.add(Thread.currentThread().getName());
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            for (String name : names) {
+                assertTrue(name.startsWith("test-steal #"));
+            }
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testBuilder_InvalidPoolSize_ErrorIsThrow() {
+        assertThrows(
+                ValidateException.class,
+                () -> BackgroundJobScheduler.builder().withPoolSize(4, 2)
+        );
+        assertThrows(
+                ValidateException.class,
+                () -> BackgroundJobScheduler.builder().withQueueCapacity(0)
+        );
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
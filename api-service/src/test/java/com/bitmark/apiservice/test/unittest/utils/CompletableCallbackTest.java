@@ -0,0 +1,83 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.utils.RequestHandle;
+import com.bitmark.apiservice.utils.callback.CompletableCallback;
+import com.bitmark.apiservice.utils.error.UnexpectedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompletableCallbackTest {
+
+    @Test
+    public void testCall_CallbackSuccess_FutureIsCompleted() throws Exception {
+        CompletableFuture<String> future = CompletableCallback.call(callback -> callback
+                .onSuccess("txid"));
+        assertTrue(future.isDone());
+        assertEquals("txid", future.get());
+    }
+
+    @Test
+    public void testCall_CallbackError_FutureIsCompletedExceptionally() {
+        UnexpectedException error = new UnexpectedException("error");
+        CompletableFuture<String> future = CompletableCallback.call(callback -> callback
+                .onError(error));
+        assertTrue(future.isCompletedExceptionally());
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertSame(error, e.getCause());
+    }
+
+    @Test
+    public void testCall_CallableThrows_FutureIsCompletedExceptionally() {
+        CompletableFuture<String> future = CompletableCallback.call(callback -> {
+            throw new IllegalArgumentException("invalid params");
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testCall_CompletedFromOtherThread_DependentStageRunsOnThatThread()
+            throws Exception {
+        CountDownLatch attached = new CountDownLatch(1);
+        AtomicReference<Thread> completingThread = new AtomicReference<>();
+        CompletableFuture<Thread> future = CompletableCallback.<String>call(callback -> {
+            Thread thread = new Thread(() -> {
+                try {
+                    attached.await();
+                } catch (InterruptedException ignore) {
+                }
+                callback.onSuccess("txid");
+            });
+            completingThread.set(thread);
+            thread.start();
+        }).thenApply(value -> Thread.currentThread());
+        attached.countDown();
+        assertSame(completingThread.get(), future.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCallCancellable_FutureCancelled_TaskCancelled() {
+        RequestHandle handle = new RequestHandle();
+        CompletableFuture<String> future = CompletableCallback.callCancellable(callback -> {
+            handle.bind(callback);
+            return handle;
+        });
+
+        assertTrue(future.cancel(false));
+        assertTrue(handle.isCancelled());
+        assertTrue(future.isCancelled());
+    }
+}
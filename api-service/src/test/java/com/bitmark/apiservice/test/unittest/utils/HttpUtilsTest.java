@@ -0,0 +1,30 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.utils.HttpUtils;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HttpUtilsTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "/v3/bitmarks, /v3/bitmarks",
+            "/v3/bitmarks?owner=e1&pending=true, /v3/bitmarks",
+            "/v3/bitmarks/8f2a?asset=true&pending=true, /v3/bitmarks",
+            "/v3/txs/8f2a, /v3/txs",
+            "/v3/issue, /v3/issue",
+            "/v3/share-offer?from=a&to=b, /v3/share-offer",
+            "/v3, /v3"
+    })
+    public void testEndpoint_Path_IdsAndQueryAreRemoved(String path, String endpoint) {
+        assertEquals(endpoint, HttpUtils.endpoint(path));
+    }
+}
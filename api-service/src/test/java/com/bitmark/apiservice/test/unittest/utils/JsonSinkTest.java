@@ -0,0 +1,94 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.utils.JsonSink;
+import com.google.gson.Gson;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonSinkTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "name",
+            "quote \" backslash \\ slash /",
+            "new\nline\ttab\rreturn\bback\fform",
+            "source\u0000benchmark\u001f",
+            "caf\u00e9 \u4e2d\u6587 \ud83d\ude00",
+            "separators \u2028 \u2029"
+    })
+    public void testString_Value_ParsedBackUnchanged(String value) throws IOException {
+        final Buffer buffer = new Buffer();
+        new JsonSink(buffer).string(value);
+        final String json = buffer.readUtf8();
+
+        assertEquals(value, new Gson().fromJson(json, String.class));
+        for (char c : json.toCharArray()) {
+            assertFalse(c < 0x20, "control characters are escaped");
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "quote \" backslash \\ slash /",
+            "new\nline\ttab\rreturn\bback\fform",
+            "source\u0000benchmark\u001f",
+            "caf\u00e9 \u4e2d\u6587 \ud83d\ude00",
+            "separators \u2028 \u2029"
+    })
+    public void testStringLength_Value_SameAsWritten(String value) throws IOException {
+        final Buffer buffer = new Buffer();
+        new JsonSink(buffer).string(value);
+        assertEquals(buffer.size(), JsonSink.stringLength(value));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 9, 10, -1, -10, 2147483647, Long.MAX_VALUE, Long.MIN_VALUE})
+    public void testNumberLength_Value_SameAsWritten(long value) throws IOException {
+        final Buffer buffer = new Buffer();
+        new JsonSink(buffer).number(value);
+        assertEquals(buffer.size(), JsonSink.numberLength(value));
+    }
+
+    @Test
+    public void testString_Separator_EscapedAsBefore() throws IOException {
+        final Buffer buffer = new Buffer();
+        new JsonSink(buffer).string("author\u0000test");
+        assertEquals("\"author\\u0000test\"", buffer.readUtf8());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 64, 512, 1500})
+    public void testHex_Bytes_SameAsHexEncoder(int size) throws IOException {
+        final byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        final Buffer buffer = new Buffer();
+        final JsonSink json = new JsonSink(buffer);
+        json.hex(bytes).raw(",").hex(new byte[]{0x0f});
+
+        assertEquals("\"" + HEX.encode(bytes) + "\",\"0f\"", buffer.readUtf8());
+    }
+
+    @Test
+    public void testNullValues_NullWritten() throws IOException {
+        final Buffer buffer = new Buffer();
+        new JsonSink(buffer).string(null).raw(",").hex(null).raw(",").number(null)
+                .raw(",").number(42).raw(",").number(-7L);
+        assertEquals("null,null,null,42,-7", buffer.readUtf8());
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.utils.Address;
+import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.PackWriter;
+import com.bitmark.cryptography.crypto.encoder.VarInt;
+import com.bitmark.cryptography.error.ValidateException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackWriterTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 127, 128, 300, 16384, 123456789, Integer.MAX_VALUE, -1})
+    public void testWriteVarInt_Value_SameAsVarInt(int value) {
+        assertArrayEquals(
+                VarInt.writeUnsignedVarInt(value),
+                new PackWriter(1).writeVarInt(value).toByteArray()
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "name",
+            "source\u0000benchmark",
+            "caf\u00e9 \u4e2d\u6587",
+            "emoji \ud83d\ude00",
+            "unpaired \ud83d surrogate \ude00"
+    })
+    public void testWritePrefixedString_Value_SameAsBinaryPacking(String value) {
+        assertArrayEquals(
+                BinaryPacking.concat(value, new byte[0]),
+                new PackWriter(1).writePrefixedString(value).toByteArray()
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"00", "0a1B", "abc", "f", "0123456789abcdefABCDEF"})
+    public void testWritePrefixedHex_Value_SameAsBinaryPacking(String value) {
+        assertArrayEquals(
+                BinaryPacking.concat(HEX.decode(value), new byte[0]),
+                new PackWriter(1).writePrefixedHex(value).toByteArray()
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "0g", "12 4", "\uff10\uff11"})
+    public void testWritePrefixedHex_InvalidHex_ErrorIsThrow(String value) {
+        assertThrows(
+                ValidateException.InvalidHex.class,
+                () -> new PackWriter().writePrefixedHex(value)
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "fXXHGtCdFPuQvNhJ4nDPKCdwPxH7aSZ4842n2katZi319NsaCs",
+            "f7nuKToBByL3jEcArZWoB9PJ8MVmGPjrYkW88v3Yw8p7G5Sxhy"
+    })
+    public void testWritePrefixedAddress_Address_SameAsBinaryPacking(String accountNumber) {
+        final Address address = Address.fromAccountNumber(accountNumber);
+        assertArrayEquals(
+                BinaryPacking.concat(address.pack(), new byte[0]),
+                new PackWriter(1).writePrefixedAddress(address).toByteArray()
+        );
+    }
+
+    @Test
+    public void testLocal_SameThread_WriterReusedAndReset() {
+        final PackWriter writer = PackWriter.local().writeBytes(new byte[100]);
+        assertEquals(100, writer.size());
+
+        assertSame(writer, PackWriter.local());
+        assertEquals(0, writer.size());
+        assertArrayEquals(new byte[]{1, 2}, writer.writeByte(1).writeByte(2).toByteArray());
+    }
+
+    @Test
+    public void testLocal_LargeRecord_BufferNotRetained() {
+        final PackWriter writer = PackWriter.local().writeBytes(new byte[64 * 1024]);
+        assertNotSame(writer, PackWriter.local());
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.ApiService;
+import com.bitmark.apiservice.AsyncApiService;
+import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.configuration.RetryPolicy;
+import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.params.query.QueryParams;
+import com.bitmark.apiservice.response.GetBitmarksResponse;
+import com.bitmark.apiservice.utils.Address;
+import com.bitmark.apiservice.utils.RequestHandle;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.callback.CompletableCallback;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.cryptography.crypto.key.Ed25519KeyPair;
+import com.bitmark.cryptography.crypto.key.KeyPair;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestHandleTest {
+
+    private static final KeyPair KEY = Ed25519KeyPair.from(
+            HEX.decode(
+                    "d1c177ef358e9d1f0d4b09328cc1213e8d3580703aee51ccf97e482be977f7bc"),
+            HEX.decode(
+                    "b0e77f0a27390a00e82c07d6d228999019dce17aa3fbc1958629a7a47bc1cf6dd1c177ef358e9d1f0d4b09328cc1213e8d3580703aee51ccf97e482be977f7bc")
+    );
+
+    private MockWebServer server;
+
+    private OkHttpClient shared;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        shared = new OkHttpClient();
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testCancel_BoundCallback_CancellationDeliveredOnce() {
+        final RequestHandle handle = new RequestHandle();
+        final CompletableCallback<String> callback = new CompletableCallback<>();
+        final Callback1<String> bound = handle.bind(callback);
+        final AtomicInteger cancelled = new AtomicInteger();
+        assertTrue(handle.attach(cancelled::incrementAndGet));
+
+        handle.cancel();
+        handle.cancel();
+        bound.onSuccess("late");
+
+        assertTrue(handle.isCancelled());
+        assertEquals(1, cancelled.get());
+        assertThrows(CancellationException.class, callback::get);
+    }
+
+    @Test
+    public void testAttach_CancelledHandle_ActionRunRightAway() {
+        final RequestHandle handle = new RequestHandle();
+        final AtomicInteger cancelled = new AtomicInteger();
+        handle.cancel();
+
+        assertFalse(handle.attach(cancelled::incrementAndGet));
+        assertEquals(1, cancelled.get());
+    }
+
+    @Test
+    public void testCancel_CompletedCall_NotCancelled() throws Exception {
+        final RequestHandle handle = new RequestHandle(50, TimeUnit.MILLISECONDS);
+        final CompletableCallback<String> callback = new CompletableCallback<>();
+        handle.bind(callback).onSuccess("txid");
+
+        Thread.sleep(100);
+        handle.cancel();
+        assertFalse(handle.isCancelled());
+        assertEquals("txid", callback.get());
+    }
+
+    @Test
+    public void testCancelFuture_RequestInFlight_CallCancelled() throws Exception {
+        server.enqueue(new MockResponse()
+                .setBody("{\"bitmarks\":[]}")
+                .setBodyDelay(2, TimeUnit.SECONDS));
+        final CompletableFuture<?> future = new AsyncApiService(api())
+                .getBitmark("bitmark", false);
+        server.takeRequest(5, TimeUnit.SECONDS);
+        assertEquals(1, shared.dispatcher().runningCallsCount());
+
+        assertTrue(future.cancel(false));
+
+        awaitNoRunningCalls();
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void testDeadline_IssueBitmark_DeadlineCoversBothRequests() throws Exception {
+        server.enqueue(new MockResponse()
+                .setBody("{\"bitmarks\":[]}")
+                .setBodyDelay(200, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse()
+                .setBody("{\"bitmarks\":[]}")
+                .setBodyDelay(2, TimeUnit.SECONDS));
+        final IssuanceParams params = new IssuanceParams(
+                "0e0b4e3bd771811d35a23707ba6197aa1dd5937439a221eaf8e7909309e7b31b6c0e06a1001c261a099abf04c560199db898bc154cf128aa9efa5efd36030c64",
+                Address.fromAccountNumber(
+                        "fXXHGtCdFPuQvNhJ4nDPKCdwPxH7aSZ4842n2katZi319NsaCs"),
+                1
+        );
+        params.sign(KEY);
+        final CompletableCallback<List<BitmarkRecord>> callback =
+                new CompletableCallback<>();
+
+        final long start = System.nanoTime();
+        api().withDeadline(500, TimeUnit.MILLISECONDS).issueBitmark(params, callback);
+
+        ExecutionException e = assertThrows(
+                ExecutionException.class,
+                () -> callback.get(5, TimeUnit.SECONDS)
+        );
+        assertTrue(e.getCause() instanceof TimeoutException);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(2, server.getRequestCount());
+        awaitNoRunningCalls();
+    }
+
+    @Test
+    public void testDeadline_CircuitBreakerTrial_NextRequestIsNewTrial()
+            throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse()
+                .setBody("{\"bitmarks\":[]}")
+                .setBodyDelay(2, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setBody("{\"bitmarks\":[]}"));
+        final ApiService api = new ApiService(GlobalConfiguration.builder()
+                .withApiToken("token")
+                .withEndpoint(server.url("/").toString())
+                .withOkHttpClient(shared)
+                .withRetryPolicy(RetryPolicy.NONE)
+                .withCircuitBreaker(1, 100, TimeUnit.MILLISECONDS)
+                .toClientConfiguration());
+
+        final QueryParams query = new BitmarkQueryBuilder().build();
+        final CompletableCallback<GetBitmarksResponse> failed =
+                new CompletableCallback<>();
+        api.listBitmarks(query, failed);
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        Thread.sleep(150);
+
+        // the trial request hits its deadline
+        final CompletableCallback<GetBitmarksResponse> trial =
+                new CompletableCallback<>();
+        api.withDeadline(200, TimeUnit.MILLISECONDS).listBitmarks(query, trial);
+        ExecutionException e = assertThrows(
+                ExecutionException.class,
+                () -> trial.get(5, TimeUnit.SECONDS)
+        );
+        assertTrue(e.getCause() instanceof TimeoutException);
+        awaitNoRunningCalls();
+
+        final CompletableCallback<GetBitmarksResponse> next =
+                new CompletableCallback<>();
+        api.listBitmarks(query, next);
+        assertTrue(next.get(5, TimeUnit.SECONDS).getBitmarks().isEmpty());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    private ApiService api() {
+        return new ApiService(GlobalConfiguration.builder()
+                .withApiToken("token")
+                .withEndpoint(server.url("/").toString())
+                .withOkHttpClient(shared)
+                .withRetryPolicy(RetryPolicy.NONE)
+                .toClientConfiguration());
+    }
+
+    private void awaitNoRunningCalls() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (shared.dispatcher().runningCallsCount() > 0 &&
+                System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, shared.dispatcher().runningCallsCount());
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.apiservice.test.unittest.utils;
+
+import com.bitmark.apiservice.utils.RequestHandle;
+import com.bitmark.apiservice.utils.SingleFlight;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.callback.CompletableCallback;
+import com.bitmark.apiservice.utils.error.UnexpectedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testExecute_ConcurrentSameKey_OneCallSharedResult() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger calls = new AtomicInteger();
+        AtomicReference<Callback1<Object>> pending = new AtomicReference<>();
+        List<CompletableCallback<Object>> callbacks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            CompletableCallback<Object> callback = new CompletableCallback<>();
+            callbacks.add(callback);
+            singleFlight.execute("GET /v3/bitmarks/1", cb -> {
+                calls.incrementAndGet();
+                pending.set(cb);
+            }, callback);
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.inFlightCount());
+
+        Object result = new Object();
+        pending.get().onSuccess(result);
+        for (CompletableCallback<Object> callback : callbacks) {
+            assertSame(result, callback.get());
+        }
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    public void testExecute_DifferentKeys_SeparateCalls() {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger calls = new AtomicInteger();
+        singleFlight.execute("GET /v3/bitmarks/1", cb -> calls.incrementAndGet(),
+                new CompletableCallback<>()
+        );
+        singleFlight.execute("GET /v3/bitmarks/2", cb -> calls.incrementAndGet(),
+                new CompletableCallback<>()
+        );
+        assertEquals(2, calls.get());
+        assertEquals(2, singleFlight.inFlightCount());
+    }
+
+    @Test
+    public void testExecute_CallCompleted_NextCallIsNotShared() {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            singleFlight.execute("GET /v3/bitmarks/1", cb -> {
+                calls.incrementAndGet();
+                cb.onSuccess("bitmark");
+            }, new CompletableCallback<>());
+        }
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testExecute_Error_AllCallbacksReceiveError() {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicReference<Callback1<String>> pending = new AtomicReference<>();
+        CompletableCallback<String> first = new CompletableCallback<>();
+        CompletableCallback<String> second = new CompletableCallback<>();
+        singleFlight.execute("GET /v3/bitmarks/1", pending::set, first);
+        singleFlight.execute("GET /v3/bitmarks/1", pending::set, second);
+
+        UnexpectedException error = new UnexpectedException("error");
+        pending.get().onError(error);
+        assertSame(error, assertThrows(ExecutionException.class, first::get).getCause());
+        assertSame(error, assertThrows(ExecutionException.class, second::get).getCause());
+    }
+
+    @Test
+    public void testExecute_ThrowingCallback_OtherCallbacksNotified() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicReference<Callback1<String>> pending = new AtomicReference<>();
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        CompletableCallback<String> second = new CompletableCallback<>();
+        singleFlight.execute("GET /v3/bitmarks/1", pending::set, new Callback1<String>() {
+            @Override
+            public void onSuccess(String data) {
+                throw new IllegalStateException("first");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                firstError.set(throwable);
+                throw new IllegalStateException("first again");
+            }
+        });
+        singleFlight.execute("GET /v3/bitmarks/1", pending::set, second);
+
+        pending.get().onSuccess("bitmark");
+        assertEquals("bitmark", second.get());
+        assertTrue(firstError.get() instanceof IllegalStateException);
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    public void testExecute_CallableThrows_CallbackReceivesErrorAndKeyIsReleased() {
+        SingleFlight singleFlight = new SingleFlight();
+        CompletableCallback<String> callback = new CompletableCallback<>();
+        singleFlight.execute("GET /v3/bitmarks/1", cb -> {
+            throw new IllegalStateException();
+        }, callback);
+        assertTrue(callback.isCompletedExceptionally());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    public void testLeave_AllCallersLeft_FlightCancelled() {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicReference<RequestHandle> flight = new AtomicReference<>();
+        CompletableCallback<String> first = new CompletableCallback<>();
+        CompletableCallback<String> second = new CompletableCallback<>();
+        Runnable leaveFirst = singleFlight.<String>execute(
+                "GET /v3/bitmarks/1",
+                (handle, cb) -> flight.set(handle),
+                first
+        );
+        Runnable leaveSecond = singleFlight.<String>execute(
+                "GET /v3/bitmarks/1",
+                (handle, cb) -> fail("the call is shared"),
+                second
+        );
+
+        leaveFirst.run();
+        assertFalse(flight.get().isCancelled());
+        assertEquals(1, singleFlight.inFlightCount());
+
+        leaveSecond.run();
+        assertTrue(flight.get().isCancelled());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+}
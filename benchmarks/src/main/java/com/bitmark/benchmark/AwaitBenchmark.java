@@ -0,0 +1,147 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.benchmark;
+
+import com.bitmark.apiservice.utils.Awaitility;
+import com.bitmark.apiservice.utils.Data;
+import com.bitmark.apiservice.utils.callback.Callable1;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * CPU time burnt by {@code waiters} threads that each wait {@link #LATENCY_MS} for a
+ * response, with the parking {@link Awaitility} and with the previous busy-spin wait.
+ * The {@code cpuMs} counter is the process CPU time burnt during the iteration, divided by
+ * {@code rounds} it is the CPU time of one round, ideally close to 0.
+ * <p>
+ * Run with {@code ./gradlew :benchmarks:jmh -Pjmh="AwaitBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AwaitBenchmark {
+
+    private static final long LATENCY_MS = 200;
+
+    @Param({"1", "8", "32"})
+    public int waiters;
+
+    private ExecutorService callers;
+
+    private ScheduledExecutorService network;
+
+    @Setup
+    public void setup() {
+        callers = Executors.newFixedThreadPool(waiters);
+        network = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        callers.shutdownNow();
+        network.shutdownNow();
+    }
+
+    @Benchmark
+    public void parking(CpuCounter counter) throws Exception {
+        round(counter, callable -> Awaitility.await(callable));
+    }
+
+    @Benchmark
+    public void spinning(CpuCounter counter) throws Exception {
+        round(counter, SpinAwaitility::await);
+    }
+
+    private void round(CpuCounter counter, Waiter waiter) throws Exception {
+        final long start = processCpuTime();
+        final List<Future<?>> futures = new ArrayList<>(waiters);
+        for (int i = 0; i < waiters; i++) {
+            futures.add(callers.submit(() -> {
+                try {
+                    waiter.await(callback -> network.schedule(
+                            () -> callback.onSuccess("txid"),
+                            LATENCY_MS,
+                            TimeUnit.MILLISECONDS
+                    ));
+                } catch (Throwable e) {
+                    throw new CompletionException(e);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        counter.cpuMs += TimeUnit.NANOSECONDS.toMillis(processCpuTime() - start);
+        counter.rounds++;
+    }
+
+    private static long processCpuTime() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory
+                .getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CpuCounter {
+
+        public long cpuMs;
+
+        public long rounds;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            cpuMs = 0;
+            rounds = 0;
+        }
+    }
+
+    private interface Waiter {
+
+        String await(Callable1<String> callable) throws Throwable;
+    }
+
+    /**
+     * The waiting loop of {@link Awaitility} before it was changed to park the thread.
+     */
+    private static final class SpinAwaitility {
+
+        static String await(Callable1<String> callable) throws Throwable {
+            Data<String> data = new Data<>();
+            Data<Throwable> error = new Data<>();
+            callable.call(new Callback1<String>() {
+                @Override
+                public void onSuccess(String value) {
+                    data.setValue(value);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    error.setValue(throwable);
+                }
+            });
+
+            long timeStart = System.currentTimeMillis();
+            while (data.getValue() == null && error.getValue() == null) {
+                if (System.currentTimeMillis() - timeStart >= 20000) {
+                    throw new TimeoutException();
+                }
+            }
+            if (data.getValue() != null) {
+                return data.getValue();
+            }
+            throw error.getValue();
+        }
+    }
+}
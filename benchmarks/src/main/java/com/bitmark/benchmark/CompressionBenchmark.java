@@ -0,0 +1,268 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.benchmark;
+
+import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.middleware.BitmarkApiInterceptor;
+import com.bitmark.apiservice.middleware.Converter;
+import com.bitmark.apiservice.middleware.GzipRequestInterceptor;
+import okhttp3.*;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.net.ServerSocketFactory;
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the latency and the bytes on the wire of a bitmark list and a batch issuance
+ * against a local stand-in server, with and without compression. The server gzips the
+ * response only if the request accepts it, as the API does. Without compression the
+ * client asks for {@code identity}, which is what the former {@code Accept-Encoding: *}
+ * got from the server.
+ * <p>
+ * {@code bytesPerSecond} throttles the response bodies to simulate a slow link, 0 means
+ * loopback speed. The {@code requestBytes}, {@code responseBytes} and {@code calls}
+ * counters are totals per iteration, divide them by {@code calls} for bytes per call.
+ * <p>
+ * Run with {@code ./gradlew :benchmarks:jmh -Pjmh="CompressionBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final MediaType JSON = MediaType.parse(
+            "application/json; charset=utf-8");
+
+    @Param({"true", "false"})
+    public boolean compression;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    @Param({"0", "1000000"})
+    public long bytesPerSecond;
+
+    private MockWebServer server;
+
+    private OkHttpClient client;
+
+    private byte[] issueBody;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Traffic {
+
+        public long requestBytes;
+
+        public long responseBytes;
+
+        public long calls;
+
+        void record(Response response) throws IOException {
+            Response network = response.networkResponse();
+            RequestBody body = network.request().body();
+            if (body != null) {
+                requestBytes += body.contentLength();
+            }
+            String length = network.header("Content-Length");
+            if (length != null) {
+                responseBytes += Long.parseLong(length);
+            }
+            calls++;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        if (!GlobalConfiguration.isInitialized()) {
+            GlobalConfiguration.builder().withApiToken("benchmark").build();
+        }
+        final Buffer bitmarks = new Buffer().writeUtf8(Payloads.bitmarksResponse(size, 10));
+        final Buffer issued = new Buffer().writeUtf8(Payloads.issueResponse(size));
+        final Buffer gzippedBitmarks = gzip(bitmarks.clone());
+        final Buffer gzippedIssued = gzip(issued.clone());
+        issueBody = Payloads.issueRequest(size).getBytes("UTF-8");
+
+        // the responses are compressed up front, only the client side cost is measured
+        server = new MockWebServer();
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                final boolean list = request.getPath().startsWith("/v3/bitmarks");
+                final String acceptEncoding = request.getHeader("Accept-Encoding");
+                // drain the request body before responding
+                request.getBody().clear();
+                if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                    return response((list ? gzippedBitmarks : gzippedIssued).clone())
+                            .setHeader("Content-Encoding", "gzip");
+                }
+                return response((list ? bitmarks : issued).clone());
+            }
+        });
+        server.start();
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .socketFactory(new NoDelaySocketFactory())
+                .addInterceptor(new BitmarkApiInterceptor(GlobalConfiguration.apiToken()));
+        if (compression) {
+            builder.addInterceptor(new GzipRequestInterceptor(1024));
+        } else {
+            builder.addInterceptor(chain -> chain.proceed(chain.request()
+                    .newBuilder()
+                    .header("Accept-Encoding", "identity")
+                    .build()));
+        }
+        client = builder.build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public void listBitmarks(Traffic traffic, Blackhole bh) throws IOException {
+        Response response = client.newCall(new Request.Builder()
+                .url(server.url("/v3/bitmarks?limit=" + size))
+                .build()).execute();
+        traffic.record(response);
+        Converter.toGetBitmarksResponse(ConverterBenchmark.consume(bh))
+                .onSuccess(response);
+    }
+
+    @Benchmark
+    public void issue(Traffic traffic, Blackhole bh) throws IOException {
+        Response response = client.newCall(new Request.Builder()
+                .url(server.url("/v3/issue"))
+                .post(RequestBody.create(JSON, issueBody))
+                .build()).execute();
+        traffic.record(response);
+        Converter.toIssueResponse(ConverterBenchmark.consume(bh)).onSuccess(response);
+    }
+
+    private MockResponse response(Buffer body) {
+        MockResponse response = new MockResponse().setHeader(
+                "Content-Type",
+                "application/json; charset=utf-8"
+        ).setBody(body);
+        if (bytesPerSecond > 0) {
+            response.throttleBody(bytesPerSecond / 100, 10, TimeUnit.MILLISECONDS);
+        }
+        return response;
+    }
+
+    /**
+     * Disable Nagle's algorithm on the client side, so the delayed acknowledgement of the
+     * loopback interface does not add a fixed 40ms to the requests with a body.
+     */
+    private static final class NoDelaySocketFactory extends SocketFactory {
+
+        @Override
+        public Socket createSocket() throws IOException {
+            Socket socket = new Socket();
+            socket.setTcpNoDelay(true);
+            return socket;
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Socket createSocket(
+                String host,
+                int port,
+                InetAddress localAddress,
+                int localPort
+        ) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Socket createSocket(
+                InetAddress address,
+                int port,
+                InetAddress localAddress,
+                int localPort
+        ) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Same as {@link NoDelaySocketFactory} for the sockets accepted by the server.
+     */
+    private static final class NoDelayServerSocketFactory extends ServerSocketFactory {
+
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(
+                int port,
+                int backlog,
+                InetAddress address
+        ) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static Buffer gzip(Buffer body) {
+        Buffer buffer = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            sink.writeAll(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return buffer;
+    }
+}
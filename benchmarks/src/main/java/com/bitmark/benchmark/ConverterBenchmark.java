@@ -0,0 +1,176 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.benchmark;
+
+import com.bitmark.apiservice.middleware.Converter;
+import com.bitmark.apiservice.response.GetBitmarksResponse;
+import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
+import okhttp3.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the streaming {@link Converter} with the previous String based decoding path,
+ * which buffered the body to a String, parsed it to a Map, converted it back to a JSON tree
+ * and re-parsed every element.
+ * <p>
+ * Run with {@code ./gradlew :benchmarks:jmh -Pjmh="ConverterBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConverterBenchmark {
+
+    private static final MediaType JSON = MediaType.parse(
+            "application/json; charset=utf-8");
+
+    private static final Request REQUEST = new Request.Builder().url(
+            "http://localhost/v3/bitmarks").build();
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private byte[] issueBody;
+
+    private byte[] bitmarksBody;
+
+    @Setup
+    public void setup() {
+        issueBody = Payloads.issueResponse(size).getBytes(Charset.forName("UTF-8"));
+        bitmarksBody = Payloads.bitmarksResponse(size, 1)
+                .getBytes(Charset.forName("UTF-8"));
+    }
+
+    @Benchmark
+    public void issueResponseStreaming(Blackhole bh) {
+        Converter.toIssueResponse(consume(bh)).onSuccess(response(issueBody));
+    }
+
+    @Benchmark
+    public void issueResponseLegacy(Blackhole bh) {
+        LegacyConverter.toIssueResponse(consume(bh)).onSuccess(response(issueBody));
+    }
+
+    @Benchmark
+    public void bitmarksResponseStreaming(Blackhole bh) {
+        Converter.toGetBitmarksResponse(consume(bh))
+                .onSuccess(response(bitmarksBody));
+    }
+
+    @Benchmark
+    public void bitmarksResponseLegacy(Blackhole bh) {
+        LegacyConverter.toGetBitmarksResponse(consume(bh))
+                .onSuccess(response(bitmarksBody));
+    }
+
+    private static Response response(byte[] body) {
+        return new Response.Builder().request(REQUEST)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(JSON, body))
+                .build();
+    }
+
+    static <T> Callback1<T> consume(Blackhole bh) {
+        return new Callback1<T>() {
+            @Override
+            public void onSuccess(T data) {
+                bh.consume(data);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new IllegalStateException(throwable);
+            }
+        };
+    }
+
+    /**
+     * The decoding path of {@link Converter} before it was changed to stream the body.
+     */
+    private static final class LegacyConverter {
+
+        private static final Gson GSON = new GsonBuilder().create();
+
+        static Callback1<Response> toIssueResponse(Callback1<List<BitmarkRecord>> callback) {
+            return new Callback1<Response>() {
+                @Override
+                public void onSuccess(Response res) {
+                    try {
+                        String raw = res.body().string();
+                        Map<String, Object> mapJson = jsonToMap(raw);
+                        JsonArray jsonArray = GSON.toJsonTree(mapJson.get("bitmarks"))
+                                .getAsJsonArray();
+                        List<BitmarkRecord> records = new ArrayList<>(jsonArray.size());
+                        for (JsonElement jsonElement : jsonArray) {
+                            records.add(GSON.fromJson(
+                                    jsonElement.toString(),
+                                    BitmarkRecord.class
+                            ));
+                        }
+                        callback.onSuccess(records);
+                    } catch (Throwable e) {
+                        callback.onError(e);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    callback.onError(throwable);
+                }
+            };
+        }
+
+        static Callback1<Response> toGetBitmarksResponse(
+                Callback1<GetBitmarksResponse> callback
+        ) {
+            return new Callback1<Response>() {
+                @Override
+                public void onSuccess(Response res) {
+                    try {
+                        String raw = res.body().string();
+                        callback.onSuccess(GSON.fromJson(
+                                raw,
+                                GetBitmarksResponse.class
+                        ));
+                    } catch (Throwable e) {
+                        callback.onError(e);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    callback.onError(throwable);
+                }
+            };
+        }
+
+        private static Map<String, Object> jsonToMap(String json) {
+            return new GsonBuilder().create().fromJson(
+                    json,
+                    new TypeToken<Map<String, Object>>() {
+                    }.getType()
+            );
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.benchmark;
+
+import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.utils.callback.CompletableCallback;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.sdk.features.Account;
+import com.bitmark.sdk.features.Bitmark;
+import com.bitmark.testfixtures.Ledger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issue {@code size} bitmarks of an asset with {@link Bitmark#issue}, signing included,
+ * against the local {@link com.bitmark.testfixtures.BitmarkApiServer}.
+ * <p>
+ * Run with {@code ./gradlew :benchmarks:jmh -Pjmh="IssueBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IssueBenchmark {
+
+    @Param({"10", "100"})
+    public int size;
+
+    private Account issuer;
+
+    private String assetId;
+
+    @Setup
+    public void setup() {
+        final Ledger ledger = LocalApi.ledger();
+        issuer = new Account();
+        assetId = ledger.registerAsset(
+                issuer.getAccountNumber(),
+                "issue benchmark",
+                Collections.singletonMap("source", "benchmark"),
+                "01" + Payloads.hash(size)
+        );
+        ledger.mineBlock();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        LocalApi.close();
+    }
+
+    @Benchmark
+    public List<BitmarkRecord> issue() {
+        final IssuanceParams params = new IssuanceParams(assetId, issuer.toAddress(), size);
+        params.setSigningKey(issuer.getAuthKeyPair());
+        return CompletableCallback.<List<BitmarkRecord>>call(
+                callback -> Bitmark.issue(params, callback)).join();
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.benchmark;
+
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.sdk.features.Account;
+import com.bitmark.sdk.features.Bitmark;
+import com.bitmark.testfixtures.Ledger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * List all {@code size} bitmarks of an account with {@link Bitmark#listAll}, 100 per page,
+ * from the local {@link com.bitmark.testfixtures.BitmarkApiServer}.
+ * <p>
+ * Run with {@code ./gradlew :benchmarks:jmh -Pjmh="ListBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ListBenchmark {
+
+    private static final int BITMARKS_PER_ASSET = 1000;
+
+    @Param({"100000"})
+    public int size;
+
+    private String owner;
+
+    @Setup
+    public void setup() {
+        final Ledger ledger = LocalApi.ledger();
+        owner = new Account().getAccountNumber();
+        ledger.seed(owner, size / BITMARKS_PER_ASSET, BITMARKS_PER_ASSET);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        LocalApi.close();
+    }
+
+    @Benchmark
+    public long listAll() {
+        return Bitmark.listAll(new BitmarkQueryBuilder().ownedBy(owner).limit(100))
+                .count();
+    }
+}
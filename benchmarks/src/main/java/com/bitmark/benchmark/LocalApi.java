@@ -0,0 +1,55 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.benchmark;
+
+import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.configuration.Network;
+import com.bitmark.sdk.features.BitmarkSDK;
+import com.bitmark.testfixtures.BitmarkApiServer;
+import com.bitmark.testfixtures.Ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The local {@link BitmarkApiServer} the end-to-end benchmarks run against. It is started
+ * the first time it is used and the SDK is initialized to use it. Since
+ * {@link GlobalConfiguration} can only be created once, each benchmark needs its own fork.
+ */
+final class LocalApi {
+
+    private static BitmarkApiServer server;
+
+    private LocalApi() {
+    }
+
+    static synchronized Ledger ledger() {
+        if (server == null) {
+            server = BitmarkApiServer.builder().build();
+            try {
+                server.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            BitmarkSDK.init(GlobalConfiguration.builder()
+                    .withApiToken("bmk-benchmark")
+                    .withNetwork(Network.TEST_NET)
+                    .withEndpoint(server.getEndpoint())
+                    .withWebSocketEndpoint(server.getWebSocketEndpoint()));
+        }
+        return server.getLedger();
+    }
+
+    /**
+     * Stop the server, its threads would keep the forked JVM from exiting.
+     */
+    static synchronized void close() throws IOException {
+        if (server != null) {
+            server.close();
+        }
+    }
+}
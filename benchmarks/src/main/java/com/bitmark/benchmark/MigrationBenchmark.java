@@ -0,0 +1,63 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.benchmark;
+
+import com.bitmark.apiservice.utils.callback.CompletableCallback;
+import com.bitmark.sdk.features.Account;
+import com.bitmark.sdk.features.Migration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rekey an account holding {@code size} settled bitmarks to a new account with
+ * {@link Migration#rekey}: list, offer and accept every bitmark against the local
+ * {@link com.bitmark.testfixtures.BitmarkApiServer}. Both accounts and the bitmarks are
+ * created before each invocation, outside of the measurement.
+ * <p>
+ * Run with {@code ./gradlew :benchmarks:jmh -Pjmh="MigrationBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MigrationBenchmark {
+
+    @Param({"10", "100"})
+    public int size;
+
+    private Account from;
+
+    private Account to;
+
+    @Setup
+    public void setup() {
+        LocalApi.ledger();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        LocalApi.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void seed() {
+        from = new Account();
+        to = new Account();
+        LocalApi.ledger().seed(from.getAccountNumber(), 1, size);
+    }
+
+    @Benchmark
+    public List<String> rekey() {
+        return CompletableCallback.<List<String>>call(
+                callback -> Migration.rekey(from, to, callback)).join();
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.benchmark;
+
+import com.bitmark.apiservice.params.RegistrationParams;
+import com.bitmark.apiservice.utils.Address;
+import com.bitmark.apiservice.utils.ArrayUtil;
+import com.bitmark.apiservice.utils.BinaryPacking;
+import com.bitmark.apiservice.utils.PackWriter;
+import com.bitmark.cryptography.crypto.encoder.VarInt;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
+
+/**
+ * Compare {@link PackWriter} with the previous packing of the signed records, which
+ * allocated a new array for every field appended with {@link BinaryPacking} and
+ * {@link ArrayUtil}. The records are packed the way {@code RegistrationParams},
+ * {@code TransferParams} and {@code IssuanceParams} pack them. The allocation per record
+ * is the {@code gc.alloc.rate.norm} of the gc profiler.
+ * <p>
+ * Run with {@code ./gradlew :benchmarks:jmh -Pjmh="PackingBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackingBenchmark {
+
+    private static final Address OWNER = Address.fromAccountNumber(
+            "fXXHGtCdFPuQvNhJ4nDPKCdwPxH7aSZ4842n2katZi319NsaCs");
+
+    private static final String ASSET_ID = HEX.encode(new byte[64]);
+
+    private static final String LINK = HEX.encode(new byte[32]);
+
+    private static final String NAME = "benchmark asset";
+
+    private static final String FINGERPRINT = "01" + HEX.encode(new byte[64]);
+
+    private static final String METADATA = RegistrationParams.getPackedMetadata(
+            Collections.singletonMap("source", "benchmark"));
+
+    @Benchmark
+    public byte[] registrationConcat() {
+        byte[] data = VarInt.writeUnsignedVarInt(0x02);
+        data = BinaryPacking.concat(NAME, data);
+        data = BinaryPacking.concat(FINGERPRINT, data);
+        data = BinaryPacking.concat(METADATA, data);
+        data = BinaryPacking.concat(OWNER.pack(), data);
+        return data;
+    }
+
+    @Benchmark
+    public byte[] registrationPackWriter() {
+        return PackWriter.local()
+                .writeVarInt(0x02)
+                .writePrefixedString(NAME)
+                .writePrefixedString(FINGERPRINT)
+                .writePrefixedString(METADATA)
+                .writePrefixedAddress(OWNER)
+                .toByteArray();
+    }
+
+    @Benchmark
+    public byte[] transferConcat() {
+        byte[] data = VarInt.writeUnsignedVarInt(0x04);
+        data = BinaryPacking.concat(HEX.decode(LINK), data);
+        data = ArrayUtil.concat(data, new byte[]{0x00});
+        data = BinaryPacking.concat(OWNER.pack(), data);
+        return data;
+    }
+
+    @Benchmark
+    public byte[] transferPackWriter() {
+        return PackWriter.local()
+                .writeVarInt(0x04)
+                .writePrefixedHex(LINK)
+                .writeByte(0x00)
+                .writePrefixedAddress(OWNER)
+                .toByteArray();
+    }
+
+    @Benchmark
+    public byte[] issuanceConcat() {
+        byte[] data = VarInt.writeUnsignedVarInt(0x03);
+        data = BinaryPacking.concat(HEX.decode(ASSET_ID), data);
+        data = BinaryPacking.concat(OWNER.pack(), data);
+        data = ArrayUtil.concat(data, VarInt.writeUnsignedVarInt(123456789));
+        return data;
+    }
+
+    @Benchmark
+    public byte[] issuancePackWriter() {
+        return PackWriter.local()
+                .writeVarInt(0x03)
+                .writePrefixedHex(ASSET_ID)
+                .writePrefixedAddress(OWNER)
+                .writeVarInt(123456789)
+                .toByteArray();
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.benchmark;
+
+import com.bitmark.apiservice.paging.PageIterator;
+import com.bitmark.apiservice.paging.PagingPolicy;
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.params.query.QueryParams;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Export a list of {@code PAGES} pages of 100 records, with a page latency of
+ * {@code latencyMs} and a consumer that spends {@code consumerMs} per page. Without
+ * prefetching the export takes the sum of both per page, with prefetching the larger one.
+ * <p>
+ * Run with {@code ./gradlew :benchmarks:jmh -Pjmh="PagingBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PagingBenchmark {
+
+    private static final int PAGES = 20;
+
+    private static final int LIMIT = 100;
+
+    @Param({"0", "1", "4"})
+    public int prefetch;
+
+    @Param({"10"})
+    public int latencyMs;
+
+    @Param({"5", "10"})
+    public int consumerMs;
+
+    private ScheduledExecutorService server;
+
+    private PagingPolicy policy;
+
+    @Setup
+    public void setup() {
+        server = Executors.newSingleThreadScheduledExecutor();
+        policy = PagingPolicy.builder().withPrefetch(prefetch).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.shutdownNow();
+    }
+
+    @Benchmark
+    public void export(Blackhole bh) {
+        final long recordNanos = TimeUnit.MILLISECONDS.toNanos(consumerMs) / LIMIT;
+        PageIterator<Long> iterator = new PageIterator<>(
+                new BitmarkQueryBuilder().limit(LIMIT),
+                this::fetch,
+                Long::longValue,
+                policy
+        );
+        while (iterator.hasNext()) {
+            bh.consume(iterator.next());
+            LockSupport.parkNanos(recordNanos);
+        }
+    }
+
+    /**
+     * The offsets {@code PAGES * LIMIT} down to 1, listed from the latest one.
+     */
+    private CompletableFuture<List<Long>> fetch(QueryParams params) {
+        long at = PAGES * LIMIT + 1;
+        for (String pair : params.toUrlQuery().split("&")) {
+            if (pair.startsWith("at=")) {
+                at = Long.parseLong(pair.substring(3));
+            }
+        }
+        List<Long> page = new ArrayList<>(LIMIT);
+        for (long offset = at - 1; offset > 0 && page.size() < LIMIT; offset--) {
+            page.add(offset);
+        }
+        CompletableFuture<List<Long>> future = new CompletableFuture<>();
+        server.schedule(() -> future.complete(page), latencyMs, TimeUnit.MILLISECONDS);
+        return future;
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.benchmark;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Synthetic API response bodies, shaped like the real `/v3` responses.
+ */
+final class Payloads {
+
+    private static final String OWNER =
+            "ec6yMcJATX6gjNwvqp8rbc4jNEasoUgbfBBGGyV5NvoJ54NXva";
+
+    private Payloads() {
+    }
+
+    static String issueResponse(int size) {
+        StringBuilder builder = new StringBuilder("{\"bitmarks\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"id\":\"").append(hash(i)).append("\"}");
+        }
+        return builder.append("]}").toString();
+    }
+
+    static String bitmarksResponse(int size, int assetCount) {
+        StringBuilder builder = new StringBuilder("{\"bitmarks\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            appendBitmark(builder, i, i % assetCount);
+        }
+        builder.append("],\"assets\":[");
+        for (int i = 0; i < assetCount; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            appendAsset(builder, i);
+        }
+        return builder.append("]}").toString();
+    }
+
+    /**
+     * A batch issuance request body, with a distinct nonce and signature per issue.
+     */
+    static String issueRequest(int size) {
+        StringBuilder builder = new StringBuilder("{\"issues\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"owner\":\"").append(OWNER)
+                    .append("\",\"signature\":\"").append(signature(i))
+                    .append("\",\"asset_id\":\"").append(assetId(0))
+                    .append("\",\"nonce\":").append(i).append('}');
+        }
+        return builder.append("]}").toString();
+    }
+
+    static void appendBitmark(StringBuilder builder, int index, int assetIndex) {
+        builder.append("{\"id\":\"").append(hash(index))
+                .append("\",\"head_id\":\"").append(hash(index + 1))
+                .append("\",\"owner\":\"").append(OWNER)
+                .append("\",\"asset_id\":\"").append(assetId(assetIndex))
+                .append("\",\"issuer\":\"").append(OWNER)
+                .append("\",\"head\":\"moved\",\"status\":\"settled\"")
+                .append(",\"block_number\":").append(10000 + index)
+                .append(",\"offset\":").append(100000 + index)
+                .append(",\"edition\":").append(index)
+                .append(",\"created_at\":\"2019-05-14T09:11:23.000000Z\"")
+                .append(",\"confirmed_at\":\"2019-05-14T09:21:23.000000Z\"")
+                .append(",\"issued_at\":\"2019-05-14T09:11:23.000000Z\"}");
+    }
+
+    static void appendAsset(StringBuilder builder, int index) {
+        builder.append("{\"id\":\"").append(assetId(index))
+                .append("\",\"name\":\"asset ").append(index)
+                .append("\",\"metadata\":{\"source\":\"benchmark\",\"index\":\"")
+                .append(index)
+                .append("\"},\"fingerprint\":\"01").append(hash(index)).append(hash(index))
+                .append("\",\"registrant\":\"").append(OWNER)
+                .append("\",\"status\":\"confirmed\",\"block_number\":").append(9000 + index)
+                .append(",\"block_offset\":").append(index)
+                .append(",\"offset\":").append(50000 + index)
+                .append(",\"created_at\":\"2019-05-14T09:11:23.000000Z\"}");
+    }
+
+    static String hash(int index) {
+        return String.format(Locale.US, "%064x", index);
+    }
+
+    static String signature(int index) {
+        Random random = new Random(index);
+        return String.format(Locale.US, "%016x%016x%016x%016x%016x%016x%016x%016x",
+                random.nextLong(), random.nextLong(), random.nextLong(),
+                random.nextLong(), random.nextLong(), random.nextLong(),
+                random.nextLong(), random.nextLong()
+        );
+    }
+
+    static String assetId(int index) {
+        return hash(index) + hash(index);
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.benchmark;
+
+import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.utils.Address;
+import com.bitmark.apiservice.utils.ParallelSigner;
+import com.bitmark.cryptography.crypto.key.Ed25519KeyPair;
+import com.bitmark.cryptography.crypto.key.KeyPair;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
+
+/**
+ * Time to sign an issuance of {@code editions} bitmarks, two signatures per edition, on a
+ * {@link ForkJoinPool} of {@code threads} threads and on the calling thread only. The
+ * speedup over {@code serial} is bounded by the number of cores of the machine.
+ * <p>
+ * Run with {@code ./gradlew :benchmarks:jmh -Pjmh="SigningBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningBenchmark {
+
+    private static final KeyPair KEY = Ed25519KeyPair.from(
+            HEX.decode(
+                    "d1c177ef358e9d1f0d4b09328cc1213e8d3580703aee51ccf97e482be977f7bc"),
+            HEX.decode(
+                    "b0e77f0a27390a00e82c07d6d228999019dce17aa3fbc1958629a7a47bc1cf6dd1c177ef358e9d1f0d4b09328cc1213e8d3580703aee51ccf97e482be977f7bc")
+    );
+
+    @Param({"1000", "10000"})
+    public int editions;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private IssuanceParams params;
+
+    private ForkJoinPool pool;
+
+    private ParallelSigner signer;
+
+    @Setup
+    public void setup() {
+        params = new IssuanceParams(
+                HEX.encode(new byte[64]),
+                Address.fromAccountNumber(
+                        "fXXHGtCdFPuQvNhJ4nDPKCdwPxH7aSZ4842n2katZi319NsaCs"),
+                editions
+        );
+        pool = new ForkJoinPool(threads);
+        signer = ParallelSigner.builder().withExecutor(pool).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<byte[]> parallel() {
+        return params.sign(KEY, signer);
+    }
+
+    @Benchmark
+    public List<byte[]> serial() {
+        return params.sign(KEY, ParallelSigner.SERIAL);
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.benchmark;
+
+import com.bitmark.apiservice.params.TransferParams;
+import com.bitmark.apiservice.utils.callback.CompletableCallback;
+import com.bitmark.sdk.features.Account;
+import com.bitmark.sdk.features.Bitmark;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer {@code size} settled bitmarks with {@link Bitmark#transfer}, signing included,
+ * all in flight at once against the local {@link com.bitmark.testfixtures.BitmarkApiServer}.
+ * The bitmarks are issued before each invocation, outside of the measurement.
+ * <p>
+ * Run with {@code ./gradlew :benchmarks:jmh -Pjmh="TransferBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+
+    @Param({"10", "100"})
+    public int size;
+
+    private Account owner;
+
+    private Account receiver;
+
+    private List<String> bitmarkIds;
+
+    @Setup
+    public void setup() {
+        LocalApi.ledger();
+        owner = new Account();
+        receiver = new Account();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        LocalApi.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void seed() {
+        // a bitmark is its own head until it is transferred
+        bitmarkIds = LocalApi.ledger().seed(owner.getAccountNumber(), 1, size);
+    }
+
+    @Benchmark
+    public void transfer() {
+        final CompletableFuture<?>[] txIds = new CompletableFuture<?>[size];
+        for (int i = 0; i < size; i++) {
+            final TransferParams params = new TransferParams(
+                    receiver.toAddress(),
+                    bitmarkIds.get(i)
+            );
+            params.sign(owner.getAuthKeyPair());
+            txIds[i] = CompletableCallback.<String>call(
+                    callback -> Bitmark.transfer(params, callback));
+        }
+        CompletableFuture.allOf(txIds).join();
+    }
+}
@@ -122,7 +122,11 @@ public class Account {
     }
 
     public KeyPair getAuthKeyPair() {
-        return keyPair;
+        if (keyPair != null) {
+            return keyPair;
+        } else {
+            return seed.getAuthKeyPair();
+        }
     }
 
     public KeyPair getEncKeyPair() {
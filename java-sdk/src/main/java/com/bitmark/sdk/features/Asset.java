@@ -7,13 +7,19 @@
 package com.bitmark.sdk.features;
 
 import com.bitmark.apiservice.ApiService;
+import com.bitmark.apiservice.AsyncApiService;
+import com.bitmark.apiservice.paging.PageIterator;
+import com.bitmark.apiservice.paging.PagingPolicy;
 import com.bitmark.apiservice.params.RegistrationParams;
 import com.bitmark.apiservice.params.query.AssetQueryBuilder;
+import com.bitmark.apiservice.reactive.PagePublisher;
 import com.bitmark.apiservice.response.RegistrationResponse;
 import com.bitmark.apiservice.utils.callback.Callback1;
 import com.bitmark.apiservice.utils.record.AssetRecord;
+import org.reactivestreams.Publisher;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public class Asset {
 
@@ -35,4 +41,41 @@ public class Asset {
         ApiService.getInstance().listAssets(builder.build(), callback);
     }
 
+    /**
+     * List all assets matching the query, following the offsets from page to page. Pages
+     * are fetched lazily as the stream is consumed and only one page is held in memory.
+     */
+    public static Stream<AssetRecord> listAll(AssetQueryBuilder builder) {
+        return listAll(builder, PagingPolicy.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #listAll(AssetQueryBuilder)}, with the pages fetched as the
+     * {@link PagingPolicy} says, e.g. ahead of the consumer.
+     */
+    public static Stream<AssetRecord> listAll(
+            AssetQueryBuilder builder,
+            PagingPolicy policy
+    ) {
+        return new PageIterator<>(
+                builder,
+                AsyncApiService.getInstance()::listAssets,
+                AssetRecord::getOffset,
+                policy
+        ).stream();
+    }
+
+    /**
+     * Publish all assets matching the query, following the offsets from page to page. A
+     * page is fetched only when the subscriber requests more assets than are left of the
+     * previous one.
+     */
+    public static Publisher<AssetRecord> publishAll(AssetQueryBuilder builder) {
+        return new PagePublisher<>(
+                builder,
+                AsyncApiService.getInstance()::listAssets,
+                AssetRecord::getOffset
+        );
+    }
+
 }
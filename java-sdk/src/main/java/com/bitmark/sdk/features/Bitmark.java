@@ -7,8 +7,15 @@
 package com.bitmark.sdk.features;
 
 import com.bitmark.apiservice.ApiService;
+import com.bitmark.apiservice.AsyncApiService;
+import com.bitmark.apiservice.batch.BatchIssuer;
+import com.bitmark.apiservice.batch.BatchProgressListener;
+import com.bitmark.apiservice.paging.BitmarkBulkLookup;
+import com.bitmark.apiservice.paging.PageIterator;
+import com.bitmark.apiservice.paging.PagingPolicy;
 import com.bitmark.apiservice.params.*;
 import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.reactive.PagePublisher;
 import com.bitmark.apiservice.response.GetBitmarkResponse;
 import com.bitmark.apiservice.response.GetBitmarksResponse;
 import com.bitmark.apiservice.utils.Pair;
@@ -16,8 +23,12 @@ import com.bitmark.apiservice.utils.callback.Callback1;
 import com.bitmark.apiservice.utils.record.BitmarkRecord;
 import com.bitmark.apiservice.utils.record.ShareGrantRecord;
 import com.bitmark.apiservice.utils.record.ShareRecord;
+import org.reactivestreams.Publisher;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
 
 public class Bitmark {
 
@@ -28,6 +39,40 @@ public class Bitmark {
         ApiService.getInstance().issueBitmark(params, callback);
     }
 
+    /**
+     * Issue a quantity of bitmarks too large for one request, in chunks of the size the
+     * server accepts, a few chunks at a time. A chunk that fails is retried on its own,
+     * see {@link BatchIssuer} for the details and to configure the chunks.
+     *
+     * @param listener notified of every chunk issued or failed, or {@code null}
+     */
+    public static void issueInBatches(
+            IssuanceParams params,
+            BatchProgressListener listener,
+            Callback1<List<BitmarkRecord>> callback
+    ) {
+        BatchIssuer.builder(AsyncApiService.getInstance()::issueBitmark)
+                .withProgressListener(listener)
+                .build()
+                .issue(params)
+                .whenComplete((res, throwable) -> {
+                    if (throwable != null) {
+                        callback.onError(throwable instanceof CompletionException
+                                         ? throwable.getCause()
+                                         : throwable);
+                    } else {
+                        callback.onSuccess(res);
+                    }
+                });
+    }
+
+    public static void issueInBatches(
+            IssuanceParams params,
+            Callback1<List<BitmarkRecord>> callback
+    ) {
+        issueInBatches(params, null, callback);
+    }
+
     public static void transfer(
             TransferParams params,
             Callback1<String> callback
@@ -70,6 +115,35 @@ public class Bitmark {
         get(bitmarkId, true, callback);
     }
 
+    /**
+     * Get many bitmarks by id, in the order of the ids. The ids are sent in chunks that
+     * keep each request URL short, a few chunks at a time. Bitmarks that do not exist are
+     * left out of the response.
+     */
+    public static void getAll(
+            Collection<String> bitmarkIds, boolean loadAsset,
+            Callback1<GetBitmarksResponse> callback
+    ) {
+        new BitmarkBulkLookup(AsyncApiService.getInstance()::listBitmarks)
+                .lookup(bitmarkIds, loadAsset)
+                .whenComplete((res, throwable) -> {
+                    if (throwable != null) {
+                        callback.onError(throwable instanceof CompletionException
+                                         ? throwable.getCause()
+                                         : throwable);
+                    } else {
+                        callback.onSuccess(res);
+                    }
+                });
+    }
+
+    public static void getAll(
+            Collection<String> bitmarkIds,
+            Callback1<GetBitmarksResponse> callback
+    ) {
+        getAll(bitmarkIds, false, callback);
+    }
+
     public static void list(
             BitmarkQueryBuilder builder,
             Callback1<GetBitmarksResponse> callback
@@ -77,6 +151,48 @@ public class Bitmark {
         ApiService.getInstance().listBitmarks(builder.build(), callback);
     }
 
+    /**
+     * List all bitmarks matching the query, following the offsets from page to page. Pages
+     * are fetched lazily as the stream is consumed and only one page is held in memory.
+     * The assets of the bitmarks are not part of the stream, use {@link Asset#get}.
+     */
+    public static Stream<BitmarkRecord> listAll(BitmarkQueryBuilder builder) {
+        return listAll(builder, PagingPolicy.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #listAll(BitmarkQueryBuilder)}, with the pages fetched as the
+     * {@link PagingPolicy} says, e.g. ahead of the consumer.
+     */
+    public static Stream<BitmarkRecord> listAll(
+            BitmarkQueryBuilder builder,
+            PagingPolicy policy
+    ) {
+        return new PageIterator<>(
+                builder,
+                params -> AsyncApiService.getInstance()
+                        .listBitmarks(params)
+                        .thenApply(GetBitmarksResponse::getBitmarks),
+                BitmarkRecord::getOffset,
+                policy
+        ).stream();
+    }
+
+    /**
+     * Publish all bitmarks matching the query, following the offsets from page to page. A
+     * page is fetched only when the subscriber requests more bitmarks than are left of the
+     * previous one.
+     */
+    public static Publisher<BitmarkRecord> publishAll(BitmarkQueryBuilder builder) {
+        return new PagePublisher<>(
+                builder,
+                params -> AsyncApiService.getInstance()
+                        .listBitmarks(params)
+                        .thenApply(GetBitmarksResponse::getBitmarks),
+                BitmarkRecord::getOffset
+        );
+    }
+
     public static void createShare(
             ShareParams params,
             Callback1<Pair<String, String>> callback
@@ -6,28 +6,26 @@
  */
 package com.bitmark.sdk.features;
 
+import com.bitmark.apiservice.AsyncApiService;
 import com.bitmark.apiservice.params.TransferOfferParams;
 import com.bitmark.apiservice.params.TransferResponseParams;
 import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
-import com.bitmark.apiservice.response.GetBitmarkResponse;
-import com.bitmark.apiservice.response.GetBitmarksResponse;
-import com.bitmark.apiservice.utils.Awaitility;
-import com.bitmark.apiservice.utils.Pair;
 import com.bitmark.apiservice.utils.callback.Callback1;
 import com.bitmark.apiservice.utils.record.BitmarkRecord;
 import com.bitmark.apiservice.utils.record.OfferRecord;
-import java8.util.concurrent.CompletionException;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
-import static com.bitmark.apiservice.utils.Awaitility.await;
 import static com.bitmark.cryptography.utils.Validator.checkValid;
 
 public class Migration {
 
+    private static final int PAGE_SIZE = 100;
+
     public static void rekey(
             Account from,
             Account to,
@@ -58,29 +56,15 @@ public class Migration {
             List<OfferRecord> offers,
             Account receiver
     ) {
-        if (offers.isEmpty()) {
-            return CompletableFuture.supplyAsync(ArrayList::new);
-        }
-
-        return CompletableFuture.supplyAsync(() -> offers.stream()
+        final List<CompletableFuture<String>> txIds = offers.stream()
                 .map(offer -> {
                     TransferResponseParams param = TransferResponseParams.accept(
                             offer);
                     param.sign(receiver.getAuthKeyPair());
-                    return param;
+                    return AsyncApiService.getInstance().respondBitmarkOffer(param);
                 })
-                .map(param -> CompletableFuture.supplyAsync(() -> {
-                    try {
-                        return Awaitility.<String>await(callback -> Bitmark.respond(
-                                param,
-                                callback
-                        ));
-                    } catch (Throwable e) {
-                        throw new CompletionException(e);
-                    }
-                }))
-                .map(CompletableFuture::join)
-                .collect(Collectors.toList()));
+                .collect(Collectors.toList());
+        return allOf(txIds);
     }
 
     private static CompletableFuture<List<OfferRecord>> offer(
@@ -88,75 +72,67 @@ public class Migration {
             Account sender,
             Account receiver
     ) {
-        if (bitmarks.isEmpty()) {
-            return CompletableFuture.supplyAsync(ArrayList::new);
-        }
-
-        return CompletableFuture.supplyAsync(() -> {
-            List<Pair<String, TransferOfferParams>> params = bitmarks.stream()
-                    .map(bm -> {
-                        TransferOfferParams param = new TransferOfferParams(
-                                receiver.toAddress(),
-                                bm.getHeadId()
-                        );
-                        param.sign(sender.getAuthKeyPair());
-                        return new Pair<>(bm.getId(), param);
-                    })
-                    .collect(Collectors.toList());
-
-            return params.stream()
-                    .map(p -> CompletableFuture.supplyAsync(
-                            () -> {
-                                try {
-                                    String bitmarkId = p.first();
-                                    TransferOfferParams param = p.second();
-                                    Awaitility.<String>await(callback -> Bitmark
-                                            .offer(param, callback));
-                                    GetBitmarkResponse res = await(callback -> Bitmark
-                                            .get(bitmarkId, callback));
-                                    return res.getBitmark().getOffer();
-                                } catch (Throwable e) {
-                                    throw new CompletionException(e);
-                                }
-                            }))
-                    .map(CompletableFuture::join)
-                    .collect(Collectors.toList());
-        });
+        final AsyncApiService api = AsyncApiService.getInstance();
+        final List<CompletableFuture<OfferRecord>> offers = bitmarks.stream()
+                .map(bm -> {
+                    TransferOfferParams param = new TransferOfferParams(
+                            receiver.toAddress(),
+                            bm.getHeadId()
+                    );
+                    param.sign(sender.getAuthKeyPair());
+                    return api.offerBitmark(param)
+                            .thenCompose(offerId -> api.getBitmark(bm.getId(), false))
+                            .thenApply(res -> res.getBitmark().getOffer());
+                })
+                .collect(Collectors.toList());
+        return allOf(offers);
     }
 
     private static CompletableFuture<List<BitmarkRecord>> getOwningBitmarks(
             Account owner
     ) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                final List<BitmarkRecord> bitmarks = new ArrayList<>();
+        return getOwningBitmarks(owner, null, new ArrayList<>());
+    }
 
-                boolean existing = true;
-                Long offset = null;
-                while (existing) {
-                    BitmarkQueryBuilder builder = new BitmarkQueryBuilder().ownedBy(
-                            owner.getAccountNumber())
-                            .to("earlier")
-                            .limit(100)
-                            .pending(false);
-                    if (offset != null) {
-                        builder.at(offset);
-                    }
-                    GetBitmarksResponse res = await(callback -> Bitmark.list(
-                            builder,
-                            callback
-                    ));
+    private static CompletableFuture<List<BitmarkRecord>> getOwningBitmarks(
+            Account owner,
+            Long offset,
+            List<BitmarkRecord> bitmarks
+    ) {
+        BitmarkQueryBuilder builder = new BitmarkQueryBuilder().ownedBy(
+                owner.getAccountNumber())
+                .to("earlier")
+                .limit(PAGE_SIZE)
+                .pending(false);
+        if (offset != null) {
+            builder.at(offset);
+        }
+        return AsyncApiService.getInstance()
+                .listBitmarks(builder.build())
+                .thenCompose(res -> {
                     List<BitmarkRecord> bms = res.getBitmarks();
-                    existing = bms.size() == 100;
-                    if (existing) {
-                        offset = bms.get(bms.size() - 1).getOffset();
-                    }
                     bitmarks.addAll(bms);
-                }
-                return bitmarks;
-            } catch (Throwable e) {
-                throw new CompletionException(e);
-            }
-        });
+                    if (bms.size() < PAGE_SIZE) {
+                        return CompletableFuture.completedFuture(bitmarks);
+                    }
+                    return getOwningBitmarks(
+                            owner,
+                            bms.get(bms.size() - 1).getOffset(),
+                            bitmarks
+                    );
+                });
+    }
+
+    /**
+     * Wait for all futures without blocking and collect their values in order.
+     */
+    private static <T> CompletableFuture<List<T>> allOf(
+            List<CompletableFuture<T>> futures
+    ) {
+        final CompletableFuture<?>[] array = futures.toArray(new CompletableFuture<?>[0]);
+        return CompletableFuture.allOf(array)
+                .thenApply(ignored -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList()));
     }
 }
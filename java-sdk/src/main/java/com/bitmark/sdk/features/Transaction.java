@@ -7,10 +7,18 @@
 package com.bitmark.sdk.features;
 
 import com.bitmark.apiservice.ApiService;
+import com.bitmark.apiservice.AsyncApiService;
+import com.bitmark.apiservice.paging.PageIterator;
+import com.bitmark.apiservice.paging.PagingPolicy;
 import com.bitmark.apiservice.params.query.TransactionQueryBuilder;
+import com.bitmark.apiservice.reactive.PagePublisher;
 import com.bitmark.apiservice.response.GetTransactionResponse;
 import com.bitmark.apiservice.response.GetTransactionsResponse;
 import com.bitmark.apiservice.utils.callback.Callback1;
+import com.bitmark.apiservice.utils.record.TransactionRecord;
+import org.reactivestreams.Publisher;
+
+import java.util.stream.Stream;
 
 public class Transaction {
 
@@ -41,4 +49,46 @@ public class Transaction {
     ) {
         ApiService.getInstance().listTransactions(builder.build(), callback);
     }
+
+    /**
+     * List all transactions matching the query, following the offsets from page to page.
+     * Pages are fetched lazily as the stream is consumed and only one page is held in
+     * memory.
+     */
+    public static Stream<TransactionRecord> listAll(TransactionQueryBuilder builder) {
+        return listAll(builder, PagingPolicy.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #listAll(TransactionQueryBuilder)}, with the pages fetched as the
+     * {@link PagingPolicy} says, e.g. ahead of the consumer.
+     */
+    public static Stream<TransactionRecord> listAll(
+            TransactionQueryBuilder builder,
+            PagingPolicy policy
+    ) {
+        return new PageIterator<>(
+                builder,
+                params -> AsyncApiService.getInstance()
+                        .listTransactions(params)
+                        .thenApply(GetTransactionsResponse::getTransactions),
+                TransactionRecord::getOffset,
+                policy
+        ).stream();
+    }
+
+    /**
+     * Publish all transactions matching the query, following the offsets from page to
+     * page. A page is fetched only when the subscriber requests more transactions than
+     * are left of the previous one.
+     */
+    public static Publisher<TransactionRecord> publishAll(TransactionQueryBuilder builder) {
+        return new PagePublisher<>(
+                builder,
+                params -> AsyncApiService.getInstance()
+                        .listTransactions(params)
+                        .thenApply(GetTransactionsResponse::getTransactions),
+                TransactionRecord::getOffset
+        );
+    }
 }
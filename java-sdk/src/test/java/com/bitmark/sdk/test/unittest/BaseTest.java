@@ -8,19 +8,33 @@ package com.bitmark.sdk.test.unittest;
 
 import com.bitmark.apiservice.configuration.GlobalConfiguration;
 import com.bitmark.apiservice.configuration.Network;
+import com.bitmark.testfixtures.BitmarkApiServer;
 import okhttp3.logging.HttpLoggingInterceptor;
 import org.junit.jupiter.api.BeforeAll;
 import com.bitmark.sdk.features.BitmarkSDK;
 
+import java.io.IOException;
+
 public abstract class BaseTest {
 
     protected static final Network NETWORK = Network.TEST_NET;
 
-    @BeforeAll
-    public static void beforeAll() {
-        if (!BitmarkSDK.isInitialized())
-            BitmarkSDK.init(GlobalConfiguration.builder().withApiToken("bmk-lljpzkhqdkzmblhg").withNetwork(NETWORK).withLogLevel(HttpLoggingInterceptor.Level.NONE));
+    // The local stand-in for the API the SDK is initialized with, null if another test
+    // initialized it first
+    protected static BitmarkApiServer server;
 
+    @BeforeAll
+    public static void beforeAll() throws IOException {
+        if (!BitmarkSDK.isInitialized()) {
+            server = BitmarkApiServer.builder().build();
+            server.start();
+            BitmarkSDK.init(GlobalConfiguration.builder()
+                    .withApiToken("bmk-lljpzkhqdkzmblhg")
+                    .withNetwork(NETWORK)
+                    .withEndpoint(server.getEndpoint())
+                    .withWebSocketEndpoint(server.getWebSocketEndpoint())
+                    .withLogLevel(HttpLoggingInterceptor.Level.NONE));
+        }
     }
 
 }
@@ -219,6 +219,25 @@ public class AccountTest extends BaseTest {
 
     }
 
+    @ParameterizedTest
+    @MethodSource("createEncodedSeedAccountNumberPubKeyString")
+    public void testSignVerify_AccountFromSeed_SignedWithSeedKey(
+            String seed,
+            String accountNumber,
+            String publicKey
+    ) {
+        final byte[] message = Random.randomBytes(32);
+        final Account account = Account.fromSeed(seed);
+
+        final byte[] signature = assertDoesNotThrow(() -> account.sign(message));
+        assertTrue(Account.verify(accountNumber, signature, message));
+        assertFalse(Account.verify(
+                new Account().getAccountNumber(),
+                signature,
+                message
+        ));
+    }
+
     private static Stream<Arguments> createRecoveryPhraseAccountNumberPublicKey() {
         return Stream.of(
                 Arguments.of(
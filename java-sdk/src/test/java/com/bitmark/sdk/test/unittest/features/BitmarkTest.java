@@ -0,0 +1,119 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.sdk.test.unittest.features;
+
+import com.bitmark.apiservice.batch.BatchProgressListener;
+import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.response.GetBitmarksResponse;
+import com.bitmark.apiservice.utils.callback.CompletableCallback;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.sdk.features.Account;
+import com.bitmark.sdk.features.Bitmark;
+import com.bitmark.sdk.test.unittest.BaseTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class BitmarkTest extends BaseTest {
+
+    @BeforeEach
+    public void beforeEach() {
+        assumeTrue(server != null, "the SDK is initialized with another API server");
+    }
+
+    @Test
+    public void testIssueInBatches_LargeQuantity_AllBitmarksIssued() throws Exception {
+        final Account issuer = new Account();
+        final String assetId = server.getLedger().registerAsset(
+                issuer.getAccountNumber(),
+                "batch issuance",
+                Collections.emptyMap(),
+                UUID.randomUUID().toString()
+        );
+        final IssuanceParams params = new IssuanceParams(
+                assetId,
+                issuer.toAddress(),
+                250
+        );
+        params.setSigningKey(issuer.getAuthKeyPair());
+        final List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+        final CompletableCallback<List<BitmarkRecord>> callback =
+                new CompletableCallback<>();
+
+        Bitmark.issueInBatches(params, new BatchProgressListener() {
+            @Override
+            public void onChunkIssued(
+                    int chunk,
+                    List<BitmarkRecord> records,
+                    int issued,
+                    int total
+            ) {
+                progress.add(issued);
+            }
+
+            @Override
+            public void onChunkFailed(
+                    int chunk,
+                    Throwable error,
+                    int attempts,
+                    boolean retrying
+            ) {
+            }
+        }, callback);
+
+        final List<BitmarkRecord> bitmarks = callback.get(10, TimeUnit.SECONDS);
+        assertEquals(250, bitmarks.stream().map(BitmarkRecord::getId).distinct().count());
+        assertEquals(3, progress.size());
+        assertEquals(250, (int) Collections.max(progress));
+    }
+
+    @Test
+    public void testGetAll_SeededBitmarks_ReturnedInOrderOfIds() throws Exception {
+        final List<String> ids = new ArrayList<>(server.getLedger().seed(
+                UUID.randomUUID().toString(),
+                2,
+                30
+        ));
+        Collections.reverse(ids);
+        final List<String> requested = new ArrayList<>(ids);
+        requested.add(1, "missing");
+        final CompletableCallback<GetBitmarksResponse> callback =
+                new CompletableCallback<>();
+
+        Bitmark.getAll(requested, callback);
+
+        assertEquals(ids, callback.get(5, TimeUnit.SECONDS)
+                .getBitmarks()
+                .stream()
+                .map(BitmarkRecord::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testListAll_SeededBitmarks_AllPagesListed() {
+        final String owner = UUID.randomUUID().toString();
+        server.getLedger().seed(owner, 3, 90);
+
+        assertEquals(
+                270,
+                Bitmark.listAll(new BitmarkQueryBuilder().ownedBy(owner).limit(100))
+                        .map(BitmarkRecord::getId)
+                        .distinct()
+                        .count()
+        );
+    }
+}
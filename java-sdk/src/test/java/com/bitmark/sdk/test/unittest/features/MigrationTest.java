@@ -0,0 +1,47 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.sdk.test.unittest.features;
+
+import com.bitmark.apiservice.utils.callback.CompletableCallback;
+import com.bitmark.sdk.features.Account;
+import com.bitmark.sdk.features.Migration;
+import com.bitmark.sdk.test.unittest.BaseTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class MigrationTest extends BaseTest {
+
+    @BeforeEach
+    public void beforeEach() {
+        assumeTrue(server != null, "the SDK is initialized with another API server");
+    }
+
+    @Test
+    public void testRekey_OwnedBitmarks_AllMovedToNewAccount() throws Exception {
+        final Account from = new Account();
+        final Account to = new Account();
+        final List<String> bitmarkIds = server.getLedger().seed(
+                from.getAccountNumber(),
+                2,
+                3
+        );
+        final CompletableCallback<List<String>> callback = new CompletableCallback<>();
+
+        Migration.rekey(from, to, callback);
+
+        assertEquals(6, callback.get(10, TimeUnit.SECONDS).size());
+        for (String bitmarkId : bitmarkIds) {
+            assertEquals(to.getAccountNumber(), server.getLedger().getOwner(bitmarkId));
+        }
+    }
+}
@@ -0,0 +1,517 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.testfixtures;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.GzipSource;
+import okio.Okio;
+
+import javax.net.ServerSocketFactory;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A local stand-in for the Bitmark API, for offline tests and benchmarks. It serves the
+ * {@code /v3} endpoints used by {@code ApiService} from an in-memory {@link Ledger}, and a
+ * Centrifuge web socket ({@link CentrifugeStub}) that receives the events of the ledger.
+ * Latency and errors can be injected, reproducibly with a fixed random seed.
+ * <pre>
+ * BitmarkApiServer server = BitmarkApiServer.builder()
+ *         .withLatency(5, 20, TimeUnit.MILLISECONDS)
+ *         .build();
+ * server.start();
+ * GlobalConfiguration.builder()
+ *         .withApiToken("token")
+ *         .withEndpoint(server.getEndpoint())
+ *         .withWebSocketEndpoint(server.getWebSocketEndpoint())
+ *         .build();
+ * </pre>
+ */
+public class BitmarkApiServer implements AutoCloseable {
+
+    private static final String V3 = "/v3";
+
+    private static final String WEB_SOCKET_PATH = "/connection/websocket";
+
+    private static final Gson GSON = new Gson();
+
+    // MockWebServer logs every request at INFO, which costs more than serving it under load
+    private static final Logger MOCK_WEB_SERVER_LOGGER = Logger.getLogger(
+            MockWebServer.class.getName());
+
+    private static final Type OBJECT_MAP_TYPE = new TypeToken<Map<String, Object>>() {
+    }.getType();
+
+    private final MockWebServer server = new MockWebServer();
+
+    private final Ledger ledger;
+
+    private final CentrifugeStub centrifuge = new CentrifugeStub();
+
+    private final Builder builder;
+
+    private final Random random;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private BitmarkApiServer(Builder builder) {
+        this.builder = builder;
+        this.random = new Random(builder.randomSeed);
+        this.ledger = new Ledger(builder.metadataSize);
+        this.ledger.setEventListener(centrifuge::publish);
+        this.server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        this.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return BitmarkApiServer.this.dispatch(request);
+            }
+        });
+    }
+
+    public void start() throws IOException {
+        MOCK_WEB_SERVER_LOGGER.setLevel(Level.WARNING);
+        server.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    /**
+     * @return the endpoint to pass to {@code GlobalConfiguration.Builder#withEndpoint}
+     */
+    public String getEndpoint() {
+        final String url = server.url("/").toString();
+        return url.substring(0, url.length() - 1);
+    }
+
+    /**
+     * @return the endpoint to pass to
+     * {@code GlobalConfiguration.Builder#withWebSocketEndpoint}
+     */
+    public String getWebSocketEndpoint() {
+        return "ws://" + server.getHostName() + ":" + server.getPort() + WEB_SOCKET_PATH +
+                "?format=protobuf";
+    }
+
+    public Ledger getLedger() {
+        return ledger;
+    }
+
+    public CentrifugeStub getCentrifuge() {
+        return centrifuge;
+    }
+
+    /**
+     * @return the number of requests received, web socket upgrades included
+     */
+    public int getRequestCount() {
+        return server.getRequestCount();
+    }
+
+    private MockResponse dispatch(RecordedRequest request) {
+        final HttpUrl url = request.getRequestUrl();
+        if (url.encodedPath().equals(WEB_SOCKET_PATH)) {
+            return new MockResponse().withWebSocketUpgrade(centrifuge.newSession());
+        }
+        try {
+            delay();
+            if (injectError()) {
+                return error(builder.errorStatus, "injected error");
+            }
+            final MockResponse response = route(request, url);
+            if (builder.autoMining && !request.getMethod().equals("GET") &&
+                        response.getStatus().contains(" 200 ")) {
+                ledger.mineBlock();
+            }
+            return response;
+        } catch (NoSuchElementException e) {
+            return error(404, e.getMessage());
+        } catch (IllegalArgumentException | IllegalStateException | ClassCastException |
+                NullPointerException e) {
+            return error(400, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return error(500, "interrupted");
+        }
+    }
+
+    private MockResponse route(RecordedRequest request, HttpUrl url) {
+        final String method = request.getMethod();
+        final List<String> segments = url.pathSegments();
+        if (segments.size() < 2 || !("/" + segments.get(0)).equals(V3)) {
+            return error(404, "not found");
+        }
+        final String resource = segments.get(1);
+        final String id = segments.size() > 2 ? segments.get(2) : null;
+        switch (method + " " + resource) {
+            case "POST register-asset":
+                return registerAssets(body(request));
+            case "POST issue":
+                return issue(body(request));
+            case "POST transfer":
+                return transfer(body(request));
+            case "PATCH transfer":
+                return respond(body(request), false);
+            case "GET assets":
+                return ok(id == null
+                          ? ledger.listAssetsJson(url)
+                          : ledger.getAssetJson(id));
+            case "GET bitmarks":
+                return ok(id == null
+                          ? ledger.listBitmarksJson(url)
+                          : ledger.getBitmarkJson(id, isTrue(url, "asset")));
+            case "GET txs":
+                return ok(id == null
+                          ? ledger.listTransactionsJson(url)
+                          : ledger.getTransactionJson(id, isTrue(url, "asset")));
+            case "POST shares":
+                return createShare(body(request));
+            case "GET shares":
+                return ok(ledger.listSharesJson(
+                        url.queryParameter("share_id"),
+                        url.queryParameter("owner")
+                ));
+            case "POST share-offer":
+                return grantShare(body(request));
+            case "GET share-offer":
+                return ok(ledger.listShareOffersJson(
+                        url.queryParameter("from"),
+                        url.queryParameter("to")
+                ));
+            case "PATCH share-offer":
+                return respond(body(request), true);
+            case "POST ws-auth":
+                return ok(json("token", UUID.randomUUID().toString()));
+            default:
+                return error(404, "not found");
+        }
+    }
+
+    private MockResponse registerAssets(JsonObject body) {
+        final JsonArray result = new JsonArray();
+        for (JsonElement element : body.getAsJsonArray("assets")) {
+            final JsonObject asset = element.getAsJsonObject();
+            final String id = ledger.registerAsset(
+                    string(asset, "registrant"),
+                    string(asset, "name"),
+                    metadata(string(asset, "metadata")),
+                    string(asset, "fingerprint")
+            );
+            final JsonObject record = new JsonObject();
+            record.addProperty("id", id);
+            result.add(record);
+        }
+        final JsonObject json = new JsonObject();
+        json.add("assets", result);
+        return ok(json.toString());
+    }
+
+    private MockResponse issue(JsonObject body) {
+        final JsonArray result = new JsonArray();
+        for (JsonElement element : body.getAsJsonArray("issues")) {
+            final JsonObject issue = element.getAsJsonObject();
+            final JsonObject record = new JsonObject();
+            record.addProperty("id", ledger.issue(
+                    string(issue, "owner"),
+                    string(issue, "asset_id"),
+                    issue.get("nonce").getAsLong(),
+                    string(issue, "signature")
+            ));
+            result.add(record);
+        }
+        final JsonObject json = new JsonObject();
+        json.add("bitmarks", result);
+        return ok(json.toString());
+    }
+
+    private MockResponse transfer(JsonObject body) {
+        if (body.has("offer")) {
+            final JsonObject offer = body.getAsJsonObject("offer");
+            final JsonObject record = offer.getAsJsonObject("record");
+            return ok(json("offer_id", ledger.offer(
+                    string(record, "link"),
+                    string(record, "owner"),
+                    string(record, "signature"),
+                    GSON.fromJson(offer.get("extra_info"), OBJECT_MAP_TYPE)
+            )));
+        }
+        final JsonObject transfer = body.getAsJsonObject("transfer");
+        return ok(json("txid", ledger.transfer(
+                string(transfer, "link"),
+                string(transfer, "owner"),
+                string(transfer, "signature")
+        )));
+    }
+
+    private MockResponse respond(JsonObject body, boolean share) {
+        final String id = string(body, "id");
+        final String action = string(body, "action");
+        final String countersignature = string(body, "countersignature");
+        final String txId = share
+                            ? ledger.respondShareOffer(id, action, countersignature)
+                            : ledger.respondOffer(id, action, countersignature);
+        return ok(txId == null ? json("status", "ok") : json("txid", txId));
+    }
+
+    private MockResponse createShare(JsonObject body) {
+        final JsonObject share = body.getAsJsonObject("share");
+        final String[] ids = ledger.createShare(
+                string(share, "link"),
+                share.get("quantity").getAsInt(),
+                string(share, "signature")
+        );
+        final JsonObject json = new JsonObject();
+        json.addProperty("tx_id", ids[0]);
+        json.addProperty("share_id", ids[1]);
+        return ok(json.toString());
+    }
+
+    private MockResponse grantShare(JsonObject body) {
+        final JsonObject record = body.getAsJsonObject("record");
+        return ok(json("offer_id", ledger.grantShare(
+                string(record, "shareId"),
+                string(record, "owner"),
+                string(record, "recipient"),
+                record.get("quantity").getAsInt(),
+                record.get("beforeBlock").getAsLong(),
+                string(record, "signature"),
+                GSON.fromJson(body.get("extra_info"), OBJECT_MAP_TYPE)
+        )));
+    }
+
+    private void delay() throws InterruptedException {
+        final long min = builder.minLatency;
+        final long max = builder.maxLatency;
+        if (max <= 0) {
+            return;
+        }
+        final long latency;
+        synchronized (random) {
+            latency = min + (max > min ? (long) (random.nextDouble() * (max - min)) : 0);
+        }
+        TimeUnit.NANOSECONDS.sleep(latency);
+    }
+
+    private boolean injectError() {
+        if (builder.errorRate <= 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < builder.errorRate;
+        }
+    }
+
+    /**
+     * Read the JSON body, gzip compressed or not.
+     */
+    private static JsonObject body(RecordedRequest request) {
+        final Buffer body = request.getBody();
+        try {
+            final String json = "gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"))
+                                ? Okio.buffer(new GzipSource(body)).readUtf8()
+                                : body.readUtf8();
+            return new JsonParser().parse(json).getAsJsonObject();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("invalid body", e);
+        }
+    }
+
+    /**
+     * Decode the metadata of a registration, keys and values separated by {@code \u0000}.
+     */
+    private static Map<String, String> metadata(String metadata) {
+        if (metadata == null || metadata.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final String[] parts = metadata.split("\u0000", -1);
+        final Map<String, String> result = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < parts.length; i += 2) {
+            result.put(parts[i], parts[i + 1]);
+        }
+        return result;
+    }
+
+    private static String string(JsonObject json, String name) {
+        final JsonElement element = json.get(name);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    private static boolean isTrue(HttpUrl url, String name) {
+        return "true".equals(url.queryParameter(name));
+    }
+
+    private static String json(String name, String value) {
+        final JsonObject json = new JsonObject();
+        json.addProperty(name, value);
+        return json.toString();
+    }
+
+    private static MockResponse ok(String json) {
+        return new MockResponse().setResponseCode(200)
+                .setHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(json);
+    }
+
+    private static MockResponse error(int status, String message) {
+        final JsonObject json = new JsonObject();
+        json.addProperty("message", message);
+        return new MockResponse().setResponseCode(status)
+                .setHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(json.toString());
+    }
+
+    /**
+     * Disable Nagle's algorithm on the accepted sockets. MockWebServer writes the headers
+     * and the body of a response separately, and the delayed ACK of the client would hold
+     * the body back for 40ms on every request.
+     */
+    private static final class NoDelayServerSocketFactory extends ServerSocketFactory {
+
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    final Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            return createServerSocket(port, 50, null);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            return createServerSocket(port, backlog, null);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(
+                int port,
+                int backlog,
+                InetAddress address
+        ) throws IOException {
+            final ServerSocket serverSocket = createServerSocket();
+            serverSocket.bind(new InetSocketAddress(address, port), backlog);
+            return serverSocket;
+        }
+    }
+
+    public static final class Builder {
+
+        private long minLatency;
+
+        private long maxLatency; // disabled
+
+        private double errorRate; // disabled
+
+        private int errorStatus = 503;
+
+        private int metadataSize;
+
+        private boolean autoMining;
+
+        private long randomSeed = 42;
+
+        private Builder() {
+        }
+
+        /**
+         * Delay each API response by a uniformly random time between {@code min} and
+         * {@code max}.
+         */
+        public Builder withLatency(long min, long max, TimeUnit timeUnit) {
+            if (min < 0 || max < min || timeUnit == null) {
+                throw new IllegalArgumentException("invalid latency");
+            }
+            this.minLatency = timeUnit.toNanos(min);
+            this.maxLatency = timeUnit.toNanos(max);
+            return this;
+        }
+
+        /**
+         * Fail a fraction of the API requests with {@code status} instead of serving them.
+         *
+         * @param rate between 0 and 1
+         */
+        public Builder withErrorRate(double rate, int status) {
+            if (rate < 0 || rate > 1 || status < 400) {
+                throw new IllegalArgumentException("invalid error rate");
+            }
+            this.errorRate = rate;
+            this.errorStatus = status;
+            return this;
+        }
+
+        /**
+         * Pad the metadata of each asset with {@code size} characters, to grow the
+         * responses that carry assets.
+         */
+        public Builder withMetadataSize(int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("invalid metadata size");
+            }
+            this.metadataSize = size;
+            return this;
+        }
+
+        /**
+         * Confirm the writes in a new block right after each write request, instead of
+         * waiting for {@link Ledger#mineBlock()}.
+         */
+        public Builder withAutoMining(boolean autoMining) {
+            this.autoMining = autoMining;
+            return this;
+        }
+
+        /**
+         * The seed of the latency and error injection. Fixed by default so runs are
+         * reproducible.
+         */
+        public Builder withRandomSeed(long randomSeed) {
+            this.randomSeed = randomSeed;
+            return this;
+        }
+
+        public BitmarkApiServer build() {
+            return new BitmarkApiServer(this);
+        }
+    }
+}
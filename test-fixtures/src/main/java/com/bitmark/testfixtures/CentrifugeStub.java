@@ -0,0 +1,175 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.testfixtures;
+
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.bitmark.testfixtures.Protobuf.bytesField;
+import static com.bitmark.testfixtures.Protobuf.longField;
+import static com.bitmark.testfixtures.Protobuf.stringField;
+
+/**
+ * A stand-in for the Centrifuge server behind the Bitmark web socket. It speaks the
+ * protobuf format of the Centrifuge client protocol ({@code ?format=protobuf}), accepts
+ * any connection token, and answers the connect, subscribe, unsubscribe and ping commands.
+ * Events are pushed to the subscribers of a channel with {@link #publish(String, String)}.
+ */
+public class CentrifugeStub {
+
+    static final int CONNECT = 0;
+
+    static final int SUBSCRIBE = 1;
+
+    static final int UNSUBSCRIBE = 2;
+
+    static final int PING = 7;
+
+    private static final int ERROR_METHOD_NOT_FOUND = 104;
+
+    private static final int ERROR_BAD_REQUEST = 107;
+
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @return a listener serving a new web socket connection
+     */
+    WebSocketListener newSession() {
+        return new Session();
+    }
+
+    /**
+     * Push an event to all clients subscribed to {@code channel}.
+     *
+     * @param data the JSON data of the event
+     * @return the number of clients the event is pushed to
+     */
+    public int publish(String channel, String data) {
+        final byte[] publication = new Protobuf.Writer()
+                .bytes(4, data.getBytes(Protobuf.UTF_8))
+                .toByteArray();
+        final byte[] push = new Protobuf.Writer()
+                .string(2, channel)
+                .bytes(3, publication)
+                .toByteArray();
+        final byte[] reply = new Protobuf.Writer().bytes(3, push).toDelimitedByteArray();
+        int count = 0;
+        for (Session session : sessions) {
+            if (session.channels.contains(channel) && session.send(reply)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of connected clients
+     */
+    public int getConnectionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return the number of clients subscribed to {@code channel}
+     */
+    public int getSubscriberCount(String channel) {
+        int count = 0;
+        for (Session session : sessions) {
+            if (session.channels.contains(channel)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private final class Session extends WebSocketListener {
+
+        private final Set<String> channels = ConcurrentHashMap.newKeySet();
+
+        private volatile WebSocket webSocket;
+
+        @Override
+        public void onOpen(WebSocket webSocket, Response response) {
+            this.webSocket = webSocket;
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, ByteString bytes) {
+            for (byte[] command : Protobuf.split(bytes.toByteArray())) {
+                final byte[] reply = handle(Protobuf.decode(command));
+                if (reply != null) {
+                    webSocket.send(ByteString.of(reply));
+                }
+            }
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, String text) {
+            webSocket.close(1003, "only the protobuf format is supported");
+        }
+
+        @Override
+        public void onClosing(WebSocket webSocket, int code, String reason) {
+            sessions.remove(this);
+            webSocket.close(1000, null);
+        }
+
+        @Override
+        public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+            sessions.remove(this);
+        }
+
+        private byte[] handle(Map<Integer, Object> command) {
+            final long id = longField(command, 1);
+            final int method = (int) longField(command, 2);
+            final Map<Integer, Object> params = Protobuf.decode(bytesField(command, 3));
+            final Protobuf.Writer reply = new Protobuf.Writer().varint(1, id);
+            switch (method) {
+                case CONNECT:
+                    sessions.add(this);
+                    reply.bytes(3, new Protobuf.Writer()
+                            .string(1, UUID.randomUUID().toString())
+                            .string(2, "0.0.0")
+                            .toByteArray());
+                    break;
+                case SUBSCRIBE:
+                    final String channel = stringField(params, 1);
+                    if (channel.isEmpty()) {
+                        reply.bytes(2, error(ERROR_BAD_REQUEST, "bad request"));
+                    } else {
+                        channels.add(channel);
+                    }
+                    break;
+                case UNSUBSCRIBE:
+                    channels.remove(stringField(params, 1));
+                    break;
+                case PING:
+                    break;
+                default:
+                    reply.bytes(2, error(ERROR_METHOD_NOT_FOUND, "method not found"));
+                    break;
+            }
+            return reply.toDelimitedByteArray();
+        }
+
+        private boolean send(byte[] message) {
+            final WebSocket webSocket = this.webSocket;
+            return webSocket != null && webSocket.send(ByteString.of(message));
+        }
+
+        private byte[] error(int code, String message) {
+            return new Protobuf.Writer().varint(1, code).string(2, message).toByteArray();
+        }
+    }
+}
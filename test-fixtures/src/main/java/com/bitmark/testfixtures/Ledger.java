@@ -0,0 +1,926 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.testfixtures;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.annotations.SerializedName;
+import okhttp3.HttpUrl;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The in-memory state of {@link BitmarkApiServer}: assets, bitmarks, transactions, offers
+ * and shares. Writes are pending until the next {@link #mineBlock()}. Nothing is verified,
+ * signatures and account numbers are stored as they are sent.
+ * <p>
+ * Invalid requests throw {@link IllegalArgumentException}, unknown records
+ * {@link NoSuchElementException}.
+ */
+public class Ledger {
+
+    private static final Gson GSON = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .create();
+
+    private static final int MAX_LIMIT = 100;
+
+    private final int metadataSize;
+
+    private final Map<String, Asset> assets = new LinkedHashMap<>();
+
+    private final Map<String, Bitmark> bitmarks = new LinkedHashMap<>();
+
+    private final Map<String, Tx> txs = new LinkedHashMap<>();
+
+    private final Map<String, Bitmark> heads = new HashMap<>();
+
+    private final Map<String, Offer> offers = new HashMap<>();
+
+    private final Map<String, Map<String, Share>> shares = new LinkedHashMap<>();
+
+    private final Map<String, ShareGrant> grants = new LinkedHashMap<>();
+
+    private final Map<Long, Block> blocks = new HashMap<>();
+
+    private final Map<String, Integer> editions = new HashMap<>();
+
+    // the records by their current offset, to list a page without scanning all records
+    private final NavigableMap<Long, Asset> assetOffsets = new TreeMap<>();
+
+    private final NavigableMap<Long, Bitmark> bitmarkOffsets = new TreeMap<>();
+
+    private final NavigableMap<Long, Tx> txOffsets = new TreeMap<>();
+
+    private long offset;
+
+    private long blockNumber = 1;
+
+    private volatile BiConsumer<String, String> eventListener = (channel, data) -> {
+    };
+
+    /**
+     * @param metadataSize the number of padding characters added to the metadata of each
+     *                     asset, to grow the responses that carry assets
+     */
+    Ledger(int metadataSize) {
+        this.metadataSize = metadataSize;
+    }
+
+    /**
+     * Receive the web socket events, as the channel and the JSON data.
+     */
+    void setEventListener(BiConsumer<String, String> eventListener) {
+        this.eventListener = eventListener;
+    }
+
+    public synchronized String registerAsset(
+            String registrant,
+            String name,
+            Map<String, String> metadata,
+            String fingerprint
+    ) {
+        checkArgument(registrant, "registrant");
+        checkArgument(fingerprint, "fingerprint");
+        final String id = hash("SHA-512", fingerprint);
+        if (assets.containsKey(id)) {
+            return id;
+        }
+        final Asset asset = new Asset();
+        asset.id = id;
+        asset.name = name;
+        asset.fingerprint = fingerprint;
+        asset.registrant = registrant;
+        asset.metadata = new LinkedHashMap<>(metadata);
+        if (metadataSize > 0) {
+            asset.metadata.put("padding", padding(metadataSize));
+        }
+        asset.status = "pending";
+        move(asset, ++offset);
+        asset.createdAt = now();
+        assets.put(id, asset);
+        return id;
+    }
+
+    public synchronized String issue(
+            String owner,
+            String assetId,
+            long nonce,
+            String signature
+    ) {
+        checkArgument(owner, "owner");
+        checkArgument(signature, "signature");
+        if (!assets.containsKey(assetId)) {
+            throw new IllegalArgumentException("asset not found: " + assetId);
+        }
+        final String id = hash("SHA-256", owner, assetId, String.valueOf(nonce), signature);
+        if (bitmarks.containsKey(id)) {
+            throw new IllegalArgumentException("bitmark already issued: " + id);
+        }
+        final String now = now();
+        final Bitmark bitmark = new Bitmark();
+        bitmark.id = id;
+        bitmark.headId = id;
+        bitmark.owner = owner;
+        bitmark.assetId = assetId;
+        bitmark.issuer = owner;
+        bitmark.head = "head";
+        bitmark.status = "issuing";
+        bitmark.edition = editions.merge(assetId, 1, Integer::sum) - 1;
+        bitmark.createdAt = now;
+        bitmark.issuedAt = now;
+        bitmark.owners.add(owner);
+
+        final Tx tx = new Tx();
+        tx.id = id;
+        tx.owner = owner;
+        tx.assetId = assetId;
+        tx.bitmarkId = id;
+        tx.head = "head";
+        tx.status = "pending";
+        tx.offset = ++offset;
+        txOffsets.put(tx.offset, tx);
+        move(bitmark, tx.offset);
+
+        bitmarks.put(id, bitmark);
+        heads.put(id, bitmark);
+        txs.put(id, tx);
+        emit("bitmark_pending_change:" + owner, "bitmark_id", id);
+        emit("bitmark_changed:" + owner, "bitmark_id", id, "tx_id", id, "presence", true);
+        return id;
+    }
+
+    /**
+     * @return the id of the transfer transaction
+     */
+    public synchronized String transfer(String link, String owner, String signature) {
+        checkArgument(owner, "owner");
+        final Bitmark bitmark = head(link);
+        if (bitmark.offer != null) {
+            throw new IllegalArgumentException("bitmark is being offered: " + bitmark.id);
+        }
+        return transfer(bitmark, owner, hash("SHA-256", link, owner, signature), false);
+    }
+
+    /**
+     * @return the id of the offer
+     */
+    public synchronized String offer(
+            String link,
+            String receiver,
+            String signature,
+            Map<String, Object> extraInfo
+    ) {
+        checkArgument(receiver, "receiver");
+        final Bitmark bitmark = head(link);
+        if (bitmark.offer != null) {
+            throw new IllegalArgumentException("bitmark is being offered: " + bitmark.id);
+        }
+        final Offer offer = new Offer();
+        offer.id = UUID.randomUUID().toString();
+        offer.from = bitmark.owner;
+        offer.to = receiver;
+        offer.record = new Offer.Record();
+        offer.record.link = link;
+        offer.record.owner = receiver;
+        offer.record.signature = signature;
+        offer.extraInfo = extraInfo == null ? Collections.emptyMap() : extraInfo;
+        offer.createdAt = now();
+        offer.open = true;
+        offer.previousStatus = bitmark.status;
+        bitmark.offer = offer;
+        bitmark.status = "offering";
+        move(bitmark, ++offset);
+        offers.put(offer.id, offer);
+        emit("tx_offer#" + receiver, "bitmark_id", bitmark.id);
+        return offer.id;
+    }
+
+    /**
+     * @param action {@code accept}, {@code reject} or {@code cancel}
+     * @return the id of the transfer transaction if accepted, otherwise {@code null}
+     */
+    public synchronized String respondOffer(
+            String offerId,
+            String action,
+            String countersignature
+    ) {
+        final Offer offer = offers.remove(offerId);
+        if (offer == null) {
+            throw new NoSuchElementException("offer not found: " + offerId);
+        }
+        final Bitmark bitmark = head(offer.record.link);
+        bitmark.offer = null;
+        move(bitmark, ++offset);
+        switch (action) {
+            case "accept":
+                return transfer(
+                        bitmark,
+                        offer.to,
+                        hash("SHA-256", offer.record.link, offer.to, countersignature),
+                        true
+                );
+            case "reject":
+            case "cancel":
+                bitmark.status = offer.previousStatus;
+                return null;
+            default:
+                throw new IllegalArgumentException("invalid action: " + action);
+        }
+    }
+
+    /**
+     * Split a bitmark into {@code quantity} shares, all owned by its owner.
+     *
+     * @return the transaction id and the share id
+     */
+    public synchronized String[] createShare(String link, int quantity, String signature) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("invalid quantity: " + quantity);
+        }
+        final Bitmark bitmark = head(link);
+        if (shares.containsKey(bitmark.id)) {
+            throw new IllegalArgumentException("bitmark is already shared: " + bitmark.id);
+        }
+        final String owner = bitmark.owner;
+        final String txId = transfer(bitmark, owner, hash("SHA-256", link, signature), false);
+        final Share share = new Share();
+        share.shareId = bitmark.id;
+        share.owner = owner;
+        share.balance = quantity;
+        share.available = quantity;
+        shares.put(bitmark.id, new LinkedHashMap<>(Collections.singletonMap(owner, share)));
+        return new String[]{txId, bitmark.id};
+    }
+
+    /**
+     * @return the id of the share offer
+     */
+    public synchronized String grantShare(
+            String shareId,
+            String owner,
+            String receiver,
+            int quantity,
+            long beforeBlock,
+            String signature,
+            Map<String, Object> extraInfo
+    ) {
+        final Share share = share(shareId, owner);
+        if (quantity <= 0 || quantity > share.available) {
+            throw new IllegalArgumentException("invalid quantity: " + quantity);
+        }
+        share.available -= quantity;
+        final ShareGrant grant = new ShareGrant();
+        grant.id = UUID.randomUUID().toString();
+        grant.shareId = shareId;
+        grant.from = owner;
+        grant.to = receiver;
+        grant.status = "open";
+        grant.record = new ShareGrant.Record();
+        grant.record.shareId = shareId;
+        grant.record.quantity = quantity;
+        grant.record.owner = owner;
+        grant.record.recipient = receiver;
+        grant.record.beforeBlock = beforeBlock;
+        grant.record.signature = signature;
+        grant.extraInfo = extraInfo == null ? Collections.emptyMap() : extraInfo;
+        grant.createdAt = now();
+        grants.put(grant.id, grant);
+        return grant.id;
+    }
+
+    /**
+     * @return the transaction id if accepted, otherwise {@code null}
+     */
+    public synchronized String respondShareOffer(
+            String grantId,
+            String action,
+            String countersignature
+    ) {
+        final ShareGrant grant = grants.get(grantId);
+        if (grant == null || !grant.status.equals("open")) {
+            throw new NoSuchElementException("share offer not found: " + grantId);
+        }
+        final Share from = share(grant.shareId, grant.from);
+        switch (action) {
+            case "accept":
+                from.balance -= grant.record.quantity;
+                final Share to = shares.get(grant.shareId).computeIfAbsent(
+                        grant.to,
+                        owner -> {
+                            Share share = new Share();
+                            share.shareId = grant.shareId;
+                            share.owner = owner;
+                            return share;
+                        }
+                );
+                to.balance += grant.record.quantity;
+                to.available += grant.record.quantity;
+                grant.status = "accepted";
+                grant.txId = hash("SHA-256", grantId, countersignature);
+                return grant.txId;
+            case "reject":
+            case "cancel":
+                from.available += grant.record.quantity;
+                grant.status = action.equals("reject") ? "rejected" : "cancelled";
+                return null;
+            default:
+                throw new IllegalArgumentException("invalid action: " + action);
+        }
+    }
+
+    /**
+     * Confirm all pending records in a new block.
+     *
+     * @return the number of the new block
+     */
+    public synchronized long mineBlock() {
+        final long number = ++blockNumber;
+        final String now = now();
+        for (Tx tx : txs.values()) {
+            if (tx.status.equals("confirmed")) {
+                tx.confirmation++;
+            } else {
+                tx.status = "confirmed";
+                tx.blockNumber = number;
+                tx.blockOffset = tx.offset;
+                tx.confirmation = 1;
+                final Block block = new Block();
+                block.number = number;
+                block.hash = hash("SHA-256", String.valueOf(number));
+                block.bitmarkId = tx.bitmarkId;
+                block.createdAt = now;
+                blocks.putIfAbsent(number, block);
+            }
+        }
+        for (Asset asset : assets.values()) {
+            if (asset.status.equals("pending")) {
+                asset.status = "confirmed";
+                asset.blockNumber = number;
+                asset.blockOffset = asset.offset;
+                move(asset, ++offset);
+            }
+        }
+        for (Bitmark bitmark : bitmarks.values()) {
+            if (bitmark.status.equals("issuing") || bitmark.status.equals("transferring")) {
+                bitmark.status = "settled";
+                bitmark.blockNumber = number;
+                bitmark.confirmedAt = now;
+                move(bitmark, ++offset);
+            }
+        }
+        emit("blockchain:new-block", "block_number", number);
+        return number;
+    }
+
+    /**
+     * Register {@code assetCount} assets of {@code owner} and issue
+     * {@code bitmarksPerAsset} bitmarks of each, all confirmed.
+     *
+     * @return the ids of the bitmarks, in the order they were issued
+     */
+    public synchronized List<String> seed(String owner, int assetCount, int bitmarksPerAsset) {
+        final List<String> ids = new ArrayList<>(assetCount * bitmarksPerAsset);
+        for (int i = 0; i < assetCount; i++) {
+            final String fingerprint = "01" + hash("SHA-512", owner, "seed", String.valueOf(
+                    assets.size()));
+            final String assetId = registerAsset(
+                    owner,
+                    "asset " + assets.size(),
+                    Collections.singletonMap("source", "seed"),
+                    fingerprint
+            );
+            for (int nonce = 0; nonce < bitmarksPerAsset; nonce++) {
+                ids.add(issue(owner, assetId, nonce, hash("SHA-256", assetId,
+                        String.valueOf(nonce)
+                )));
+            }
+        }
+        mineBlock();
+        return ids;
+    }
+
+    public synchronized int getAssetCount() {
+        return assets.size();
+    }
+
+    public synchronized int getBitmarkCount() {
+        return bitmarks.size();
+    }
+
+    public synchronized int getTransactionCount() {
+        return txs.size();
+    }
+
+    public synchronized long getBlockNumber() {
+        return blockNumber;
+    }
+
+    /**
+     * @return the current owner of the bitmark
+     */
+    public synchronized String getOwner(String bitmarkId) {
+        return bitmark(bitmarkId).owner;
+    }
+
+    synchronized String getAssetJson(String assetId) {
+        final JsonObject json = new JsonObject();
+        json.add("asset", GSON.toJsonTree(asset(assetId)));
+        return json.toString();
+    }
+
+    synchronized String getBitmarkJson(String bitmarkId, boolean loadAsset) {
+        final Bitmark bitmark = bitmark(bitmarkId);
+        final JsonObject json = new JsonObject();
+        json.add("bitmark", GSON.toJsonTree(bitmark));
+        if (loadAsset) {
+            json.add("asset", GSON.toJsonTree(assets.get(bitmark.assetId)));
+        }
+        return json.toString();
+    }
+
+    synchronized String getTransactionJson(String txId, boolean loadAsset) {
+        final Tx tx = txs.get(txId);
+        if (tx == null) {
+            throw new NoSuchElementException("transaction not found: " + txId);
+        }
+        final JsonObject json = new JsonObject();
+        json.add("tx", GSON.toJsonTree(tx));
+        if (loadAsset) {
+            json.add("asset", GSON.toJsonTree(assets.get(tx.assetId)));
+        }
+        return json.toString();
+    }
+
+    synchronized String listAssetsJson(HttpUrl url) {
+        final String registrant = url.queryParameter("registrant");
+        final Set<String> ids = new HashSet<>(url.queryParameterValues("asset_ids"));
+        final boolean pending = !"false".equals(url.queryParameter("pending"));
+        final List<Asset> page = page(url, assetOffsets, asset ->
+                (registrant == null || registrant.equals(asset.registrant)) &&
+                        (ids.isEmpty() || ids.contains(asset.id)) &&
+                        (pending || asset.status.equals("confirmed")));
+        final JsonObject json = new JsonObject();
+        json.add("assets", GSON.toJsonTree(page));
+        return json.toString();
+    }
+
+    synchronized String listBitmarksJson(HttpUrl url) {
+        final String owner = url.queryParameter("owner");
+        final boolean sent = "true".equals(url.queryParameter("sent"));
+        final String issuer = url.queryParameter("issued_by");
+        final String assetId = url.queryParameter("asset_id");
+        final String offerTo = url.queryParameter("offer_to");
+        final String offerFrom = url.queryParameter("offer_from");
+        final Set<String> ids = new HashSet<>(url.queryParameterValues("bitmark_ids"));
+        final boolean pending = !"false".equals(url.queryParameter("pending"));
+        final List<Bitmark> page = page(url, bitmarkOffsets,
+                bitmark -> (owner == null || owner.equals(bitmark.owner) ||
+                        (sent && bitmark.owners.contains(owner))) &&
+                        (issuer == null || issuer.equals(bitmark.issuer)) &&
+                        (assetId == null || assetId.equals(bitmark.assetId)) &&
+                        (offerTo == null || bitmark.offer != null &&
+                                offerTo.equals(bitmark.offer.to)) &&
+                        (offerFrom == null || bitmark.offer != null &&
+                                offerFrom.equals(bitmark.offer.from)) &&
+                        (ids.isEmpty() || ids.contains(bitmark.id)) &&
+                        (pending || bitmark.status.equals("settled"))
+        );
+        final JsonObject json = new JsonObject();
+        json.add("bitmarks", GSON.toJsonTree(page));
+        if ("true".equals(url.queryParameter("asset"))) {
+            json.add("assets", GSON.toJsonTree(assetsOf(page, b -> b.assetId)));
+        }
+        return json.toString();
+    }
+
+    synchronized String listTransactionsJson(HttpUrl url) {
+        final String owner = url.queryParameter("owner");
+        final boolean sent = "true".equals(url.queryParameter("sent"));
+        final String assetId = url.queryParameter("asset_id");
+        final String bitmarkId = url.queryParameter("bitmark_id");
+        final String block = url.queryParameter("block_number");
+        final boolean pending = !"false".equals(url.queryParameter("pending"));
+        final List<Tx> page = page(url, txOffsets, tx ->
+                (owner == null || owner.equals(tx.owner) ||
+                        (sent && owner.equals(tx.previousOwner))) &&
+                        (assetId == null || assetId.equals(tx.assetId)) &&
+                        (bitmarkId == null || bitmarkId.equals(tx.bitmarkId)) &&
+                        (block == null || Long.parseLong(block) == tx.blockNumber) &&
+                        (pending || tx.status.equals("confirmed")));
+        final JsonObject json = new JsonObject();
+        json.add("txs", GSON.toJsonTree(page));
+        if ("true".equals(url.queryParameter("asset"))) {
+            json.add("assets", GSON.toJsonTree(assetsOf(page, tx -> tx.assetId)));
+        }
+        if ("true".equals(url.queryParameter("block"))) {
+            json.add("blocks", GSON.toJsonTree(page.stream()
+                    .map(tx -> blocks.get(tx.blockNumber))
+                    .filter(b -> b != null)
+                    .distinct()
+                    .collect(Collectors.toList())));
+        }
+        return json.toString();
+    }
+
+    synchronized String listSharesJson(String shareId, String owner) {
+        final List<Share> result = new ArrayList<>();
+        for (Map<String, Share> holders : shares.values()) {
+            for (Share share : holders.values()) {
+                if ((shareId == null || shareId.equals(share.shareId)) &&
+                            (owner == null || owner.equals(share.owner))) {
+                    result.add(share);
+                }
+            }
+        }
+        final JsonObject json = new JsonObject();
+        json.add("shares", GSON.toJsonTree(result));
+        return json.toString();
+    }
+
+    synchronized String listShareOffersJson(String from, String to) {
+        final List<ShareGrant> result = grants.values()
+                .stream()
+                .filter(grant -> grant.status.equals("open") &&
+                        (from == null || from.isEmpty() || from.equals(grant.from)) &&
+                        (to == null || to.isEmpty() || to.equals(grant.to)))
+                .collect(Collectors.toList());
+        final JsonObject json = new JsonObject();
+        json.add("offers", GSON.toJsonTree(result));
+        return json.toString();
+    }
+
+    private String transfer(
+            Bitmark bitmark,
+            String owner,
+            String txId,
+            boolean countersign
+    ) {
+        final Tx previous = txs.get(bitmark.headId);
+        previous.head = "prior";
+        final Tx tx = new Tx();
+        tx.id = txId;
+        tx.owner = owner;
+        tx.assetId = bitmark.assetId;
+        tx.bitmarkId = bitmark.id;
+        tx.head = "head";
+        tx.status = "pending";
+        tx.previousId = previous.id;
+        tx.previousOwner = previous.owner;
+        tx.countersign = countersign;
+        tx.offset = ++offset;
+        txOffsets.put(tx.offset, tx);
+        txs.put(txId, tx);
+
+        heads.remove(bitmark.headId);
+        heads.put(txId, bitmark);
+        final String previousOwner = bitmark.owner;
+        bitmark.headId = txId;
+        bitmark.owner = owner;
+        bitmark.owners.add(owner);
+        bitmark.status = "transferring";
+        move(bitmark, tx.offset);
+
+        emit("bitmark_changed:" + previousOwner, "bitmark_id", bitmark.id, "tx_id", txId,
+                "presence", previousOwner.equals(owner)
+        );
+        emit("bitmark_changed:" + owner, "bitmark_id", bitmark.id, "tx_id", txId,
+                "presence", true
+        );
+        for (String stakeholder : new LinkedHashSet<>(Arrays.asList(previousOwner, owner))) {
+            emit("tx_pending_change:" + stakeholder, "tx_id", txId, "owner", owner,
+                    "previous_tx_id", previous.id, "previous_owner", previousOwner
+            );
+        }
+        return txId;
+    }
+
+    private <T> List<T> page(
+            HttpUrl url,
+            NavigableMap<Long, T> records,
+            Predicate<T> filter
+    ) {
+        final boolean later = "later".equals(url.queryParameter("to"));
+        final String at = url.queryParameter("at");
+        final String limit = url.queryParameter("limit");
+        final int size = limit == null
+                         ? MAX_LIMIT
+                         : Math.min(MAX_LIMIT, Integer.parseInt(limit));
+        NavigableMap<Long, T> range = records;
+        if (at != null) {
+            range = later
+                    ? records.tailMap(Long.parseLong(at), true)
+                    : records.headMap(Long.parseLong(at), true);
+        }
+        final List<T> page = new ArrayList<>(size);
+        for (T record : later ? range.values() : range.descendingMap().values()) {
+            if (page.size() == size) {
+                break;
+            }
+            if (filter.test(record)) {
+                page.add(record);
+            }
+        }
+        return page;
+    }
+
+    private void move(Asset asset, long offset) {
+        assetOffsets.remove(asset.offset);
+        asset.offset = offset;
+        assetOffsets.put(offset, asset);
+    }
+
+    private void move(Bitmark bitmark, long offset) {
+        bitmarkOffsets.remove(bitmark.offset);
+        bitmark.offset = offset;
+        bitmarkOffsets.put(offset, bitmark);
+    }
+
+    private <T> List<Asset> assetsOf(List<T> records, Function<T, String> assetId) {
+        final Map<String, Asset> result = new LinkedHashMap<>();
+        for (T record : records) {
+            final Asset asset = assets.get(assetId.apply(record));
+            if (asset != null) {
+                result.putIfAbsent(asset.id, asset);
+            }
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    private Asset asset(String assetId) {
+        final Asset asset = assets.get(assetId);
+        if (asset == null) {
+            throw new NoSuchElementException("asset not found: " + assetId);
+        }
+        return asset;
+    }
+
+    private Bitmark bitmark(String bitmarkId) {
+        final Bitmark bitmark = bitmarks.get(bitmarkId);
+        if (bitmark == null) {
+            throw new NoSuchElementException("bitmark not found: " + bitmarkId);
+        }
+        return bitmark;
+    }
+
+    private Bitmark head(String link) {
+        final Bitmark bitmark = link == null ? null : heads.get(link);
+        if (bitmark == null) {
+            throw new IllegalArgumentException("link is not the head of a bitmark: " + link);
+        }
+        return bitmark;
+    }
+
+    private Share share(String shareId, String owner) {
+        final Map<String, Share> holders = shares.get(shareId);
+        final Share share = holders == null ? null : holders.get(owner);
+        if (share == null) {
+            throw new NoSuchElementException("share not found: " + shareId);
+        }
+        return share;
+    }
+
+    private void emit(String channel, Object... keyValues) {
+        final JsonObject json = new JsonObject();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            json.add((String) keyValues[i], GSON.toJsonTree(keyValues[i + 1]));
+        }
+        eventListener.accept(channel, json.toString());
+    }
+
+    private static void checkArgument(String value, String name) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+    }
+
+    private static String now() {
+        return Instant.now().toString();
+    }
+
+    private static String padding(int size) {
+        final char[] chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            chars[i] = (char) ('a' + i % 26);
+        }
+        return new String(chars);
+    }
+
+    static String hash(String algorithm, String... parts) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance(algorithm);
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes(Protobuf.UTF_8));
+                digest.update((byte) 0);
+            }
+            final StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format(Locale.US, "%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class Asset {
+
+        String id;
+
+        String name;
+
+        Map<String, String> metadata;
+
+        String fingerprint;
+
+        String registrant;
+
+        String status;
+
+        long blockNumber;
+
+        long blockOffset;
+
+        long offset;
+
+        String createdAt;
+    }
+
+    static final class Bitmark {
+
+        String id;
+
+        String headId;
+
+        String owner;
+
+        String assetId;
+
+        String issuer;
+
+        String head;
+
+        String status;
+
+        long blockNumber;
+
+        long offset;
+
+        int edition;
+
+        String createdAt;
+
+        String issuedAt;
+
+        String confirmedAt;
+
+        Offer offer;
+
+        final transient Set<String> owners = new HashSet<>();
+    }
+
+    static final class Tx {
+
+        String id;
+
+        String owner;
+
+        String assetId;
+
+        String bitmarkId;
+
+        String head;
+
+        String status;
+
+        long blockNumber;
+
+        long blockOffset;
+
+        long offset;
+
+        String previousId;
+
+        String previousOwner;
+
+        boolean countersign;
+
+        int confirmation;
+    }
+
+    static final class Block {
+
+        long number;
+
+        String hash;
+
+        String bitmarkId;
+
+        String createdAt;
+    }
+
+    static final class Offer {
+
+        String id;
+
+        String from;
+
+        String to;
+
+        Record record;
+
+        Map<String, Object> extraInfo;
+
+        String createdAt;
+
+        boolean open;
+
+        transient String previousStatus;
+
+        static final class Record {
+
+            String link;
+
+            String owner;
+
+            String signature;
+        }
+    }
+
+    static final class Share {
+
+        String shareId;
+
+        String owner;
+
+        int balance;
+
+        int available;
+    }
+
+    static final class ShareGrant {
+
+        String id;
+
+        String shareId;
+
+        String from;
+
+        String to;
+
+        String status;
+
+        @SerializedName("txId")
+        String txId;
+
+        Record record;
+
+        Map<String, Object> extraInfo;
+
+        String createdAt;
+
+        static final class Record {
+
+            @SerializedName("shareId")
+            String shareId;
+
+            int quantity;
+
+            String owner;
+
+            String recipient;
+
+            @SerializedName("beforeBlock")
+            long beforeBlock;
+
+            String signature;
+        }
+    }
+}
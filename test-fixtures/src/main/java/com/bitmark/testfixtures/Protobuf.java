@@ -0,0 +1,167 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.testfixtures;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The subset of the protobuf wire format used by the Centrifuge protocol: varint and
+ * length-delimited fields, and varint length-delimited messages.
+ */
+final class Protobuf {
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int VARINT = 0;
+
+    private static final int FIXED64 = 1;
+
+    private static final int LENGTH_DELIMITED = 2;
+
+    private static final int FIXED32 = 5;
+
+    private Protobuf() {
+    }
+
+    /**
+     * Decode the fields of a message. A varint field is a {@link Long}, a length-delimited
+     * field is a {@code byte[]}. Only the last value of a repeated field is kept.
+     */
+    static Map<Integer, Object> decode(byte[] message) {
+        final Map<Integer, Object> fields = new HashMap<>();
+        final int[] position = {0};
+        while (position[0] < message.length) {
+            final long tag = readVarint(message, position);
+            final int field = (int) (tag >>> 3);
+            switch ((int) (tag & 0x07)) {
+                case VARINT:
+                    fields.put(field, readVarint(message, position));
+                    break;
+                case LENGTH_DELIMITED:
+                    final int length = (int) readVarint(message, position);
+                    fields.put(field, Arrays.copyOfRange(
+                            message,
+                            position[0],
+                            position[0] + length
+                    ));
+                    position[0] += length;
+                    break;
+                case FIXED64:
+                    position[0] += 8;
+                    break;
+                case FIXED32:
+                    position[0] += 4;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unsupported wire type in " + tag);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Split a frame into its varint length-delimited messages.
+     */
+    static List<byte[]> split(byte[] frame) {
+        final List<byte[]> messages = new ArrayList<>();
+        final int[] position = {0};
+        while (position[0] < frame.length) {
+            final int length = (int) readVarint(frame, position);
+            messages.add(Arrays.copyOfRange(frame, position[0], position[0] + length));
+            position[0] += length;
+        }
+        return messages;
+    }
+
+    static long longField(Map<Integer, Object> fields, int field) {
+        final Object value = fields.get(field);
+        return value instanceof Long ? (Long) value : 0;
+    }
+
+    static byte[] bytesField(Map<Integer, Object> fields, int field) {
+        final Object value = fields.get(field);
+        return value instanceof byte[] ? (byte[]) value : new byte[0];
+    }
+
+    static String stringField(Map<Integer, Object> fields, int field) {
+        return new String(bytesField(fields, field), UTF_8);
+    }
+
+    private static long readVarint(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    /**
+     * Encode a message. Fields with the default value are left out, as protobuf does.
+     */
+    static final class Writer {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Writer varint(int field, long value) {
+            if (value != 0) {
+                writeVarint((long) field << 3 | VARINT);
+                writeVarint(value);
+            }
+            return this;
+        }
+
+        Writer bool(int field, boolean value) {
+            return varint(field, value ? 1 : 0);
+        }
+
+        Writer bytes(int field, byte[] value) {
+            if (value != null && value.length > 0) {
+                writeVarint((long) field << 3 | LENGTH_DELIMITED);
+                writeVarint(value.length);
+                out.write(value, 0, value.length);
+            }
+            return this;
+        }
+
+        Writer string(int field, String value) {
+            return value == null ? this : bytes(field, value.getBytes(UTF_8));
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        /**
+         * @return the message prefixed with its varint length
+         */
+        byte[] toDelimitedByteArray() {
+            final byte[] message = out.toByteArray();
+            final Writer writer = new Writer();
+            writer.writeVarint(message.length);
+            writer.out.write(message, 0, message.length);
+            return writer.toByteArray();
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+}
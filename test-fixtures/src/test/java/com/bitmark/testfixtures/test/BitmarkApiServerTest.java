@@ -0,0 +1,283 @@
+/**
+ * SPDX-License-Identifier: ISC
+ * Copyright © 2014-2019 Bitmark. All rights reserved.
+ * Use of this source code is governed by an ISC
+ * license that can be found in the LICENSE file.
+ */
+package com.bitmark.testfixtures.test;
+
+import com.bitmark.apiservice.AsyncApiService;
+import com.bitmark.apiservice.configuration.GlobalConfiguration;
+import com.bitmark.apiservice.configuration.Network;
+import com.bitmark.apiservice.configuration.RetryPolicy;
+import com.bitmark.apiservice.paging.PageIterator;
+import com.bitmark.apiservice.params.IssuanceParams;
+import com.bitmark.apiservice.params.RegistrationParams;
+import com.bitmark.apiservice.params.TransferOfferParams;
+import com.bitmark.apiservice.params.TransferParams;
+import com.bitmark.apiservice.params.TransferResponseParams;
+import com.bitmark.apiservice.params.query.BitmarkQueryBuilder;
+import com.bitmark.apiservice.response.GetBitmarkResponse;
+import com.bitmark.apiservice.response.GetTransactionResponse;
+import com.bitmark.apiservice.utils.Address;
+import com.bitmark.apiservice.utils.record.AssetRecord;
+import com.bitmark.apiservice.utils.record.BitmarkRecord;
+import com.bitmark.apiservice.utils.record.OfferRecord;
+import com.bitmark.cryptography.crypto.key.Ed25519KeyPair;
+import com.bitmark.cryptography.crypto.key.KeyPair;
+import com.bitmark.testfixtures.BitmarkApiServer;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.bitmark.cryptography.crypto.encoder.Hex.HEX;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitmarkApiServerTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static Address ADDRESS1;
+
+    private static final KeyPair KEY1 = Ed25519KeyPair.from(
+            HEX.decode(
+                    "d1c177ef358e9d1f0d4b09328cc1213e8d3580703aee51ccf97e482be977f7bc"),
+            HEX.decode(
+                    "b0e77f0a27390a00e82c07d6d228999019dce17aa3fbc1958629a7a47bc1cf6dd1c177ef358e9d1f0d4b09328cc1213e8d3580703aee51ccf97e482be977f7bc")
+    );
+
+    private static Address ADDRESS2;
+
+    private static final KeyPair KEY2 = Ed25519KeyPair.from(
+            HEX.decode(
+                    "9bdf52f23deb941ea23cec982c24a5c811d321e71f6df56508bd511f66311e06"),
+            HEX.decode(
+                    "4534075cbcfc6ada1bb6b9e53d53f72341746031d9d17a3089a117766e7cda9e9bdf52f23deb941ea23cec982c24a5c811d321e71f6df56508bd511f66311e06")
+    );
+
+    private static BitmarkApiServer server;
+
+    @BeforeAll
+    public static void beforeAll() throws Exception {
+        server = BitmarkApiServer.builder().build();
+        server.start();
+        GlobalConfiguration.createInstance(GlobalConfiguration.builder()
+                .withNetwork(Network.TEST_NET)
+                .withApiToken("bmk-test")
+                .withEndpoint(server.getEndpoint())
+                .withWebSocketEndpoint(server.getWebSocketEndpoint())
+                .withRetryPolicy(RetryPolicy.NONE));
+        ADDRESS1 = Address.fromAccountNumber(
+                "fXXHGtCdFPuQvNhJ4nDPKCdwPxH7aSZ4842n2katZi319NsaCs");
+        ADDRESS2 = Address.fromAccountNumber(
+                "f7nuKToBByL3jEcArZWoB9PJ8MVmGPjrYkW88v3Yw8p7G5Sxhy");
+    }
+
+    @AfterAll
+    public static void afterAll() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testIssueAndTransfer_ApiService_LedgerUpdated() throws Exception {
+        final AsyncApiService api = AsyncApiService.getInstance();
+        final String assetId = registerAsset("issue and transfer");
+
+        IssuanceParams issuance = new IssuanceParams(assetId, ADDRESS1, 3);
+        issuance.sign(KEY1);
+        List<BitmarkRecord> issued = api.issueBitmark(issuance).get(5, TimeUnit.SECONDS);
+        assertEquals(3, issued.size());
+        final String bitmarkId = issued.get(0).getId();
+
+        GetBitmarkResponse pending = api.getBitmark(bitmarkId, true).get(5, TimeUnit.SECONDS);
+        assertEquals(BitmarkRecord.Status.ISSUING, pending.getBitmark().getStatus());
+        assertEquals(assetId, pending.getAsset().getId());
+
+        server.getLedger().mineBlock();
+        GetBitmarkResponse settled = api.getBitmark(bitmarkId, false).get(5, TimeUnit.SECONDS);
+        assertEquals(BitmarkRecord.Status.SETTLED, settled.getBitmark().getStatus());
+
+        TransferParams transfer = new TransferParams(ADDRESS2, settled.getBitmark().getHeadId());
+        transfer.sign(KEY1);
+        final String txId = api.transferBitmark(transfer).get(5, TimeUnit.SECONDS);
+
+        GetTransactionResponse tx = api.getTransaction(txId, false).get(5, TimeUnit.SECONDS);
+        assertEquals(ADDRESS2.getAddress(), tx.getTransaction().getOwner());
+        assertEquals(ADDRESS1.getAddress(), tx.getTransaction().getPreviousOwner());
+        assertEquals(ADDRESS2.getAddress(), server.getLedger().getOwner(bitmarkId));
+    }
+
+    @Test
+    public void testOfferAndAccept_ApiService_OwnerChanged() throws Exception {
+        final AsyncApiService api = AsyncApiService.getInstance();
+        final String bitmarkId = server.getLedger()
+                .seed(ADDRESS1.getAddress(), 1, 1)
+                .get(0);
+        final String headId = api.getBitmark(bitmarkId, false)
+                .get(5, TimeUnit.SECONDS)
+                .getBitmark()
+                .getHeadId();
+
+        TransferOfferParams offer = new TransferOfferParams(ADDRESS2, headId);
+        offer.sign(KEY1);
+        api.offerBitmark(offer).get(5, TimeUnit.SECONDS);
+
+        OfferRecord record = api.getBitmark(bitmarkId, false)
+                .get(5, TimeUnit.SECONDS)
+                .getBitmark()
+                .getOffer();
+        assertEquals(ADDRESS2.getAddress(), record.getTo());
+
+        TransferResponseParams accept = TransferResponseParams.accept(record);
+        accept.sign(KEY2);
+        assertFalse(api.respondBitmarkOffer(accept).get(5, TimeUnit.SECONDS).isEmpty());
+        assertEquals(ADDRESS2.getAddress(), server.getLedger().getOwner(bitmarkId));
+    }
+
+    @Test
+    public void testListAll_SeededBitmarks_AllPagesListed() {
+        // the stand-in server does not validate account numbers, a dedicated owner keeps
+        // the bitmarks of the other tests out of the listing
+        final String owner = "seeded-owner";
+        server.getLedger().seed(owner, 3, 90);
+        final long count = new PageIterator<>(
+                new BitmarkQueryBuilder().ownedBy(owner).limit(100),
+                params -> AsyncApiService.getInstance()
+                        .listBitmarks(params)
+                        .thenApply(res -> res.getBitmarks()),
+                BitmarkRecord::getOffset
+        ).stream().count();
+        assertEquals(270, count);
+    }
+
+    @Test
+    public void testErrorRate_AllRequestsFailed_ErrorStatusReturned() throws Exception {
+        try (BitmarkApiServer failing = BitmarkApiServer.builder()
+                .withErrorRate(1, 503)
+                .build()) {
+            failing.start();
+            try (Response response = get(failing.getEndpoint() + "/v3/bitmarks")) {
+                assertEquals(503, response.code());
+            }
+        }
+    }
+
+    @Test
+    public void testLatency_FixedLatency_ResponseDelayed() throws Exception {
+        try (BitmarkApiServer slow = BitmarkApiServer.builder()
+                .withLatency(100, 100, TimeUnit.MILLISECONDS)
+                .build()) {
+            slow.start();
+            final long start = System.nanoTime();
+            try (Response response = get(slow.getEndpoint() + "/v3/assets")) {
+                assertEquals(200, response.code());
+            }
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    @Test
+    public void testCentrifuge_SubscribedChannel_LedgerEventPushed() throws Exception {
+        final String owner = ADDRESS1.getAddress();
+        final BlockingQueue<byte[]> replies = new LinkedBlockingQueue<>();
+        final WebSocket webSocket = new OkHttpClient().newWebSocket(
+                new Request.Builder().url(server.getWebSocketEndpoint()).build(),
+                new WebSocketListener() {
+                    @Override
+                    public void onMessage(WebSocket webSocket, ByteString bytes) {
+                        replies.add(bytes.toByteArray());
+                    }
+                }
+        );
+        try {
+            // connect, then subscribe to the bitmark changes of the owner
+            webSocket.send(ByteString.of(delimited(
+                    varint(1, 1),
+                    field(3, field(1, "token"))
+            )));
+            assertNotNull(replies.poll(5, TimeUnit.SECONDS));
+            webSocket.send(ByteString.of(delimited(
+                    varint(1, 2),
+                    varint(2, 1),
+                    field(3, field(1, "bitmark_changed:" + owner))
+            )));
+            assertNotNull(replies.poll(5, TimeUnit.SECONDS));
+            assertEquals(
+                    1,
+                    server.getCentrifuge().getSubscriberCount("bitmark_changed:" + owner)
+            );
+
+            final String bitmarkId = server.getLedger().seed(owner, 1, 1).get(0);
+            final byte[] push = replies.poll(5, TimeUnit.SECONDS);
+            assertNotNull(push);
+            final String event = new String(push, UTF_8);
+            assertTrue(event.contains("bitmark_changed:" + owner));
+            assertTrue(event.contains(bitmarkId));
+        } finally {
+            webSocket.close(1000, null);
+        }
+    }
+
+    private static String registerAsset(String name) throws Exception {
+        RegistrationParams params = new RegistrationParams(
+                name,
+                Collections.singletonMap("name", name)
+        );
+        params.setFingerprintFromData(name.getBytes(UTF_8));
+        params.sign(KEY1);
+        List<AssetRecord> assets = AsyncApiService.getInstance()
+                .registerAsset(params)
+                .get(5, TimeUnit.SECONDS)
+                .getAssets();
+        return assets.get(0).getId();
+    }
+
+    private static Response get(String url) throws Exception {
+        return new OkHttpClient().newCall(new Request.Builder().url(url).build()).execute();
+    }
+
+    /**
+     * Encode a protobuf varint field, values below 128 only.
+     */
+    private static byte[] varint(int field, int value) {
+        return new byte[]{(byte) (field << 3), (byte) value};
+    }
+
+    /**
+     * Encode a protobuf length-delimited field, values shorter than 128 bytes only.
+     */
+    private static byte[] field(int field, byte[] value) {
+        return concat(new byte[]{(byte) (field << 3 | 2), (byte) value.length}, value);
+    }
+
+    private static byte[] field(int field, String value) {
+        return field(field, value.getBytes(UTF_8));
+    }
+
+    private static byte[] delimited(byte[]... fields) {
+        final byte[] message = concat(fields);
+        return concat(new byte[]{(byte) message.length}, message);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+}